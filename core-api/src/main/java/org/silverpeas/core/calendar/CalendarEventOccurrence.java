@@ -31,6 +31,7 @@ import org.silverpeas.core.contribution.model.Contribution;
 import org.silverpeas.core.contribution.model.ContributionIdentifier;
 import org.silverpeas.core.contribution.model.WysiwygContent;
 import org.silverpeas.core.date.Period;
+import org.silverpeas.core.date.TemporalConverter;
 import org.silverpeas.core.persistence.Transaction;
 import org.silverpeas.core.persistence.datasource.model.IdentifiableEntity;
 import org.silverpeas.core.persistence.datasource.model.identifier.ExternalStringIdentifier;
@@ -43,8 +44,10 @@ import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.time.temporal.Temporal;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
@@ -231,6 +234,45 @@ public class CalendarEventOccurrence
     return occurrences;
   }
 
+  /**
+   * Gets the first event occurrences that occur in the specified window of time of a given
+   * calendar. The occurrences of the events are generated lazily and merged by their start date,
+   * so that only the occurrences to return are computed whatever the size of the window of time.
+   * @param timeWindow a window of time of a calendar.
+   * @param limit the maximum number of occurrences to get.
+   * @return a list of event occurrences sorted by the date and time at which they start or an
+   * empty list if there is no occurrences of events in the specified window of time.
+   */
+  static List<CalendarEventOccurrence> getFirstOccurrencesIn(final CalendarTimeWindow timeWindow,
+      final int limit) {
+    final List<CalendarEventOccurrence> modified = CalendarEventOccurrenceRepository.get()
+        .getAll(timeWindow.getEvents(), timeWindow.getPeriod());
+    final OffsetDateTime end = timeWindow.getEndDate().atStartOfDay(ZoneOffset.UTC)
+        .toOffsetDateTime();
+    final List<CalendarEventOccurrence> occurrences = new ArrayList<>(limit + modified.size());
+    final Iterator<CalendarEventOccurrence> generated = generator()
+        .streamOccurrencesOf(timeWindow.getEvents(),
+            timeWindow.getStartDate().atStartOfDay(ZoneOffset.UTC))
+        .iterator();
+    int count = 0;
+    while (count < limit && generated.hasNext()) {
+      final CalendarEventOccurrence occurrence = generated.next();
+      if (!TemporalConverter.asOffsetDateTime(occurrence.getStartDate()).isBefore(end)) {
+        break;
+      }
+      // the modified occurrences replace the generated ones and they are sorted below
+      if (!modified.contains(occurrence)) {
+        occurrences.add(occurrence);
+        count++;
+      }
+    }
+    occurrences.addAll(modified);
+    occurrences.sort(
+        Comparator.comparing(o -> TemporalConverter.asOffsetDateTime(o.getStartDate())));
+    return occurrences.size() > limit ? new ArrayList<>(occurrences.subList(0, limit)) :
+        occurrences;
+  }
+
   @Override
   @SuppressWarnings("unchecked")
   public Optional<CalendarEvent> getParent() {
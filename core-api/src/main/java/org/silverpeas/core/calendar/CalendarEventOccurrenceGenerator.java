@@ -28,6 +28,7 @@ import org.silverpeas.core.util.ServiceProvider;
 
 import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * A generator of occurrences of {@link CalendarEvent} instances that will occur in a given period
@@ -104,4 +105,24 @@ public interface CalendarEventOccurrenceGenerator {
    * can be computed.
    */
   CalendarEventOccurrence generateNextOccurrenceOf(CalendarEvent event, ZonedDateTime since);
+
+  /**
+   * Generates lazily the occurrences of the specified events that aren't yet ended at the given
+   * date time, merged and sorted by the date and time at which they start. An occurrence in
+   * progress at the given date time is then the first one of its event.
+   *
+   * The occurrences are computed only as the stream is consumed, so that the searches of the
+   * next occurrences compute only the occurrences they take instead of all the occurrences of a
+   * period (see {@link CalendarTimeWindow#getFirstEventOccurrences(int)}). For an endless
+   * recurrence, the stream is infinite and it has to be limited by the caller. As with
+   * {@link #generateOccurrencesOf(List, Period)}, the occurrences are generated from the events
+   * only: the occurrences modified and persisted apart aren't taken into account.
+   *
+   * This method requires to be implemented.
+   * @param events the events.
+   * @param since the date time since which the occurrences are generated.
+   * @return an ordered stream of the occurrences of the events.
+   */
+  Stream<CalendarEventOccurrence> streamOccurrencesOf(List<CalendarEvent> events,
+      ZonedDateTime since);
 }
@@ -92,6 +92,18 @@ public class CalendarTimeWindow {
     return CalendarEventOccurrence.getOccurrencesIn(this);
   }
 
+  /**
+   * Gets the first occurrences of events that occur in this window of time, once the filtering
+   * applied. Unlike {@link #getEventOccurrences()}, the occurrences aren't all computed: the
+   * occurrences of the events are generated lazily by their start date until the given limit is
+   * reached, which is faster for a large window of time or for events recurring often.
+   * @param limit the maximum number of occurrences to get.
+   * @return a list of event occurrences sorted by the date and time at which they start.
+   */
+  public List<CalendarEventOccurrence> getFirstEventOccurrences(final int limit) {
+    return CalendarEventOccurrence.getFirstOccurrencesIn(this, limit);
+  }
+
   /**
    * Gets all the events that have at least one occurrence in this window of time, once the
    * filtering applied. If no filters were previously defined, then all the events that occur in
@@ -29,6 +29,7 @@ import org.silverpeas.core.util.StringUtil;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.Optional;
 
 import static org.silverpeas.core.util.StringUtil.defaultStringIfNotDefined;
 
@@ -89,6 +90,28 @@ public interface ServerEvent {
     return true;
   }
 
+  /**
+   * Gets the identifier of the session to which the event is exclusively targeted, if any.<br>
+   * The event is then dispatched only to the asynchronous contexts opened by this session instead
+   * of being checked against all the opened ones. {@link #isConcerned(String, User)} must be
+   * consistent with it.
+   * @return an optional identifier of session, empty if the event isn't targeted to a session.
+   */
+  default Optional<String> getTargetedSessionId() {
+    return Optional.empty();
+  }
+
+  /**
+   * Gets the identifier of the user to whom the event is exclusively targeted, if any.<br>
+   * The event is then dispatched only to the asynchronous contexts opened by this user instead
+   * of being checked against all the opened ones. {@link #isConcerned(String, User)} must be
+   * consistent with it.
+   * @return an optional identifier of user, empty if the event isn't targeted to a user.
+   */
+  default Optional<String> getTargetedUserId() {
+    return Optional.empty();
+  }
+
   /**
    * Sends the event by using the given response and taking into account the receiver linked to.
    * <br>
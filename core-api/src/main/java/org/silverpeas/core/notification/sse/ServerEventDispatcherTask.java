@@ -36,14 +36,22 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Future;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import static java.text.MessageFormat.format;
 import static java.util.Collections.emptyList;
@@ -55,12 +63,18 @@ import static org.silverpeas.core.thread.ManagedThreadPool.ExecutionConfig.defau
  * <br>
  * {@link javax.servlet.Servlet} implementation must call
  * {@link #registerAsyncContext(SilverpeasAsyncContext)} to be taken into account.
+ * <p>
+ * The registered contexts are indexed by session and by user so that an event targeted to a
+ * session or to a user (see {@link ServerEvent#getTargetedSessionId()} and
+ * {@link ServerEvent#getTargetedUserId()}) is only dispatched to the contexts concerned by it.
+ * The sends are performed over shards of contexts, each shard being processed by its own thread,
+ * so that a slow client slows down only the clients of its shard.
+ * </p>
  */
 public class ServerEventDispatcherTask extends AbstractRequestTask {
 
   private static final int MIN_LIFE_TIME = 40000;
-  private static final Set<SilverpeasAsyncContext> synchronizedContexts =
-      Collections.synchronizedSet(new LinkedHashSet<>(2000));
+  private static final AsyncContextRegistry contexts = new AsyncContextRegistry();
 
   /**
    * Hidden constructor.
@@ -78,10 +92,10 @@ public class ServerEventDispatcherTask extends AbstractRequestTask {
    * @param context the instance to unregister.
    */
   static void unregisterAsyncContext(SilverpeasAsyncContext context) {
-    if (synchronizedContexts.remove(context)) {
+    if (contexts.remove(context)) {
       SseLogger.get().debug(() -> format(
           "Unregistering {0}, handling now {1} {1,choice, 1#async context| 1<async contexts}",
-          context, synchronizedContexts.size()));
+          context, contexts.size()));
       context.complete();
     }
   }
@@ -91,7 +105,7 @@ public class ServerEventDispatcherTask extends AbstractRequestTask {
    * @return a list of asynchronous context.
    */
   static List<SilverpeasAsyncContext> getAsyncContextSnapshot() {
-    return new ArrayList<>(synchronizedContexts);
+    return contexts.getAll();
   }
 
   /**
@@ -100,13 +114,8 @@ public class ServerEventDispatcherTask extends AbstractRequestTask {
    *
    */
   public static void unregisterBySessionId(String sessionId) {
-    List<SilverpeasAsyncContext> contextsToRemove = new ArrayList<>();
-    synchronizedContexts.forEach(c -> {
-      if (sessionId.equals(c.getSessionId())) {
-        contextsToRemove.add(c);
-      }
-    });
-    contextsToRemove.forEach(ServerEventDispatcherTask::unregisterAsyncContext);
+    contexts.getBySessionId(sessionId)
+        .forEach(ServerEventDispatcherTask::unregisterAsyncContext);
   }
 
   /**
@@ -116,10 +125,10 @@ public class ServerEventDispatcherTask extends AbstractRequestTask {
    */
   public static void registerAsyncContext(SilverpeasAsyncContext context) {
     serverEventStore.cleanExpired();
-    synchronizedContexts.add(context);
+    contexts.add(context);
     SseLogger.get().debug(() -> format(
         "Registering {0}, handling now {1} {1,choice, 1#async context| 1<async contexts}", context,
-        synchronizedContexts.size()));
+        contexts.size()));
   }
 
   /**
@@ -164,6 +173,54 @@ public class ServerEventDispatcherTask extends AbstractRequestTask {
     RequestTaskManager.push(ServerEventDispatcherTask.class, request);
   }
 
+  /**
+   * Performs the given send on each of the given asynchronous contexts.<br>
+   * The contexts are split into at most as many shards as the size of the send thread pool, each
+   * shard being processed sequentially by its own thread. When there is only one shard, it is
+   * processed by the current thread. This method returns once all the shards are processed.
+   * @param asyncContexts the asynchronous contexts on which the send has to be performed.
+   * @param send the send to perform on a context. It must handle its own errors.
+   */
+  static void sendInShards(final List<SilverpeasAsyncContext> asyncContexts,
+      final Consumer<SilverpeasAsyncContext> send) {
+    final int maxThreads = getSseSendMaxThreadPool();
+    final int nbShards = Math.min(asyncContexts.size(),
+        maxThreads > 0 ? maxThreads : Runtime.getRuntime().availableProcessors());
+    if (nbShards <= 1) {
+      asyncContexts.forEach(send);
+      return;
+    }
+    final List<Callable<Void>> shards = new ArrayList<>(nbShards);
+    for (int i = 0; i < nbShards; i++) {
+      final List<SilverpeasAsyncContext> shard = new ArrayList<>();
+      for (int j = i; j < asyncContexts.size(); j += nbShards) {
+        shard.add(asyncContexts.get(j));
+      }
+      shards.add(() -> {
+        shard.forEach(send);
+        return null;
+      });
+    }
+    List<Future<Void>> sendResult;
+    try {
+      sendResult = ManagedThreadPool.getPool().invoke(shards,
+          defaultConfig().withMaxThreadPoolSizeOf(nbShards));
+    } catch (Exception e) {
+      SseLogger.get().error(e);
+      sendResult = emptyList();
+    }
+    sendResult.forEach(s -> {
+      try {
+        s.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        SseLogger.get().error(e);
+      } catch (Exception e) {
+        SseLogger.get().error(e);
+      }
+    });
+  }
+
   /**
    * This is the implementation of a request in charge of dispatching a server event.
    */
@@ -232,39 +289,31 @@ public class ServerEventDispatcherTask extends AbstractRequestTask {
     }
 
     private void sendTo(final List<SilverpeasAsyncContext> safeContexts) {
-      SseLogger.get().debug(() -> format("Sending {0}", serverEventToDispatch));
-      final List<Callable<Void>> threadedSends = safeContexts
-          .stream()
-          .map(c -> (Callable<Void>) () -> {
-            push(this.serverEventToDispatch, c, completeAfterSend());
-            return null;
-          }).collect(Collectors.toList());
-      List<Future<Void>> sendResult;
-      try {
-        sendResult = ManagedThreadPool.getPool().invoke(threadedSends,
-            defaultConfig().withMaxThreadPoolSizeOf(getSseSendMaxThreadPool()));
-      } catch (Exception e) {
-        SseLogger.get().error(e);
-        sendResult = emptyList();
-      }
-      sendResult.forEach(s -> {
-        try {
-          s.get();
-        } catch (Exception e) {
-          SseLogger.get().error(e);
-        }
-      });
+      SseLogger.get().debug(
+          () -> format("Sending {0} to {1} {1,choice, 1#async context| 1<async contexts}",
+              serverEventToDispatch, safeContexts.size()));
+      final boolean completeAfterSend = completeAfterSend();
+      sendInShards(safeContexts, c -> push(this.serverEventToDispatch, c, completeAfterSend));
       if (serverEventToDispatch instanceof AfterSentToAllContexts) {
         ((AfterSentToAllContexts) serverEventToDispatch).afterAllContexts();
       }
     }
 
     /**
-     * Gets the context safely, so a list on which the caller can work without concurrency problems.
+     * Gets the contexts concerned by the server event to dispatch safely, so a list on which the
+     * caller can work without concurrency problems.
      * @return the list of context.
      */
     List<SilverpeasAsyncContext> getSafeContexts() {
-      return new ArrayList<>(synchronizedContexts);
+      final Optional<String> sessionId = serverEventToDispatch.getTargetedSessionId();
+      if (sessionId.isPresent()) {
+        return contexts.getBySessionId(sessionId.get());
+      }
+      final Optional<String> userId = serverEventToDispatch.getTargetedUserId();
+      if (userId.isPresent()) {
+        return contexts.getByUserId(userId.get());
+      }
+      return contexts.getAll();
     }
 
     /**
@@ -277,39 +326,155 @@ public class ServerEventDispatcherTask extends AbstractRequestTask {
   }
 
   /**
-   * Handles a store of server events.
+   * Handles the registered asynchronous contexts, indexed by session and by user.<br>
+   * The lookups are lock-free whereas the registrations and the unregistrations are serialized in
+   * order to keep the indexes consistent with the registered contexts.
+   */
+  static class AsyncContextRegistry {
+    private final Set<SilverpeasAsyncContext> all = ConcurrentHashMap.newKeySet(2000);
+    private final ConcurrentMap<String, Set<SilverpeasAsyncContext>> bySession =
+        new ConcurrentHashMap<>(2000);
+    private final ConcurrentMap<String, Set<SilverpeasAsyncContext>> byUser =
+        new ConcurrentHashMap<>(2000);
+
+    /**
+     * Registers the given context.
+     * @param context an asynchronous context.
+     * @return true if the context was registered, false if it was already.
+     */
+    synchronized boolean add(final SilverpeasAsyncContext context) {
+      if (!all.add(context)) {
+        return false;
+      }
+      index(bySession, context.getSessionId(), context);
+      index(byUser, getUserId(context), context);
+      return true;
+    }
+
+    /**
+     * Unregisters the given context.
+     * @param context an asynchronous context.
+     * @return true if the context was unregistered, false if it wasn't registered.
+     */
+    synchronized boolean remove(final SilverpeasAsyncContext context) {
+      if (!all.remove(context)) {
+        return false;
+      }
+      unindex(bySession, context.getSessionId(), context);
+      unindex(byUser, getUserId(context), context);
+      return true;
+    }
+
+    /**
+     * Unregisters all the contexts.
+     */
+    synchronized void clear() {
+      all.clear();
+      bySession.clear();
+      byUser.clear();
+    }
+
+    /**
+     * Gets the number of registered contexts.
+     * @return a number of contexts.
+     */
+    int size() {
+      return all.size();
+    }
+
+    /**
+     * Gets a snapshot of all the registered contexts.
+     * @return a list of asynchronous contexts.
+     */
+    List<SilverpeasAsyncContext> getAll() {
+      return new ArrayList<>(all);
+    }
+
+    /**
+     * Gets a snapshot of the registered contexts opened by the given session.
+     * @param sessionId the identifier of a session.
+     * @return a list of asynchronous contexts.
+     */
+    List<SilverpeasAsyncContext> getBySessionId(final String sessionId) {
+      return snapshot(bySession, sessionId);
+    }
+
+    /**
+     * Gets a snapshot of the registered contexts opened by the given user.
+     * @param userId the identifier of a user.
+     * @return a list of asynchronous contexts.
+     */
+    List<SilverpeasAsyncContext> getByUserId(final String userId) {
+      return snapshot(byUser, userId);
+    }
+
+    private static String getUserId(final SilverpeasAsyncContext context) {
+      final User user = context.getUser();
+      return user != null ? user.getId() : null;
+    }
+
+    private static void index(final Map<String, Set<SilverpeasAsyncContext>> index,
+        final String key, final SilverpeasAsyncContext context) {
+      if (key != null) {
+        index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(context);
+      }
+    }
+
+    private static void unindex(final Map<String, Set<SilverpeasAsyncContext>> index,
+        final String key, final SilverpeasAsyncContext context) {
+      if (key != null) {
+        index.computeIfPresent(key, (k, c) -> {
+          c.remove(context);
+          return c.isEmpty() ? null : c;
+        });
+      }
+    }
+
+    private static List<SilverpeasAsyncContext> snapshot(
+        final Map<String, Set<SilverpeasAsyncContext>> index, final String key) {
+      final Set<SilverpeasAsyncContext> indexed = key != null ? index.get(key) : null;
+      return indexed != null ? new ArrayList<>(indexed) : new ArrayList<>(0);
+    }
+  }
+
+  /**
+   * Handles a store of server events.<br>
+   * The store is a bounded buffer of server events indexed by their identifier: once its maximum
+   * size reached, the oldest events are removed to make room for the new ones. The reads are
+   * lock-free whereas the modifications are serialized.
    */
   static class ServerEventStore {
-    private final List<StoredServerEvent> synchronizedStore =
-        Collections.synchronizedList(new ArrayList<>());
+    private final ConcurrentNavigableMap<Long, StoredServerEvent> store =
+        new ConcurrentSkipListMap<>();
+    // only accessed within the synchronized modifications of the store
+    private final Map<String, NavigableSet<Long>> lastOnlyEventIds = new HashMap<>();
+    private final AtomicInteger size = new AtomicInteger(0);
 
     /**
      * Cleaning expired server events (lifetime of 40000ms maximum).
      */
-    void cleanExpired() {
+    synchronized void cleanExpired() {
       final long currentTime = System.currentTimeMillis();
       final long maxLifeTime = Math.max(getSseStoreEventLifeTime(), MIN_LIFE_TIME);
-      synchronized (synchronizedStore) {
-        final Iterator<StoredServerEvent> it = synchronizedStore.iterator();
-        boolean done = false;
-        while (it.hasNext() && !done) {
-          final StoredServerEvent item = it.next();
-          final boolean canProcess = !(item.getServerEvent() instanceof KeepAlwaysLastStored);
-          if (canProcess) {
-            final long lifetime = currentTime - item.getStoreTime();
-            if (lifetime >= maxLifeTime) {
-              it.remove();
-              SseLogger.get().debug(
-                  () -> format("Removing expired {0} lifetime of {1}ms", item.getServerEvent(),
-                      lifetime));
-            } else {
-              done = true;
-            }
+      final Iterator<StoredServerEvent> it = store.values().iterator();
+      boolean done = false;
+      while (it.hasNext() && !done) {
+        final StoredServerEvent item = it.next();
+        final boolean canProcess = !(item.getServerEvent() instanceof KeepAlwaysLastStored);
+        if (canProcess) {
+          final long lifetime = currentTime - item.getStoreTime();
+          if (lifetime >= maxLifeTime) {
+            remove(item);
+            SseLogger.get().debug(
+                () -> format("Removing expired {0} lifetime of {1}ms", item.getServerEvent(),
+                    lifetime));
+          } else {
+            done = true;
           }
         }
-        SseLogger.get().debug(() -> format("Size of the server event store (after clean): {0}",
-            synchronizedStore.size()));
       }
+      SseLogger.get().debug(
+          () -> format("Size of the server event store (after clean): {0}", size.get()));
     }
 
     /**
@@ -319,13 +484,10 @@ public class ServerEventDispatcherTask extends AbstractRequestTask {
      * @throws IOException on error.
      */
     List<ServerEvent> getFromId(long lastServerEventId) throws IOException {
-      List<ServerEvent> serverEventsToSendAgain = new ArrayList<>();
-      synchronizedStore.forEach(i -> {
-        if (i.getServerEvent().getId().compareTo(lastServerEventId) > 0) {
-          ServerEvent serverEvent = i.getServerEvent();
-          serverEventsToSendAgain.add(serverEvent);
-        }
-      });
+      final List<ServerEvent> serverEventsToSendAgain = new ArrayList<>();
+      store.tailMap(lastServerEventId, false)
+          .values()
+          .forEach(i -> serverEventsToSendAgain.add(i.getServerEvent()));
       return serverEventsToSendAgain;
     }
 
@@ -333,48 +495,103 @@ public class ServerEventDispatcherTask extends AbstractRequestTask {
      * Add the given {@link ServerEvent} into the store.
      * @param serverEvent the server event to store.
      */
-    void add(final ServerEvent serverEvent) {
+    synchronized void add(final ServerEvent serverEvent) {
       if (serverEvent.getId() != null && !(serverEvent instanceof IgnoreStoring)) {
         if (serverEvent instanceof StoreLastOnly) {
-          removeAll((StoreLastOnly) serverEvent);
+          removeOldestOfSameKind((StoreLastOnly) serverEvent);
+        }
+        if (store.put(serverEvent.getId(), new StoredServerEvent(serverEvent)) == null) {
+          size.incrementAndGet();
+          if (serverEvent instanceof StoreLastOnly) {
+            getLastOnlyKeys((StoreLastOnly) serverEvent).forEach(
+                k -> lastOnlyEventIds.computeIfAbsent(k, i -> new TreeSet<>())
+                    .add(serverEvent.getId()));
+          }
         }
-        synchronizedStore.add(new StoredServerEvent(serverEvent));
+        evictOverflow();
         SseLogger.get().debug(() -> format("Add {0} into the store (size={1})", serverEvent,
-            synchronizedStore.size()));
+            size.get()));
       }
     }
 
     /**
-     * Removes from the store all the stored server events which the type is compatible with the
-     * given one.
-     * @param storeLastOnly the server event class to identifying for removing.
+     * Removes the oldest server events until the size of the store is no more over its maximum.
+     * The server events that have always to be kept aren't removed.
      */
-    private void removeAll(StoreLastOnly storeLastOnly) {
-      final Class<?> classToIdentify = storeLastOnly.getClass();
-      synchronized (synchronizedStore) {
-        final Iterator<StoredServerEvent> it = synchronizedStore.iterator();
-        boolean done = false;
-        while (it.hasNext() && !done) {
-          final StoredServerEvent item = it.next();
-          if (classToIdentify.isInstance(item.getServerEvent())) {
-            final StoreLastOnly itemEvent = (StoreLastOnly) item.getServerEvent();
-            if (storeLastOnly.getStoreDiscriminator().equals(itemEvent.getStoreDiscriminator())) {
-              it.remove();
-              SseLogger.get().debug(
-                  () -> format("Remove {0} from the store (size={1})", item.getServerEvent(),
-                      synchronizedStore.size()));
-              done = true;
-            }
-          }
+    private void evictOverflow() {
+      final int maxSize = Math.max(getSseStoreEventMaxSize(), 1);
+      final Iterator<StoredServerEvent> it = store.values().iterator();
+      while (size.get() > maxSize && it.hasNext()) {
+        final StoredServerEvent item = it.next();
+        if (!(item.getServerEvent() instanceof KeepAlwaysLastStored)) {
+          remove(item);
+          SseLogger.get().debug(
+              () -> format("Removing {0} as the store is full", item.getServerEvent()));
+        }
+      }
+    }
+
+    private void remove(final StoredServerEvent item) {
+      final ServerEvent serverEvent = item.getServerEvent();
+      if (store.remove(serverEvent.getId(), item)) {
+        size.decrementAndGet();
+        if (serverEvent instanceof StoreLastOnly) {
+          getLastOnlyKeys((StoreLastOnly) serverEvent).forEach(
+              k -> lastOnlyEventIds.computeIfPresent(k, (i, ids) -> {
+                ids.remove(serverEvent.getId());
+                return ids.isEmpty() ? null : ids;
+              }));
         }
       }
     }
 
+    /**
+     * Removes from the store the oldest server event that is an instance of the class of the
+     * given one and that has the same store discriminator.
+     * @param storeLastOnly the server event replacing the stored one.
+     */
+    private void removeOldestOfSameKind(final StoreLastOnly storeLastOnly) {
+      final NavigableSet<Long> ids = lastOnlyEventIds.get(getLastOnlyKey(storeLastOnly.getClass(),
+          storeLastOnly.getStoreDiscriminator()));
+      if (ids != null && !ids.isEmpty()) {
+        final StoredServerEvent previous = store.get(ids.first());
+        if (previous != null) {
+          remove(previous);
+          SseLogger.get().debug(
+              () -> format("Remove {0} from the store (size={1})", previous.getServerEvent(),
+                  size.get()));
+        }
+      }
+    }
+
+    /**
+     * Gets the keys under which the given server event is indexed: one for its own class and one
+     * for each of its super classes that are also {@link StoreLastOnly}, so that a server event
+     * replaces any stored instance of its class, subclasses included.
+     * @param storeLastOnly a server event.
+     * @return the keys as strings.
+     */
+    private static List<String> getLastOnlyKeys(final StoreLastOnly storeLastOnly) {
+      final List<String> keys = new ArrayList<>(2);
+      Class<?> type = storeLastOnly.getClass();
+      while (type != null && StoreLastOnly.class.isAssignableFrom(type)) {
+        keys.add(getLastOnlyKey(type, storeLastOnly.getStoreDiscriminator()));
+        type = type.getSuperclass();
+      }
+      return keys;
+    }
+
+    private static String getLastOnlyKey(final Class<?> type, final String discriminator) {
+      return type.getName() + "@" + discriminator;
+    }
+
     /**
      * Clears the store.
      */
-    public void clear() {
-      synchronizedStore.clear();
+    public synchronized void clear() {
+      store.clear();
+      lastOnlyEventIds.clear();
+      size.set(0);
     }
   }
 
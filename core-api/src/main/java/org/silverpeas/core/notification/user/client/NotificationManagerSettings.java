@@ -49,6 +49,7 @@ public class NotificationManagerSettings {
   private static final int DEFAULT_SSE_JOB_TRIGGER = 45;
   private static final int DEFAULT_SSE_ASYNC_TIMEOUT = 180;
   private static final int DEFAULT_SSE_STORE_EVENT_LIFETIME = 40;
+  private static final int DEFAULT_SSE_STORE_EVENT_MAX_SIZE = 2000;
   private static final int MS = 1000;
   private static SettingBundle settings = ResourceLocator.getSettingBundle(
       "org.silverpeas.notificationManager.settings.notificationManagerSettings");
@@ -244,6 +245,16 @@ public class NotificationManagerSettings {
         .getInteger("notification.sse.store.event.lifetime", DEFAULT_SSE_STORE_EVENT_LIFETIME) * MS;
   }
 
+  /**
+   * Gets the maximum number of events stored into memory of SSE communication. Once this number
+   * reached, the oldest events are removed from the store.
+   * @return the maximum number of stored events.
+   */
+  public static int getSseStoreEventMaxSize() {
+    return settings
+        .getInteger("notification.sse.store.event.maxSize", DEFAULT_SSE_STORE_EVENT_MAX_SIZE);
+  }
+
 
   /**
    * Indicates if the server event feature is enabled.
@@ -46,7 +46,9 @@ import java.io.Serializable;
     @NamedQuery(name = "DelayedNotificationUserSetting.findByUserId",
       query = "SELECT d FROM DelayedNotificationUserSetting d WHERE userId = :userId"),
     @NamedQuery(name = "DelayedNotificationUserSetting.findByUserIdAndChannel",
-      query = "SELECT d FROM DelayedNotificationUserSetting d WHERE userId = :userId and channel = :channel")})
+      query = "SELECT d FROM DelayedNotificationUserSetting d WHERE userId = :userId and channel = :channel"),
+    @NamedQuery(name = "DelayedNotificationUserSetting.findByUserIdsAndChannel",
+      query = "SELECT d FROM DelayedNotificationUserSetting d WHERE userId in (:userIds) and channel = :channel")})
 public class DelayedNotificationUserSetting
     extends BasicJpaEntity<DelayedNotificationUserSetting, UniqueIntegerIdentifier>
     implements Serializable {
@@ -30,6 +30,8 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -281,6 +283,30 @@ public abstract class AbstractTable<T> {
     }
   }
 
+  /**
+   * Returns the rows referenced by the given query ending with an IN clause on an int column. The
+   * parameter markers of the IN clause are appended to the query according to the number of the
+   * given values.
+   * @param query the sql query string must be like "select * from ... where col1=? ... and col in"
+   * where the col are int columns.
+   * @param ids the values of the parameters preceding the IN clause.
+   * @param inIds the values of the IN clause. They must not be empty.
+   * @return the rows matching the query.
+   * @throws SQLException if an error occurs while getting the rows.
+   */
+  protected List<T> getRowsIn(String query, int[] ids, Collection<Integer> inIds)
+      throws SQLException {
+    final int[] params = new int[ids.length + inIds.size()];
+    System.arraycopy(ids, 0, params, 0, ids.length);
+    int i = ids.length;
+    for (Integer inId : inIds) {
+      params[i++] = inId;
+    }
+    final String inQuery =
+        query + " (" + String.join(",", Collections.nCopies(inIds.size(), "?")) + ")";
+    return getRows(inQuery, params);
+  }
+
   /**
    * Returns the rows like a sample row. The sample is build from a matchColumns names list and a
    * matchValues list of values. For each matchColumn with a non null matchValue is added a
@@ -23,8 +23,9 @@
  */
 package org.silverpeas.core.persistence.jdbc;
 
-import org.silverpeas.core.SilverpeasRuntimeException;
 import org.silverpeas.core.persistence.Transaction;
+import org.silverpeas.core.util.ResourceLocator;
+import org.silverpeas.core.util.SettingBundle;
 import org.silverpeas.core.util.StringUtil;
 import org.silverpeas.core.util.logging.SilverLogger;
 
@@ -37,13 +38,14 @@ import java.sql.Statement;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DBUtil {
 
-  private static final Object MUTEX = new Object();
-  private static final int MAX_NB_ATTEMPT = 100;
+  private static final Map<String, IdentifierAllocator> ALLOCATORS = new ConcurrentHashMap<>();
 
   /**
    * @return the DateFieldLength
@@ -122,38 +124,46 @@ public class DBUtil {
    * the table in case of it is not yet referenced into the uniqueId table. If this value is not
    * defined, the identifierName parameter is not considered as a table name.
    * @return a unique id.
+   * @see IdentifierAllocator
    */
-  @SuppressWarnings({"ThrowableResultOfMethodCallIgnored"})
   public static int getNextId(final String identifierName, final String tableFieldIdentifierName) {
     final String identifierNameLowerCase = identifierName.toLowerCase(Locale.ROOT);
-    for (int nbAttempts = 0; nbAttempts < MAX_NB_ATTEMPT; nbAttempts++) {
-      synchronized (MUTEX) {
-        // Getting the next unique identifier value from uniqueId table
-        Integer nextUniqueMaxId = nextUniqueIdentifierValue(identifierNameLowerCase);
-        if (nextUniqueMaxId == null) {
-          // The identifier is not yet registered into uniqueId table
-          registeringIdentifierName(identifierNameLowerCase, tableFieldIdentifierName);
-        } else if (nextUniqueMaxId != -1) {
-          // The next identifier value has been well computed
-          return nextUniqueMaxId;
-        }
-      }
+    return ALLOCATORS.computeIfAbsent(identifierNameLowerCase,
+        n -> new IdentifierAllocator(n, getIdentifierBlockSize(n)))
+        .nextId(tableFieldIdentifierName);
+  }
+
+  /**
+   * Gets the number of identifier values to reserve at each access to the uniqueId table for the
+   * given identifier name. By default, only one value is reserved (the uniqueId table is then
+   * accessed for each identifier). It can be set for all the identifiers with the
+   * {@code identifier.block.size} general setting, or for a given identifier with the
+   * {@code identifier.block.size.[identifier name in lower case]} one.
+   * @param identifierNameLowerCase the name of an identifier.
+   * @return the size of the block of identifier values to reserve.
+   */
+  private static int getIdentifierBlockSize(final String identifierNameLowerCase) {
+    final SettingBundle settings = ResourceLocator.getGeneralSettingBundle();
+    if (!settings.exists()) {
+      return 1;
     }
-    throw new SilverpeasRuntimeException(
-        "computing of next id not possible for " + identifierName + " with " +
-            tableFieldIdentifierName + "primary key");
+    final int defaultBlockSize = settings.getInteger("identifier.block.size", 1);
+    return Math.max(1,
+        settings.getInteger("identifier.block.size." + identifierNameLowerCase, defaultBlockSize));
   }
 
   /**
-   * Updates and returns the next identifier value for given table name.
+   * Reserves the given count of next identifier values for given table name and returns the last
+   * reserved one.
    * @param identifierNameLowerCase the name of identifier for which the next unique identifier
    * must be computed.
-   * @return the next unique identifier if the identifier name is already registered into uniqueId
-   * table, -1 if identifier name is already registered into uniqueId table but a concurrent server
-   * process has just performed an update too (so caller has just to retry to call the method),
-   * null if the identifier name is not yet registered into uniqueId table.
+   * @param count the number of identifier values to reserve.
+   * @return the last reserved unique identifier if the identifier name is already registered into
+   * uniqueId table, -1 if identifier name is already registered into uniqueId table but a
+   * concurrent server process has just performed an update too (so caller has just to retry to
+   * call the method), null if the identifier name is not yet registered into uniqueId table.
    */
-  private static Integer nextUniqueIdentifierValue(String identifierNameLowerCase) {
+  static Integer nextUniqueIdentifierValue(String identifierNameLowerCase, int count) {
 
     return Transaction.performInNew(() -> {
 
@@ -173,7 +183,7 @@ public class DBUtil {
 
         // If the current identifier value exists, then computing the next one
         if (currentUniqueValue != null) {
-          final int nextUniqueValue = (currentUniqueValue + 1);
+          final int nextUniqueValue = (currentUniqueValue + count);
           // MaxId data is part of the SQL update query clause in order to avoid to perform an
           // update whereas another server process has updated the value for the same identifier
           // name (so a typical concurrency case)
@@ -219,7 +229,7 @@ public class DBUtil {
    * the table in case of it is not yet referenced into the uniqueId table. If this value is not
    * defined, the identifierName parameter is not considered as a table name.
    */
-  private static void registeringIdentifierName(String identifierNameLowerCase,
+  static void registeringIdentifierName(String identifierNameLowerCase,
       String tableFieldIdentifierName) {
     try {
       Transaction.performInNew(() -> {
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.persistence.jdbc;
+
+import org.silverpeas.core.SilverpeasRuntimeException;
+import org.silverpeas.core.util.logging.SilverLogger;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Allocator of the unique identifier values referenced by a name into the uniqueId table.
+ * <p>
+ * The allocator reserves into the uniqueId table a block of identifier values at once and then
+ * hands them out without any lock and without any access to the database until the block is
+ * exhausted. The reservation of a block is performed with an optimistic update of the uniqueId
+ * table (the update is performed only if the current value is the one read just before) so it
+ * is safe even when several Silverpeas servers share the same database: each of them gets
+ * distinct blocks of values.
+ * </p>
+ * <p>
+ * With a block size of 1, the uniqueId table is accessed for each identifier value and then the
+ * values are contiguous. With a bigger block size, the values not handed out by a server are lost
+ * at its shutdown.
+ * </p>
+ * @author silveryocha
+ */
+public class IdentifierAllocator {
+
+  private static final int MAX_NB_ATTEMPT = 100;
+
+  private final String identifierName;
+  private final int blockSize;
+  private final AtomicReference<Block> currentBlock = new AtomicReference<>();
+
+  /**
+   * Constructs an allocator of identifier values.
+   * @param identifierName the name of the identifier into the uniqueId table.
+   * @param blockSize the number of values to reserve at each access to the uniqueId table.
+   */
+  public IdentifierAllocator(final String identifierName, final int blockSize) {
+    this.identifierName = identifierName;
+    this.blockSize = Math.max(1, blockSize);
+  }
+
+  /**
+   * Gets the next unique identifier value.
+   * @param tableFieldIdentifierName the field name of the table name represented by the
+   * identifier name that permits to initialize the first value of unique identifier for the table
+   * in case of it is not yet referenced into the uniqueId table. If this value is not defined, the
+   * identifier name is not considered as a table name.
+   * @return a unique id.
+   */
+  public int nextId(final String tableFieldIdentifierName) {
+    while (true) {
+      final Block block = currentBlock.get();
+      if (block != null) {
+        final int nextId = block.next();
+        if (nextId != -1) {
+          return nextId;
+        }
+      }
+      synchronized (this) {
+        if (currentBlock.get() == block) {
+          currentBlock.set(reserve(tableFieldIdentifierName));
+        }
+      }
+    }
+  }
+
+  private Block reserve(final String tableFieldIdentifierName) {
+    for (int nbAttempts = 0; nbAttempts < MAX_NB_ATTEMPT; nbAttempts++) {
+      // Reserving the next block of unique identifier values from uniqueId table
+      final Integer lastUniqueId = DBUtil.nextUniqueIdentifierValue(identifierName, blockSize);
+      if (lastUniqueId == null) {
+        // The identifier is not yet registered into uniqueId table
+        DBUtil.registeringIdentifierName(identifierName, tableFieldIdentifierName);
+      } else if (lastUniqueId != -1) {
+        // The next block of identifier values has been well reserved
+        SilverLogger.getLogger(this)
+            .debug("block of identifier values [{0}, {1}] reserved for ''{2}''",
+                lastUniqueId - blockSize + 1, lastUniqueId, identifierName);
+        return new Block(lastUniqueId - blockSize + 1, lastUniqueId);
+      }
+    }
+    throw new SilverpeasRuntimeException(
+        "computing of next id not possible for " + identifierName + " with " +
+            tableFieldIdentifierName + "primary key");
+  }
+
+  /**
+   * A block of reserved identifier values.
+   */
+  private static class Block {
+    private final AtomicInteger next;
+    private final int last;
+
+    private Block(final int first, final int last) {
+      this.next = new AtomicInteger(first);
+      this.last = last;
+    }
+
+    /**
+     * @return the next value of the block or -1 if the block is exhausted.
+     */
+    private int next() {
+      final int value = next.getAndIncrement();
+      return value <= last ? value : -1;
+    }
+  }
+}
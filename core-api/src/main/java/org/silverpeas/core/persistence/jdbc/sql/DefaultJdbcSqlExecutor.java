@@ -23,6 +23,7 @@
  */
 package org.silverpeas.core.persistence.jdbc.sql;
 
+import org.silverpeas.core.SilverpeasRuntimeException;
 import org.silverpeas.core.persistence.jdbc.ConnectionPool;
 import org.silverpeas.core.persistence.jdbc.sql.setters.SqlStatementParameterSetter;
 import org.silverpeas.core.util.ListSlice;
@@ -40,6 +41,11 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * @author Yohann Chastagnier
@@ -49,6 +55,8 @@ import java.util.List;
 class DefaultJdbcSqlExecutor implements JdbcSqlExecutor {
 
   private static final String SQL_REQUEST = ". SQL request: ";
+  private static final int DEFAULT_FETCH_SIZE = 500;
+  private static final int DEFAULT_BATCH_SIZE = 500;
 
   @Inject
   private SqlStatementParameterSetter sqlParamSetter;
@@ -130,6 +138,44 @@ class DefaultJdbcSqlExecutor implements JdbcSqlExecutor {
     }
   }
 
+  @Override
+  public <R> Stream<R> stream(final JdbcSqlQuery selectQuery,
+      final SelectResultRowProcess<R> process) throws SQLException {
+    final Connection con = ConnectionPool.getConnection();
+    try {
+      return stream(con, selectQuery, process).onClose(() -> close(con));
+    } catch (SQLException | RuntimeException e) {
+      con.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public <R> Stream<R> stream(final Connection con, final JdbcSqlQuery selectQuery,
+      final SelectResultRowProcess<R> process) throws SQLException {
+    final JdbcSqlQuery.Configuration queryConf = selectQuery.getConfiguration();
+    final String sqlQuery = selectQuery.getSqlQuery();
+    final PreparedStatement st =
+        con.prepareStatement(sqlQuery, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+    try {
+      st.setFetchSize(queryConf.getFetchSize() > 0 ? queryConf.getFetchSize() : getFetchSize());
+      if (queryConf.isResultCountLimited()) {
+        st.setMaxRows(queryConf.getOffset() + queryConf.getResultLimit());
+      }
+      setParameters(st, selectQuery.getParameters());
+      final ResultSet rs = st.executeQuery();
+      final RowSpliterator<R> rows = new RowSpliterator<>(rs, process, queryConf);
+      return StreamSupport.stream(rows, false).onClose(() -> close(st));
+    } catch (SQLException e) {
+      SilverLogger.getLogger(this).debug(e.getMessage() + SQL_REQUEST + sqlQuery);
+      st.close();
+      throw e;
+    } catch (RuntimeException e) {
+      st.close();
+      throw e;
+    }
+  }
+
   @Transactional(Transactional.TxType.MANDATORY)
   @Override
   public long executeModify(final JdbcSqlQuery... modifySqlQueries) throws SQLException {
@@ -170,6 +216,67 @@ class DefaultJdbcSqlExecutor implements JdbcSqlExecutor {
     return nbUpdate;
   }
 
+  @Transactional(Transactional.TxType.MANDATORY)
+  @Override
+  public int[] executeBatch(final List<JdbcSqlQuery> modifySqlQueries) throws SQLException {
+    try (Connection con = ConnectionPool.getConnection()) {
+      return executeBatch(con, modifySqlQueries);
+    }
+  }
+
+  @Transactional(Transactional.TxType.MANDATORY)
+  @Override
+  public int[] executeBatch(final Connection con, final List<JdbcSqlQuery> modifySqlQueries)
+      throws SQLException {
+    final int[] counts = new int[modifySqlQueries.size()];
+    final int batchSize = getBatchSize();
+    int idx = 0;
+    while (idx < modifySqlQueries.size()) {
+      final JdbcSqlQuery firstQuery = modifySqlQueries.get(idx);
+      firstQuery.finalizeBeforeExecution();
+      final String sqlQuery = firstQuery.getSqlQuery();
+      try (PreparedStatement prepStmt = con.prepareStatement(sqlQuery)) {
+        int batchStart = idx;
+        JdbcSqlQuery modifyQuery = firstQuery;
+        do {
+          setParameters(prepStmt, modifyQuery.getParameters());
+          prepStmt.addBatch();
+          idx++;
+          if (idx - batchStart == batchSize) {
+            flushBatch(prepStmt, counts, batchStart);
+            batchStart = idx;
+          }
+          modifyQuery = nextQueryWithSameSql(modifySqlQueries, idx, sqlQuery);
+        } while (modifyQuery != null);
+        if (idx > batchStart) {
+          flushBatch(prepStmt, counts, batchStart);
+        }
+      } catch (SQLException e) {
+        SilverLogger.getLogger(this).debug(e.getMessage() + SQL_REQUEST + sqlQuery);
+        throw e;
+      }
+    }
+    return counts;
+  }
+
+  private static JdbcSqlQuery nextQueryWithSameSql(final List<JdbcSqlQuery> modifySqlQueries,
+      final int idx, final String sqlQuery) {
+    if (idx < modifySqlQueries.size()) {
+      final JdbcSqlQuery nextQuery = modifySqlQueries.get(idx);
+      nextQuery.finalizeBeforeExecution();
+      if (sqlQuery.equals(nextQuery.getSqlQuery())) {
+        return nextQuery;
+      }
+    }
+    return null;
+  }
+
+  private static void flushBatch(final PreparedStatement prepStmt, final int[] counts,
+      final int batchStart) throws SQLException {
+    final int[] batchCounts = prepStmt.executeBatch();
+    System.arraycopy(batchCounts, 0, counts, batchStart, batchCounts.length);
+  }
+
   private <R> ListSlice<R> fetchEntities(final ResultSet rs,
       final SelectResultRowProcess<R> process, final JdbcSqlQuery.Configuration queryConf,
       final boolean countOverPaginationMethod)
@@ -232,6 +339,25 @@ class DefaultJdbcSqlExecutor implements JdbcSqlExecutor {
     }
   }
 
+  private static void close(final AutoCloseable resource) {
+    try {
+      resource.close();
+    } catch (Exception e) {
+      throw new SilverpeasRuntimeException(e);
+    }
+  }
+
+  private static int getBatchSize() {
+    final int batchSize = ResourceLocator.getGeneralSettingBundle()
+        .getInteger("jdbc.batch.size", DEFAULT_BATCH_SIZE);
+    return batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+  }
+
+  private static int getFetchSize() {
+    return ResourceLocator.getGeneralSettingBundle()
+        .getInteger("jdbc.stream.fetchSize", DEFAULT_FETCH_SIZE);
+  }
+
   private boolean isCountOverPaginationMethod(final JdbcSqlQuery.Configuration queryConf) {
     return queryConf.isResultCountLimited() && queryConf.isNeedRealOriginalSize() &&
         isCountOverPaginationMethod();
@@ -281,4 +407,50 @@ class DefaultJdbcSqlExecutor implements JdbcSqlExecutor {
     }
     return parameters;
   }
+
+  /**
+   * Walks forward a result set as the stream of entities built from its rows is consumed. The
+   * null entities returned by the row processor are skipped, as in the lists of entities.
+   * @param <R> the type of the entities.
+   */
+  private static class RowSpliterator<R> extends Spliterators.AbstractSpliterator<R> {
+
+    private final ResultSetWrapper rsw;
+    private final SelectResultRowProcess<R> process;
+    private final int limit;
+    private int toSkip;
+    private int idx;
+    private int count = 0;
+
+    RowSpliterator(final ResultSet rs, final SelectResultRowProcess<R> process,
+        final JdbcSqlQuery.Configuration queryConf) {
+      super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+      this.rsw = new ResultSetWrapper(rs);
+      this.process = process;
+      this.limit = queryConf.isResultCountLimited() ? queryConf.getResultLimit() : 0;
+      this.toSkip = queryConf.getOffset();
+      this.idx = queryConf.getOffset();
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super R> action) {
+      try {
+        while (toSkip > 0 && rsw.next()) {
+          toSkip--;
+        }
+        while ((limit == 0 || count < limit) && rsw.next()) {
+          rsw.setCurrentRowIndex(idx++);
+          final R entity = process.currentRow(rsw);
+          if (entity != null) {
+            count++;
+            action.accept(entity);
+            return true;
+          }
+        }
+        return false;
+      } catch (SQLException e) {
+        throw new SilverpeasRuntimeException(e);
+      }
+    }
+  }
 }
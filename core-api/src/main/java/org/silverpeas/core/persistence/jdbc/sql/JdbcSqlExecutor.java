@@ -28,6 +28,7 @@ import org.silverpeas.core.util.ListSlice;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Implementations of this interface must permit to execute SQL queries into processes
@@ -84,6 +85,38 @@ interface JdbcSqlExecutor {
   <R> ListSlice<R> select(Connection connection, JdbcSqlQuery selectQuery,
       SelectResultRowProcess<R> process) throws SQLException;
 
+  /**
+   * Executes the specified query that selects some entities in the data source and returns them
+   * as a stream that is lazily fed from a forward-only result set: the rows are fetched from the
+   * data source by chunks of the fetch size set in the configuration of the query as the stream is
+   * consumed. The stream holds the underlying JDBC resources until it is closed, so it must be
+   * used within a try-with-resources statement. The offset and the limit set in the configuration
+   * of the query are taken into account.
+   * @param <R> The type of the items in the stream.
+   * @param selectQuery the SQL query to select some entities.
+   * @param process the processor of result rows.
+   * @return a stream on the entities in the data source. The connection used to execute the query
+   * is released when the stream is closed.
+   * @throws java.sql.SQLException on SQL error.
+   */
+  <R> Stream<R> stream(JdbcSqlQuery selectQuery, SelectResultRowProcess<R> process)
+      throws SQLException;
+
+  /**
+   * Executes the specified query that selects some entities in the data source by using the given
+   * connection and returns them as a stream that is lazily fed from a forward-only result set.
+   * The stream holds the underlying JDBC statement until it is closed, so it must be used within a
+   * try-with-resources statement. The given connection is not closed with the stream.
+   * @param <R> The type of the items in the stream.
+   * @param connection an existing connection to the data source.
+   * @param selectQuery the SQL query to select some entities.
+   * @param process the processor of result rows.
+   * @return a stream on the entities in the data source.
+   * @throws java.sql.SQLException on SQL error.
+   */
+  <R> Stream<R> stream(Connection connection, JdbcSqlQuery selectQuery,
+      SelectResultRowProcess<R> process) throws SQLException;
+
   /**
    * Modify query executor.
    * @param modifySqlQueries the list of SQL query to execute. An SQL query is represented by a
@@ -122,4 +155,31 @@ interface JdbcSqlExecutor {
    */
   long executeModify(Connection connection, List<JdbcSqlQuery> modifySqlQueries)
       throws SQLException;
+
+  /**
+   * Batch modify query executor.
+   * <p>
+   * The consecutive queries sharing the same SQL text are executed through the JDBC batch
+   * mechanism of a single prepared statement instead of being executed one by one, which saves
+   * a round trip to the data source per query. The batches are sent to the data source by chunks
+   * of a configured size.
+   * </p>
+   * @param modifySqlQueries the list of SQL query to execute.
+   * @return the update counts of the queries, in the same order than the given queries. As
+   * specified by {@link java.sql.Statement#executeBatch()}, a count can be
+   * {@link java.sql.Statement#SUCCESS_NO_INFO} when the driver doesn't provide it.
+   * @throws java.sql.SQLException on SQL error.
+   */
+  int[] executeBatch(List<JdbcSqlQuery> modifySqlQueries) throws SQLException;
+
+  /**
+   * Batch modify query executor.
+   * @param connection an existing connection.
+   * @param modifySqlQueries the list of SQL query to execute.
+   * @return the update counts of the queries, in the same order than the given queries.
+   * @throws java.sql.SQLException on SQL error.
+   * @see #executeBatch(List)
+   */
+  int[] executeBatch(Connection connection, List<JdbcSqlQuery> modifySqlQueries)
+      throws SQLException;
 }
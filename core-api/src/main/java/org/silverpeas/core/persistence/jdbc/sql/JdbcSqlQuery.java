@@ -24,6 +24,7 @@
 package org.silverpeas.core.persistence.jdbc.sql;
 
 import org.apache.commons.lang3.ArrayUtils;
+import org.silverpeas.core.SilverpeasRuntimeException;
 import org.silverpeas.core.persistence.datasource.repository.PaginationCriterion;
 import org.silverpeas.core.util.CollectionUtil;
 import org.silverpeas.core.util.ListSlice;
@@ -40,6 +41,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.silverpeas.core.persistence.jdbc.sql.JdbcSqlExecutorProvider.getJdbcSqlExecutor;
 
@@ -700,6 +702,41 @@ public class JdbcSqlQuery {
     return result;
   }
 
+  /**
+   * Batch modify executor.
+   * <p>
+   * The consecutive queries of the given list sharing the same SQL text are sent to the data
+   * source as a JDBC batch, by chunks of the size set by the <code>jdbc.batch.size</code> general
+   * setting. It is the way to perform a bulk of insertions or of updates.
+   * </p>
+   * @param modifySqlQueries the modification queries to execute.
+   * @return the number of entities implied by each query, in the same order than the queries.
+   * @throws java.sql.SQLException on SQL error.
+   */
+  public static int[] executeBatch(List<JdbcSqlQuery> modifySqlQueries) throws SQLException {
+    return executeBatchWith(null, modifySqlQueries);
+  }
+
+  /**
+   * Batch modify executor.
+   * @param connection existing connection.
+   * @param modifySqlQueries the modification queries to execute.
+   * @return the number of entities implied by each query, in the same order than the queries.
+   * @throws java.sql.SQLException on SQL error.
+   * @see #executeBatch(List)
+   */
+  public static int[] executeBatchWith(Connection connection, List<JdbcSqlQuery> modifySqlQueries)
+      throws SQLException {
+    if (modifySqlQueries.isEmpty()) {
+      return new int[0];
+    }
+    if (connection == null) {
+      return getJdbcSqlExecutor().executeBatch(modifySqlQueries);
+    } else {
+      return getJdbcSqlExecutor().executeBatch(connection, modifySqlQueries);
+    }
+  }
+
   /**
    * Select executor.
    * @param <R> the type of the items in the list.
@@ -756,6 +793,79 @@ public class JdbcSqlQuery {
     return unique(executeWith(connection, process));
   }
 
+  /**
+   * Stream select executor.
+   * <p>
+   * Unlike {@link #execute(SelectResultRowProcess)}, the rows are not all loaded into memory: they
+   * are fetched from a forward-only result set by chunks of the fetch size of the configuration
+   * {@link Configuration} as the stream is consumed. The returned stream holds a connection to
+   * the data source until it is closed and then it MUST be used within a try-with-resources
+   * statement. An SQL error occurring while the stream is consumed is thrown as a
+   * {@link SilverpeasRuntimeException} whose cause is the {@link SQLException}.
+   * </p>
+   * @param <R> the type of the items in the stream.
+   * @param process the process to execute on the ResultSet objects.
+   * @return a stream on the entities matching the query.
+   * @throws java.sql.SQLException on SQL error.
+   */
+  public <R> Stream<R> stream(SelectResultRowProcess<R> process) throws SQLException {
+    return streamWith(null, process);
+  }
+
+  /**
+   * Stream select executor.
+   * @param <R> the type of the items in the stream.
+   * @param connection existing connection. It is not closed with the returned stream.
+   * @param process the process to execute on the ResultSet objects.
+   * @return a stream on the entities matching the query.
+   * @throws java.sql.SQLException on SQL error.
+   * @see #stream(SelectResultRowProcess)
+   */
+  public <R> Stream<R> streamWith(Connection connection, SelectResultRowProcess<R> process)
+      throws SQLException {
+    if (connection == null) {
+      return getJdbcSqlExecutor().stream(this, process);
+    } else {
+      return getJdbcSqlExecutor().stream(connection, this, process);
+    }
+  }
+
+  /**
+   * Performs the given action on each entity matching the query without loading all of them into
+   * memory. The JDBC resources are released once all the entities have been consumed.
+   * @param <R> the type of the entities.
+   * @param process the process to execute on the ResultSet objects.
+   * @param action the action to perform on each entity.
+   * @throws java.sql.SQLException on SQL error.
+   * @see #stream(SelectResultRowProcess)
+   */
+  public <R> void forEach(SelectResultRowProcess<R> process, Consumer<? super R> action)
+      throws SQLException {
+    forEachWith(null, process, action);
+  }
+
+  /**
+   * Performs the given action on each entity matching the query without loading all of them into
+   * memory.
+   * @param <R> the type of the entities.
+   * @param connection existing connection.
+   * @param process the process to execute on the ResultSet objects.
+   * @param action the action to perform on each entity.
+   * @throws java.sql.SQLException on SQL error.
+   * @see #stream(SelectResultRowProcess)
+   */
+  public <R> void forEachWith(Connection connection, SelectResultRowProcess<R> process,
+      Consumer<? super R> action) throws SQLException {
+    try (Stream<R> entities = streamWith(connection, process)) {
+      entities.forEach(action);
+    } catch (SilverpeasRuntimeException e) {
+      if (e.getCause() instanceof SQLException) {
+        throw (SQLException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
   /**
    * This method has to be called before the SQL query is being executed.
    */
@@ -807,6 +917,7 @@ public class JdbcSqlQuery {
     private int limit = 0;
     private int offset = 0;
     private boolean needRealOriginalSize = true;
+    private int fetchSize = 0;
 
     int getResultLimit() {
       return limit;
@@ -816,6 +927,10 @@ public class JdbcSqlQuery {
       return offset;
     }
 
+    int getFetchSize() {
+      return fetchSize;
+    }
+
     boolean isFirstResultScrolled() {
       return offset > 0;
     }
@@ -840,6 +955,19 @@ public class JdbcSqlQuery {
       return this;
     }
 
+    /**
+     * Sets the number of rows to fetch at once from the data source when the result of the query
+     * is streamed. By default, the value of the <code>jdbc.stream.fetchSize</code> general setting
+     * is used.
+     * @param fetchSize a number of rows.
+     * @return itself.
+     */
+    public Configuration withFetchSize(final int fetchSize) {
+      assert fetchSize >= 0;
+      this.fetchSize = fetchSize;
+      return this;
+    }
+
     public Configuration ignoreRealOriginalSize() {
       this.needRealOriginalSize = false;
       return this;
@@ -36,6 +36,11 @@ import java.util.concurrent.Callable;
  * When adding a new {@link Request} to perform, the request is added into a queue and the task
  * is started if it is not running.<br>
  * Requests are performed one after one.<br>
+ * A task can be partitioned into several lanes (see {@link #getLaneCount()}): each lane has its
+ * own queue and its own thread, and a request is routed to a lane according to its lane key (see
+ * {@link Request#getLaneKey()}). So requests of different lanes are processed in parallel
+ * whereas the requests sharing a same lane key are always performed one after one in the order
+ * they were pushed.<br>
  * To add a request to process, use {@link RequestTaskManager#push(Class, Request)}
  * @param <C> the type of the context given to a {@link Request} processing.
  */
@@ -59,6 +64,16 @@ public abstract class AbstractRequestTask<C extends AbstractRequestTask.ProcessC
     return NO_REQUEST_QUEUE_LIMIT;
   }
 
+  /**
+   * Gets the number of lanes into which the requests are partitioned. Each lane is consumed by its
+   * own thread.
+   * @return 1 by default (all the requests are processed one after one), a value greater than 1
+   * to process in parallel the requests of different lanes.
+   */
+  protected int getLaneCount() {
+    return 1;
+  }
+
   /**
    * Gets the context given for each request to process.
    * @return the instance of process context.
@@ -87,6 +102,7 @@ public abstract class AbstractRequestTask<C extends AbstractRequestTask.ProcessC
       try {
         monitor.releaseAccess();
         processRequest(currentRequest);
+        monitor.processedRequests.incrementAndGet();
       } catch (Exception e) {
         SilverLogger.getLogger(this).error(e);
       }
@@ -182,6 +198,16 @@ public abstract class AbstractRequestTask<C extends AbstractRequestTask.ProcessC
       return null;
     }
 
+    /**
+     * Gets the key from which the lane of the request is computed when the task is partitioned
+     * into several lanes (see {@link AbstractRequestTask#getLaneCount()}). The requests having a
+     * same key are always processed in the same lane and then in the order they were pushed.
+     * @return the key of the lane. If null, the request is processed in the first lane.
+     */
+    default Object getLaneKey() {
+      return null;
+    }
+
     /**
      * Process the request according to the given context.
      * @param context the context of the process.
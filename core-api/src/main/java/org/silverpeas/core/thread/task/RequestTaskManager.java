@@ -27,13 +27,14 @@ package org.silverpeas.core.thread.task;
 import org.silverpeas.core.SilverpeasRuntimeException;
 import org.silverpeas.core.thread.ManagedThreadPool;
 import org.silverpeas.core.thread.task.AbstractRequestTask.Request;
-import org.silverpeas.core.util.Mutable;
 import org.silverpeas.core.util.ServiceProvider;
 import org.silverpeas.core.util.logging.SilverLogger;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Objects;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
@@ -41,6 +42,7 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This manager handles the threading side of {@link AbstractRequestTask} processing.
@@ -53,7 +55,11 @@ import java.util.concurrent.Semaphore;
  */
 public class RequestTaskManager {
 
-  static final ConcurrentMap<Class, RequestTaskMonitor> tasks = new ConcurrentHashMap<>();
+  /**
+   * The monitors of the tasks. The monitor of the first lane of a task is keyed by the class of
+   * the task whereas the monitors of the other lanes are keyed by a {@link LaneKey}.
+   */
+  static final ConcurrentMap<Object, RequestTaskMonitor> tasks = new ConcurrentHashMap<>();
   private static final int RESTART_WAITING_BEFORE_GETTING_RESULT = 200;
 
   /**
@@ -124,14 +130,53 @@ public class RequestTaskManager {
    * {@link AbstractRequestTask.Request}.
    * @param <T> the type of the task.
    */
-  @SuppressWarnings("unchecked")
   public static <T extends AbstractRequestTask> boolean isTaskRunning(Class<T> taskClass) {
-    final Mutable<Boolean> isRunning = Mutable.of(false);
-    tasks.computeIfPresent(taskClass, (i, m) -> {
-      isRunning.set(m.isTaskRunning());
-      return m;
+    return tasks.values().stream()
+        .anyMatch(m -> m.isTaskOf(taskClass) && m.isTaskRunning());
+  }
+
+  /**
+   * Gets some statistics about the lanes of the given task: the number of requests waiting in the
+   * queue of each lane and the number of requests each lane has processed.
+   * @param taskClass the class of the {@link AbstractRequestTask} implementation.
+   * @param <T> the type of the task.
+   * @return the statistics of the lanes that have been at least once solicited, ordered by lane
+   * index.
+   */
+  public static <T extends AbstractRequestTask> List<LaneStatistics> getLaneStatistics(
+      Class<T> taskClass) {
+    final List<LaneStatistics> statistics = new ArrayList<>();
+    tasks.values().stream().filter(m -> m.isTaskOf(taskClass)).forEach(m -> {
+      synchronized (m.requestList) {
+        statistics.add(
+            new LaneStatistics(m.lane, m.requestList.size(), m.processedRequests.get(),
+                m.creationTime));
+      }
+    });
+    statistics.sort(Comparator.comparingInt(LaneStatistics::getLane));
+    return statistics;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T extends AbstractRequestTask, C extends AbstractRequestTask.ProcessContext>
+  RequestTaskMonitor<T, C> getMonitor(Class<T> taskClass, Request<C> request) {
+    final RequestTaskMonitor<T, C> firstLaneMonitor = tasks.computeIfAbsent(taskClass, c -> {
+      AbstractRequestTask<C> taskForInit = (AbstractRequestTask) ServiceProvider.getService(c);
+      return new RequestTaskMonitor<>(c, taskForInit, 0);
+    });
+    final Object laneKey = request.getLaneKey();
+    if (firstLaneMonitor.laneCount <= 1 || laneKey == null) {
+      return firstLaneMonitor;
+    }
+    final int lane = Math.floorMod(laneKey.hashCode(), firstLaneMonitor.laneCount);
+    if (lane == 0) {
+      return firstLaneMonitor;
+    }
+    return tasks.computeIfAbsent(new LaneKey(taskClass, lane), k -> {
+      AbstractRequestTask<C> taskForInit =
+          (AbstractRequestTask) ServiceProvider.getService(taskClass);
+      return new RequestTaskMonitor<>(taskClass, taskForInit, lane);
     });
-    return isRunning.get();
   }
 
   /**
@@ -142,6 +187,8 @@ public class RequestTaskManager {
    * <li>then, acquiring a semaphore access if the queue size is limited</li>
    * <li>finally, adding the request into the queue and starting the task if it is not running</li>
    * </ul>
+   * <p>When the task is partitioned into several lanes, all these steps are performed on the lane
+   * of the request (see {@link Request#getLaneKey()}).</p>
    * @param taskClass the class of the {@link AbstractRequestTask} implementation which provides
    * the
    * {@link AbstractRequestTask.Request}.
@@ -152,10 +199,7 @@ public class RequestTaskManager {
   @SuppressWarnings("unchecked")
   public static <T extends AbstractRequestTask, C extends AbstractRequestTask.ProcessContext>
   void push(Class<T> taskClass, Request<C> newRequest) {
-    final RequestTaskMonitor<T, C> monitor = tasks.computeIfAbsent(taskClass, c -> {
-      AbstractRequestTask<C> taskForInit = (AbstractRequestTask) ServiceProvider.getService(c);
-      return new RequestTaskMonitor<>(taskForInit);
-    });
+    final RequestTaskMonitor<T, C> monitor = getMonitor(taskClass, newRequest);
     synchronized (monitor.requestList) {
       restartIfNecessary(monitor);
     }
@@ -236,7 +280,11 @@ public class RequestTaskManager {
   static class RequestTaskMonitor<T extends AbstractRequestTask, C extends AbstractRequestTask
       .ProcessContext> {
     final Class taskClass;
+    final int lane;
+    final int laneCount;
     final List<Request<C>> requestList;
+    final AtomicLong processedRequests = new AtomicLong(0);
+    final long creationTime = System.currentTimeMillis();
     private final Semaphore queueSemaphore;
     Future<Void> task = null;
     Future<Void> taskWatcher = null;
@@ -245,10 +293,34 @@ public class RequestTaskManager {
      * @param taskForInit a task instance for initialization, it will not be run.
      */
     RequestTaskMonitor(final T taskForInit) {
+      this(taskForInit, 0);
+    }
+
+    /**
+     * @param taskForInit a task instance for initialization, it will not be run.
+     * @param lane the index of the lane the monitor is in charge of.
+     */
+    RequestTaskMonitor(final T taskForInit, final int lane) {
+      this(taskForInit.getClass(), taskForInit, lane);
+    }
+
+    /**
+     * @param taskClass the class of the task as it has been requested. It can differ from the
+     * class of the given task instance when this one is a proxy of the task.
+     * @param taskForInit a task instance for initialization, it will not be run.
+     * @param lane the index of the lane the monitor is in charge of.
+     */
+    RequestTaskMonitor(final Class taskClass, final T taskForInit, final int lane) {
       final int queueLimit = taskForInit.getRequestQueueLimit();
       this.queueSemaphore = queueLimit > 0 ? new Semaphore(queueLimit, true) : null;
       this.requestList = queueLimit > 0 ? new ArrayList<>(queueLimit) : new ArrayList<>();
-      this.taskClass = taskForInit.getClass();
+      this.taskClass = taskClass;
+      this.lane = lane;
+      this.laneCount = Math.max(1, taskForInit.getLaneCount());
+    }
+
+    boolean isTaskOf(final Class<?> aTaskClass) {
+      return taskClass.equals(aTaskClass);
     }
 
     boolean isTaskRunning() {
@@ -278,4 +350,88 @@ public class RequestTaskManager {
       }
     }
   }
+
+  /**
+   * Key of the monitor of a lane other than the first one of a task.
+   */
+  static class LaneKey {
+    private final Class taskClass;
+    private final int lane;
+
+    LaneKey(final Class taskClass, final int lane) {
+      this.taskClass = taskClass;
+      this.lane = lane;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final LaneKey laneKey = (LaneKey) o;
+      return lane == laneKey.lane && taskClass.equals(laneKey.taskClass);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(taskClass, lane);
+    }
+  }
+
+  /**
+   * Statistics about a lane of a task.
+   */
+  public static class LaneStatistics {
+    private final int lane;
+    private final int queueSize;
+    private final long processedRequests;
+    private final long since;
+
+    LaneStatistics(final int lane, final int queueSize, final long processedRequests,
+        final long since) {
+      this.lane = lane;
+      this.queueSize = queueSize;
+      this.processedRequests = processedRequests;
+      this.since = since;
+    }
+
+    /**
+     * @return the index of the lane.
+     */
+    public int getLane() {
+      return lane;
+    }
+
+    /**
+     * @return the number of requests waiting in the queue of the lane.
+     */
+    public int getQueueSize() {
+      return queueSize;
+    }
+
+    /**
+     * @return the number of requests processed by the lane since its creation.
+     */
+    public long getProcessedRequests() {
+      return processedRequests;
+    }
+
+    /**
+     * @return the average number of requests processed per second by the lane since its
+     * creation.
+     */
+    public double getThroughput() {
+      final long duration = Math.max(1, System.currentTimeMillis() - since);
+      return processedRequests * 1000.0 / duration;
+    }
+
+    @Override
+    public String toString() {
+      return "lane " + lane + ": " + queueSize + " queued, " + processedRequests + " processed (" +
+          String.format("%.2f", getThroughput()) + " req/s)";
+    }
+  }
 }
@@ -94,3 +94,18 @@ ALTER TABLE SB_Workflow_UserInfo
   CONSTRAINT FK_Workflow_UserInfo
   FOREIGN KEY (settingsId)
   REFERENCES SB_Workflow_UserSettings (settingsId);
+
+ALTER TABLE SB_Workflow_InstanceRow
+  ADD
+  CONSTRAINT PK_Workflow_InstanceRow
+  PRIMARY KEY (instanceId);
+
+ALTER TABLE SB_Workflow_InstanceRowItem
+  ADD
+  CONSTRAINT PK_Workflow_InstanceRowItem
+  PRIMARY KEY (instanceId, itemName);
+
+ALTER TABLE SB_Workflow_InstanceRowTitle
+  ADD
+  CONSTRAINT PK_Workflow_InstanceRowTitle
+  PRIMARY KEY (instanceId, role, lang);
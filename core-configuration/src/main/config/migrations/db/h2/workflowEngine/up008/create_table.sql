@@ -0,0 +1,38 @@
+CREATE TABLE SB_Workflow_InstanceRow
+(
+  instanceId    int           NOT NULL,
+  modelId       varchar(50)   NOT NULL,
+  states        varchar(2000) NULL
+);
+
+CREATE TABLE SB_Workflow_InstanceRowItem
+(
+  instanceId    int           NOT NULL,
+  itemName      varchar(100)  NOT NULL,
+  itemValue     varchar(2000) NULL
+);
+
+CREATE TABLE SB_Workflow_InstanceRowTitle
+(
+  instanceId    int           NOT NULL,
+  role          varchar(50)   NOT NULL,
+  lang          varchar(2)    NOT NULL,
+  title         varchar(2000) NULL
+);
+
+CREATE INDEX IDX_WF_INSTANCEROW_MODEL ON SB_Workflow_InstanceRow(modelId);
+
+ALTER TABLE SB_Workflow_InstanceRow
+  ADD
+  CONSTRAINT PK_Workflow_InstanceRow
+  PRIMARY KEY (instanceId);
+
+ALTER TABLE SB_Workflow_InstanceRowItem
+  ADD
+  CONSTRAINT PK_Workflow_InstanceRowItem
+  PRIMARY KEY (instanceId, itemName);
+
+ALTER TABLE SB_Workflow_InstanceRowTitle
+  ADD
+  CONSTRAINT PK_Workflow_InstanceRowTitle
+  PRIMARY KEY (instanceId, role, lang);
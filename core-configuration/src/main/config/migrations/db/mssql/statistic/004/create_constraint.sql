@@ -0,0 +1,2 @@
+ALTER TABLE SB_Statistic_HistoryCount WITH NOCHECK ADD CONSTRAINT PK_Statistic_HistoryCount PRIMARY KEY CLUSTERED(resourceId, componentId, resourceType, actionType, dateStat)
+;
@@ -2,3 +2,5 @@ create index IND_Statistic_ResourceId on SB_Statistic_History (resourceId)
 ;
 create index IND_Statistic_UserId on SB_Statistic_History (userId )
 ;
+create index IND_Statistic_Count_DateStat on SB_Statistic_HistoryCount (dateStat)
+;
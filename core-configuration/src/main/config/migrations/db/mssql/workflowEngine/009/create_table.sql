@@ -132,3 +132,27 @@ CREATE TABLE SB_Workflow_Replacements (
 
 CREATE INDEX IDX_INCUMBENT ON SB_Workflow_Replacements(incumbentId, workflowId);
 CREATE INDEX IDX_SUBSTITUTE ON SB_Workflow_Replacements(substituteId, workflowId);
+
+CREATE TABLE SB_Workflow_InstanceRow
+(
+  instanceId    int           NOT NULL,
+  modelId       varchar(50)   NOT NULL,
+  states        varchar(2000) NULL
+);
+
+CREATE TABLE SB_Workflow_InstanceRowItem
+(
+  instanceId    int           NOT NULL,
+  itemName      varchar(100)  NOT NULL,
+  itemValue     varchar(2000) NULL
+);
+
+CREATE TABLE SB_Workflow_InstanceRowTitle
+(
+  instanceId    int           NOT NULL,
+  role          varchar(50)   NOT NULL,
+  lang          varchar(2)    NOT NULL,
+  title         varchar(2000) NULL
+);
+
+CREATE INDEX IDX_WF_INSTANCEROW_MODEL ON SB_Workflow_InstanceRow(modelId);
@@ -7,4 +7,14 @@ CREATE TABLE SB_Statistic_History
     componentId		varchar(50)		NOT NULL,
     actionType		int				NOT NULL,
     resourceType	varchar(50)	    NOT NULL
+);
+
+CREATE TABLE SB_Statistic_HistoryCount
+(
+    resourceId		varchar(50)		NOT NULL,
+    componentId		varchar(50)		NOT NULL,
+    resourceType	varchar(50)	    NOT NULL,
+    actionType		int				NOT NULL,
+    dateStat		varchar(10)		NOT NULL,
+    nbAccess		int				NOT NULL
 );
\ No newline at end of file
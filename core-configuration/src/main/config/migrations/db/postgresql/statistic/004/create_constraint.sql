@@ -0,0 +1,2 @@
+ALTER TABLE SB_Statistic_HistoryCount ADD CONSTRAINT PK_Statistic_HistoryCount PRIMARY KEY(resourceId, componentId, resourceType, actionType, dateStat)
+;
@@ -0,0 +1,23 @@
+CREATE TABLE SB_Statistic_HistoryCount
+(
+    resourceId		varchar(50)		NOT NULL,
+    componentId		varchar(50)		NOT NULL,
+    resourceType	varchar(50)	    NOT NULL,
+    actionType		int				NOT NULL,
+    dateStat		varchar(10)		NOT NULL,
+    nbAccess		int				NOT NULL
+)
+;
+
+ALTER TABLE SB_Statistic_HistoryCount ADD CONSTRAINT PK_Statistic_HistoryCount PRIMARY KEY(resourceId, componentId, resourceType, actionType, dateStat)
+;
+
+create index IND_Statistic_Count_DateStat on SB_Statistic_HistoryCount (dateStat)
+;
+
+INSERT INTO SB_Statistic_HistoryCount
+  (resourceId, componentId, resourceType, actionType, dateStat, nbAccess)
+SELECT resourceId, componentId, resourceType, actionType, dateStat, COUNT(*)
+FROM SB_Statistic_History
+GROUP BY resourceId, componentId, resourceType, actionType, dateStat
+;
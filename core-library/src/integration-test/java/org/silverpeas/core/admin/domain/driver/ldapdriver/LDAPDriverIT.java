@@ -212,6 +212,49 @@ public class LDAPDriverIT {
     assertThat(user.getValue("homePhone"), isEmptyOrNullString());
   }
 
+  @Test
+  public void getTheSynchroTimeStamp() throws Exception {
+    assertThat(driver.isDeltaSynchroEnabled(), is(true));
+    // the most recent change is the one of the group 1
+    assertThat(driver.getSynchroTimeStamp(null), is("20120613133026Z"));
+    assertThat(driver.getSynchroTimeStamp("20120101000000Z"), is("20120613133026Z"));
+    // no change since
+    assertThat(driver.getSynchroTimeStamp("20130101000000Z"), is("20130101000000Z"));
+  }
+
+  @Test
+  public void getOnlyTheChangedUsers() throws Exception {
+    UserDetail[] users = driver.getAllChangedUsers("20120101000000Z");
+    assertThat(users, arrayWithSize(1));
+    assertThat(users[0].getFirstName(), is("Nicolas"));
+
+    users = driver.getAllChangedUsers("20120613133026Z");
+    assertThat(users, emptyArray());
+  }
+
+  @Test
+  public void getWhetherSomeGroupsChanged() throws Exception {
+    assertThat(driver.hasChangedGroups("20120613133026Z"), is(true));
+    assertThat(driver.hasChangedGroups("20120613133027Z"), is(false));
+  }
+
+  @Test
+  public void aModifiedUserShouldBeFetchedByTheNextDeltaSynchro() throws Exception {
+    final String timeStamp = driver.getSynchroTimeStamp(null);
+    assertThat(driver.getAllChangedUsers(timeStamp), emptyArray());
+
+    UserFull user = driver.getUserFull("user.7");
+    user.setValue("city", "Grenoble");
+    driver.updateUserFull(user);
+
+    UserDetail[] users = driver.getAllChangedUsers(timeStamp);
+    assertThat(users, arrayWithSize(1));
+    assertThat(users[0].getSpecificId(), is("user.7"));
+    final String newTimeStamp = driver.getSynchroTimeStamp(timeStamp);
+    assertThat(newTimeStamp.compareTo(timeStamp), greaterThan(0));
+    assertThat(driver.getAllChangedUsers(newTimeStamp), arrayWithSize(1));
+  }
+
 
   /**
    * Start the LDAP server.
@@ -31,6 +31,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.silverpeas.core.calendar.CalendarEvent.EventOperationResult;
 import org.silverpeas.core.date.Period;
+import org.silverpeas.core.date.TemporalConverter;
 import org.silverpeas.core.persistence.datasource.OperationContext;
 import org.silverpeas.core.persistence.jdbc.sql.JdbcSqlQuery;
 import org.silverpeas.core.test.CalendarWarBuilder;
@@ -40,10 +41,12 @@ import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.TimeZone;
+import java.util.stream.Collectors;
 
 import static java.time.DayOfWeek.*;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -331,6 +334,25 @@ public class RecurrentCalendarEventManagementIT extends BaseCalendarTest {
     assertThat(result.updated().get(), is(occurrenceEvent));
   }
 
+  @Test
+  public void theFirstOccurrencesOfAWindowOfTimeShouldBeTheFirstOnesOfAllItsOccurrences() {
+    Calendar calendar = Calendar.getById(CALENDAR_ID);
+    List<CalendarEventOccurrence> occurrences =
+        calendar.between(LocalDate.of(2016, 1, 9), LocalDate.of(2016, 3, 6)).getEventOccurrences();
+    assertThat(occurrences.size(), greaterThan(4));
+    final List<OffsetDateTime> startDates = startDatesOf(occurrences);
+    startDates.sort(Comparator.naturalOrder());
+
+    List<CalendarEventOccurrence> firstOccurrences =
+        calendar.between(LocalDate.of(2016, 1, 9), LocalDate.of(2016, 3, 6))
+            .getFirstEventOccurrences(4);
+    assertThat(startDatesOf(firstOccurrences), is(startDates.subList(0, 4)));
+
+    firstOccurrences = calendar.between(LocalDate.of(2016, 1, 9), LocalDate.of(2016, 3, 6))
+        .getFirstEventOccurrences(occurrences.size() + 10);
+    assertThat(startDatesOf(firstOccurrences), is(startDates));
+  }
+
   @Test
   public void deleteARecurrentEventDeleteAllItsOccurrences() {
     Calendar calendar = Calendar.getById(CALENDAR_ID);
@@ -583,4 +605,10 @@ public class RecurrentCalendarEventManagementIT extends BaseCalendarTest {
     return getDbSetupRule().mapJdbcSqlQueryResultAsListOfMappedValues(
         JdbcSqlQuery.createSelect("* from SB_Cal_Recurrence_Exception"));
   }
+
+  private static List<OffsetDateTime> startDatesOf(final List<CalendarEventOccurrence> occurrences) {
+    return occurrences.stream()
+        .map(o -> TemporalConverter.asOffsetDateTime(o.getStartDate()))
+        .collect(Collectors.toList());
+  }
 }
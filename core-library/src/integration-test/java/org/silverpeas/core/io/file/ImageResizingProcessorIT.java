@@ -23,6 +23,7 @@
  */
 package org.silverpeas.core.io.file;
 
+import org.apache.commons.lang3.reflect.FieldUtils;
 import org.jboss.arquillian.container.test.api.Deployment;
 import org.jboss.arquillian.junit.Arquillian;
 import org.jboss.shrinkwrap.api.Archive;
@@ -40,7 +41,16 @@ import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertThat;
@@ -78,7 +88,7 @@ public class ImageResizingProcessorIT {
         .testFocusedOn(warBuilder -> {
           warBuilder.addClasses(AbstractSilverpeasFileProcessor.class, ImageResizingProcessor.class,
               SilverpeasFileProcessor.class, SilverpeasFile.class, SilverpeasFileProvider.class,
-              ImageCache.class);
+              ImageCache.class, Java2DImageResizer.class);
         }).build();
   }
 
@@ -161,6 +171,77 @@ public class ImageResizingProcessorIT {
     assertThat(image.getHeight(), is(IMAGE_SIDE_SIZE));
   }
 
+  @Test
+  public void concurrentRequestsOfASameImageAreResizedOnce() throws Exception {
+    final AtomicInteger conversions = new AtomicInteger(0);
+    final ImageResizingProcessor countingProcessor = new ImageResizingProcessor() {
+      @Override
+      void convert(final File source, final File destination, final Integer width,
+          final Integer height) throws IOException, InterruptedException {
+        conversions.incrementAndGet();
+        super.convert(source, destination, width, height);
+      }
+    };
+    FieldUtils.writeField(countingProcessor, "imageTool",
+        FieldUtils.readField(processor, "imageTool", true), true);
+    final String askedPath = pathForOriginalImageSize(NEW_SIZE);
+    final int requestCount = 30;
+    final ExecutorService executor = Executors.newFixedThreadPool(requestCount);
+    final CountDownLatch start = new CountDownLatch(1);
+    final List<Future<String>> requests = new ArrayList<>(requestCount);
+    try {
+      for (int i = 0; i < requestCount; i++) {
+        requests.add(executor.submit(() -> {
+          start.await();
+          return countingProcessor.processBefore(askedPath,
+              SilverpeasFileProcessor.ProcessingContext.GETTING);
+        }));
+      }
+      start.countDown();
+      final String expectedPath = requests.get(0).get();
+      for (Future<String> request : requests) {
+        assertThat(request.get(), is(expectedPath));
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertThat(conversions.get(), is(1));
+    final String resizedPath = requests.get(0).get();
+    BufferedImage image = ImageIO.read(new File(resizedPath));
+    assertThat(image.getWidth(), is(IMAGE_SIDE_SIZE));
+    assertThat(image.getHeight(), is(IMAGE_SIDE_SIZE * IMAGE_HEIGHT / IMAGE_WIDTH));
+    File[] filesInCache = new File(resizedPath).getParentFile().listFiles();
+    assertThat(filesInCache.length, is(1));
+    assertThat(ImageCache.getImages(originalImage.getAbsolutePath()),
+        contains(new File(resizedPath).getAbsolutePath()));
+  }
+
+  @Test
+  public void anImageWithTooManyPixelsIsNotDecodedWithinTheJVM() throws Exception {
+    // a 1-bit image whose file is small but that would take 120 MB once decoded in RGB
+    final File largeImage = new File(IMAGE_CACHE_PATH, "large-image.png");
+    largeImage.getParentFile().mkdirs();
+    ImageIO.write(new BufferedImage(6000, 5000, BufferedImage.TYPE_BYTE_BINARY), "png",
+        largeImage);
+    final File resizedImage = new File(IMAGE_CACHE_PATH, "resized-large-image.png");
+
+    assertThat(Java2DImageResizer.resize(largeImage, resizedImage, IMAGE_SIDE_SIZE,
+        IMAGE_SIDE_SIZE), is(false));
+    assertThat(resizedImage.exists(), is(false));
+  }
+
+  @Test
+  public void resizedImagesAreRemovedWithTheOriginalOne() throws Exception {
+    String resizedPath = processor.processBefore(pathForOriginalImageSize(NEW_SIZE),
+        SilverpeasFileProcessor.ProcessingContext.GETTING);
+    assertThat(new File(resizedPath).exists(), is(true));
+
+    ImageCache.removeImages(originalImage.getAbsolutePath());
+    assertThat(new File(resizedPath).exists(), is(false));
+    assertThat(ImageCache.getImages(originalImage.getAbsolutePath()), is(empty()));
+  }
+
   @Test
   public void noResizingIfNoSizeInThePath() throws Exception {
     String askedPath = pathForOriginalImageSize(NO_SIZE);
@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.notification.user.client;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkMethodChart;
+import com.ninja_squad.dbsetup.Operations;
+import com.ninja_squad.dbsetup.operation.Insert;
+import com.ninja_squad.dbsetup.operation.Operation;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.Archive;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+import org.junit.rules.TestRule;
+import org.junit.runner.RunWith;
+import org.silverpeas.core.notification.user.client.DefaultNotificationManager.RecipientsFanOut;
+import org.silverpeas.core.notification.user.client.constant.BuiltInNotifAddress;
+import org.silverpeas.core.notification.user.client.constant.NotifChannel;
+import org.silverpeas.core.notification.user.client.model.NotifAddressRow;
+import org.silverpeas.core.notification.user.client.model.NotifDefaultAddressRow;
+import org.silverpeas.core.notification.user.client.model.NotifPreferenceRow;
+import org.silverpeas.core.notification.user.client.model.NotificationSchema;
+import org.silverpeas.core.persistence.Transaction;
+import org.silverpeas.core.test.WarBuilder4LibCore;
+import org.silverpeas.core.test.rule.DbSetupRule;
+import org.silverpeas.core.util.CollectionUtil;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Integration tests on the fan-out of a notification to its recipients. They check the addresses
+ * of 10,000 recipients computed by {@link RecipientsFanOut} from the bulk lookups of their
+ * notification preferences and addresses are the same than the ones computed user by user as
+ * before, and they measure both the ways of computing them.
+ */
+@RunWith(Arquillian.class)
+@BenchmarkMethodChart
+public class RecipientsFanOutIT {
+
+  private static final int NB_USERS = 10000;
+  private static final int INSTANCE_ID = 26;
+  private static final int MESSAGE_TYPE = 0;
+
+  public static final Operation TABLES_CREATION = Operations.sql(
+      "create table if not exists ST_NotifChannel (id int not null, name varchar(20) not null, " +
+          "description varchar(200), couldBeAdded char(1) default 'Y' not null, " +
+          "fromAvailable char(1) default 'N' not null, " +
+          "subjectAvailable char(1) default 'N' not null)",
+      "create table if not exists ST_NotifAddress (id int not null, userId int not null, " +
+          "notifName varchar(20) not null, notifChannelId int not null, " +
+          "address varchar(250) not null, usage varchar(20), priority int not null)",
+      "create table if not exists ST_NotifDefaultAddress (id int not null, userId int not null, " +
+          "notifAddressId int not null)",
+      "create table if not exists ST_NotifPreference (id int not null, " +
+          "notifAddressId int not null, componentInstanceId int not null, userId int not null, " +
+          "messageType int not null)");
+  public static final Operation CLEAN_UP =
+      Operations.deleteAllFrom("ST_NotifChannel", "ST_NotifAddress", "ST_NotifDefaultAddress",
+          "ST_NotifPreference");
+  public static final Operation CHANNEL_SET_UP = Operations.insertInto("ST_NotifChannel")
+      .columns("id", "name", "description", "couldBeAdded", "fromAvailable", "subjectAvailable")
+      .values(1, "SMTP", "Mail", "Y", "Y", "Y")
+      .build();
+
+  private final DbSetupRule dbSetupRule = DbSetupRule.createTablesFrom("")
+      .loadInitialDataSetFrom(TABLES_CREATION, CLEAN_UP, CHANNEL_SET_UP, addressSetUp(),
+          defaultAddressSetUp(), preferenceSetUp());
+
+  /**
+   * The database is set up once per test, then the benchmark rounds are run on it.
+   */
+  @Rule
+  public TestRule rules = RuleChain.outerRule(dbSetupRule).around(new BenchmarkRule());
+
+  private DefaultNotificationManager manager;
+  private NotificationParameters params;
+  private List<Integer> userIds;
+
+  @Deployment
+  public static Archive<?> createTestArchive() {
+    return WarBuilder4LibCore.onWarForTestClass(RecipientsFanOutIT.class)
+        .addBenchmarkTestFeatures()
+        .testFocusedOn(warBuilder -> warBuilder.addPackages(false,
+            "org.silverpeas.core.notification.user.client",
+            "org.silverpeas.core.notification.user.client.model"))
+        .build();
+  }
+
+  /**
+   * Each user has its own address. The users with an even identifier have a default address, the
+   * users with an identifier multiple of three have a preference for the instance.
+   */
+  private static Operation addressSetUp() {
+    final Insert.Builder insert = Operations.insertInto("ST_NotifAddress")
+        .columns("id", "userId", "notifName", "notifChannelId", "address", "usage", "priority");
+    for (int userId = 0; userId < NB_USERS; userId++) {
+      insert.values(userId, userId, "mail", 1, "user" + userId + "@silverpeas.org", "pro", 0);
+    }
+    return insert.build();
+  }
+
+  private static Operation defaultAddressSetUp() {
+    final Insert.Builder insert = Operations.insertInto("ST_NotifDefaultAddress")
+        .columns("id", "userId", "notifAddressId");
+    for (int userId = 0; userId < NB_USERS; userId += 2) {
+      insert.values(userId, userId, userId);
+    }
+    return insert.build();
+  }
+
+  private static Operation preferenceSetUp() {
+    final Insert.Builder insert = Operations.insertInto("ST_NotifPreference")
+        .columns("id", "notifAddressId", "componentInstanceId", "userId", "messageType");
+    for (int userId = 0; userId < NB_USERS; userId += 3) {
+      insert.values(userId, userId, INSTANCE_ID, userId, MESSAGE_TYPE);
+    }
+    return insert.build();
+  }
+
+  @Before
+  public void setUpManager() throws Exception {
+    manager = new DefaultNotificationManager() {
+      @Override
+      List<NotifChannel> getDefaultNotificationChannels() {
+        return Collections.singletonList(NotifChannel.SMTP);
+      }
+    };
+    FieldUtils.writeField(manager, "schema", NotificationSchema.get(), true);
+    params = new NotificationParameters().setComponentInstance(INSTANCE_ID)
+        .setMessagePriority(MESSAGE_TYPE);
+    userIds = new ArrayList<>(NB_USERS);
+    for (int userId = 0; userId < NB_USERS; userId++) {
+      userIds.add(userId);
+    }
+  }
+
+  @Test
+  @BenchmarkOptions(benchmarkRounds = 1, warmupRounds = 0)
+  public void theFanOutShouldComputeTheSameAddressesThanTheUserByUserLookups()
+      throws Exception {
+    final Map<Integer, List<Integer>> expected = Transaction.performInOne(this::lookUpUserByUser);
+
+    final RecipientsFanOut fanOut =
+        Transaction.performInOne(() -> manager.new RecipientsFanOut(params));
+    final Map<Integer, List<Integer>> actual = Transaction.performInOne(() -> lookUpInBulk(fanOut));
+
+    assertThat(actual, is(expected));
+    assertThat(actual.size(), is(NB_USERS));
+    // users with an even identifier or an identifier multiple of three have their own address
+    assertThat(loadedAddressesOf(fanOut).size(), is(NB_USERS / 2 + NB_USERS / 6 + 1));
+  }
+
+  @Test
+  @BenchmarkOptions(benchmarkRounds = 10, warmupRounds = 2)
+  public void benchmarkTheFanOutToTenThousandRecipients() {
+    Transaction.performInOne(() -> lookUpInBulk(manager.new RecipientsFanOut(params)));
+  }
+
+  @Test
+  @BenchmarkOptions(benchmarkRounds = 10, warmupRounds = 2)
+  public void benchmarkTheUserByUserLookupsOfTenThousandRecipientsAsBefore() {
+    Transaction.performInOne(this::lookUpUserByUser);
+  }
+
+  private Map<Integer, List<Integer>> lookUpInBulk(final RecipientsFanOut fanOut)
+      throws Exception {
+    final Map<Integer, List<Integer>> addressIds = new HashMap<>(NB_USERS);
+    for (final Collection<Integer> slice : CollectionUtil.split(userIds)) {
+      final Map<Integer, List<Integer>> sliceAddressIds =
+          fanOut.getAddressIds(new ArrayList<>(slice));
+      fanOut.loadAddresses(sliceAddressIds.values());
+      addressIds.putAll(sliceAddressIds);
+    }
+    return addressIds;
+  }
+
+  /**
+   * Looks up the addresses of the recipients one by one as it was done before the fan-out.
+   */
+  private Map<Integer, List<Integer>> lookUpUserByUser() throws Exception {
+    final NotificationSchema schema = NotificationSchema.get();
+    final List<Integer> defaultChannelAddressIds =
+        Collections.singletonList(BuiltInNotifAddress.BASIC_SMTP.getId());
+    final Map<Integer, List<Integer>> addressIds = new HashMap<>(NB_USERS);
+    for (final Integer userId : userIds) {
+      final NotifPreferenceRow npr = schema.notifPreference()
+          .getByUserIdAndComponentInstanceIdAndMessageType(userId, INSTANCE_ID, MESSAGE_TYPE);
+      final List<Integer> ids = new ArrayList<>(1);
+      if (npr != null) {
+        ids.add(npr.getNotifAddressId());
+      } else {
+        for (final NotifDefaultAddressRow ndar : schema.notifDefaultAddress()
+            .getAllByUserId(userId)) {
+          ids.add(ndar.getNotifAddressId());
+        }
+      }
+      if (ids.isEmpty()) {
+        ids.addAll(defaultChannelAddressIds);
+      }
+      for (final Integer addressId : ids) {
+        if (!BuiltInNotifAddress.decode(addressId).isPresent()) {
+          schema.notifAddress().getNotifAddress(addressId);
+        }
+      }
+      addressIds.put(userId, ids);
+    }
+    return addressIds;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<Integer, NotifAddressRow> loadedAddressesOf(final RecipientsFanOut fanOut)
+      throws IllegalAccessException {
+    return (Map<Integer, NotifAddressRow>) FieldUtils.readField(fanOut, "addresses", true);
+  }
+}
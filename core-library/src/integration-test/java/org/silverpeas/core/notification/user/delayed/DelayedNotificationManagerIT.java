@@ -620,6 +620,19 @@ public class DelayedNotificationManagerIT {
         is(DelayedNotificationFrequency.WEEKLY));
   }
 
+  @Test
+  public void testGetUserFrequencies() throws Exception {
+    final List<Integer> userIds = Arrays.asList(0, 1, 10, 20, 1000);
+    for (final NotifChannel channel : NotifChannel.values()) {
+      final Map<Integer, DelayedNotificationFrequency> frequencies =
+          manager.getUserFrequencies(userIds, channel);
+      assertThat(frequencies.size(), is(userIds.size()));
+      for (final Integer userId : userIds) {
+        assertThat(frequencies.get(userId), is(manager.getUserFrequency(userId, channel)));
+      }
+    }
+  }
+
   @Test
   public void testGetDelayedNotificationUserSetting() throws Exception {
     DelayedNotificationUserSetting delayedNotificationUserSetting =
@@ -194,6 +194,45 @@ public class DelayedNotificationDelegateIT {
     }
   }
 
+  @Test
+  public void testNewNotifications() throws Exception {
+    final List<DelayedNotificationData> dndTests = new ArrayList<>();
+
+    // Has to be delayed
+    dndTests.add(buildValidDelayedNotificationData());
+
+    // Has to be sent because is flagged to be sent immediately
+    DelayedNotificationData dndTest = buildValidDelayedNotificationData();
+    dndTest.setSendImmediately(true);
+    dndTests.add(dndTest);
+
+    // Has to be sent because of a bad user id
+    dndTest = buildValidDelayedNotificationData();
+    dndTest.setUserId((Integer) null);
+    dndTests.add(dndTest);
+
+    // Has to be sent because of a bad channel
+    dndTest = buildValidDelayedNotificationData();
+    dndTest.setChannel(null);
+    dndTests.add(dndTest);
+
+    // Has to be sent because of a bad frequency
+    dndTest = buildValidDelayedNotificationData();
+    dndTest.setUserId(10);
+    dndTests.add(dndTest);
+
+    for (final DelayedNotificationData dnd : dndTests) {
+      final NotificationData notificationData = new NotificationData();
+      notificationData.setTargetChannel("SMTP");
+      dnd.setNotificationData(notificationData);
+    }
+
+    final DelayedNotificationDelegateStub stub = new DelayedNotificationDelegateStub();
+    stub.performNewNotificationsSending(dndTests);
+    assertThat(stub.sendedList.size(), is(4));
+    assertThat(stub.nbBulkSendings, is(1));
+  }
+
   private DelayedNotificationDelegateStub assertNewNotification(
       final DelayedNotificationData delayedNotificationDataTest, final int nbExpectedResults)
       throws Exception {
@@ -338,6 +377,7 @@ public class DelayedNotificationDelegateIT {
 
     // Récupération des envoyés
     final protected List<NotificationData> sendedList = new ArrayList<>();
+    protected int nbBulkSendings = 0;
 
     /**
      * Default constructor
@@ -363,5 +403,12 @@ public class DelayedNotificationDelegateIT {
         throws NotificationServerException {
       sendedList.add(notificationData);
     }
+
+    @Override
+    protected void sendNotifications(final List<NotificationData> notificationData)
+        throws NotificationServerException {
+      nbBulkSendings++;
+      sendedList.addAll(notificationData);
+    }
   }
 }
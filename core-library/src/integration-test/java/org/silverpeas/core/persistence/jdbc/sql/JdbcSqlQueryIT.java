@@ -45,6 +45,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -325,6 +327,46 @@ public class JdbcSqlQueryIT {
     assertThat(rows.get(1).getRight(), is("value_60"));
   }
 
+  @Test
+  public void streamAll() throws SQLException {
+    final List<Pair<Long, String>> rows;
+    try (Stream<Pair<Long, String>> stream = createSelect("* from a_table").orderBy("id")
+        .configure(config -> config.withFetchSize(7)).stream(new TableResultProcess())) {
+      rows = stream.collect(Collectors.toList());
+    }
+    assertThat(rows, hasSize((int) NB_ROW_AT_BEGINNING));
+    long l = 0;
+    for (Pair<Long, String> row : rows) {
+      assertThat(row.getLeft(), is(l));
+      l++;
+    }
+  }
+
+  @Test
+  public void streamWithOffsetAndLimitAndNullEntities() throws SQLException {
+    final int offset = 2;
+    final int resultLimit = 5;
+    final List<String> values;
+    try (Stream<String> stream = createSelect("*").from("a_table").orderBy("id desc")
+        .configure(config -> config.withOffset(offset).withResultLimit(resultLimit))
+        .stream(r -> r.getString(2).endsWith("0") ? r.getString(2) : null)) {
+      values = stream.collect(Collectors.toList());
+    }
+    assertThat(values, contains("value_90", "value_80", "value_70"));
+  }
+
+  @Test
+  public void forEachWithExistingConnectionShouldKeepItOpened() throws SQLException {
+    final List<Long> ids = new ArrayList<>();
+    try (final Connection connection = DbSetupRule.getSafeConnection()) {
+      createSelect("* from a_table where id").in(38, 39, 40).orderBy("id")
+          .forEachWith(connection, r -> r.getLong(1), ids::add);
+      assertThat(connection.isClosed(), is(false));
+      assertThat(createCountFor("a_table").executeWith(connection), is(NB_ROW_AT_BEGINNING));
+    }
+    assertThat(ids, contains(38L, 39L, 40L));
+  }
+
   @Test
   public void createRowUsingAppendSaveParameter() {
     assertThat(getTableLines(), hasSize(100));
@@ -403,6 +445,54 @@ public class JdbcSqlQueryIT {
     assertThat(getTableLines().get(38), is("38@value_38_updated"));
   }
 
+  @Test
+  public void executeBatchShouldReturnTheCountOfEachQueryInTheGivenOrder() {
+    final List<JdbcSqlQuery> queries = new ArrayList<>();
+    for (int id = 200; id < 203; id++) {
+      queries.add(createInsertFor("a_table").addInsertParam("id", id)
+          .addInsertParam("value", "value_" + id + "_inserted"));
+    }
+    queries.add(createUpdateFor("a_table").addUpdateParam("value", "value_26_updated")
+        .where("id = ?", 26));
+    queries.add(createUpdateFor("a_table").addUpdateParam("value", "value_300_updated")
+        .where("id = ?", 300));
+    queries.add(createDeleteFor("a_table").where("id >= ?", 202));
+    queries.add(createInsertFor("a_table").addInsertParam("id", 203)
+        .addInsertParam("value", "value_203_inserted"));
+
+    final int[] counts = Transaction.performInOne(() -> executeBatch(queries));
+
+    assertThat(counts.length, is(queries.size()));
+    assertThat(Arrays.stream(counts).boxed().collect(Collectors.toList()),
+        contains(1, 1, 1, 1, 0, 1, 1));
+    final List<String> lines = getTableLines();
+    assertThat(lines, hasSize(103));
+    assertThat(lines.get(26), is("26@value_26_updated"));
+    assertThat(lines.get(100), is("200@value_200_inserted"));
+    assertThat(lines.get(101), is("201@value_201_inserted"));
+    assertThat(lines.get(102), is("203@value_203_inserted"));
+  }
+
+  @Test
+  public void executeBatchShouldExecuteAllTheQueriesBeyondTheBatchSize() {
+    // more insertions than the maximum number of queries sent at once (jdbc.batch.size)
+    final int nbRows = 1234;
+    final List<JdbcSqlQuery> insertions = new ArrayList<>(nbRows);
+    for (long id = 1000; id < 1000 + nbRows; id++) {
+      insertions.add(createInsertFor("a_table").addInsertParam("id", id)
+          .addInsertParam("value", "value_" + id));
+    }
+
+    final int[] counts = Transaction.performInOne(() -> executeBatch(insertions));
+
+    assertThat(counts.length, is(nbRows));
+    assertThat(Arrays.stream(counts).allMatch(c -> c == 1), is(true));
+    final List<String> lines = getTableLines();
+    assertThat(lines, hasSize((int) NB_ROW_AT_BEGINNING + nbRows));
+    assertThat(lines.get((int) NB_ROW_AT_BEGINNING), is("1000@value_1000"));
+    assertThat(lines.get(lines.size() - 1), is("2233@value_2233"));
+  }
+
   @Test
   public void deleteRows() {
     assertThat(getTableLines(), hasSize(100));
@@ -33,6 +33,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.silverpeas.core.persistence.Transaction;
 import org.silverpeas.core.persistence.jdbc.DBUtil;
+import org.silverpeas.core.persistence.jdbc.IdentifierAllocator;
 import org.silverpeas.core.test.WarBuilder4LibCore;
 import org.silverpeas.core.test.rule.DbSetupRule;
 
@@ -42,7 +43,9 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -82,7 +85,8 @@ public class DBUtilIT {
   public static Archive<?> createTestArchive() {
     return WarBuilder4LibCore.onWarForTestClass(DBUtilIT.class)
         .addBenchmarkTestFeatures()
-        .testFocusedOn(warBuilder -> warBuilder.addClasses(DBUtil.class))
+        .testFocusedOn(
+            warBuilder -> warBuilder.addClasses(DBUtil.class, IdentifierAllocator.class))
         .build();
   }
 
@@ -239,6 +243,45 @@ public class DBUtilIT {
     fail("Table 'Tartempion' must not exist...");
   }
 
+  @Test
+  public void twoAllocatorsOnTheSameDatabaseShouldNeverHandOutTheSameId() throws Exception {
+    assertThat(actualMaxIdInUniqueIdFor("User"), is(1));
+    // each allocator simulates a Silverpeas server sharing the same database
+    final IdentifierAllocator firstAllocator = new IdentifierAllocator("user", 10);
+    final IdentifierAllocator secondAllocator = new IdentifierAllocator("user", 10);
+    final int nbIdsPerThread = 250;
+    final int nbThreadsPerAllocator = 4;
+    final Set<Integer> ids = ConcurrentHashMap.newKeySet();
+    final List<Callable<Integer>> allocations = new ArrayList<>();
+    for (int i = 0; i < nbThreadsPerAllocator; i++) {
+      for (IdentifierAllocator allocator : new IdentifierAllocator[]{firstAllocator,
+          secondAllocator}) {
+        allocations.add(() -> {
+          int nbDuplicates = 0;
+          for (int j = 0; j < nbIdsPerThread; j++) {
+            if (!ids.add(allocator.nextId("id"))) {
+              nbDuplicates++;
+            }
+          }
+          return nbDuplicates;
+        });
+      }
+    }
+    final ExecutorService executorService = Executors.newFixedThreadPool(allocations.size());
+    try {
+      for (Future<Integer> nbDuplicates : executorService.invokeAll(allocations)) {
+        assertThat(nbDuplicates.get(), is(0));
+      }
+    } finally {
+      executorService.shutdown();
+    }
+    final int nbIds = 2 * nbThreadsPerAllocator * nbIdsPerThread;
+    assertThat(ids.size(), is(nbIds));
+    assertThat(ids.stream().allMatch(id -> id > 1), is(true));
+    // all the blocks are exhausted as the number of ids is a multiple of the block size
+    assertThat(actualMaxIdInUniqueIdFor("User"), is(1 + nbIds));
+  }
+
   private int actualMaxIdInUniqueIdFor(String tableName) throws SQLException {
     final String query = "select maxId from UniqueId where tableName = ?";
     int maxId;
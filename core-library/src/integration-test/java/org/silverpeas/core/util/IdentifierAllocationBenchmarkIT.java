@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.util;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkMethodChart;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.Archive;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+import org.junit.rules.TestRule;
+import org.junit.runner.RunWith;
+import org.silverpeas.core.persistence.jdbc.DBUtil;
+import org.silverpeas.core.persistence.jdbc.IdentifierAllocator;
+import org.silverpeas.core.test.WarBuilder4LibCore;
+import org.silverpeas.core.test.rule.DbSetupRule;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Benchmark of the allocation of unique identifiers by several concurrent threads, first one
+ * identifier at a time (the behaviour of DBUtil before the allocation by blocks) and then by
+ * blocks of identifiers.
+ */
+@RunWith(Arquillian.class)
+@BenchmarkMethodChart
+public class IdentifierAllocationBenchmarkIT {
+
+  private final DbSetupRule dbSetupRule = DbSetupRule.createTablesFrom("")
+      .loadInitialDataSetFrom(DBUtilIT.TABLES_CREATION, DBUtilIT.CLEAN_UP);
+
+  /**
+   * The database is set up once per test, then the benchmark rounds are run on it.
+   */
+  @Rule
+  public TestRule rules = RuleChain.outerRule(dbSetupRule).around(new BenchmarkRule());
+
+  private final IdentifierAllocator oneByOne = new IdentifierAllocator("bench_by_1", 1);
+  private final IdentifierAllocator byBlocks = new IdentifierAllocator("bench_by_100", 100);
+
+  @Deployment
+  public static Archive<?> createTestArchive() {
+    return WarBuilder4LibCore.onWarForTestClass(IdentifierAllocationBenchmarkIT.class)
+        .addBenchmarkTestFeatures()
+        .testFocusedOn(warBuilder -> warBuilder.addClasses(DBUtil.class, IdentifierAllocator.class,
+            DBUtilIT.class))
+        .build();
+  }
+
+  @BenchmarkOptions(benchmarkRounds = 4000, warmupRounds = 400, concurrency = 8)
+  @Test
+  public void allocateIdentifiersOneByOne() {
+    assertThat(oneByOne.nextId("id"), greaterThan(0));
+  }
+
+  @BenchmarkOptions(benchmarkRounds = 4000, warmupRounds = 400, concurrency = 8)
+  @Test
+  public void allocateIdentifiersByBlocksOfHundred() {
+    assertThat(byBlocks.nextId("id"), greaterThan(0));
+  }
+}
@@ -36,6 +36,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -205,6 +206,33 @@ public class ComponentDAO {
     return new ArrayList<>(componentIds);
   }
 
+  /**
+   * Gets the identifiers of the component instances available to the specified user because of
+   * the profiles played directly by the user, that is to say not through a group.
+   * @param con a connection to the data source.
+   * @param userId the local identifier of a user.
+   * @return the identifiers of the component instances.
+   * @throws SQLException on SQL error.
+   */
+  public static List<String> getAvailableComponentIdsOfUser(Connection con, int userId)
+      throws SQLException {
+    return getAllAvailableComponentIds(con, userId, null);
+  }
+
+  /**
+   * Gets the identifiers of the component instances available to the members of the specified
+   * group because of the profiles played by the group itself, that is to say not by its parent
+   * groups.
+   * @param con a connection to the data source.
+   * @param groupId the identifier of a group.
+   * @return the identifiers of the component instances.
+   * @throws SQLException on SQL error.
+   */
+  public static List<String> getAvailableComponentIdsOfGroup(Connection con, String groupId)
+      throws SQLException {
+    return getAllAvailableComponentIds(con, Collections.singletonList(groupId), null);
+  }
+
   private static List<String> getAllAvailableComponentIds(Connection con, List<String> groupIds,
       String componentName) throws SQLException {
     Statement stmt = null;
@@ -261,7 +289,7 @@ public class ComponentDAO {
     }
   }
 
-  private static List<String> getAllPublicComponentIds(Connection con)
+  public static List<String> getAllPublicComponentIds(Connection con)
       throws SQLException {
     PreparedStatement stmt = null;
     ResultSet rs = null;
@@ -212,6 +212,51 @@ public interface DomainDriver {
 
   String endSynchronization(boolean cancelSynchro) throws AdminException;
 
+  /**
+   * Is the incremental synchronization enabled for the domain? In such a synchronization, only
+   * the users and the groups changed since the last synchronization are fetched from the
+   * underlying repository.
+   * @return true if the domain can be synchronized incrementally, false otherwise.
+   */
+  default boolean isDeltaSynchroEnabled() {
+    return false;
+  }
+
+  /**
+   * Gets the high-water mark of the changes in the underlying repository, that is the most
+   * recent change stamp (a timestamp, an update sequence number, ...) among the users and the
+   * groups changed since the specified one. Without any previous high-water mark, all the users
+   * and the groups of the repository have to be scanned, so such a call is expected only at the
+   * first synchronization of the domain.
+   * @param fromTimeStamp the high-water mark of the previous synchronization or null if none.
+   * @return the current high-water mark of the changes or null if the incremental
+   * synchronization isn't supported.
+   * @throws AdminException if an error occurs while requesting the repository.
+   */
+  default String getSynchroTimeStamp(String fromTimeStamp) throws AdminException {
+    return null;
+  }
+
+  /**
+   * Gets all the users changed since the specified high-water mark.
+   * @param fromTimeStamp the high-water mark of the previous synchronization.
+   * @return an array of the changed users. By default, all the users.
+   * @throws AdminException if an error occurs while requesting the repository.
+   */
+  default UserDetail[] getAllChangedUsers(String fromTimeStamp) throws AdminException {
+    return getAllUsers();
+  }
+
+  /**
+   * Is there some groups changed since the specified high-water mark?
+   * @param fromTimeStamp the high-water mark of the previous synchronization.
+   * @return true if at least one group was changed. By default, true.
+   * @throws AdminException if an error occurs while requesting the repository.
+   */
+  default boolean hasChangedGroups(String fromTimeStamp) throws AdminException {
+    return true;
+  }
+
   UserDetail importUser(String userLogin) throws AdminException;
 
   void removeUser(String userId) throws AdminException;
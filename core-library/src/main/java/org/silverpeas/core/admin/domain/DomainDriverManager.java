@@ -789,6 +789,41 @@ public class DomainDriverManager extends AbstractDomainDriver {
     return domainDriver.endSynchronization(cancelSynchro);
   }
 
+  /**
+   * Gets the high-water mark of the changes in the repository of the specified domain as it was
+   * recorded at the end of its last synchronization.
+   * @param domainId the unique identifier of a domain.
+   * @return the recorded high-water mark or null if no one was yet recorded.
+   */
+  public String getLastSynchroTimeStamp(String domainId) throws AdminException {
+    try {
+      final DomainRow dr = getOrganizationSchema().domain().getDomain(idAsInt(domainId));
+      if (dr == null) {
+        throw new AdminException(unknown(DOMAIN, domainId));
+      }
+      return StringUtil.isDefined(dr.theTimeStamp) && !"0".equals(dr.theTimeStamp) ?
+          dr.theTimeStamp : null;
+    } catch (SQLException e) {
+      throw new AdminException(failureOnGetting("synchronization timestamp of domain", domainId),
+          e);
+    }
+  }
+
+  /**
+   * Records the high-water mark of the changes in the repository of the specified domain at the
+   * end of its synchronization.
+   * @param domainId the unique identifier of a domain.
+   * @param timeStamp the high-water mark to record.
+   */
+  public void setLastSynchroTimeStamp(String domainId, String timeStamp) throws AdminException {
+    try {
+      getOrganizationSchema().domain().updateDomainTimeStamp(idAsInt(domainId), timeStamp);
+    } catch (SQLException e) {
+      throw new AdminException(failureOnUpdate("synchronization timestamp of domain", domainId),
+          e);
+    }
+  }
+
   private String[] translateUserIdsToSpecificIds(String domainId, String[] ids)
       throws AdminException {
     if (ids == null || ids.length == 0) {
@@ -53,6 +53,7 @@ import static org.silverpeas.core.admin.domain.DomainDriver.ActionConstants.*;
  */
 public class LDAPDriver extends AbstractDomainDriver {
 
+  private static final String HIGHEST_COMMITTED_USN = "highestCommittedUSN";
   LDAPSynchroCache synchroCache = new LDAPSynchroCache();
   protected LDAPSettings driverSettings = new LDAPSettings();
   protected LDAPUser userTranslator = null;
@@ -136,6 +137,117 @@ public class LDAPDriver extends AbstractDomainDriver {
     return driverSettings.isSynchroThreaded();
   }
 
+  @Override
+  public boolean isDeltaSynchroEnabled() {
+    return driverSettings.isSynchroDelta();
+  }
+
+  /**
+   * Gets the most recent value of the timestamp attribute (modifyTimeStamp, uSNChanged, ...)
+   * among the users and the groups changed since the specified timestamp. With an Active
+   * Directory using the uSNChanged attribute, the highest update sequence number committed by the
+   * server is directly returned. Otherwise, without any previous timestamp, all the users and the
+   * groups are scanned for their timestamp attribute.
+   * @param fromTimeStamp the timestamp of the previous synchronization or null if none.
+   * @return the current high-water mark of the changes in the LDAP.
+   * @throws AdminException if an error occurs while requesting the LDAP.
+   */
+  @Override
+  public String getSynchroTimeStamp(String fromTimeStamp) throws AdminException {
+    String ld = LDAPUtility.openConnection(driverSettings);
+    try {
+      if (driverSettings.isSynchroTimeStampAnUSN()) {
+        LDAPEntry rootDSE = LDAPUtility.getFirstEntryFromSearch(ld, "",
+            LDAPConnection.SCOPE_BASE, "(objectClass=*)", new String[]{HIGHEST_COMMITTED_USN});
+        String highestUSN = LDAPUtility.getFirstAttributeValue(rootDSE, HIGHEST_COMMITTED_USN);
+        if (StringUtil.isDefined(highestUSN)) {
+          return highestUSN;
+        }
+      }
+      String timeStampVar = driverSettings.getSynchroTimeStampVar();
+      String timeStamp = fromTimeStamp;
+      LDAPEntry[] changedUsers = LDAPUtility.search1000Plus(ld,
+          driverSettings.getLDAPUserBaseDN(), driverSettings.getScope(),
+          "(&" + driverSettings.getUsersFullFilter() + getChangedSinceFilter(fromTimeStamp) + ")",
+          driverSettings.getUsersLoginField(), new String[]{timeStampVar});
+      for (LDAPEntry entry : changedUsers) {
+        timeStamp = getMostRecentTimeStamp(timeStamp,
+            LDAPUtility.getFirstAttributeValue(entry, timeStampVar));
+      }
+      LDAPEntry[] changedGroups = LDAPUtility.search1000Plus(ld,
+          driverSettings.getGroupsSpecificGroupsBaseDN(), driverSettings.getScope(),
+          "(&" + driverSettings.getGroupsFullFilter() + getChangedSinceFilter(fromTimeStamp) + ")",
+          driverSettings.getGroupsNameField(), new String[]{timeStampVar});
+      for (LDAPEntry entry : changedGroups) {
+        timeStamp = getMostRecentTimeStamp(timeStamp,
+            LDAPUtility.getFirstAttributeValue(entry, timeStampVar));
+      }
+      return timeStamp;
+    } finally {
+      LDAPUtility.closeConnection(ld);
+    }
+  }
+
+  /**
+   * Retrieve all the users whose the timestamp attribute is greater or equal to the specified
+   * one. The users changed at the exact same time than the previous synchronization are then
+   * fetched again, so no change can be missed.
+   * @param fromTimeStamp the timestamp of the previous synchronization.
+   * @return UserDetail[] An array of the changed users.
+   * @throws AdminException if an error occurs while requesting the LDAP.
+   */
+  @Override
+  public UserDetail[] getAllChangedUsers(String fromTimeStamp) throws AdminException {
+    String ld = LDAPUtility.openConnection(driverSettings);
+    try {
+      return userTranslator.getAllUsers(ld, getChangedSinceFilter(fromTimeStamp));
+    } finally {
+      LDAPUtility.closeConnection(ld);
+    }
+  }
+
+  @Override
+  public boolean hasChangedGroups(String fromTimeStamp) throws AdminException {
+    String ld = LDAPUtility.openConnection(driverSettings);
+    try {
+      return LDAPUtility.getFirstEntryFromSearch(ld, driverSettings.getGroupsSpecificGroupsBaseDN(),
+          driverSettings.getScope(),
+          "(&" + driverSettings.getGroupsFullFilter() + getChangedSinceFilter(fromTimeStamp) + ")",
+          new String[]{driverSettings.getGroupsIdField()}) != null;
+    } finally {
+      LDAPUtility.closeConnection(ld);
+    }
+  }
+
+  private String getChangedSinceFilter(String fromTimeStamp) {
+    String timeStampVar = driverSettings.getSynchroTimeStampVar();
+    if (!StringUtil.isDefined(fromTimeStamp)) {
+      return "(" + timeStampVar + "=*)";
+    }
+    return "(" + timeStampVar + ">=" + LDAPUtility.normalizeFilterValue(fromTimeStamp) + ")";
+  }
+
+  /**
+   * Gets the most recent of the two specified timestamps. The update sequence numbers are
+   * compared as numbers whereas the generalized times are compared as strings, their format
+   * ordering them chronologically.
+   */
+  static String getMostRecentTimeStamp(String timeStamp1, String timeStamp2) {
+    if (!StringUtil.isDefined(timeStamp1)) {
+      return timeStamp2;
+    }
+    if (!StringUtil.isDefined(timeStamp2)) {
+      return timeStamp1;
+    }
+    final int comparison;
+    if (StringUtil.isLong(timeStamp1) && StringUtil.isLong(timeStamp2)) {
+      comparison = Long.compare(Long.parseLong(timeStamp1), Long.parseLong(timeStamp2));
+    } else {
+      comparison = timeStamp1.compareTo(timeStamp2);
+    }
+    return comparison >= 0 ? timeStamp1 : timeStamp2;
+  }
+
   /**
    * Called when Admin starts the synchronization
    */
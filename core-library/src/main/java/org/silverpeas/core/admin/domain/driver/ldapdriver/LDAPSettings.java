@@ -62,6 +62,8 @@ public class LDAPSettings implements DriverSettings {
   protected boolean SYNCHROthreaded = false;
   protected boolean SYNCHROCacheEnabled = true;
   protected boolean SYNCHROImportUsers = true;
+  protected boolean SYNCHROdelta = false;
+  protected String SYNCHROtimeStampVar = TIME_STAMP_NDS;
   protected String usersClassName = null;
   protected String usersFilter = null;
   // AdminUser
@@ -134,6 +136,8 @@ public class LDAPSettings implements DriverSettings {
     SYNCHROthreaded = rs.getBoolean("synchro.Threaded", SYNCHROthreaded);
     SYNCHROCacheEnabled = rs.getBoolean("synchro.CacheEnabled", SYNCHROCacheEnabled);
     SYNCHROImportUsers = rs.getBoolean("synchro.importUsers", true);
+    SYNCHROdelta = rs.getBoolean("synchro.delta", SYNCHROdelta);
+    SYNCHROtimeStampVar = rs.getString("synchro.timeStampVar", SYNCHROtimeStampVar);
 
     // Users Settings
     // --------------
@@ -192,6 +196,22 @@ public class LDAPSettings implements DriverSettings {
     return SYNCHROImportUsers;
   }
 
+  public boolean isSynchroDelta() {
+    return SYNCHROdelta;
+  }
+
+  public String getSynchroTimeStampVar() {
+    return SYNCHROtimeStampVar;
+  }
+
+  /**
+   * Is the synchronization timestamp an update sequence number (USN) rather than a date?
+   * @return true if the timestamp attribute is the Active Directory's uSNChanged.
+   */
+  public boolean isSynchroTimeStampAnUSN() {
+    return TIME_STAMP_MSAD.equalsIgnoreCase(SYNCHROtimeStampVar);
+  }
+
   public String getLDAPImpl() {
     return LDAPImpl;
   }
@@ -45,6 +45,7 @@ public class SynchroDomainReport {
   private static Level level;
   private static List<String> messages = Collections.synchronizedList(new ArrayList<>());
   private static int state = STATE_NOSYNC;
+  private static int runningSynchros = 0;
 
   private SynchroDomainReport() {
 
@@ -93,17 +94,31 @@ public class SynchroDomainReport {
     return message;
   }
 
+  /**
+   * Starts the report of a domain synchronization. As several domains can be synchronized at the
+   * same time, the report is shared by all of them: it is started by the first synchronization
+   * and it is stopped by the last one.
+   */
   public static void startSynchro() {
-    synchronized (messages) {
-      messages.clear();
+    synchronized (SynchroDomainReport.class) {
+      if (runningSynchros++ == 0) {
+        synchronized (messages) {
+          messages.clear();
+        }
+        setState(STATE_STARTED);
+      }
     }
-    setState(STATE_STARTED);
     info("SynchroDomainReport.startSynchro", "Synchronisation Start");
   }
 
   public static void stopSynchro() {
     info("SynchroDomainReport.stopSynchro", "Synchronisation End");
-    setState(STATE_ENDED);
+    synchronized (SynchroDomainReport.class) {
+      if (--runningSynchros <= 0) {
+        runningSynchros = 0;
+        setState(STATE_ENDED);
+      }
+    }
   }
 
   public static void reset() {
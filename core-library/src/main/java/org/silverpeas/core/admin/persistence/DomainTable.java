@@ -23,6 +23,9 @@
  */
 package org.silverpeas.core.admin.persistence;
 
+import org.silverpeas.core.persistence.jdbc.DBUtil;
+
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -151,6 +154,29 @@ public class DomainTable extends Table<DomainRow> {
     update.setInt(8, row.id);
   }
 
+  /**
+   * Updates the timestamp of a domain, that is the high-water mark of the changes in the domain's
+   * repository at its last synchronization.
+   * @param id the unique identifier of the domain.
+   * @param timeStamp the new timestamp.
+   * @throws SQLException
+   */
+  public void updateDomainTimeStamp(int id, String timeStamp) throws SQLException {
+    String valueTimeStamp = truncate(timeStamp, 100);
+    if (valueTimeStamp == null || valueTimeStamp.length() == 0) {
+      valueTimeStamp = "0";
+    }
+    try (Connection connection = DBUtil.openConnection();
+         PreparedStatement update = connection.prepareStatement(UPDATE_DOMAIN_TIMESTAMP)) {
+      update.setString(1, valueTimeStamp);
+      update.setInt(2, id);
+      update.executeUpdate();
+    }
+  }
+
+  private static final String UPDATE_DOMAIN_TIMESTAMP =
+      "update ST_Domain set theTimeStamp = ? where id = ?";
+
   /**
    * Delete the domain
    * @param id
@@ -100,6 +100,7 @@ import java.lang.reflect.Constructor;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -159,7 +160,7 @@ class Admin implements Administration {
   private static final String ID_IS = " (id:";
 
   // Divers
-  private final Object semaphore = new Object();
+  private final Map<String, Object> domainSynchroLocks = new ConcurrentHashMap<>();
   private boolean delUsersOnDiffSynchro = true;
   private boolean shouldFallbackGroupNames = true;
   private boolean shouldFallbackUserLogins = false;
@@ -191,6 +192,8 @@ class Admin implements Administration {
   @Inject
   private ComponentInstManager componentManager;
   @Inject
+  private ComponentAccessIndex componentAccessIndex;
+  @Inject
   private SpaceProfileInstManager spaceProfileManager;
   @Inject
   private SpaceEventNotifier spaceEventNotifier;
@@ -429,6 +432,8 @@ class Admin implements Administration {
       }
 
       cache.opRemoveSpace(spaceInst);
+      spaceInst.getAllComponentsInst()
+          .forEach(c -> componentAccessIndex.remove(getClientComponentId(c)));
       treeCache.removeSpace(driverSpaceId);
       // desindexation de l'espace
       deleteSpaceIndex(spaceInst);
@@ -1181,6 +1186,7 @@ class Admin implements Administration {
       }
 
       cache.opRemoveComponent(componentInst);
+      componentAccessIndex.remove(componentId);
       treeCache.removeComponent(getDriverSpaceId(sFatherClientId), componentId);
 
       // unindex component
@@ -1845,6 +1851,7 @@ class Admin implements Administration {
   private String doUpdateProfileInst(ProfileInst newProfile, String userId)
       throws AdminException {
     try {
+      final ProfileInst oldProfile = profileManager.getProfileInst(newProfile.getId());
       profileManager.updateProfileInst(newProfile);
       if (StringUtil.isDefined(userId)
           && (newProfile.getObjectId().isNotDefined() || newProfile.getObjectId().isRootNode())) {
@@ -1857,7 +1864,7 @@ class Admin implements Administration {
         updateComponentInst(component);
       }
       if (newProfile.getObjectId().isNotDefined() || newProfile.getObjectId().isRootNode()) {
-        cache.opUpdateProfile(newProfile);
+        cache.opUpdateProfile(oldProfile, newProfile);
       }
 
       return newProfile.getId();
@@ -2004,7 +2011,8 @@ class Admin implements Administration {
         }
         spreadSpaceProfile(spaceId, profileToSpread);
       }
-      cache.opUpdateSpaceProfile(spaceProfileManager.getSpaceProfileInst(newSpaceProfile.getId()));
+      cache.opUpdateSpaceProfile(oldSpaceProfile,
+          spaceProfileManager.getSpaceProfileInst(newSpaceProfile.getId()));
 
       return spaceProfileNewId;
     } catch (Exception e) {
@@ -2266,7 +2274,7 @@ class Admin implements Administration {
   public String updateGroup(GroupDetail group, boolean onlyInSilverpeas) throws AdminException {
     try {
       String sGroupId = groupManager.updateGroup(group, onlyInSilverpeas);
-      cache.resetOnUpdateGroup();
+      cache.opUpdateGroup(group);
       return sGroupId;
     } catch (Exception e) {
       throw new AdminException(failureOnUpdate(GROUP, group.getId()), e);
@@ -2279,7 +2287,7 @@ class Admin implements Administration {
       // Update group
       groupManager.removeUserFromGroup(sUserId, sGroupId);
 
-      cache.resetOnUpdateGroup();
+      cache.opRemoveUserFromGroup(sUserId);
 
     } catch (Exception e) {
       throw new AdminException(failureOnDeleting(USER + sUserId, IN_GROUP + sGroupId), e);
@@ -2291,7 +2299,7 @@ class Admin implements Administration {
     try {
       // Update group
       groupManager.addUserInGroup(sUserId, sGroupId);
-      cache.resetOnUpdateGroup();
+      cache.opAddUserInGroup(sUserId);
     } catch (Exception e) {
       throw new AdminException(failureOnAdding(USER + sUserId, IN_GROUP + sGroupId), e);
     }
@@ -3077,11 +3085,8 @@ class Admin implements Administration {
 
   private List<String> getAllowedComponentIds(String userId, String componentName)
       throws AdminException {
-    // getting all groups of users
-    List<String> allGroupsOfUser = getAllGroupsOfUser(userId);
-
-    return componentManager.getAllowedComponentIds(Integer.parseInt(userId), allGroupsOfUser,
-        null, componentName);
+    return componentAccessIndex.getAllowedComponentIds(userId, componentName,
+        this::getAllGroupsOfUser);
   }
 
   @Override
@@ -3398,15 +3403,11 @@ class Admin implements Administration {
 
   @Override
   public String[] getUserManageableSpaceIds(String sUserId) throws AdminException {
-    final Integer[] result;
-    ArrayList<String> alManageableSpaceIds = new ArrayList<>();
-    ArrayList<Integer> alDriverManageableSpaceIds = new ArrayList<>();
     try {
-      // Get user manageable space ids from cache
-      Optional<Integer[]> optionalSpaceIds = cache.getManageableSpaceIds(sUserId);
-      if (!optionalSpaceIds.isPresent()) {
-        // Get user manageable space ids from database
-
+      // Get user manageable space ids from cache or else from database
+      final Integer[] result = cache.getManageableSpaceIds(sUserId, dependencies -> {
+        ArrayList<String> alManageableSpaceIds = new ArrayList<>();
+        ArrayList<Integer> alDriverManageableSpaceIds = new ArrayList<>();
         List<String> groupIds = getAllGroupsOfUser(sUserId);
         final Integer[] manageableSpaceIds = userManager.getManageableSpaceIds(sUserId, groupIds);
 
@@ -3431,13 +3432,9 @@ class Admin implements Administration {
             }
           }
         }
-
-        // Put user manageable space ids in cache
-        result = alDriverManageableSpaceIds.toArray(new Integer[0]);
-        cache.putManageableSpaceIds(sUserId, result);
-      } else {
-        result = optionalSpaceIds.get();
-      }
+        dependencies.onGroups(groupIds).onSpaces(alDriverManageableSpaceIds);
+        return alDriverManageableSpaceIds.toArray(new Integer[0]);
+      });
       return Arrays.stream(result).map(String::valueOf).toArray(String[]::new);
     } catch (Exception e) {
       throw new AdminException(failureOnGetting("spaces manageable by user", sUserId), e);
@@ -3551,17 +3548,12 @@ class Admin implements Administration {
       // Converts client space id to driver space id
       int spaceId = getDriverSpaceId(sClientSpaceId);
 
-      // Get available component ids from cache
-      Optional<String[]> optionalInstanceIds = cache.getAvailCompoIds(spaceId, sUserId);
-
-      if (!optionalInstanceIds.isPresent()) {
-        // Get available component ids from database
-        asAvailCompoIds = getAvailableInstanceIds(sClientSpaceId, sUserId);
-        // Store available component ids in cache
-        cache.putAvailCompoIds(String.valueOf(spaceId), sUserId, asAvailCompoIds);
-      } else {
-        asAvailCompoIds = optionalInstanceIds.get();
-      }
+      // Get available component ids from cache or else from database
+      asAvailCompoIds = cache.getAvailCompoIds(spaceId, sUserId, dependencies -> {
+        dependencies.onGroups(getAllGroupsOfUser(sUserId))
+            .onSpaces(getSpaceAndSubSpaceIds(spaceId));
+        return getAvailableInstanceIds(sClientSpaceId, sUserId);
+      });
       return asAvailCompoIds;
 
     } catch (Exception e) {
@@ -3571,6 +3563,15 @@ class Admin implements Administration {
     }
   }
 
+  private List<Integer> getSpaceAndSubSpaceIds(final int spaceId) {
+    final List<Integer> spaceIds = new ArrayList<>();
+    spaceIds.add(spaceId);
+    for (SpaceInstLight subspace : treeCache.getSubSpaces(spaceId)) {
+      spaceIds.addAll(getSpaceAndSubSpaceIds(subspace.getLocalId()));
+    }
+    return spaceIds;
+  }
+
   private String[] getAvailableInstanceIds(final String clientSpaceId, final String userId)
       throws AdminException {
     final List<String> componentIds = new ArrayList<>();
@@ -3599,7 +3600,7 @@ class Admin implements Administration {
   public boolean isComponentAvailableToUser(String componentId, String userId)
       throws AdminException {
     try {
-      return getAllowedComponentIds(userId).contains(componentId);
+      return componentAccessIndex.isAvailable(componentId, userId, this::getAllGroupsOfUser);
     } catch (Exception e) {
       throw new AdminException(failureOnGetting("components available by user", userId), e);
     }
@@ -3826,21 +3827,12 @@ class Admin implements Administration {
   @Override
   public String[] getProfileIds(String sUserId) throws AdminException {
     try {
-      final String[] asProfilesIds;
-      // Get the profile ids from cache
-      Optional<String[]> optionalProfileIds = cache.getProfileIds(sUserId);
-      if (!optionalProfileIds.isPresent()) {
-        // retrieve value from database
-        asProfilesIds = profileManager.getProfileIdsOfUser(sUserId, getAllGroupsOfUser(sUserId));
-        // store values in cache
-        if (asProfilesIds != null) {
-          cache.putProfileIds(sUserId, asProfilesIds);
-        }
-      } else {
-        asProfilesIds = optionalProfileIds.get();
-      }
-
-      return asProfilesIds;
+      // Get the profile ids from cache or else from database
+      return cache.getProfileIds(sUserId, dependencies -> {
+        final List<String> groupIds = getAllGroupsOfUser(sUserId);
+        dependencies.onGroups(groupIds);
+        return profileManager.getProfileIdsOfUser(sUserId, groupIds);
+      });
     } catch (Exception e) {
       throw new AdminException(failureOnGetting("profiles of user", sUserId), e);
     }
@@ -4143,6 +4135,7 @@ class Admin implements Administration {
                   newUsers.stream().collect(Collectors.joining(", ")) + " dans le groupe d'ID " +
                   groupId);
           groupManager.addUsersInGroup(newUsers, groupId);
+          newUsers.forEach(cache::opAddUserInGroup);
         }
 
         // Remove users
@@ -4152,6 +4145,7 @@ class Admin implements Administration {
             + " utilisateur(s)");
         if (!removedUsers.isEmpty()) {
           groupManager.removeUsersFromGroup(removedUsers, groupId);
+          removedUsers.forEach(cache::opRemoveUserFromGroup);
         }
       } catch (Exception e) {
         SynchroGroupReport.error(ADMIN_SYNCHRONIZE_GROUP,
@@ -4468,7 +4462,8 @@ class Admin implements Administration {
         @Override
         public Pair<String, List<AbstractBackgroundProcessRequest>> execute() throws Exception {
           String sReport = "Starting synchronization...\n\n";
-          synchronized (semaphore) {
+          // the domains are synchronized independently of each other
+          synchronized (getDomainSynchroLock(sDomainId)) {
             // Starting synchronization with a status popup
             SynchroDomainReport.startSynchro();
             try {
@@ -4478,17 +4473,44 @@ class Admin implements Administration {
               // Start synchronization
               domainDriverManager.beginSynchronization(sDomainId);
               final DomainDriver synchroDomain = domainDriverManager.getDomainDriver(sDomainId);
+              // The scheduled synchronizations are incremental when the domain supports it: only
+              // the entries changed since the high-water mark of the previous synchronization are
+              // fetched. The manual ones are always full in order to detect the removed entries.
+              final String lastTimeStamp = synchroDomain.isDeltaSynchroEnabled() ?
+                  domainDriverManager.getLastSynchroTimeStamp(sDomainId) : null;
+              final boolean delta = threaded && lastTimeStamp != null;
+              // the high-water mark is taken before fetching the changes so that the ones
+              // occurring during the synchronization will be fetched by the next one. It is
+              // computed from the previous one, even for a full synchronization, so that all the
+              // entries are scanned only at the first synchronization of the domain
+              final String newTimeStamp = synchroDomain.isDeltaSynchroEnabled() ?
+                  synchroDomain.getSynchroTimeStamp(lastTimeStamp) : null;
               // Synchronize users
               final boolean addUserIntoSilverpeas = synchroDomain.mustImportUsers() || threaded;
               final SyncOfUsersContext context = new SyncOfUsersContext(sDomainId, threaded,
                   addUserIntoSilverpeas, delUsersOnDiffSynchro);
+              if (delta) {
+                SynchroDomainReport.info(ADMIN_SYNCHRONIZE_DOMAIN,
+                    "Incremental synchronization of the changes since " + lastTimeStamp);
+                context.onlyChangedSince(lastTimeStamp);
+              }
               final SyncOfUsersContext syncOfUsersContext = synchronizeUsers(context);
               sReport += syncOfUsersContext.getReport();
               // Synchronize groups
-              // Get all users of the domain from Silverpeas
-              final UserDetail[] silverpeasUDs = userManager.getAllUsersInDomain(sDomainId, true);
-              final Map<String, String> userIdsMapping = getUserIdsMapping(silverpeasUDs);
-              sReport += "\n" + synchronizeGroups(sDomainId, userIdsMapping);
+              if (!delta || synchroDomain.hasChangedGroups(lastTimeStamp)) {
+                // Get all users of the domain from Silverpeas
+                final UserDetail[] silverpeasUDs =
+                    userManager.getAllUsersInDomain(sDomainId, true);
+                final Map<String, String> userIdsMapping = getUserIdsMapping(silverpeasUDs);
+                sReport += "\n" + synchronizeGroups(sDomainId, userIdsMapping);
+              } else {
+                sReport += "\nNo group changed since " + lastTimeStamp + "\n";
+                SynchroDomainReport.info(ADMIN_SYNCHRONIZE_GROUPS,
+                    "No group changed since " + lastTimeStamp);
+              }
+              if (newTimeStamp != null) {
+                domainDriverManager.setLastSynchroTimeStamp(sDomainId, newTimeStamp);
+              }
               // End synchronization
               final String sDomainSpecificErrors = domainDriverManager.endSynchronization(sDomainId, false);
               if (StringUtil.isDefined(sDomainSpecificErrors)) {
@@ -4527,6 +4549,17 @@ class Admin implements Administration {
     }
   }
 
+  /**
+   * Gets the lock guarding the synchronization of the specified domain with its repository. Two
+   * synchronizations of a same domain cannot be performed at the same time but different domains
+   * can be synchronized concurrently.
+   * @param domainId the unique identifier of a domain.
+   * @return the lock of the domain's synchronization.
+   */
+  private Object getDomainSynchroLock(final String domainId) {
+    return domainSynchroLocks.computeIfAbsent(domainId, i -> new Object());
+  }
+
   /**
    * Merge the data of a distant user into the data of a silverpeas user : - user identifier (the
    * distant one) - first name - last name - e-mail - login
@@ -4571,9 +4604,17 @@ class Admin implements Administration {
     context.appendToReport("User synchronization : \n");
     String message;
     SynchroDomainReport.info(ADMIN_SYNCHRONIZE_USERS, "Starting synchronization of users...");
-    final UserDetail[] distantUDs = domainDriverManager.getAllUsers(context.getDomainId());
+    final UserDetail[] distantUDs;
+    if (context.isDelta()) {
+      distantUDs = domainDriverManager.getDomainDriver(domainId)
+          .getAllChangedUsers(context.getChangedSince());
+    } else {
+      distantUDs = domainDriverManager.getAllUsers(domainId);
+    }
     SynchroDomainReport.debug(ADMIN_SYNCHRONIZE_USERS,
-        format("Existing currently {0} users in external repository before synchronization",
+        format(context.isDelta() ?
+                "{0} users changed in external repository since the last synchronization" :
+                "Existing currently {0} users in external repository before synchronization",
             distantUDs.length));
     final UserDetail[] silverpeasUDs = userManager.getAllUsersInDomain(domainId, true);
     SynchroDomainReport.debug(ADMIN_SYNCHRONIZE_USERS,
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.admin.service;
+
+import org.silverpeas.core.admin.service.cache.AdminCache;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An in-memory index of the component instances available to the users. For each user and for
+ * each group, the local identifiers of the component instances in which they play directly a role
+ * are kept as a bit set. The component instances available to a user are then the union of the
+ * public component instances, of the ones of the user and of the ones of all the groups of the
+ * user, so that checking the availability of a component instance to a user is a bit test.
+ * <p>
+ * The bit sets are cached in the {@link AdminCache} and then they are invalidated on the changes
+ * of the profiles, of the groups and of the component instances.
+ * </p>
+ */
+@Singleton
+class ComponentAccessIndex {
+
+  @Inject
+  private AdminCache cache;
+  @Inject
+  private ComponentInstManager componentManager;
+
+  private final ConcurrentMap<Integer, String> componentIds = new ConcurrentHashMap<>();
+
+  /**
+   * Is the specified component instance available to the specified user?
+   * @param componentId the unique identifier of a component instance.
+   * @param userId the unique identifier of a user.
+   * @param groups the provider of all the groups of the user.
+   * @return true if the user can access the component instance, false otherwise.
+   * @throws AdminException if the rights of the user cannot be computed.
+   */
+  boolean isAvailable(final String componentId, final String userId, final GroupsOfUser groups)
+      throws AdminException {
+    final int localId = getLocalId(componentId);
+    return localId >= 0 && getAllowedComponents(userId, groups).get(localId) &&
+        componentId.equals(componentIds.get(localId));
+  }
+
+  /**
+   * Gets the identifiers of the component instances available to the specified user.
+   * @param userId the unique identifier of a user.
+   * @param componentName the name of the components to keep. If null, all the available
+   * component instances are returned.
+   * @param groups the provider of all the groups of the user.
+   * @return a list of component instance identifiers.
+   * @throws AdminException if the rights of the user cannot be computed.
+   */
+  List<String> getAllowedComponentIds(final String userId, final String componentName,
+      final GroupsOfUser groups) throws AdminException {
+    final BitSet allowed = getAllowedComponents(userId, groups);
+    final List<String> ids = new ArrayList<>(allowed.cardinality());
+    allowed.stream().forEach(localId -> {
+      final String componentId = componentIds.get(localId);
+      if (componentId != null &&
+          (componentName == null || isInstanceOf(componentId, localId, componentName))) {
+        ids.add(componentId);
+      }
+    });
+    return ids;
+  }
+
+  /**
+   * Forgets the specified component instance as it is removed. The bit sets in which it is set are
+   * invalidated with the removing of the component instance from the {@link AdminCache}.
+   * @param componentId the unique identifier of the removed component instance.
+   */
+  void remove(final String componentId) {
+    final int localId = getLocalId(componentId);
+    if (localId >= 0) {
+      componentIds.remove(localId, componentId);
+    }
+  }
+
+  private BitSet getAllowedComponents(final String userId, final GroupsOfUser groups)
+      throws AdminException {
+    return cache.getAllowedComponents(userId, dependencies -> {
+      final List<String> groupIds = groups.of(userId);
+      dependencies.onGroups(groupIds);
+      final BitSet allowed = (BitSet) cache.getPublicComponents(
+          d -> index(componentManager.getPublicComponentIds())).clone();
+      allowed.or(cache.getComponentsOfUser(userId,
+          d -> index(componentManager.getComponentIdsAvailableToUser(Integer.parseInt(userId)))));
+      for (String groupId : groupIds) {
+        allowed.or(cache.getComponentsOfGroup(groupId,
+            d -> index(componentManager.getComponentIdsAvailableToGroup(groupId))));
+      }
+      return allowed;
+    });
+  }
+
+  private BitSet index(final List<String> ids) {
+    final BitSet bits = new BitSet();
+    for (String componentId : ids) {
+      final int localId = getLocalId(componentId);
+      if (localId >= 0) {
+        componentIds.putIfAbsent(localId, componentId);
+        bits.set(localId);
+      }
+    }
+    return bits;
+  }
+
+  private static boolean isInstanceOf(final String componentId, final int localId,
+      final String componentName) {
+    final int nameLength = componentId.length() - String.valueOf(localId).length();
+    return componentName.equalsIgnoreCase(componentId.substring(0, nameLength));
+  }
+
+  /**
+   * @return 23 for kmelia23 or -1 if the given identifier doesn't end with a number.
+   */
+  private static int getLocalId(final String componentId) {
+    int start = componentId.length();
+    while (start > 0 && Character.isDigit(componentId.charAt(start - 1))) {
+      start--;
+    }
+    if (start == componentId.length() || componentId.length() - start > 9) {
+      return -1;
+    }
+    return Integer.parseInt(componentId.substring(start));
+  }
+
+  /**
+   * Provider of all the groups of a user, including the parents of the groups the user is directly
+   * in.
+   */
+  @FunctionalInterface
+  interface GroupsOfUser {
+    List<String> of(String userId) throws AdminException;
+  }
+}
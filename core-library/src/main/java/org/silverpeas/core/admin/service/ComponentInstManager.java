@@ -655,6 +655,51 @@ public class ComponentInstManager {
     }
   }
 
+  /**
+   * Gets the identifiers of all the public component instances.
+   * @return a list of component instance identifiers.
+   * @throws AdminException if an error occurs.
+   */
+  public List<String> getPublicComponentIds() throws AdminException {
+    try (Connection con = DBUtil.openConnection()) {
+      return ComponentDAO.getAllPublicComponentIds(con);
+    } catch (Exception e) {
+      throw new AdminException(failureOnGetting("public component instances", ""), e);
+    }
+  }
+
+  /**
+   * Gets the identifiers of the component instances in which the specified user plays directly
+   * a role, that is to say not through one of the groups of the user.
+   * @param userId the local identifier of a user.
+   * @return a list of component instance identifiers.
+   * @throws AdminException if an error occurs.
+   */
+  public List<String> getComponentIdsAvailableToUser(int userId) throws AdminException {
+    try (Connection con = DBUtil.openConnection()) {
+      return ComponentDAO.getAvailableComponentIdsOfUser(con, userId);
+    } catch (Exception e) {
+      throw new AdminException(failureOnGetting("component instances", " accessible to user " +
+          userId), e);
+    }
+  }
+
+  /**
+   * Gets the identifiers of the component instances in which the specified group plays directly
+   * a role, that is to say not through one of its parent groups.
+   * @param groupId the identifier of a group.
+   * @return a list of component instance identifiers.
+   * @throws AdminException if an error occurs.
+   */
+  public List<String> getComponentIdsAvailableToGroup(String groupId) throws AdminException {
+    try (Connection con = DBUtil.openConnection()) {
+      return ComponentDAO.getAvailableComponentIdsOfGroup(con, groupId);
+    } catch (Exception e) {
+      throw new AdminException(failureOnGetting("component instances", " accessible to group " +
+          groupId), e);
+    }
+  }
+
   public List<Parameter> getParameters(int compLocalId) throws AdminException {
     try {
       // Get the parameters if any
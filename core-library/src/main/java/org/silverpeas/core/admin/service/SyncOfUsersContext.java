@@ -45,6 +45,7 @@ class SyncOfUsersContext {
   private final Map<String, UserDetail> restoredUsers = new LinkedHashMap<>();
   private final Map<String, UserDetail> deletedUsers = new LinkedHashMap<>();
   private AbstractBackgroundProcessRequest indexationBackgroundProcess;
+  private String changedSince = null;
 
   SyncOfUsersContext(final String domainId, final boolean threaded,
       final boolean addUserIntoSilverpeas, final boolean delUsersOnDiffSync) {
@@ -54,8 +55,27 @@ class SyncOfUsersContext {
     this.delUsersOnDiffSync = delUsersOnDiffSync;
   }
 
+  /**
+   * Restricts the synchronization to the users changed since the specified high-water mark. The
+   * users removed from the domain's repository cannot be detected in such a synchronization.
+   * @param timeStamp the high-water mark of the previous synchronization.
+   * @return itself.
+   */
+  SyncOfUsersContext onlyChangedSince(final String timeStamp) {
+    this.changedSince = timeStamp;
+    return this;
+  }
+
+  boolean isDelta() {
+    return changedSince != null;
+  }
+
+  String getChangedSince() {
+    return changedSince;
+  }
+
   boolean isRemoveOperationToPerform() {
-    return !threaded || delUsersOnDiffSync;
+    return !isDelta() && (!threaded || delUsersOnDiffSync);
   }
 
   boolean isAddOperationToPerform() {
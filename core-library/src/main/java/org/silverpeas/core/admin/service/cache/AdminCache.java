@@ -23,7 +23,9 @@
  */
 package org.silverpeas.core.admin.service.cache;
 
+import org.silverpeas.core.admin.BaseRightProfile;
 import org.silverpeas.core.admin.component.model.ComponentInst;
+import org.silverpeas.core.admin.service.AdminException;
 import org.silverpeas.core.admin.space.SpaceInst;
 import org.silverpeas.core.admin.space.SpaceProfileInst;
 import org.silverpeas.core.admin.user.model.Group;
@@ -33,34 +35,62 @@ import org.silverpeas.core.util.StringUtil;
 
 import javax.inject.Singleton;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
 
 /**
- * The class Store and manage all the Admin's cache
+ * The class Store and manage all the Admin's cache.
+ * <p>
+ * The cache is made up of regions. The regions about the rights of the users (the profiles of a
+ * user, the spaces a user can manage and the component instances available to a user in a
+ * space) record for each entry the users, groups and spaces it was computed from, so that a
+ * change on one of them invalidates only the entries depending on it. The concurrent computations
+ * of a same missing entry are coalesced. The number of hits, misses and evictions of each region
+ * are available with {@link #getStatistics()}.
+ * </p>
  */
 @Singleton
 public class AdminCache {
+
+  private static final String USER_DEPENDENCY = "user:";
+  private static final String GROUP_DEPENDENCY = "group:";
+  private static final String SPACE_DEPENDENCY = "space:";
+
   // Cache management
 
   private boolean useCache = true;
-  private boolean useSpaceInstCache = true;
-  private Map<Integer, SpaceInst> spaceInstCache = new ConcurrentHashMap<>();
-  private boolean useComponentInstCache = true;
-  private Map<Integer, ComponentInst> componentInstCache = new ConcurrentHashMap<>();
-  private boolean useProfileInstCache = true;
-  private Map<String, ProfileInst> profileInstCache = new ConcurrentHashMap<>();
-  private boolean useUserDetailCache = true;
-  private Map<String, UserDetail> userDetailCache = new ConcurrentHashMap<>();
-  private boolean useManageableSpaceIdsCache = true;
-  private Map<String, Integer[]> manageableSpaceIdsCache = new ConcurrentHashMap<>();
-  private boolean useAvailCompoIdsCache = true;
-  private Map<String, Map<String, String[]>> availCompoIdsCache = new ConcurrentHashMap<>();
-  private boolean useProfileIdsCache = true;
-  private Map<String, String[]> profileIdsCache = new ConcurrentHashMap<>();
+  private final CacheRegion<Integer, SpaceInst> spaceInstCache = new CacheRegion<>("spaceInst");
+  private final CacheRegion<Integer, ComponentInst> componentInstCache =
+      new CacheRegion<>("componentInst");
+  private final CacheRegion<String, ProfileInst> profileInstCache =
+      new CacheRegion<>("profileInst");
+  private final CacheRegion<String, UserDetail> userDetailCache = new CacheRegion<>("userDetail");
+  private final CacheRegion<String, Integer[]> manageableSpaceIdsCache =
+      new CacheRegion<>("manageableSpaceIds");
+  private final CacheRegion<String, String[]> availCompoIdsCache =
+      new CacheRegion<>("availCompoIds");
+  private final CacheRegion<String, String[]> profileIdsCache = new CacheRegion<>("profileIds");
+  private final CacheRegion<String, BitSet> publicComponentsCache =
+      new CacheRegion<>("publicComponents");
+  private final CacheRegion<String, BitSet> componentsOfUserCache =
+      new CacheRegion<>("componentsOfUser");
+  private final CacheRegion<String, BitSet> componentsOfGroupCache =
+      new CacheRegion<>("componentsOfGroup");
+  private final CacheRegion<String, BitSet> allowedComponentsCache =
+      new CacheRegion<>("allowedComponents");
+  private final List<CacheRegion<?, ?>> componentAccessRegions =
+      Arrays.asList(publicComponentsCache, componentsOfUserCache, componentsOfGroupCache,
+          allowedComponentsCache);
+  private final List<CacheRegion<?, ?>> rightsRegions =
+      Arrays.asList(manageableSpaceIdsCache, availCompoIdsCache, profileIdsCache,
+          publicComponentsCache, componentsOfUserCache, componentsOfGroupCache,
+          allowedComponentsCache);
 
   public void setCacheAvailable(boolean useCache) {
     // Cache management
@@ -75,35 +105,47 @@ public class AdminCache {
     componentInstCache.clear();
     profileInstCache.clear();
     userDetailCache.clear();
-    manageableSpaceIdsCache.clear();
-    availCompoIdsCache.clear();
-    profileIdsCache.clear();
+    rightsRegions.forEach(CacheRegion::clear);
+  }
+
+  /**
+   * Gets statistics about the use of each region of the cache.
+   * @return a list with the statistics of each region.
+   */
+  public List<CacheRegionStatistics> getStatistics() {
+    final List<CacheRegionStatistics> statistics = new ArrayList<>();
+    statistics.add(spaceInstCache.getStatistics());
+    statistics.add(componentInstCache.getStatistics());
+    statistics.add(profileInstCache.getStatistics());
+    statistics.add(userDetailCache.getStatistics());
+    rightsRegions.forEach(r -> statistics.add(r.getStatistics()));
+    return statistics;
   }
 
   /*
    * Store the spaceInst in cache
    */
   public void resetSpaceInst() {
-    if (useCache && useSpaceInstCache) {
+    if (useCache) {
       spaceInstCache.clear();
     }
   }
 
   public void putSpaceInst(SpaceInst spaceInst) {
-    if (useCache && useSpaceInstCache) {
+    if (useCache) {
       spaceInstCache.put(spaceInst.getLocalId(), spaceInst);
     }
   }
 
   public void removeSpaceInst(int spaceId) {
-    if (useCache && useSpaceInstCache) {
+    if (useCache) {
       spaceInstCache.remove(spaceId);
     }
   }
 
   public Optional<SpaceInst> getSpaceInst(int spaceId) {
-    if (useCache && useSpaceInstCache) {
-      return Optional.ofNullable(spaceInstCache.get(spaceId));
+    if (useCache) {
+      return spaceInstCache.get(spaceId);
     }
     return Optional.empty();
   }
@@ -148,26 +190,26 @@ public class AdminCache {
    * Store the componentInst in cache
    */
   public void resetComponentInst() {
-    if (useCache && useComponentInstCache) {
+    if (useCache) {
       componentInstCache.clear();
     }
   }
 
   public void putComponentInst(ComponentInst componentInst) {
-    if (useCache && useComponentInstCache) {
+    if (useCache) {
       componentInstCache.put(componentInst.getLocalId(), componentInst);
     }
   }
 
   private void removeComponentInst(ComponentInst componentInst) {
-    if (useCache && useComponentInstCache) {
+    if (useCache) {
       componentInstCache.remove(componentInst.getLocalId());
     }
   }
 
   public Optional<ComponentInst> getComponentInst(int componentId) {
-    if (useCache && useComponentInstCache) {
-      return Optional.ofNullable(componentInstCache.get(componentId));
+    if (useCache) {
+      return componentInstCache.get(componentId);
     }
     return Optional.empty();
   }
@@ -185,31 +227,31 @@ public class AdminCache {
   }
 
   private void removeSpaceComponentsInst(int spaceId) {
-    final Collection<ComponentInst> theComponents = componentInstCache.values();
-    for (ComponentInst theComponent : theComponents) {
+    componentInstCache.removeIf((componentId, theComponent) -> {
       final Integer localSpaceId = getLocalSpaceId(theComponent.getDomainFatherId());
       if (localSpaceId != null && spaceId == localSpaceId) {
-        removeComponentsProfilesInst(theComponent.getLocalId());
-        removeComponentInst(theComponent);
+        removeComponentsProfilesInst(componentId);
+        return true;
       }
-    }
+      return false;
+    });
   }
 
   public void putProfileInst(ProfileInst profileInst) {
-    if (useCache && useProfileInstCache) {
+    if (useCache) {
       profileInstCache.put(profileInst.getId(), profileInst);
     }
   }
 
   private void removeProfileInst(ProfileInst profileInst) {
-    if (useCache && useProfileInstCache) {
+    if (useCache) {
       profileInstCache.remove(profileInst.getId());
     }
   }
 
   public Optional<ProfileInst> getProfileInst(String profileId) {
-    if (useCache && useProfileInstCache) {
-      return Optional.ofNullable(profileInstCache.get(profileId));
+    if (useCache) {
+      return profileInstCache.get(profileId);
     } else {
       return Optional.empty();
     }
@@ -235,119 +277,139 @@ public class AdminCache {
   }
 
   private void removeComponentsProfilesInst(int componentId) {
-    final Collection<ProfileInst> theProfiles = profileInstCache.values();
-    for (ProfileInst theProfile : theProfiles) {
-      if (componentId == theProfile.getComponentFatherId()) {
-        removeProfileInst(theProfile);
-      }
-    }
+    profileInstCache.removeIf(
+        (profileId, theProfile) -> componentId == theProfile.getComponentFatherId());
   }
 
   public void putUserDetail(String userId, UserDetail userDetail) {
-    if (useCache && useUserDetailCache) {
+    if (useCache) {
       userDetailCache.put(userId, userDetail);
     }
   }
 
   private void removeUserDetail(String userId) {
-    if (useCache && useUserDetailCache) {
+    if (useCache) {
       userDetailCache.remove(userId);
     }
   }
 
   public Optional<UserDetail> getUserDetail(String userId) {
-    if (useCache && useUserDetailCache) {
-      return Optional.ofNullable(userDetailCache.get(userId));
+    if (useCache) {
+      return userDetailCache.get(userId);
     } else {
       return Optional.empty();
     }
   }
 
-  /*
-   * Store the ManageableSpaceIds by user
+  /**
+   * Gets the identifiers of the spaces the specified user can manage. If they aren't yet cached,
+   * they are computed by the given computation and then cached.
+   * @param userId the unique identifier of a user.
+   * @param computation the computation of the manageable spaces of the user.
+   * @return the local identifiers of the spaces manageable by the user.
+   * @throws AdminException if the computation fails.
    */
-  private void resetManageableSpaceIds() {
-    manageableSpaceIdsCache.clear();
-  }
-
-  public void putManageableSpaceIds(String userId, Integer[] spaceIds) {
-    if (useCache && useManageableSpaceIdsCache) {
-      manageableSpaceIdsCache.put(userId, spaceIds);
-    }
+  public Integer[] getManageableSpaceIds(String userId, Computation<Integer[]> computation)
+      throws AdminException {
+    return computeIfAbsent(manageableSpaceIdsCache, userId, userId, computation);
   }
 
-  private void removeManageableSpaceIds(String userId) {
-    if (useCache && useManageableSpaceIdsCache) {
-      manageableSpaceIdsCache.remove(userId);
-    }
-  }
-
-  public Optional<Integer[]> getManageableSpaceIds(String userId) {
-    if (useCache && useManageableSpaceIdsCache) {
-      return Optional.ofNullable(manageableSpaceIdsCache.get(userId));
-    } else {
-      return Optional.empty();
-    }
+  /**
+   * Gets the identifiers of the component instances in the specified space and in its subspaces
+   * that are available to the specified user. If they aren't yet cached, they are computed by the
+   * given computation and then cached.
+   * @param spaceId the local identifier of a space.
+   * @param userId the unique identifier of a user.
+   * @param computation the computation of the available component instances.
+   * @return the identifiers of the component instances available to the user.
+   * @throws AdminException if the computation fails.
+   */
+  public String[] getAvailCompoIds(int spaceId, String userId, Computation<String[]> computation)
+      throws AdminException {
+    return computeIfAbsent(availCompoIdsCache, spaceId + "@" + userId, userId, computation);
   }
 
-  /*
-   * Store the AvailCompoIds by space and user
+  /**
+   * Gets the identifiers of the profiles of the specified user. If they aren't yet cached, they
+   * are computed by the given computation and then cached.
+   * @param userId the unique identifier of a user.
+   * @param computation the computation of the profiles of the user.
+   * @return the identifiers of the profiles of the user.
+   * @throws AdminException if the computation fails.
    */
-  private void resetAvailCompoIds() {
-    availCompoIdsCache.clear();
+  public String[] getProfileIds(String userId, Computation<String[]> computation)
+      throws AdminException {
+    return computeIfAbsent(profileIdsCache, userId, userId, computation);
   }
 
-  public void putAvailCompoIds(String spaceId, String userId, String[] compoIds) {
-    if (useCache && useAvailCompoIdsCache) {
-      final Map<String, String[]> spaceTable =
-          availCompoIdsCache.computeIfAbsent(spaceId, s -> new ConcurrentHashMap<>());
-      spaceTable.put(userId, compoIds);
-    }
+  /**
+   * Gets the local identifiers of the component instances available to the specified user,
+   * directly, through the groups of the user or because they are public. If they aren't yet
+   * cached, they are computed by the given computation and then cached. The returned bit set must
+   * not be modified.
+   * @param userId the unique identifier of a user.
+   * @param computation the computation of the available component instances.
+   * @return a bit set in which the local identifier of each available component instance is set.
+   * @throws AdminException if the computation fails.
+   */
+  public BitSet getAllowedComponents(String userId, Computation<BitSet> computation)
+      throws AdminException {
+    return computeIfAbsent(allowedComponentsCache, userId, userId, computation);
   }
 
-  private void removeAvailCompoIdsForUser(String userId) {
-    if (useCache && useAvailCompoIdsCache) {
-      for (Map<String, String[]> spaceTable : availCompoIdsCache.values()) {
-        spaceTable.remove(userId);
-      }
-    }
+  /**
+   * Gets the local identifiers of the component instances in which the specified user plays
+   * directly a role. If they aren't yet cached, they are computed by the given computation and
+   * then cached. The returned bit set must not be modified.
+   * @param userId the unique identifier of a user.
+   * @param computation the computation of the component instances.
+   * @return a bit set in which the local identifier of each component instance is set.
+   * @throws AdminException if the computation fails.
+   */
+  public BitSet getComponentsOfUser(String userId, Computation<BitSet> computation)
+      throws AdminException {
+    return computeIfAbsent(componentsOfUserCache, userId, userId, computation);
   }
 
-  public Optional<String[]> getAvailCompoIds(int spaceId, String userId) {
-    if (useCache && useAvailCompoIdsCache) {
-      Map<String, String[]> spaceTable = availCompoIdsCache.get(String.valueOf(spaceId));
-      if (spaceTable != null) {
-        return Optional.ofNullable(spaceTable.get(userId));
-      }
-    }
-    return Optional.empty();
+  /**
+   * Gets the local identifiers of the component instances in which the specified group plays
+   * directly a role. If they aren't yet cached, they are computed by the given computation and
+   * then cached. The returned bit set must not be modified.
+   * @param groupId the unique identifier of a group.
+   * @param computation the computation of the component instances.
+   * @return a bit set in which the local identifier of each component instance is set.
+   * @throws AdminException if the computation fails.
+   */
+  public BitSet getComponentsOfGroup(String groupId, Computation<BitSet> computation)
+      throws AdminException {
+    final Computation<BitSet> groupComputation =
+        d -> computation.compute(d.onGroups(Collections.singletonList(groupId)));
+    return computeIfAbsent(componentsOfGroupCache, groupId, groupComputation);
   }
 
-  /*
-   * Store the ProfileIds by space and user
+  /**
+   * Gets the local identifiers of the public component instances. If they aren't yet cached,
+   * they are computed by the given computation and then cached. The returned bit set must not be
+   * modified.
+   * @param computation the computation of the public component instances.
+   * @return a bit set in which the local identifier of each public component instance is set.
+   * @throws AdminException if the computation fails.
    */
-  private void resetProfileIds() {
-    profileIdsCache.clear();
+  public BitSet getPublicComponents(Computation<BitSet> computation) throws AdminException {
+    return computeIfAbsent(publicComponentsCache, "", computation);
   }
 
-  public void putProfileIds(String userId, String[] profileIds) {
-    if (useCache && useProfileIdsCache) {
-      profileIdsCache.put(userId, profileIds);
-    }
+  private <V> V computeIfAbsent(final CacheRegion<String, V> region, final String key,
+      final String userId, final Computation<V> computation) throws AdminException {
+    return computeIfAbsent(region, key, d -> computation.compute(d.onUser(userId)));
   }
 
-  private void removeProfileIds(String userId) {
-    if (useCache && useProfileIdsCache) {
-      profileIdsCache.remove(userId);
-    }
-  }
-
-  public Optional<String[]> getProfileIds(String userId) {
-    if (useCache && useProfileIdsCache) {
-      return Optional.ofNullable(profileIdsCache.get(userId));
-    } else {
-      return Optional.empty();
+  private <V> V computeIfAbsent(final CacheRegion<String, V> region, final String key,
+      final Computation<V> computation) throws AdminException {
+    if (useCache) {
+      return region.computeIfAbsent(key, computation);
     }
+    return computation.compute(new Dependencies());
   }
 
   /*
@@ -371,6 +433,8 @@ public class AdminCache {
           subSpaces.add(theSpace);
           f.setSubSpaces(subSpaces);
         });
+        // the rights computed on the parent space are also about its subspaces
+        invalidateRights(SPACE_DEPENDENCY + spaceId);
       }
     }
   }
@@ -404,12 +468,11 @@ public class AdminCache {
   private void opResetSpace(SpaceInst theSpace) {
     // First level cache reset : it's not the best but it's simple : remove all
     // structs from cache that includes the component and all the child's
-    // structs
+    // structs. The changes of the space tree or of the inheritance of the rights are rare and
+    // they can impact the rights of everyone: all the rights are reset.
     removeSpaceComponentsInst(theSpace.getLocalId());
     removeSpaceInst(theSpace.getLocalId());
-    resetProfileIds();
-    resetAvailCompoIds();
-    resetManageableSpaceIds();
+    rightsRegions.forEach(CacheRegion::clear);
   }
 
   // ----- Components -----
@@ -431,8 +494,14 @@ public class AdminCache {
     // structs
     removeComponentsProfilesInst(component.getLocalId());
     removeComponent(component);
-    resetProfileIds();
-    resetAvailCompoIds();
+    profileIdsCache.clear();
+    componentAccessRegions.forEach(CacheRegion::clear);
+    final Integer spaceId = getLocalSpaceId(component.getDomainFatherId());
+    if (spaceId != null) {
+      availCompoIdsCache.invalidate(SPACE_DEPENDENCY + spaceId);
+    } else {
+      availCompoIdsCache.clear();
+    }
   }
 
   private void removeComponent(final ComponentInst component) {
@@ -449,8 +518,15 @@ public class AdminCache {
     opResetProfile(profile);
   }
 
-  public void opUpdateProfile(ProfileInst profile) {
-    opResetProfile(profile);
+  /**
+   * The specified profile has been updated.
+   * @param oldProfile the profile before its update. The rights of its users and of its groups
+   * are reset as they can have lost the profile.
+   * @param newProfile the updated profile.
+   */
+  public void opUpdateProfile(ProfileInst oldProfile, ProfileInst newProfile) {
+    invalidateRightsOfMembers(oldProfile);
+    opResetProfile(newProfile);
   }
 
   public void opRemoveProfile(ProfileInst profile) {
@@ -463,8 +539,7 @@ public class AdminCache {
     Optional<ComponentInst> theComponent = getComponentInst(profile.getComponentFatherId());
     theComponent.ifPresent(this::removeComponent);
     removeProfileInst(profile);
-    resetProfileIds();
-    resetAvailCompoIds();
+    invalidateRightsOfMembers(profile);
   }
 
   // ----- Space Profiles -----
@@ -474,19 +549,27 @@ public class AdminCache {
       Optional<SpaceInst> theSpace = getSpaceInst(spaceId);
       theSpace.ifPresent(s -> s.addSpaceProfileInst(profile));
     }
-    resetManageableSpaceIds();
+    invalidateRightsOfMembers(profile);
   }
 
-  public void opUpdateSpaceProfile(final SpaceProfileInst profile) {
-    Integer spaceId = getLocalSpaceId(profile.getSpaceFatherId());
+  /**
+   * The specified space profile has been updated.
+   * @param oldProfile the space profile before its update. The rights of its users and of its
+   * groups are reset as they can have lost the profile.
+   * @param newProfile the updated space profile.
+   */
+  public void opUpdateSpaceProfile(final SpaceProfileInst oldProfile,
+      final SpaceProfileInst newProfile) {
+    Integer spaceId = getLocalSpaceId(newProfile.getSpaceFatherId());
     if (spaceId != null) {
       Optional<SpaceInst> theSpace = getSpaceInst(spaceId);
       theSpace.ifPresent(s -> {
-        s.deleteSpaceProfileInst(profile);
-        s.addSpaceProfileInst(profile);
+        s.deleteSpaceProfileInst(newProfile);
+        s.addSpaceProfileInst(newProfile);
       });
     }
-    resetManageableSpaceIds();
+    invalidateRightsOfMembers(oldProfile);
+    invalidateRightsOfMembers(newProfile);
   }
 
   public void opRemoveSpaceProfile(final SpaceProfileInst profile) {
@@ -495,13 +578,13 @@ public class AdminCache {
       Optional<SpaceInst> theSpace = getSpaceInst(spaceId);
       theSpace.ifPresent(s -> s.deleteSpaceProfileInst(profile));
     }
-    resetManageableSpaceIds();
+    invalidateRightsOfMembers(profile);
   }
 
   // ----- Groups -----
   public void opAddGroup(Group group) {
     if (StringUtil.isDefined(group.getSuperGroupId())) { // The group inherits of
-      // the permissions of the parent -> too complicated -> reset the permissions of all users
+      // the permissions of the parent -> reset the permissions of its users
       String[] uids = group.getUserIds();
       for (String uid : uids) {
         opResetUserRights(uid);
@@ -509,10 +592,16 @@ public class AdminCache {
     }
   }
 
-  public void resetOnUpdateGroup() {
-    resetProfileIds();
-    resetAvailCompoIds();
-    resetManageableSpaceIds();
+  /**
+   * The specified group has been updated: the rights of all the users that were or that are now
+   * in the group or in one of its subgroups are reset.
+   * @param group the updated group.
+   */
+  public void opUpdateGroup(Group group) {
+    opResetGroupRights(group.getId());
+    for (String uid : group.getUserIds()) {
+      opResetUserRights(uid);
+    }
   }
 
   public void opRemoveGroup(Group group) {
@@ -521,9 +610,7 @@ public class AdminCache {
     removeGroupInSpaceInst(groupId);
     removeGroupInComponentInst(groupId);
     removeGroupInProfileInst(groupId);
-    resetProfileIds();
-    resetAvailCompoIds();
-    resetManageableSpaceIds();
+    opResetGroupRights(groupId);
   }
 
   public void opAddUserInGroup(String userId) {
@@ -542,21 +629,32 @@ public class AdminCache {
     String userId = user.getId();
 
     removeUserDetail(userId);
-    removeProfileIds(userId);
-    removeManageableSpaceIds(userId);
-    removeAvailCompoIdsForUser(userId);
+    opResetUserRights(userId);
     removeUserInSpaceInst(userId);
     removeUserInComponentInst(userId);
     removeUserInProfileInst(userId);
   }
 
   private void opResetUserRights(String userId) {
-    removeProfileIds(userId);
-    removeManageableSpaceIds(userId);
-    removeAvailCompoIdsForUser(userId);
+    invalidateRights(USER_DEPENDENCY + userId);
+  }
+
+  private void opResetGroupRights(String groupId) {
+    invalidateRights(GROUP_DEPENDENCY + groupId);
+  }
+
+  private void invalidateRightsOfMembers(final BaseRightProfile profile) {
+    if (profile != null) {
+      profile.getAllUsers().forEach(this::opResetUserRights);
+      profile.getAllGroups().forEach(this::opResetGroupRights);
+    }
   }
 
-  private Integer getLocalSpaceId(String spaceId) {
+  private void invalidateRights(final String dependency) {
+    rightsRegions.forEach(r -> r.invalidate(dependency));
+  }
+
+  private static Integer getLocalSpaceId(String spaceId) {
     boolean isSpaceIdDefined = StringUtil.isDefined(spaceId);
     if (isSpaceIdDefined && (spaceId.startsWith(SpaceInst.SPACE_KEY_PREFIX))) {
       return Integer.parseInt(spaceId.substring(SpaceInst.SPACE_KEY_PREFIX.length()));
@@ -564,4 +662,66 @@ public class AdminCache {
       return !isSpaceIdDefined ? null : Integer.parseInt(spaceId);
     }
   }
+
+  /**
+   * The computation of the value of a cache entry.
+   * @param <V> the type of the value.
+   */
+  @FunctionalInterface
+  public interface Computation<V> {
+
+    /**
+     * Computes the value.
+     * @param dependencies the recorder of the administration objects the computed value depends
+     * on. The entry will be invalidated as soon as one of them changes.
+     * @return the computed value. A null value isn't cached.
+     * @throws AdminException if the computation fails.
+     */
+    V compute(Dependencies dependencies) throws AdminException;
+  }
+
+  /**
+   * The administration objects from which a cached value is derived.
+   */
+  public static class Dependencies {
+    private final Set<String> ids = new HashSet<>();
+
+    Dependencies() {
+      // built by the cache only
+    }
+
+    /**
+     * The value depends on the specified user.
+     * @param userId the unique identifier of a user.
+     * @return itself.
+     */
+    public Dependencies onUser(String userId) {
+      ids.add(USER_DEPENDENCY + userId);
+      return this;
+    }
+
+    /**
+     * The value depends on the specified groups.
+     * @param groupIds the unique identifiers of groups.
+     * @return itself.
+     */
+    public Dependencies onGroups(Collection<String> groupIds) {
+      groupIds.forEach(g -> ids.add(GROUP_DEPENDENCY + g));
+      return this;
+    }
+
+    /**
+     * The value depends on the specified spaces.
+     * @param spaceIds the local identifiers of spaces.
+     * @return itself.
+     */
+    public Dependencies onSpaces(Collection<Integer> spaceIds) {
+      spaceIds.forEach(s -> ids.add(SPACE_DEPENDENCY + s));
+      return this;
+    }
+
+    Set<String> get() {
+      return Collections.unmodifiableSet(ids);
+    }
+  }
 }
@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.admin.service.cache;
+
+import org.silverpeas.core.admin.service.AdminException;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.stream.Collectors;
+
+/**
+ * A region of the {@link AdminCache}. Each entry of the region records the administration
+ * objects (users, groups, spaces, ...) from which its value was derived so that it can be
+ * invalidated precisely when one of them changes.
+ * <p>
+ * The region is versioned: its version is incremented at each invalidation and a value that was
+ * computed while an invalidation occurred isn't stored, so a stale value can never overwrite the
+ * effect of an invalidation. The concurrent computations of a same missing entry are coalesced:
+ * only one thread computes the value and the others wait for it.
+ * </p>
+ * @param <K> the type of the keys of the entries.
+ * @param <V> the type of the cached values.
+ */
+class CacheRegion<K, V> {
+
+  private final String name;
+  private final ConcurrentMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Set<K>> dependents = new ConcurrentHashMap<>();
+  private final ConcurrentMap<K, CompletableFuture<V>> computations = new ConcurrentHashMap<>();
+  private final AtomicLong version = new AtomicLong(0);
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  CacheRegion(final String name) {
+    this.name = name;
+  }
+
+  Optional<V> get(final K key) {
+    final Entry<V> entry = entries.get(key);
+    if (entry != null) {
+      hits.increment();
+      return Optional.of(entry.value);
+    }
+    misses.increment();
+    return Optional.empty();
+  }
+
+  Collection<V> values() {
+    return entries.values().stream().map(e -> e.value).collect(Collectors.toList());
+  }
+
+  void put(final K key, final V value) {
+    store(key, value, Collections.emptySet(), version.get());
+  }
+
+  /**
+   * Gets the value of the specified entry, computing it if it isn't yet cached. If the value is
+   * already being computed by another thread, the current thread waits for this computation
+   * instead of performing its own.
+   * @param key the key of the entry.
+   * @param computation the computation of the value. It records the administration objects the
+   * value depends on. A null value isn't cached.
+   * @return the value of the entry.
+   * @throws AdminException if the computation fails.
+   */
+  V computeIfAbsent(final K key, final AdminCache.Computation<V> computation)
+      throws AdminException {
+    Entry<V> entry = entries.get(key);
+    if (entry != null) {
+      hits.increment();
+      return entry.value;
+    }
+    misses.increment();
+    final CompletableFuture<V> myComputation = new CompletableFuture<>();
+    final CompletableFuture<V> runningComputation = computations.putIfAbsent(key, myComputation);
+    if (runningComputation != null) {
+      return waitFor(runningComputation);
+    }
+    try {
+      entry = entries.get(key);
+      final V value;
+      if (entry != null) {
+        value = entry.value;
+      } else {
+        final long startVersion = version.get();
+        final AdminCache.Dependencies dependencies = new AdminCache.Dependencies();
+        value = computation.compute(dependencies);
+        if (value != null) {
+          store(key, value, dependencies.get(), startVersion);
+        }
+      }
+      myComputation.complete(value);
+      return value;
+    } catch (AdminException | RuntimeException e) {
+      myComputation.completeExceptionally(e);
+      throw e;
+    } finally {
+      computations.remove(key, myComputation);
+    }
+  }
+
+  void remove(final K key) {
+    final Entry<V> entry = entries.remove(key);
+    if (entry != null) {
+      evicted(key, entry);
+    }
+  }
+
+  void removeIf(final BiPredicate<K, V> predicate) {
+    entries.forEach((k, e) -> {
+      if (predicate.test(k, e.value) && entries.remove(k, e)) {
+        evicted(k, e);
+      }
+    });
+  }
+
+  /**
+   * Invalidates all the entries depending on the specified administration object.
+   * @param dependency the identifier of an administration object.
+   */
+  void invalidate(final String dependency) {
+    version.incrementAndGet();
+    final Set<K> keys = dependents.remove(dependency);
+    if (keys != null) {
+      keys.forEach(this::remove);
+    }
+  }
+
+  void clear() {
+    version.incrementAndGet();
+    entries.keySet().forEach(this::remove);
+    dependents.clear();
+  }
+
+  CacheRegionStatistics getStatistics() {
+    return new CacheRegionStatistics(name, entries.size(), hits.sum(), misses.sum(),
+        evictions.sum());
+  }
+
+  private void store(final K key, final V value, final Set<String> dependencyIds,
+      final long startVersion) {
+    // the dependencies are registered before the entry is put so that a concurrent invalidation
+    // finds it
+    dependencyIds.forEach(d -> dependents.computeIfAbsent(d, i -> ConcurrentHashMap.newKeySet())
+        .add(key));
+    final Entry<V> entry = new Entry<>(value, dependencyIds);
+    entries.put(key, entry);
+    if (version.get() != startVersion && entries.remove(key, entry)) {
+      // an invalidation occurred while the value was computed: it is perhaps stale
+      unlink(key, entry);
+    }
+  }
+
+  private void evicted(final K key, final Entry<V> entry) {
+    evictions.increment();
+    unlink(key, entry);
+  }
+
+  private void unlink(final K key, final Entry<V> entry) {
+    entry.dependencies.forEach(d -> dependents.computeIfPresent(d, (i, keys) -> {
+      keys.remove(key);
+      return keys.isEmpty() ? null : keys;
+    }));
+  }
+
+  private static <V> V waitFor(final CompletableFuture<V> computation) throws AdminException {
+    try {
+      return computation.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AdminException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof AdminException) {
+        throw (AdminException) e.getCause();
+      }
+      throw new AdminException(e.getCause());
+    }
+  }
+
+  private static class Entry<V> {
+    private final V value;
+    private final Set<String> dependencies;
+
+    private Entry(final V value, final Set<String> dependencies) {
+      this.value = value;
+      this.dependencies = dependencies;
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.admin.service.cache;
+
+/**
+ * Statistics about the use of a region of the {@link AdminCache}.
+ */
+public class CacheRegionStatistics {
+
+  private final String region;
+  private final int size;
+  private final long hits;
+  private final long misses;
+  private final long evictions;
+
+  CacheRegionStatistics(final String region, final int size, final long hits, final long misses,
+      final long evictions) {
+    this.region = region;
+    this.size = size;
+    this.hits = hits;
+    this.misses = misses;
+    this.evictions = evictions;
+  }
+
+  /**
+   * @return the name of the cache region.
+   */
+  public String getRegion() {
+    return region;
+  }
+
+  /**
+   * @return the number of entries currently in the region.
+   */
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * @return the number of accesses that found their entry in the region.
+   */
+  public long getHits() {
+    return hits;
+  }
+
+  /**
+   * @return the number of accesses that didn't find their entry in the region.
+   */
+  public long getMisses() {
+    return misses;
+  }
+
+  /**
+   * @return the number of entries that were removed or invalidated from the region.
+   */
+  public long getEvictions() {
+    return evictions;
+  }
+
+  @Override
+  public String toString() {
+    return region + ": " + size + " entries, " + hits + " hits, " + misses + " misses, " +
+        evictions + " evictions";
+  }
+}
@@ -111,16 +111,17 @@ public class GroupDAO {
       final String groupId) throws SQLException {
     checkGroupExistence(connection, groupId);
 
+    final List<JdbcSqlQuery> insertions = new ArrayList<>(userIds.size());
     for (String userId : userIds) {
       checkUserExistence(connection, userId);
 
-      JdbcSqlQuery.createInsertFor(GROUP_USERS_TABLE)
+      insertions.add(JdbcSqlQuery.createInsertFor(GROUP_USERS_TABLE)
           .addInsertParam(GROUP_ID, Integer.parseInt(groupId))
-          .addInsertParam(USER_ID, Integer.parseInt(userId))
-          .executeWith(connection);
-
-      groupCache.removeCacheOfUser(userId);
+          .addInsertParam(USER_ID, Integer.parseInt(userId)));
     }
+    JdbcSqlQuery.executeBatchWith(connection, insertions);
+
+    userIds.forEach(groupCache::removeCacheOfUser);
   }
 
   private void checkGroupExistence(final Connection connection, final String groupId)
@@ -34,6 +34,7 @@ import net.fortuna.ical4j.model.property.ExDate;
 import net.fortuna.ical4j.model.property.RRule;
 import net.fortuna.ical4j.model.property.Uid;
 import org.silverpeas.core.NotSupportedException;
+import org.silverpeas.core.cache.service.CacheServiceProvider;
 import org.silverpeas.core.calendar.CalendarComponent;
 import org.silverpeas.core.calendar.CalendarEvent;
 import org.silverpeas.core.calendar.CalendarEventOccurrence;
@@ -46,6 +47,7 @@ import org.silverpeas.core.date.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
@@ -53,19 +55,43 @@ import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.Temporal;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * An implementation of the {@link CalendarEventOccurrenceGenerator} by using the iCal4J library.
+ * <p>
+ * The occurrences of an event are expanded by windows of time aligned on the months in UTC, so
+ * that a same window is shared by all the periods of time overlapping it. The expanded windows of
+ * the persisted events are kept in the application cache for the last modification of the
+ * events: the agendas of the same months don't compute again the recurrence rules and the search
+ * of the next occurrences walks the windows forward only as far as it needs.
+ * </p>
  * @author mmoquillon
  */
 @Singleton
 public class ICal4JCalendarEventOccurrenceGenerator implements CalendarEventOccurrenceGenerator {
 
+  private static final String CACHE_KEY_PREFIX = "ICal4JCalendarEventOccurrenceWindow#";
+  private static final int CACHE_TIME_TO_IDLE = 3600;
+  private static final int MAX_EMPTY_WINDOWS = 100;
+  private static final OffsetDateTime EPOCH_MONTH =
+      OffsetDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
   private final ICal4JDateCodec iCal4JDateCodec;
   private final ICal4JRecurrenceCodec iCal4JRecurrenceCodec;
 
@@ -80,10 +106,10 @@ public class ICal4JCalendarEventOccurrenceGenerator implements CalendarEventOccu
   public List<CalendarEventOccurrence> generateOccurrencesOf(final List<CalendarEvent> events,
       final Period inPeriod) {
     List<CalendarEventOccurrence> occurrences = new ArrayList<>();
+    final net.fortuna.ical4j.model.Period icalPeriod = fromPeriod(inPeriod);
     events.forEach(event -> {
-      final VEvent vEvent = fromCalendarEvent(event);
-      PeriodList periodList = getPeriodList(vEvent, inPeriod);
-      periodList.forEach(occurPeriod -> {
+      final OccurrenceWindows windows = new OccurrenceWindows(event);
+      windows.getOccurrencePeriodsIn(icalPeriod).forEach(occurPeriod -> {
         CalendarEventOccurrence occurrence = buildCalendarEventOccurrence(event, occurPeriod);
         occurrences.add(occurrence);
       });
@@ -132,6 +158,40 @@ public class ICal4JCalendarEventOccurrenceGenerator implements CalendarEventOccu
     return generateNextOccurrenceOfSingleEvent(event, since);
   }
 
+  @Override
+  public Stream<CalendarEventOccurrence> streamOccurrencesOf(final List<CalendarEvent> events,
+      final ZonedDateTime since) {
+    final DateTime iCalSinceDate = iCal4JDateCodec.encode(since);
+    final PriorityQueue<OccurrenceCursor> cursors =
+        new PriorityQueue<>(Comparator.comparing(OccurrenceCursor::getCurrent));
+    events.stream()
+        .map(event -> new OccurrenceCursor(event, iCalSinceDate))
+        .filter(OccurrenceCursor::moveToNext)
+        .forEach(cursors::add);
+    final Iterator<CalendarEventOccurrence> occurrences = new Iterator<CalendarEventOccurrence>() {
+      @Override
+      public boolean hasNext() {
+        return !cursors.isEmpty();
+      }
+
+      @Override
+      public CalendarEventOccurrence next() {
+        final OccurrenceCursor cursor = cursors.poll();
+        if (cursor == null) {
+          throw new NoSuchElementException();
+        }
+        final CalendarEventOccurrence occurrence =
+            buildCalendarEventOccurrence(cursor.getEvent(), cursor.getCurrent());
+        if (cursor.moveToNext()) {
+          cursors.add(cursor);
+        }
+        return occurrence;
+      }
+    };
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(occurrences,
+        Spliterator.ORDERED | Spliterator.NONNULL), false);
+  }
+
   private CalendarEventOccurrence generateNextOccurrenceOfSingleEvent(final CalendarEvent event,
       final ZonedDateTime since) {
     final ZoneId actualZoneId = event.getCalendar().getZoneId();
@@ -158,40 +218,19 @@ public class ICal4JCalendarEventOccurrenceGenerator implements CalendarEventOccu
     final ZonedDateTime eventStartDate =
         event.isOnAllDay() ? ((LocalDate) event.getStartDate()).atStartOfDay(actualZoneId) :
             ((OffsetDateTime) event.getStartDate()).atZoneSameInstant(actualZoneId);
-    final Optional<Temporal> optionalRecurEndDate = event.getRecurrence().getEndDate();
-    LocalDate recurEndDate = null;
-    if (optionalRecurEndDate.isPresent()) {
-      recurEndDate =
-          optionalRecurEndDate.get() instanceof LocalDate ? (LocalDate) optionalRecurEndDate.get() :
-              ((OffsetDateTime) optionalRecurEndDate.get()).toLocalDate();
-    }
-    final VEvent vEvent = fromCalendarEvent(event);
-    final ChronoUnit recurUnit = event.getRecurrence().getFrequency().getUnit().toChronoUnit();
-
     final ZonedDateTime sinceDateTime =
         since.withZoneSameInstant(actualZoneId).isBefore(eventStartDate) ?
             eventStartDate.minusMinutes(1) : since.withZoneSameInstant(actualZoneId);
-    final Date iCalSinceDate = iCal4JDateCodec.encode(sinceDateTime);
-    LocalDate searchPeriodStart = sinceDateTime.toLocalDate();
-    int nbNextStartDateComputations = 0;
-    do {
-      // Taking care about date exceptions
-      if (recurEndDate != null && recurEndDate.isBefore(searchPeriodStart)) {
-        return null;
+    final DateTime iCalSinceDate = iCal4JDateCodec.encode(sinceDateTime);
+    final Iterator<net.fortuna.ical4j.model.Period> occurPeriods =
+        new OccurrenceWindows(event).iterateFrom(iCalSinceDate);
+    while (occurPeriods.hasNext()) {
+      final net.fortuna.ical4j.model.Period nextOccurPeriod = occurPeriods.next();
+      if (nextOccurPeriod.getStart().after(iCalSinceDate)) {
+        return buildCalendarEventOccurrence(event, nextOccurPeriod);
       }
-      final PeriodList occurDateList = getPeriodList(vEvent,
-          Period.between(searchPeriodStart, searchPeriodStart.plus(2, recurUnit)));
-      Iterator<net.fortuna.ical4j.model.Period> occurDateIt = occurDateList.iterator();
-      while (occurDateIt.hasNext()) {
-        net.fortuna.ical4j.model.Period nextOccurDate = occurDateIt.next();
-        if (nextOccurDate.getStart().after(iCalSinceDate)) {
-          return buildCalendarEventOccurrence(event, nextOccurDate);
-        }
-      }
-      searchPeriodStart = searchPeriodStart.plus(2, recurUnit);
-      nbNextStartDateComputations++;
-    } while (nbNextStartDateComputations < 100);
-    throw new IllegalStateException("the next date seems to be hard to guess...");
+    }
+    return null;
   }
 
   private CalendarEventOccurrence buildCalendarEventOccurrence(final CalendarEvent event,
@@ -276,12 +315,19 @@ public class ICal4JCalendarEventOccurrenceGenerator implements CalendarEventOccu
     return vEvent;
   }
 
-  private PeriodList getPeriodList(final VEvent vEvent,
-      final Period inPeriod) {
-    final net.fortuna.ical4j.model.Period icalPeriod = fromPeriod(inPeriod);
-    PeriodList periodList = vEvent.calculateRecurrenceSet(icalPeriod);
-    periodList.removeIf(period -> period.getEnd().equals(icalPeriod.getStart()));
-    return periodList;
+  /**
+   * Is the specified occurrence occurring in the given period? The recurrence set computed by
+   * iCal4J for a period contains also the occurrences ending at the start of the period: they
+   * aren't taken into account.
+   */
+  private static boolean isOccurringIn(final boolean recurrent,
+      final net.fortuna.ical4j.model.Period occurrence,
+      final net.fortuna.ical4j.model.Period period) {
+    if (!occurrence.getEnd().after(period.getStart())) {
+      return false;
+    }
+    return recurrent ? !occurrence.getStart().after(period.getEnd()) :
+        period.intersects(occurrence);
   }
 
   private net.fortuna.ical4j.model.Period fromPeriod(final Period period) {
@@ -295,4 +341,202 @@ public class ICal4JCalendarEventOccurrenceGenerator implements CalendarEventOccu
   private OffsetDateTime asOffsetDateTime(DateTime dateTime) {
     return dateTime.toInstant().atOffset(ZoneOffset.UTC);
   }
+
+  /**
+   * The occurrences of an event expanded by windows of a fixed number of months. The size of the
+   * windows depends on the frequency of the event recurrence in order to get a few occurrences by
+   * window. The windows of a persisted event are cached for its last modification and for the
+   * properties of its planning, so that a modification of the event, even not yet saved, never
+   * reads the occurrences of a previous state of it.
+   */
+  private class OccurrenceWindows {
+    private final CalendarEvent event;
+    private final int months;
+    private final String cacheKey;
+    private VEvent vEvent;
+
+    OccurrenceWindows(final CalendarEvent event) {
+      this.event = event;
+      this.months = getWindowSizeInMonths(event);
+      if (event.getId() == null || event.getLastUpdateDate() == null) {
+        this.cacheKey = null;
+      } else {
+        final Recurrence recurrence = event.getRecurrence();
+        final int planning = Objects.hash(event.getStartDate(), event.getEndDate(),
+            event.isOnAllDay(), event.getCalendar().getZoneId(), recurrence,
+            recurrence != null ? recurrence.getFrequency() : null);
+        this.cacheKey = CACHE_KEY_PREFIX + event.getId() + "#" +
+            event.getLastUpdateDate().getTime() + "#" + planning + "#" + months + "#";
+      }
+    }
+
+    /**
+     * Gets the periods of the occurrences of the event occurring in the specified period.
+     * @param period a period of time.
+     * @return the occurrence periods sorted by their start date.
+     */
+    Set<net.fortuna.ical4j.model.Period> getOccurrencePeriodsIn(
+        final net.fortuna.ical4j.model.Period period) {
+      final Set<net.fortuna.ical4j.model.Period> occurPeriods = new TreeSet<>();
+      final long lastWindow = indexOf(asOffsetDateTime(period.getEnd()));
+      for (long window = indexOf(asOffsetDateTime(period.getStart())); window <= lastWindow;
+           window++) {
+        for (net.fortuna.ical4j.model.Period occurPeriod : getWindow(window)) {
+          if (isOccurringIn(event.isRecurrent(), occurPeriod, period)) {
+            occurPeriods.add(occurPeriod);
+          }
+        }
+      }
+      return occurPeriods;
+    }
+
+    /**
+     * Iterates lazily over the periods of the occurrences of the event by starting with the
+     * window of the specified date. The periods are sorted by their start date.
+     * @param since the date time from which the occurrences are iterated.
+     * @return an iterator over occurrence periods.
+     */
+    Iterator<net.fortuna.ical4j.model.Period> iterateFrom(final DateTime since) {
+      return new OccurrencePeriodIterator(this, indexOf(asOffsetDateTime(since)), getLastWindow());
+    }
+
+    PeriodList getWindow(final long window) {
+      if (cacheKey == null) {
+        return computeWindow(window);
+      }
+      return CacheServiceProvider.getApplicationCacheService()
+          .getCache()
+          .computeIfAbsent(cacheKey + window, PeriodList.class, 0, CACHE_TIME_TO_IDLE,
+              () -> computeWindow(window));
+    }
+
+    private PeriodList computeWindow(final long window) {
+      if (vEvent == null) {
+        vEvent = fromCalendarEvent(event);
+      }
+      final OffsetDateTime start = EPOCH_MONTH.plusMonths(window * months);
+      return vEvent.calculateRecurrenceSet(
+          new net.fortuna.ical4j.model.Period(iCal4JDateCodec.encode(start),
+              iCal4JDateCodec.encode(start.plusMonths(months))));
+    }
+
+    private long getLastWindow() {
+      final Temporal end;
+      if (!event.isRecurrent()) {
+        end = event.getEndDate();
+      } else if (event.getRecurrence().isEndless()) {
+        return Long.MAX_VALUE;
+      } else {
+        end = event.getRecurrence().getEndDate().orElseThrow(IllegalStateException::new);
+      }
+      final Duration duration =
+          Duration.between(TemporalConverter.asOffsetDateTime(event.getStartDate()),
+              TemporalConverter.asOffsetDateTime(event.getEndDate()));
+      return indexOf(TemporalConverter.asOffsetDateTime(end).plus(duration).plusDays(1));
+    }
+
+    private long indexOf(final OffsetDateTime dateTime) {
+      final OffsetDateTime utc = dateTime.withOffsetSameInstant(ZoneOffset.UTC);
+      final long epochMonth = (utc.getYear() - 1970L) * 12 + utc.getMonthValue() - 1;
+      return Math.floorDiv(epochMonth, months);
+    }
+
+    private int getWindowSizeInMonths(final CalendarEvent event) {
+      if (!event.isRecurrent()) {
+        return 1;
+      }
+      final int interval = event.getRecurrence().getFrequency().getInterval();
+      switch (event.getRecurrence().getFrequency().getUnit()) {
+        case DAY:
+          return 1 + interval / 28;
+        case WEEK:
+          return 1 + interval / 4;
+        case MONTH:
+          return 2 * interval;
+        default:
+          return 24 * interval;
+      }
+    }
+  }
+
+  /**
+   * Iterator over the occurrence periods of an event walking its windows forward. As an
+   * occurrence overlapping two windows belongs to both of them, only the periods starting after
+   * the last iterated one are taken. The iteration ends with the last window of the event or,
+   * for an endless recurrence, after {@link #MAX_EMPTY_WINDOWS} windows without any occurrence.
+   */
+  private static class OccurrencePeriodIterator
+      implements Iterator<net.fortuna.ical4j.model.Period> {
+    private final OccurrenceWindows windows;
+    private final long lastWindow;
+    private final Deque<net.fortuna.ical4j.model.Period> periods = new ArrayDeque<>();
+    private long window;
+    private int emptyWindows = 0;
+    private DateTime lastStart = null;
+
+    OccurrencePeriodIterator(final OccurrenceWindows windows, final long firstWindow,
+        final long lastWindow) {
+      this.windows = windows;
+      this.window = firstWindow;
+      this.lastWindow = lastWindow;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (periods.isEmpty() && window <= lastWindow && emptyWindows < MAX_EMPTY_WINDOWS) {
+        for (net.fortuna.ical4j.model.Period period : new TreeSet<>(windows.getWindow(window))) {
+          if (lastStart == null || period.getStart().after(lastStart)) {
+            periods.add(period);
+            lastStart = period.getStart();
+          }
+        }
+        emptyWindows = periods.isEmpty() ? emptyWindows + 1 : 0;
+        window++;
+      }
+      return !periods.isEmpty();
+    }
+
+    @Override
+    public net.fortuna.ical4j.model.Period next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return periods.poll();
+    }
+  }
+
+  /**
+   * Cursor on the occurrences of an event that aren't yet ended at a given date time. It is used
+   * to merge the occurrences of several events by their start date.
+   */
+  private class OccurrenceCursor {
+    private final CalendarEvent event;
+    private final DateTime since;
+    private final Iterator<net.fortuna.ical4j.model.Period> periods;
+    private net.fortuna.ical4j.model.Period current;
+
+    OccurrenceCursor(final CalendarEvent event, final DateTime since) {
+      this.event = event;
+      this.since = since;
+      this.periods = new OccurrenceWindows(event).iterateFrom(since);
+    }
+
+    CalendarEvent getEvent() {
+      return event;
+    }
+
+    net.fortuna.ical4j.model.Period getCurrent() {
+      return current;
+    }
+
+    boolean moveToNext() {
+      while (periods.hasNext()) {
+        current = periods.next();
+        if (current.getEnd().after(since)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
 }
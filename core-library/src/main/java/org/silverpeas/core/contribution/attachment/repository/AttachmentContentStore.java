@@ -0,0 +1,395 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.contribution.attachment.repository;
+
+import org.apache.commons.io.FileUtils;
+import org.silverpeas.core.contribution.attachment.model.SimpleDocument;
+import org.silverpeas.core.util.ResourceLocator;
+import org.silverpeas.core.util.file.FileRepositoryManager;
+import org.silverpeas.core.util.logging.SilverLogger;
+
+import javax.inject.Singleton;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.silverpeas.core.util.ServiceProvider.getService;
+
+/**
+ * A content-addressable store of the binary contents of the attachments.
+ * <p>
+ * When the store is enabled, the file of an attachment is a hard link onto a blob named after the
+ * SHA-256 digest of its content: identical contents are stored once and copying the content of a
+ * document is just linking a new path to the blob. The link count of a blob is its reference
+ * counter; a blob linked by no attachment is an orphan that is purged by {@link #verify()}. As
+ * the paths of the attachments are left unchanged, reading a content works as before, but a
+ * content must never be overwritten in place: it has to be deleted first, otherwise all the
+ * documents sharing the blob would be modified.
+ * </p>
+ * <p>
+ * The blobs are stored into the uploads directory so that they are in the same file system than
+ * the attachments. The store is disabled by default and it is unavailable if the file system
+ * doesn't support the hard links; in that case the contents are copied as before.
+ * </p>
+ */
+@Singleton
+public class AttachmentContentStore {
+
+  static final String STORE_DIRECTORY = ".contents";
+  private static final String LINK_COUNT_ATTRIBUTE = "unix:nlink";
+  private static final String DIGEST_ALGORITHM = "SHA-256";
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final Path root;
+  private final boolean enabled;
+
+  AttachmentContentStore() {
+    this(Paths.get(FileRepositoryManager.getUploadPath(), STORE_DIRECTORY),
+        ResourceLocator.getSettingBundle("org.silverpeas.util.attachment.Attachment")
+            .getBoolean("attachment.content.store.enabled", false));
+  }
+
+  AttachmentContentStore(final Path root, final boolean enabled) {
+    this.root = root;
+    this.enabled = enabled && isSupportedAt(root);
+  }
+
+  public static AttachmentContentStore get() {
+    return getService(AttachmentContentStore.class);
+  }
+
+  /**
+   * Is the contents of the attachments shared among the documents?
+   * @return true if the store is enabled and supported by the file system of the uploads.
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Shares the content of the specified attachment file: if a blob with the same content already
+   * exists, the file is replaced by a link onto it, otherwise the file becomes the blob of its
+   * content. Nothing is done if the store is disabled or if the file is already shared.
+   * @param file the path of an attachment file.
+   * @throws IOException if the file cannot be read or linked.
+   */
+  public void share(final Path file) throws IOException {
+    if (!enabled || getLinkCount(file) > 1) {
+      return;
+    }
+    final Path blob = getBlobPath(digest(file));
+    Files.createDirectories(blob.getParent());
+    try {
+      Files.createLink(blob, file);
+    } catch (FileAlreadyExistsException e) {
+      replaceByLink(file, blob);
+    }
+  }
+
+  /**
+   * Copies the specified attachment file. When the store is enabled, the content of the source is
+   * shared and the target is just a new link onto it.
+   * @param source the path of the attachment file to copy.
+   * @param target the path of the copy. If it exists, it is replaced.
+   * @throws IOException if the copy fails.
+   */
+  public void copy(final Path source, final Path target) throws IOException {
+    if (!enabled) {
+      FileUtils.copyFile(source.toFile(), target.toFile());
+      return;
+    }
+    share(source);
+    // the target can share a blob with other documents: it must not be overwritten
+    Files.deleteIfExists(target);
+    try {
+      Files.createLink(target, source);
+    } catch (UnsupportedOperationException | FileSystemException e) {
+      SilverLogger.getLogger(this).warn("Cannot link {0} to {1}: {2}", target, source,
+          e.getMessage());
+      Files.copy(source, target, StandardCopyOption.COPY_ATTRIBUTES);
+    }
+  }
+
+  /**
+   * Copies the content of the specified directory into the target one. The files already in the
+   * target directory and that aren't in the source one are kept. When the store is enabled, the
+   * files are linked instead of being copied.
+   * @param source the directory to copy.
+   * @param target the directory into which the content of the source has to be copied.
+   * @throws IOException if the copy fails.
+   */
+  public void copyDirectory(final File source, final File target) throws IOException {
+    if (!enabled) {
+      FileUtils.copyDirectory(source, target);
+      return;
+    }
+    final Path from = source.toPath();
+    final Path to = target.toPath();
+    Files.walkFileTree(from, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs)
+          throws IOException {
+        Files.createDirectories(to.resolve(from.relativize(dir)));
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs)
+          throws IOException {
+        if (attrs.isRegularFile()) {
+          copy(file, to.resolve(from.relativize(file)));
+        }
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  /**
+   * Migrates the contents of the attachments stored in the specified directory into the store.
+   * Only the files in the document directories of the component instances are taken into
+   * account. Nothing is done if the store is disabled.
+   * @param uploads the directory of the uploads.
+   * @return a report on the migration.
+   * @throws IOException if the directory cannot be walked.
+   */
+  public Report migrate(final Path uploads) throws IOException {
+    final Report report = new Report();
+    if (!enabled) {
+      return report;
+    }
+    try (DirectoryStream<Path> components = Files.newDirectoryStream(uploads, Files::isDirectory)) {
+      for (Path component : components) {
+        try (DirectoryStream<Path> documents = Files.newDirectoryStream(component,
+            d -> d.getFileName().toString().startsWith(SimpleDocument.DOCUMENT_PREFIX) &&
+                Files.isDirectory(d))) {
+          for (Path document : documents) {
+            migrateDocument(document, report);
+          }
+        }
+      }
+    }
+    return report;
+  }
+
+  /**
+   * Verifies the blobs of the store: the orphaned blobs are purged and the blobs whose the
+   * content doesn't match anymore their digest are reported. Nothing is done if the store is
+   * disabled.
+   * @return a report on the verification.
+   * @throws IOException if the store cannot be walked.
+   */
+  public Report verify() throws IOException {
+    final Report report = new Report();
+    if (!enabled || !Files.isDirectory(root)) {
+      return report;
+    }
+    try (DirectoryStream<Path> prefixes = Files.newDirectoryStream(root, Files::isDirectory)) {
+      for (Path prefix : prefixes) {
+        try (DirectoryStream<Path> blobs = Files.newDirectoryStream(prefix)) {
+          for (Path blob : blobs) {
+            verifyBlob(blob, report);
+          }
+        }
+      }
+    }
+    return report;
+  }
+
+  private void migrateDocument(final Path document, final Report report) throws IOException {
+    Files.walkFileTree(document, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+        try {
+          if (attrs.isRegularFile() && getLinkCount(file) == 1) {
+            share(file);
+            report.sharedFiles++;
+          }
+        } catch (IOException e) {
+          SilverLogger.getLogger(AttachmentContentStore.this)
+              .error("Cannot share the content of " + file, e);
+        }
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  private void verifyBlob(final Path blob, final Report report) throws IOException {
+    try {
+      if (getLinkCount(blob) == 1) {
+        Files.delete(blob);
+        report.purgedBlobs++;
+      } else {
+        report.blobs++;
+        report.storedSize += Files.size(blob);
+        if (!digest(blob).equals(blob.getFileName().toString())) {
+          SilverLogger.getLogger(this).error("The blob {0} is corrupted", blob.toString());
+          report.corruptedBlobs.add(blob.getFileName().toString());
+        }
+      }
+    } catch (NoSuchFileException e) {
+      // the blob has been purged or replaced in the meantime
+      SilverLogger.getLogger(this).silent(e);
+    }
+  }
+
+  private void replaceByLink(final Path file, final Path blob) throws IOException {
+    if (Files.size(file) != Files.size(blob)) {
+      SilverLogger.getLogger(this).error("The blob {0} doesn't match the content of {1}",
+          blob.toString(), file.toString());
+      return;
+    }
+    final Path link = file.resolveSibling("." + UUID.randomUUID().toString());
+    try {
+      Files.createLink(link, blob);
+    } catch (NoSuchFileException e) {
+      // the blob has been purged in the meantime: the file becomes the new blob
+      Files.createLink(blob, file);
+      return;
+    }
+    try {
+      Files.move(link, file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(link);
+    }
+  }
+
+  private Path getBlobPath(final String digest) {
+    return root.resolve(digest.substring(0, 2)).resolve(digest);
+  }
+
+  private static int getLinkCount(final Path file) throws IOException {
+    return (Integer) Files.getAttribute(file, LINK_COUNT_ATTRIBUTE);
+  }
+
+  private static String digest(final Path file) throws IOException {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    final byte[] buffer = new byte[BUFFER_SIZE];
+    try (InputStream in = Files.newInputStream(file)) {
+      int count;
+      while ((count = in.read(buffer)) >= 0) {
+        digest.update(buffer, 0, count);
+      }
+    }
+    final StringBuilder hex = new StringBuilder(64);
+    for (byte b : digest.digest()) {
+      hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return hex.toString();
+  }
+
+  private boolean isSupportedAt(final Path root) {
+    try {
+      Files.createDirectories(root);
+      final Path probe = Files.createTempFile(root, "probe", null);
+      final Path link = probe.resolveSibling(probe.getFileName() + ".link");
+      try {
+        Files.createLink(link, probe);
+        return getLinkCount(probe) == 2;
+      } finally {
+        Files.deleteIfExists(link);
+        Files.delete(probe);
+      }
+    } catch (IOException | UnsupportedOperationException e) {
+      SilverLogger.getLogger(this).warn(
+          "The content store of the attachments is disabled: no hard link support in {0} ({1})",
+          root.toString(), e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * A report on a migration to the store or on a verification of the store.
+   */
+  public static class Report {
+    private int sharedFiles = 0;
+    private int blobs = 0;
+    private int purgedBlobs = 0;
+    private long storedSize = 0;
+    private final List<String> corruptedBlobs = new ArrayList<>();
+
+    /**
+     * @return the number of attachment files that have been moved to the store.
+     */
+    public int getSharedFiles() {
+      return sharedFiles;
+    }
+
+    /**
+     * @return the number of blobs referenced by at least one attachment.
+     */
+    public int getBlobs() {
+      return blobs;
+    }
+
+    /**
+     * @return the number of orphaned blobs that have been deleted.
+     */
+    public int getPurgedBlobs() {
+      return purgedBlobs;
+    }
+
+    /**
+     * @return the size in bytes of all the blobs referenced by at least one attachment.
+     */
+    public long getStoredSize() {
+      return storedSize;
+    }
+
+    /**
+     * @return the digests of the blobs whose the content doesn't match anymore their digest.
+     */
+    public List<String> getCorruptedBlobs() {
+      return Collections.unmodifiableList(corruptedBlobs);
+    }
+
+    @Override
+    public String toString() {
+      return "sharedFiles=" + sharedFiles + ", blobs=" + blobs + ", purgedBlobs=" + purgedBlobs +
+          ", storedSize=" + storedSize + ", corruptedBlobs=" + corruptedBlobs;
+    }
+  }
+}
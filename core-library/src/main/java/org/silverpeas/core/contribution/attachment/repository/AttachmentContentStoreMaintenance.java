@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.contribution.attachment.repository;
+
+import org.silverpeas.core.SilverpeasRuntimeException;
+import org.silverpeas.core.backgroundprocess.AbstractBackgroundProcessRequest;
+import org.silverpeas.core.backgroundprocess.BackgroundProcessTask;
+import org.silverpeas.core.backgroundprocess.BackgroundProcessTask.LOCK_DURATION;
+import org.silverpeas.core.initialization.Initialization;
+import org.silverpeas.core.scheduler.Job;
+import org.silverpeas.core.scheduler.JobExecutionContext;
+import org.silverpeas.core.scheduler.Scheduler;
+import org.silverpeas.core.scheduler.SchedulerProvider;
+import org.silverpeas.core.scheduler.trigger.JobTrigger;
+import org.silverpeas.core.util.ResourceLocator;
+import org.silverpeas.core.util.StringUtil;
+import org.silverpeas.core.util.file.FileRepositoryManager;
+import org.silverpeas.core.util.logging.SilverLogger;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * The maintenance of the {@link AttachmentContentStore}: the contents of the attachments that
+ * aren't yet in the store are migrated into it, then the blobs are verified and the orphaned ones
+ * are purged. The maintenance is scheduled with the cron expression defined by the
+ * <code>attachment.content.store.maintenance.cron</code> property; it isn't scheduled when the
+ * store is disabled.
+ */
+public class AttachmentContentStoreMaintenance extends Job implements Initialization {
+
+  private static final String JOB_NAME = "AttachmentContentStoreMaintenanceJob";
+
+  AttachmentContentStoreMaintenance() {
+    super(JOB_NAME);
+  }
+
+  @Override
+  public void init() throws Exception {
+    final String cron = ResourceLocator.getSettingBundle("org.silverpeas.util.attachment.Attachment")
+        .getString("attachment.content.store.maintenance.cron", "");
+    final Scheduler scheduler = SchedulerProvider.getVolatileScheduler();
+    scheduler.unscheduleJob(JOB_NAME);
+    if (StringUtil.isDefined(cron) && AttachmentContentStore.get().isEnabled()) {
+      scheduler.scheduleJob(this, JobTrigger.triggerAt(cron));
+    }
+  }
+
+  @Override
+  public void execute(final JobExecutionContext context) {
+    BackgroundProcessTask.push(new MaintenanceBackgroundProcess());
+  }
+
+  /**
+   * This background process ensures that to not overload the server with the walk of the uploads.
+   */
+  static class MaintenanceBackgroundProcess extends AbstractBackgroundProcessRequest {
+
+    private MaintenanceBackgroundProcess() {
+      super("AttachmentContentStoreMaintenanceBackgroundProcess", LOCK_DURATION.NO_TIME);
+    }
+
+    @Override
+    protected void process() {
+      final SilverLogger logger = SilverLogger.getLogger(this);
+      final AttachmentContentStore store = AttachmentContentStore.get();
+      try {
+        final AttachmentContentStore.Report migration =
+            store.migrate(Paths.get(FileRepositoryManager.getUploadPath()));
+        logger.info("Migration of the attachment contents into the store: {0}", migration);
+        final AttachmentContentStore.Report verification = store.verify();
+        if (verification.getCorruptedBlobs().isEmpty()) {
+          logger.info("Verification of the attachment content store: {0}", verification);
+        } else {
+          logger.error("Verification of the attachment content store: {0}", verification);
+        }
+      } catch (IOException e) {
+        logger.error(e);
+        throw new SilverpeasRuntimeException(e);
+      }
+    }
+  }
+}
@@ -71,6 +71,7 @@ import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
@@ -1325,10 +1326,13 @@ public class DocumentRepository {
         FileUtils.forceMkdir(parentFile);
       }
     }
+    // the previous content can be shared with other documents: it must not be overwritten
+    Files.deleteIfExists(file.toPath());
     FileUtils.copyInputStreamToFile(in, file);
     if (document.isContentImage()) {
       ImageTool.get().convert(file, null, OrientationOption.auto().modifyImageOnlyIfNecessary());
     }
+    AttachmentContentStore.get().share(file.toPath());
     return file.length();
   }
 
@@ -1351,7 +1355,7 @@ public class DocumentRepository {
     for (File langDir : source.listFiles()) {
       File targetLangDir = new File(target, langDir.getName());
       if (!targetLangDir.exists()) {
-        FileUtils.copyDirectory(langDir, targetLangDir);
+        AttachmentContentStore.get().copyDirectory(langDir, targetLangDir);
       }
     }
   }
@@ -1377,7 +1381,7 @@ public class DocumentRepository {
     if (target.exists()) {
       FileUtils.cleanDirectory(target);
     }
-    FileUtils.copyDirectory(source, target);
+    AttachmentContentStore.get().copyDirectory(source, target);
   }
 
   public void copyFullContent(SimpleDocument origin, SimpleDocument copy) throws IOException {
@@ -1392,7 +1396,7 @@ public class DocumentRepository {
     if (target.exists()) {
       FileUtils.cleanDirectory(target);
     }
-    FileUtils.copyDirectory(source, target);
+    AttachmentContentStore.get().copyDirectory(source, target);
   }
 
   public void moveMultilangContent(SimpleDocument origin, SimpleDocument copy) throws IOException {
@@ -42,6 +42,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.regex.Matcher;
@@ -231,7 +232,10 @@ public class WebdavDocumentRepository implements WebdavRepository {
     InputStream in = webdavBinary.getStream();
     OutputStream out = null;
     try {
-      out = FileUtils.openOutputStream(new File(attachment.getAttachmentPath()));
+      final File file = new File(attachment.getAttachmentPath());
+      // the content can be shared with other documents: it must not be overwritten
+      Files.deleteIfExists(file.toPath());
+      out = FileUtils.openOutputStream(file);
       IOUtils.copy(in, out);
     } finally {
       IOUtils.closeQuietly(out);
@@ -132,70 +132,6 @@ public class PublicationDAO {
         .execute();
   }
 
-  /**
-   * Method declaration
-   * @param con
-   * @param fatherPK
-   * @param fatherPath
-   * @return
-   * @throws SQLException
-   *
-   */
-  public static int getNbPubByFatherPath(Connection con, NodePK fatherPK,
-      String fatherPath) throws SQLException {
-    int result = 0;
-    PublicationPK pubPK = new PublicationPK(UNDEFINED_ID, fatherPK);
-
-    if (fatherPath.length() > 0) {
-      StringBuilder selectStatement = new StringBuilder(128);
-      selectStatement.append("select count(F.pubId) from ").append(
-          pubPK.getTableName()).append("Father F, ").append(
-          pubPK.getTableName()).append(" P, ").append(fatherPK.getTableName()).append(" N ");
-      selectStatement.append(" where F.pubId = P.pubId ");
-      selectStatement.append(" and F.nodeId = N.nodeId ");
-      selectStatement.append(" and P.instanceId = ? ");
-      selectStatement.append(" and N.instanceId  = ? ");
-      selectStatement.append(AND);
-      selectStatement.append(P_PUB_BEGIN_DATE_AND_P_PUB_END_DATE_OR);
-      selectStatement.append(P_PUB_BEGIN_DATE_AND_P_PUB_END_DATE_AND_P_PUB_BEGIN_HOUR_OR);
-      selectStatement.append(P_PUB_BEGIN_DATE_AND_P_PUB_END_DATE_AND_P_PUB_END_HOUR_OR);
-      selectStatement.append(
-          "( ? = P.pubBeginDate AND ? = P.pubEndDate AND ? > P.pubBeginHour AND ? < P.pubEndHour)");
-      selectStatement.append(" ) ");
-      selectStatement.append(" and (N.nodePath like '").append(fatherPath).append("/").append(
-          fatherPK.getId()).append("%' or N.nodeId = ").append(fatherPK.getId()).append(")");
-
-      try (PreparedStatement prepStmt = con.prepareStatement(selectStatement.toString())) {
-        java.util.Date now = new java.util.Date();
-        String dateNow = formatDate(now);
-        String hourNow = DateUtil.formatTime(now);
-
-        prepStmt.setString(1, fatherPK.getComponentName());
-        prepStmt.setString(2, fatherPK.getComponentName());
-
-        prepStmt.setString(3, dateNow);
-        prepStmt.setString(4, dateNow);
-        prepStmt.setString(5, dateNow);
-        prepStmt.setString(6, dateNow);
-        prepStmt.setString(7, hourNow);
-        prepStmt.setString(8, dateNow);
-        prepStmt.setString(9, dateNow);
-        prepStmt.setString(10, hourNow);
-        prepStmt.setString(11, dateNow);
-        prepStmt.setString(12, dateNow);
-        prepStmt.setString(13, hourNow);
-        prepStmt.setString(14, hourNow);
-
-        try (ResultSet rs = prepStmt.executeQuery()) {
-          if (rs.next()) {
-            result = rs.getInt(1);
-          }
-        }
-      }
-    }
-    return result;
-  }
-
   public static Map<String, Integer> getDistributionTree(Connection con, String instanceId,
       String statusSubQuery, boolean checkVisibility) throws SQLException {
     Map<String, Integer> nodes = new HashMap<>();
@@ -112,6 +112,8 @@ public class DefaultPublicationService implements PublicationService, ComponentI
   private RatingService ratingService;
   @Inject
   private PublicationEventNotifier notifier;
+  @Inject
+  private PublicationCounters counters;
 
   @Override
   @Transactional
@@ -122,6 +124,7 @@ public class DefaultPublicationService implements PublicationService, ComponentI
       PublicationFatherDAO.deleteComponentInstanceData(componentInstanceId);
       SeeAlsoDAO.deleteComponentInstanceData(componentInstanceId);
       PublicationDAO.deleteComponentInstanceData(componentInstanceId);
+      counters.clear();
     } catch (SQLException e) {
       throw new PublicationRuntimeException(e);
     }
@@ -204,12 +207,14 @@ public class DefaultPublicationService implements PublicationService, ComponentI
   @Transactional
   public void movePublication(PublicationPK pk, NodePK toFatherPK, boolean indexIt) {
     try (Connection con = getConnection()) {
+      final String fromInstanceId = pk.getInstanceId();
       deleteIndex(pk);
       PublicationDAO.changeInstanceId(con, pk, toFatherPK.getInstanceId());
       moveRating(pk, toFatherPK.getInstanceId());
       pk.setComponentName(toFatherPK.getInstanceId());
       PublicationFatherDAO.removeAllFathers(con, pk);
       PublicationFatherDAO.addFather(con, pk, toFatherPK);
+      counters.invalidate(pk.getId(), fromInstanceId, toFatherPK.getInstanceId());
       if (indexIt) {
         createIndex(pk);
       }
@@ -299,6 +304,7 @@ public class DefaultPublicationService implements PublicationService, ComponentI
 
       // delete publication from database
       PublicationDAO.deleteRow(con, pk);
+      counters.invalidate(pk.getId(), pk.getInstanceId());
     } catch (java.sql.SQLException e) {
       throw new PublicationRuntimeException(e);
     }
@@ -380,6 +386,7 @@ public class DefaultPublicationService implements PublicationService, ComponentI
       }
       loadTranslations(publi);
       PublicationDAO.storeRow(con, publi);
+      counters.invalidate(publi.getId(), publi.getInstanceId());
       notifier.notifyEventOn(ResourceEvent.Type.UPDATE, before, publi);
     } catch (SQLException e) {
       throw new PublicationRuntimeException(e);
@@ -530,6 +537,7 @@ public class DefaultPublicationService implements PublicationService, ComponentI
   public void addFather(PublicationPK pubPK, NodePK fatherPK) {
     try (Connection con = getConnection()) {
       PublicationFatherDAO.addFather(con, pubPK, fatherPK);
+      counters.invalidate(pubPK.getId(), pubPK.getInstanceId(), fatherPK.getInstanceId());
     } catch (SQLException re) {
       throw new PublicationRuntimeException(re);
     }
@@ -540,6 +548,7 @@ public class DefaultPublicationService implements PublicationService, ComponentI
   public void removeFather(PublicationPK pubPK, NodePK fatherPK) {
     try (Connection con = getConnection()) {
       PublicationFatherDAO.removeFather(con, pubPK, fatherPK);
+      counters.invalidate(pubPK.getId(), pubPK.getInstanceId(), fatherPK.getInstanceId());
     } catch (SQLException re) {
       throw new PublicationRuntimeException(re);
     }
@@ -550,6 +559,7 @@ public class DefaultPublicationService implements PublicationService, ComponentI
   public void removeFathers(PublicationPK pubPK, Collection<String> fatherIds) {
     try (Connection con = getConnection()) {
       PublicationFatherDAO.removeFathersToPublications(con, pubPK, fatherIds);
+      counters.invalidate(pubPK.getId(), pubPK.getInstanceId());
     } catch (SQLException e) {
       throw new PublicationRuntimeException(e);
     }
@@ -561,6 +571,7 @@ public class DefaultPublicationService implements PublicationService, ComponentI
     try (Connection con = getConnection()) {
       deleteIndex(pubPK);
       PublicationFatherDAO.removeAllFathers(con, pubPK);
+      counters.invalidate(pubPK.getId(), pubPK.getInstanceId());
     } catch (SQLException e) {
       throw new PublicationRuntimeException(e);
     }
@@ -670,6 +681,7 @@ public class DefaultPublicationService implements PublicationService, ComponentI
       final Collection<Location> aliases) throws SQLException {
     for (Location location : aliases) {
       PublicationFatherDAO.addAlias(connection, pubPK, location);
+      counters.invalidate(pubPK.getId(), location.getInstanceId());
     }
   }
 
@@ -690,6 +702,7 @@ public class DefaultPublicationService implements PublicationService, ComponentI
       final Collection<Location> aliases) throws SQLException {
     for (Location location : aliases) {
       PublicationFatherDAO.removeAlias(connection, pubPK, location);
+      counters.invalidate(pubPK.getId(), location.getInstanceId());
       unindexAlias(pubPK, location);
     }
   }
@@ -843,16 +856,32 @@ public class DefaultPublicationService implements PublicationService, ComponentI
   public Map<String, Integer> getDistributionTree(String instanceId, String statusSubQuery,
       boolean checkVisibility) {
     try (Connection con = getConnection()) {
+      if (statusSubQuery == null) {
+        return counters.getDistributionTree(con, instanceId, null, checkVisibility);
+      }
       return PublicationDAO.getDistributionTree(con, instanceId, statusSubQuery, checkVisibility);
     } catch (SQLException e) {
       throw new PublicationRuntimeException(e);
     }
   }
 
+  @Override
+  public Map<String, Integer> getDistributionTreeByStatus(String instanceId,
+      Collection<String> statuses, boolean checkVisibility) {
+    try (Connection con = getConnection()) {
+      return counters.getDistributionTree(con, instanceId, statuses, checkVisibility);
+    } catch (SQLException e) {
+      throw new PublicationRuntimeException(e);
+    }
+  }
+
   @Override
   public int getNbPubByFatherPath(NodePK fatherPK, String fatherPath) {
+    if (fatherPath.isEmpty()) {
+      return 0;
+    }
     try (Connection con = getConnection()) {
-      return PublicationDAO.getNbPubByFatherPath(con, fatherPK, fatherPath);
+      return counters.getNbVisiblePubInSubtree(con, fatherPK);
     } catch (SQLException e) {
       throw new PublicationRuntimeException(e);
     }
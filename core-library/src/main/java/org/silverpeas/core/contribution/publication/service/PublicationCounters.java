@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.contribution.publication.service;
+
+import org.silverpeas.core.contribution.publication.service.PublicationDistribution.Publication;
+import org.silverpeas.core.node.dao.NodeDAO;
+import org.silverpeas.core.node.model.NodeDetail;
+import org.silverpeas.core.node.model.NodePK;
+import org.silverpeas.core.persistence.Transaction;
+import org.silverpeas.core.persistence.jdbc.sql.JdbcSqlQuery;
+import org.silverpeas.core.util.logging.SilverLogger;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.transaction.RollbackException;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.SystemException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The counters of the publications in the folders of the component instances. For each component
+ * instance, the {@link PublicationDistribution} of its publications is loaded once from the
+ * database at the first counting and it is then kept up to date: the publications modified by the
+ * {@link PublicationService} are invalidated and only them are loaded again at the next counting,
+ * whereas the beginnings and the ends of the visibility periods are applied in memory. The
+ * distribution is computed again when the tree of folders of the component instance is modified.
+ * <p>
+ * As the modifications can be rolled back or not yet committed while the counters are read
+ * concurrently, a modified publication is invalidated both at its modification and at the
+ * completion of the current transaction.
+ * </p>
+ */
+@Singleton
+public class PublicationCounters {
+
+  private final Map<String, Instance> instances = new ConcurrentHashMap<>();
+
+  @Inject
+  private NodeDAO nodeDAO;
+
+  PublicationCounters() {
+  }
+
+  /**
+   * Gets the number of publications directly in each folder of the specified component instance.
+   * The aliases of publications of other component instances are counted.
+   * @param con a connection to the database.
+   * @param instanceId the identifier of a component instance.
+   * @param statuses the statuses of the publications to count. Null to count all the publications
+   * whatever their status.
+   * @param checkVisibility true if only the publications that are currently visible have to be
+   * counted.
+   * @return the number of publications per folder identifier, for all the folders of the component
+   * instance.
+   * @throws SQLException if the publications cannot be loaded.
+   */
+  public Map<String, Integer> getDistributionTree(final Connection con, final String instanceId,
+      final Collection<String> statuses, final boolean checkVisibility) throws SQLException {
+    final String now = PublicationDistribution.instantOf(new Date());
+    return read(con, instanceId, d -> d.getDistribution(statuses, checkVisibility, now));
+  }
+
+  /**
+   * Gets the number of the publications of the component instance of the specified folder that
+   * are currently visible in this folder and in all of its descendants, whatever their status.
+   * @param con a connection to the database.
+   * @param nodePK the unique identifier of a folder.
+   * @return the number of visible publications in the subtree of the folder.
+   * @throws SQLException if the publications cannot be loaded.
+   */
+  public int getNbVisiblePubInSubtree(final Connection con, final NodePK nodePK)
+      throws SQLException {
+    final String now = PublicationDistribution.instantOf(new Date());
+    return read(con, nodePK.getInstanceId(), d -> d.countVisibleInSubtree(nodePK.getId(), now));
+  }
+
+  /**
+   * Invalidates the specified publication: its state will be loaded again at the next counting in
+   * the specified component instances and in all the ones in which it is already counted.
+   * @param pubId the identifier of a publication.
+   * @param instanceIds the identifiers of the component instances in which the folders of the
+   * publication are or was.
+   */
+  public void invalidate(final String pubId, final String... instanceIds) {
+    final List<String> instanceIdList = Arrays.asList(instanceIds);
+    markAsStale(pubId, instanceIdList);
+    if (Transaction.getTransactionStatus() == Status.STATUS_ACTIVE) {
+      try {
+        Transaction.getTransaction().getTransactionManager().getTransaction()
+            .registerSynchronization(new Synchronization() {
+              @Override
+              public void beforeCompletion() {
+                // nothing to do before the completion
+              }
+
+              @Override
+              public void afterCompletion(final int status) {
+                markAsStale(pubId, instanceIdList);
+              }
+            });
+      } catch (RollbackException | SystemException e) {
+        SilverLogger.getLogger(this).warn(e);
+      }
+    }
+  }
+
+  /**
+   * Clears all the counters. They will be loaded again from the database at the next counting.
+   */
+  public void clear() {
+    instances.clear();
+  }
+
+  private void markAsStale(final String pubId, final List<String> instanceIds) {
+    instances.forEach((instanceId, instance) -> {
+      final PublicationDistribution distribution = instance.distribution;
+      if (instanceIds.contains(instanceId) ||
+          (distribution != null && distribution.contains(pubId))) {
+        instance.stalePublications.add(pubId);
+      }
+    });
+  }
+
+  private <T> T read(final Connection con, final String instanceId,
+      final Function<PublicationDistribution, T> reader) throws SQLException {
+    final List<NodeDetail> tree = nodeDAO.getTree(con, new NodePK("unknown", instanceId));
+    final Instance instance = instances.computeIfAbsent(instanceId, i -> new Instance());
+    synchronized (instance) {
+      final String now = PublicationDistribution.instantOf(new Date());
+      if (instance.distribution == null || !instance.distribution.isComputedOn(tree)) {
+        instance.stalePublications.clear();
+        final PublicationDistribution distribution = new PublicationDistribution(tree);
+        loadPublications(con, instanceId, null).forEach((id, p) -> distribution.put(id, p, now));
+        instance.distribution = distribution;
+      } else if (!instance.stalePublications.isEmpty()) {
+        final List<String> pubIds = new ArrayList<>(instance.stalePublications);
+        instance.stalePublications.removeAll(pubIds);
+        final Map<String, Publication> publications = new HashMap<>(pubIds.size());
+        JdbcSqlQuery.executeBySplittingOn(pubIds, (idBatch, ignore) ->
+            publications.putAll(loadPublications(con, instanceId, idBatch)));
+        for (String pubId : pubIds) {
+          final Publication publication = publications.get(pubId);
+          if (publication == null) {
+            instance.distribution.remove(pubId);
+          } else {
+            instance.distribution.put(pubId, publication, now);
+          }
+        }
+      }
+      return reader.apply(instance.distribution);
+    }
+  }
+
+  /**
+   * Loads from the database the specified publications with their folders in the specified
+   * component instance.
+   * @param con a connection to the database.
+   * @param instanceId the identifier of a component instance.
+   * @param pubIds the identifiers of the publications to load or null to load all the
+   * publications in the folders of the component instance.
+   * @return the loaded publications per identifier. The publications without any folder in the
+   * component instance aren't in it.
+   * @throws SQLException if the publications cannot be loaded.
+   */
+  Map<String, Publication> loadPublications(final Connection con,
+      final String instanceId, final Collection<String> pubIds) throws SQLException {
+    final Map<String, Publication> publications = new HashMap<>();
+    final JdbcSqlQuery query = JdbcSqlQuery
+        .createSelect("F.pubId, F.nodeId, P.instanceId, P.pubStatus, P.pubBeginDate,")
+        .addSqlPart("P.pubBeginHour, P.pubEndDate, P.pubEndHour")
+        .from("SB_Publication_PubliFather F", "SB_Publication_Publi P")
+        .where("F.pubId = P.pubId")
+        .and("F.instanceId = ?", instanceId);
+    if (pubIds != null) {
+      query.and("F.pubId")
+          .in(pubIds.stream().map(Integer::parseInt).collect(Collectors.toList()));
+    }
+    query.executeWith(con, row -> {
+      final String pubId = Integer.toString(row.getInt(1));
+      final String nodeId = Integer.toString(row.getInt(2));
+      final boolean local = instanceId.equals(row.getString(3));
+      final Publication publication = new Publication(row.getString(4), local, row.getString(5),
+          row.getString(6), row.getString(7), row.getString(8));
+      publications.computeIfAbsent(pubId, i -> publication).in(nodeId);
+      return null;
+    });
+    return publications;
+  }
+
+  /**
+   * The counters of a component instance.
+   */
+  private static class Instance {
+    private final Set<String> stalePublications = ConcurrentHashMap.newKeySet();
+    private volatile PublicationDistribution distribution = null;
+  }
+}
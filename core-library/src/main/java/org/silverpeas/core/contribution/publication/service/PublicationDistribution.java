@@ -0,0 +1,323 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.contribution.publication.service;
+
+import org.silverpeas.core.node.model.NodeDetail;
+import org.silverpeas.core.util.DateUtil;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The distribution of the publications in the tree of folders of a component instance: the
+ * number of publications per folder and per status, the visible ones being counted apart, and the
+ * number of visible publications of the component instance in each subtree. The counters are
+ * maintained incrementally as the publications are put or removed and as the visibility periods
+ * of the publications begin or end, so they are never computed again from the whole tree.
+ * <p>
+ * The instants are the concatenation of a date and of an hour in the format they are stored into
+ * the database (<code>yyyy/MM/dd HH:mm</code>); they are then compared lexicographically as the
+ * SQL queries do it. A publication is visible at a given instant when this instant is strictly
+ * between the beginning and the end of its visibility period. The pending beginnings and ends of
+ * visibility periods are ordered by instant so that only the due ones are applied before each
+ * reading.
+ * </p>
+ * <p>
+ * Except {@link #contains(String)}, the methods of this class aren't thread-safe.
+ * </p>
+ */
+class PublicationDistribution {
+
+  private static final String NULL_BEGIN_DATE = "0000/00/00";
+  private static final String NULL_END_DATE = "9999/99/99";
+  private static final String NULL_BEGIN_HOUR = "00:00";
+  private static final String NULL_END_HOUR = "23:59";
+
+  private final List<NodeDetail> tree;
+  private final Map<String, String> fathers = new HashMap<>();
+  private final Map<String, Counters> counters = new HashMap<>();
+  private final Map<String, Publication> publications = new ConcurrentHashMap<>();
+  private final TreeMap<String, Set<String>> beginnings = new TreeMap<>();
+  private final TreeMap<String, Set<String>> ends = new TreeMap<>();
+
+  /**
+   * Constructs an empty distribution of publications in the specified tree of folders.
+   * @param tree all the folders of a component instance.
+   */
+  PublicationDistribution(final List<NodeDetail> tree) {
+    this.tree = tree;
+    for (NodeDetail node : tree) {
+      final String nodeId = node.getNodePK().getId();
+      fathers.put(nodeId, node.getFatherPK() == null ? null : node.getFatherPK().getId());
+      counters.put(nodeId, new Counters());
+    }
+  }
+
+  /**
+   * Gets the instant corresponding to the specified date in the format of the database.
+   * @param date a date.
+   * @return the instant of the date at the minute.
+   */
+  static String instantOf(final Date date) {
+    return DateUtil.formatDate(date) + " " + DateUtil.formatTime(date);
+  }
+
+  /**
+   * Is this distribution computed on the specified tree of folders? The trees are compared by
+   * identity: the trees are cached and a new tree is loaded each time a folder is modified.
+   * @param tree a tree of folders.
+   * @return true if this distribution counts the publications in exactly this tree.
+   */
+  boolean isComputedOn(final List<NodeDetail> tree) {
+    return this.tree == tree;
+  }
+
+  /**
+   * Is the specified publication counted in this distribution? This method is thread-safe.
+   * @param pubId the identifier of a publication.
+   * @return true if the publication is in at least one of the folders.
+   */
+  boolean contains(final String pubId) {
+    return publications.containsKey(pubId);
+  }
+
+  /**
+   * Puts the specified publication into the distribution. If the publication was already counted,
+   * its previous state is first removed.
+   * @param pubId the identifier of the publication.
+   * @param publication the state of the publication in the folders of the component instance.
+   * @param now the current instant.
+   */
+  void put(final String pubId, final Publication publication, final String now) {
+    remove(pubId);
+    publications.put(pubId, publication);
+    publication.visible = publication.isVisibleAt(now);
+    count(publication, 1);
+    schedule(pubId, publication, now);
+  }
+
+  /**
+   * Removes the specified publication from the distribution. Nothing is done if the publication
+   * isn't counted.
+   * @param pubId the identifier of the publication.
+   */
+  void remove(final String pubId) {
+    final Publication publication = publications.remove(pubId);
+    if (publication != null) {
+      unschedule(pubId, publication);
+      count(publication, -1);
+    }
+  }
+
+  /**
+   * Gets the number of publications directly in each folder of the tree.
+   * @param statuses the statuses of the publications to count. Null to count the publications
+   * whatever their status.
+   * @param visibleOnly true if only the publications that are visible now have to be counted.
+   * @param now the current instant.
+   * @return the number of publications per folder identifier, for all the folders of the tree.
+   */
+  Map<String, Integer> getDistribution(final Collection<String> statuses,
+      final boolean visibleOnly, final String now) {
+    applyTransitionsUntil(now);
+    final Set<String> countedStatuses = statuses == null ? null : new HashSet<>(statuses);
+    final Map<String, Integer> distribution = new HashMap<>(tree.size());
+    for (NodeDetail node : tree) {
+      final String nodeId = node.getNodePK().getId();
+      final Counters nodeCounters = counters.get(nodeId);
+      final Map<String, Integer> perStatus =
+          visibleOnly ? nodeCounters.visibleByStatus : nodeCounters.allByStatus;
+      int count = 0;
+      if (countedStatuses == null) {
+        for (Integer statusCount : perStatus.values()) {
+          count += statusCount;
+        }
+      } else {
+        for (String status : countedStatuses) {
+          count += perStatus.getOrDefault(status, 0);
+        }
+      }
+      distribution.put(nodeId, count);
+    }
+    return distribution;
+  }
+
+  /**
+   * Gets the number of the publications of the component instance that are visible now in the
+   * specified folder and in all of its descendants. A publication in several of these folders is
+   * counted once per folder.
+   * @param nodeId the identifier of a folder.
+   * @param now the current instant.
+   * @return the number of visible publications in the subtree.
+   */
+  int countVisibleInSubtree(final String nodeId, final String now) {
+    applyTransitionsUntil(now);
+    final Counters nodeCounters = counters.get(nodeId);
+    return nodeCounters == null ? 0 : nodeCounters.visibleInSubtree;
+  }
+
+  private void applyTransitionsUntil(final String now) {
+    // a publication becomes visible after the beginning of its visibility period and it isn't
+    // visible anymore at the end of it
+    applyTransitions(beginnings.headMap(now, false), now);
+    applyTransitions(ends.headMap(now, true), now);
+  }
+
+  private void applyTransitions(final SortedMap<String, Set<String>> dueTransitions,
+      final String now) {
+    final List<String> pubIds = new ArrayList<>();
+    dueTransitions.values().forEach(pubIds::addAll);
+    dueTransitions.clear();
+    for (String pubId : pubIds) {
+      final Publication publication = publications.get(pubId);
+      publication.transition = null;
+      final boolean visible = publication.isVisibleAt(now);
+      if (visible != publication.visible) {
+        count(publication, -1);
+        publication.visible = visible;
+        count(publication, 1);
+      }
+      schedule(pubId, publication, now);
+    }
+  }
+
+  private void schedule(final String pubId, final Publication publication, final String now) {
+    if (publication.visible) {
+      publication.transition = publication.end;
+      ends.computeIfAbsent(publication.end, i -> new HashSet<>()).add(pubId);
+    } else if (now.compareTo(publication.begin) <= 0 &&
+        publication.begin.compareTo(publication.end) < 0) {
+      publication.transition = publication.begin;
+      beginnings.computeIfAbsent(publication.begin, i -> new HashSet<>()).add(pubId);
+    }
+  }
+
+  private void unschedule(final String pubId, final Publication publication) {
+    if (publication.transition != null) {
+      final TreeMap<String, Set<String>> transitions = publication.visible ? ends : beginnings;
+      final Set<String> pubIds = transitions.get(publication.transition);
+      pubIds.remove(pubId);
+      if (pubIds.isEmpty()) {
+        transitions.remove(publication.transition);
+      }
+      publication.transition = null;
+    }
+  }
+
+  private void count(final Publication publication, final int delta) {
+    for (String nodeId : publication.nodeIds) {
+      final Counters nodeCounters = counters.computeIfAbsent(nodeId, i -> new Counters());
+      add(nodeCounters.allByStatus, publication.status, delta);
+      if (publication.visible) {
+        add(nodeCounters.visibleByStatus, publication.status, delta);
+        if (publication.local) {
+          countInAncestors(nodeId, delta);
+        }
+      }
+    }
+  }
+
+  private void countInAncestors(final String nodeId, final int delta) {
+    String ancestorId = nodeId;
+    Counters ancestorCounters = counters.get(ancestorId);
+    int depth = 0;
+    while (ancestorCounters != null && depth++ <= fathers.size()) {
+      ancestorCounters.visibleInSubtree += delta;
+      ancestorId = fathers.get(ancestorId);
+      ancestorCounters = ancestorId == null ? null : counters.get(ancestorId);
+    }
+  }
+
+  private static void add(final Map<String, Integer> perStatus, final String status,
+      final int delta) {
+    perStatus.merge(status, delta, (count, d) -> count + d == 0 ? null : count + d);
+  }
+
+  /**
+   * The counters of a folder.
+   */
+  private static class Counters {
+    private final Map<String, Integer> allByStatus = new HashMap<>();
+    private final Map<String, Integer> visibleByStatus = new HashMap<>();
+    private int visibleInSubtree = 0;
+  }
+
+  /**
+   * The state of a publication that matters for its counting in the folders of a component
+   * instance.
+   */
+  static class Publication {
+    private final String status;
+    private final boolean local;
+    private final String begin;
+    private final String end;
+    private final Set<String> nodeIds = new HashSet<>();
+    private boolean visible = false;
+    private String transition = null;
+
+    /**
+     * Constructs the state of a publication from the values stored into the database.
+     * @param status the status of the publication.
+     * @param local true if the publication belongs to the component instance, false if it is
+     * an alias of a publication of another component instance.
+     * @param beginDate the date at which the visibility period begins, null if unbounded.
+     * @param beginHour the hour at which the visibility period begins, null if undefined.
+     * @param endDate the date at which the visibility period ends, null if unbounded.
+     * @param endHour the hour at which the visibility period ends, null if undefined.
+     */
+    Publication(final String status, final boolean local, final String beginDate,
+        final String beginHour, final String endDate, final String endHour) {
+      this.status = Objects.toString(status, "");
+      this.local = local;
+      this.begin = Objects.toString(beginDate, NULL_BEGIN_DATE) + " " +
+          Objects.toString(beginHour, NULL_BEGIN_HOUR);
+      this.end = Objects.toString(endDate, NULL_END_DATE) + " " +
+          Objects.toString(endHour, NULL_END_HOUR);
+    }
+
+    /**
+     * Adds the specified folder to the ones in which the publication is.
+     * @param nodeId the identifier of a folder.
+     * @return itself.
+     */
+    Publication in(final String nodeId) {
+      nodeIds.add(nodeId);
+      return this;
+    }
+
+    private boolean isVisibleAt(final String now) {
+      return begin.compareTo(now) < 0 && now.compareTo(end) < 0;
+    }
+  }
+}
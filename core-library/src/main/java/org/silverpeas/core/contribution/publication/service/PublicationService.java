@@ -353,20 +353,47 @@ public interface PublicationService {
   SilverpeasList<PublicationDetail> getAuthorizedPublicationsForUserByCriteria(final String userId,
       final PublicationCriteria criteria);
 
+  /**
+   * Gets the number of the publications that are currently visible in the specified node and in
+   * all of its descendants. Only the publications of the component instance of the node are
+   * counted, whatever their status. The number is read from counters maintained in memory.
+   * @param fatherPK the unique identifier of a node.
+   * @param fatherPath the path of the node. If empty, 0 is returned.
+   * @return the number of visible publications in the subtree of the node.
+   */
   int getNbPubByFatherPath(NodePK fatherPK, String fatherPath);
 
   /**
-   * Gets the tree of nodes with the number of publication per node.
+   * Gets the tree of nodes with the number of publication per node. Without any status sub
+   * query, the numbers are read from counters maintained in memory; otherwise they are computed
+   * by requesting the database.
    *
    * @param instanceId
-   * @param statusSubQuery
+   * @param statusSubQuery an SQL condition on the table sb_publication_publi to select the
+   * publications to count, null to count them whatever their status.
    * @param checkVisibility
    * @return the tree of nodes with the number of publication per node
    * @
+   * @see #getDistributionTreeByStatus(String, Collection, boolean)
    */
   Map<String, Integer> getDistributionTree(String instanceId, String statusSubQuery,
       boolean checkVisibility);
 
+  /**
+   * Gets the tree of nodes with the number of publications in the specified statuses per node.
+   * The numbers are read from counters maintained in memory as the publications are modified and
+   * as their visibility periods begin or end, so the database isn't requested again at each call.
+   * @param instanceId the identifier of a component instance.
+   * @param statuses the statuses of the publications to count. Null to count them whatever their
+   * status.
+   * @param checkVisibility true if only the publications that are currently visible have to be
+   * counted.
+   * @return the number of publications per node identifier, for all the nodes of the component
+   * instance.
+   */
+  Map<String, Integer> getDistributionTreeByStatus(String instanceId, Collection<String> statuses,
+      boolean checkVisibility);
+
   Collection<PublicationDetail> getDetailsByFatherIds(List<String> fatherIds,
       String instanceId, boolean filterOnVisibilityPeriod);
 
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.index.indexing.model;
+
+import org.silverpeas.core.initialization.Initialization;
+import org.silverpeas.core.scheduler.Job;
+import org.silverpeas.core.scheduler.JobExecutionContext;
+import org.silverpeas.core.scheduler.Scheduler;
+import org.silverpeas.core.scheduler.trigger.JobTrigger;
+import org.silverpeas.core.scheduler.trigger.TimeUnit;
+
+import javax.inject.Inject;
+
+/**
+ * This JOB is in charge of committing periodically the pending changes of the opened index
+ * writers according to the commit policy. At the shutdown, all the writers are closed and then
+ * their pending changes are committed.
+ * @author silveryocha
+ */
+class IndexCommitJobInitializer implements Initialization {
+
+  private static final String JOB_NAME = "IndexCommitJob";
+
+  @Inject
+  private Scheduler scheduler;
+
+  @Inject
+  private IndexManager indexManager;
+
+  @Override
+  public void init() throws Exception {
+    scheduler.unscheduleJob(JOB_NAME);
+    final int commitMaxDelay = IndexWriterPool.getCommitMaxDelay();
+    if (commitMaxDelay > 0) {
+      final IndexCommitJob job = new IndexCommitJob(indexManager);
+      scheduler.scheduleJob(job, JobTrigger.triggerEvery(commitMaxDelay, TimeUnit.SECOND));
+    }
+  }
+
+  @Override
+  public void release() throws Exception {
+    scheduler.unscheduleJob(JOB_NAME);
+    indexManager.close();
+  }
+
+  private static class IndexCommitJob extends Job {
+
+    private final IndexManager indexManager;
+
+    /**
+     * Creates a new job.
+     */
+    private IndexCommitJob(final IndexManager indexManager) {
+      super(JOB_NAME);
+      this.indexManager = indexManager;
+    }
+
+    @Override
+    public void execute(final JobExecutionContext context) {
+      indexManager.commit(false);
+    }
+  }
+}
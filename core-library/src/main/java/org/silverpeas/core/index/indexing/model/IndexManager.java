@@ -24,6 +24,7 @@
 package org.silverpeas.core.index.indexing.model;
 
 import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.DelegatingAnalyzerWrapper;
 import org.apache.lucene.analysis.miscellaneous.LimitTokenCountAnalyzer;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
@@ -38,8 +39,7 @@ import org.apache.lucene.store.FSDirectory;
 import org.silverpeas.core.SilverpeasRuntimeException;
 import org.silverpeas.core.i18n.I18NHelper;
 import org.silverpeas.core.index.indexing.IndexFileManager;
-import org.silverpeas.core.index.indexing.parser.Parser;
-import org.silverpeas.core.index.indexing.parser.ParserManager;
+import org.silverpeas.core.index.indexing.parser.FileContentExtractor;
 import org.silverpeas.core.index.search.SearchEnginePropertiesManager;
 import org.silverpeas.core.util.ResourceLocator;
 import org.silverpeas.core.util.ServiceProvider;
@@ -47,26 +47,24 @@ import org.silverpeas.core.util.SettingBundle;
 import org.silverpeas.core.util.StringUtil;
 import org.silverpeas.core.util.logging.SilverLogger;
 
-import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.io.File;
 import java.io.IOException;
-import java.io.Reader;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import static org.silverpeas.core.index.indexing.model.IndexProcessor.doFlush;
 import static org.silverpeas.core.index.indexing.model.IndexProcessor.doRemoveAll;
 
 /**
- * An IndexManager manage all the web'activ's index. An IndexManager is NOT thread safe : to share
- * an IndexManager between several threads use an IndexerThread.
+ * An IndexManager manage all the web'activ's index. The indexation requests are processed by the
+ * lanes of the {@link IndexerTask}: an index (the one of a component instance) is always updated
+ * by the same lane whereas the index writers are shared and kept opened between the indexation
+ * requests (see {@link IndexWriterPool}).
  */
 @Singleton
 public class IndexManager {
@@ -136,11 +134,6 @@ public class IndexManager {
     serverName = settings.getString("server.name", "Silverpeas");
   }
 
-  private Map<String, IndexWriter> indexWriters = new LinkedHashMap<>();
-
-  @Inject
-  private ParserManager parserManager;
-
   /**
    * The constructor takes no parameters and all the index engine parameters are taken from the
    * properties file "org/silverpeas/util/indexing/indexing.properties".
@@ -160,41 +153,49 @@ public class IndexManager {
   void addIndexEntry(FullIndexEntry indexEntry) {
     indexEntry.setServerName(serverName);
     String indexPath = getIndexDirectoryPath(indexEntry);
-    IndexWriter writer = getIndexWriter(indexPath, indexEntry.getLang());
+    IndexWriter writer = getIndexWriter(indexPath);
     removeIndexEntry(writer, indexEntry.getPK());
     index(writer, indexEntry);
+    IndexWriterPool.changed(indexPath);
   }
 
   /**
-   * Optimize all the modified index.
+   * Makes searchable the changes of all the modified indexes and commits them according to the
+   * commit policy. The writers are kept opened for the next indexation requests.
    */
   public void flush() {
     doFlush(() -> {
-      final SilverLogger logger = SilverLogger.getLogger(this);
-      final List<String> pathProcessed = new ArrayList<>(indexWriters.size());
-      final Iterator<Map.Entry<String, IndexWriter>> it = indexWriters.entrySet().iterator();
-      logger.debug("flushing manager of indexation about {0} writer(s)", indexWriters.size());
-      while(it.hasNext()) {
-        final Map.Entry<String, IndexWriter> entry = it.next();
-        final String path = entry.getKey();
-        final IndexWriter writer = entry.getValue();
-        pathProcessed.add(path);
-        logger.debug("\t- closing writer of path {0}", path);
-        try {
-          writer.close();
-        } catch (IOException e) {
-          SilverLogger.getLogger(this).error("Cannot close index " + path, e);
-        }
-        // update the spelling index
-        if (enableDymIndexing) {
-          DidYouMeanIndexer.createSpellIndexForAllLanguage(CONTENT, path);
-        }
-        it.remove();
-      }
+      final List<String> pathProcessed = IndexWriterPool.takeChangedPaths();
+      SilverLogger.getLogger(this)
+          .debug("flushing manager of indexation about {0} writer(s)", pathProcessed.size());
+      commit(false);
       return pathProcessed;
     });
   }
 
+  /**
+   * Commits the pending changes of the indexes according to the commit policy.
+   * @param force true to commit all the pending changes whatever the commit policy.
+   */
+  void commit(boolean force) {
+    final List<String> committedPaths = IndexWriterPool.commit(force);
+    updateSpellIndexes(committedPaths);
+  }
+
+  /**
+   * Closes all the opened writers, committing their pending changes.
+   */
+  void close() {
+    final List<String> closedPaths = IndexWriterPool.closeAll();
+    updateSpellIndexes(closedPaths);
+  }
+
+  private void updateSpellIndexes(final List<String> paths) {
+    if (enableDymIndexing) {
+      paths.forEach(p -> DidYouMeanIndexer.createSpellIndexForAllLanguage(CONTENT, p));
+    }
+  }
+
   private void removeIndexEntry(IndexWriter writer, IndexEntryKey indexEntryKey) {
     Term term = new Term(KEY, indexEntryKey.toString());
     try {
@@ -212,9 +213,10 @@ public class IndexManager {
    */
   void removeIndexEntry(IndexEntryKey indexEntry) {
     String indexPath = getIndexDirectoryPath(indexEntry);
-    IndexWriter writer = getIndexWriter(indexPath, "");
+    IndexWriter writer = getIndexWriter(indexPath);
     if (writer != null) {
       removeIndexEntry(writer, indexEntry);
+      IndexWriterPool.changed(indexPath);
     }
   }
 
@@ -230,15 +232,16 @@ public class IndexManager {
 
   void removeIndexEntries(String scope) {
     String indexPath = getIndexDirectoryPath(scope);
-    IndexWriter writer = getIndexWriter(indexPath, "");
+    IndexWriter writer = getIndexWriter(indexPath);
     if (writer != null) {
       removeIndexEntries(writer, scope);
+      IndexWriterPool.changed(indexPath);
     }
   }
 
   void removeAllIndexEntries() {
     doRemoveAll(() -> {
-      flush();
+      close();
       final File indexRepository = Paths.get(IndexFileManager.getIndexUpLoadPath()).toFile();
       final File savedIndexRepository = Paths.get(indexRepository.getAbsolutePath() + "_" +
           LocalDateTime.now().toString().replaceAll("[:']", "")).toFile();
@@ -294,19 +297,27 @@ public class IndexManager {
   }
 
   /**
-   * Get the reader specific of the file described by the file description
-   *
-   * @param file
-   * @return the reader specific of the file described by the file description
+   * Return the analyzer used by a writer to parse the indexed texts. As a writer is shared
+   * between several index entries, whatever their language, the analyzer is chosen for each field
+   * according to the language of its content: the fields in a given translation are suffixed by
+   * the language code (see {@link #getFieldName(String, String)}) whereas the others, which are in
+   * the default language of the platform, are parsed with the analyzer of this default language.
+   * So the parsing of a field never depends on the entry that has opened the writer.
+   * @return an analyzer delegating the parsing to the analyzer of the language of each field.
    */
-  private Reader getReader(FileDescription file) {
-    Reader reader = null;
-    Parser parser = parserManager.getParser(file.getFormat());
-
-    if (parser != null) {
-      reader = parser.getReader(file.getPath(), file.getEncoding());
-    }
-    return reader;
+  private Analyzer getIndexingAnalyzer() {
+    final Analyzer defaultAnalyzer = getAnalyzer(I18NHelper.defaultLanguage);
+    final Set<String> languages = I18NHelper.getAllSupportedLanguages();
+    return new DelegatingAnalyzerWrapper(Analyzer.PER_FIELD_REUSE_STRATEGY) {
+      @Override
+      protected Analyzer getWrappedAnalyzer(final String fieldName) {
+        final int index = fieldName.lastIndexOf('_');
+        if (index > 0 && languages.contains(fieldName.substring(index + 1))) {
+          return getAnalyzer(fieldName.substring(index + 1));
+        }
+        return defaultAnalyzer;
+      }
+    };
   }
 
   /**
@@ -315,14 +326,12 @@ public class IndexManager {
    * created if not found .
    *
    * @param path the path to the index root directory
-   * @param language the language of the indexed documents.
    * @return an IndexWriter or null if the index can't be found or create or read.
    */
-  private IndexWriter getIndexWriter(String path, String language) {
-    indexWriters.computeIfPresent(path, (s, w) -> w.isOpen() ? w : null);
-    return indexWriters.computeIfAbsent(path, p -> {
+  private IndexWriter getIndexWriter(String path) {
+    return IndexWriterPool.getIndexWriter(path, p -> {
       try {
-        final File file = new File(path);
+        final File file = new File(p);
         if (!file.exists()) {
           file.mkdirs();
         }
@@ -330,13 +339,14 @@ public class IndexManager {
         policy.setMergeFactor(mergeFactor);
         policy.setMaxMergeDocs(maxMergeDocs);
         final IndexWriterConfig configuration =
-            new IndexWriterConfig(getAnalyzer(language)).setRAMBufferSizeMB(defaultRamBufferSizeMb)
+            new IndexWriterConfig(getIndexingAnalyzer())
+                .setRAMBufferSizeMB(defaultRamBufferSizeMb)
                 .setMergePolicy(policy);
         return new IndexWriter(FSDirectory.open(file.toPath()), configuration);
       } catch (IOException e) {
-        SilverLogger.getLogger(this).error("Unknown index file " + path, e);
+        SilverLogger.getLogger(this).error("Unknown index file " + p, e);
       }
-      // The map is not filled
+      // The pool is not filled
       return null;
     });
   }
@@ -614,9 +624,11 @@ public class IndexManager {
       return;
     }
     try {
-      Reader reader = getReader(fileDescription);
-      if (reader != null) {
-        Field field = new Field(getFieldName(CONTENT, fileDescription.getLang()), reader,
+      final String content = FileContentExtractor.get()
+          .extract(fileDescription.getPath(), fileDescription.getEncoding(),
+              fileDescription.getFormat());
+      if (!content.isEmpty()) {
+        Field field = new Field(getFieldName(CONTENT, fileDescription.getLang()), content,
             TextField.TYPE_NOT_STORED);
         doc.add(field);
       }
@@ -624,4 +636,4 @@ public class IndexManager {
       SilverLogger.getLogger(this).error("Failed to parse file " + fileDescription.getPath(), e);
     }
   }
-}
\ No newline at end of file
+}
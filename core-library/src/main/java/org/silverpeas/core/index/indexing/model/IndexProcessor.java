@@ -24,27 +24,25 @@
 package org.silverpeas.core.index.indexing.model;
 
 import org.silverpeas.core.index.search.model.ParseException;
-import org.silverpeas.core.util.ResourceLocator;
-import org.silverpeas.core.util.SettingBundle;
 import org.silverpeas.core.util.logging.SilverLogger;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.locks.StampedLock;
 import java.util.function.Supplier;
 
 /**
+ * Processor of the different operations on the indexes.
+ * <p>
+ * The searches are never blocking each others: each of them acquires the readers of the indexes
+ * it requires and releases them at the end of the process (see {@link IndexReadersCache}). The
+ * only exclusive operation is the removing of all the indexes, during which the searches are
+ * directly ended.
+ * </p>
  * @author silveryocha
  */
 public class IndexProcessor {
-  private static final SettingBundle searchSettings =
-      ResourceLocator.getSettingBundle("org.silverpeas.index.search.searchEngineSettings");
   private static final StampedLock SEARCH_LOCK = new StampedLock();
-  private static final Object UPDATED_MUTEX = new Object();
-  private static final Object MUTEX = new Object();
-  private static final List<String> UPDATED_INDEXES = new ArrayList<>();
 
   /**
    * Hidden constructor.
@@ -54,41 +52,27 @@ public class IndexProcessor {
 
   public static <R> R doSearch(SearchIndexProcess<R> searchIndexProcess, Supplier<R> defaultReturn) throws ParseException {
     final SilverLogger logger = SilverLogger.getLogger(IndexProcessor.class);
-    final long stamp;
-    synchronized (MUTEX) {
-      stamp = SEARCH_LOCK.tryReadLock();
-      if (stamp == 0) {
-        logger.debug("starting and ending directly search processing because of index removing");
-      } else {
-        logger.debug(
-            "starting search processing and there are currently {0} search process(es) performing",
-            SEARCH_LOCK.getReadLockCount());
-      }
-    }
+    final long stamp = SEARCH_LOCK.tryReadLock();
     if (stamp == 0) {
+      logger.debug("starting and ending directly search processing because of index removing");
       return defaultReturn.get();
     }
+    final boolean acquisitionsStarted = IndexReadersCache.startAcquisitions();
     try {
+      logger.debug("starting search processing");
       return searchIndexProcess.process();
     } finally {
-      synchronized (MUTEX) {
-        SEARCH_LOCK.unlockRead(stamp);
-        logger.debug(
-            "ending search processing and there are currently {0} search process(es) performing",
-            SEARCH_LOCK.getReadLockCount());
-        closeIndexReaders();
+      if (acquisitionsStarted) {
+        IndexReadersCache.releaseAcquisitions();
       }
+      SEARCH_LOCK.unlockRead(stamp);
+      logger.debug("ending search processing");
     }
   }
 
   public static void doFlush(FlushIndexProcess flushIndexProcess) {
     final List<String> updatedPaths = flushIndexProcess.process();
-    synchronized (UPDATED_MUTEX) {
-      UPDATED_INDEXES.addAll(updatedPaths);
-    }
-    synchronized (MUTEX) {
-      closeIndexReaders();
-    }
+    IndexReadersCache.refreshIndexReaders(updatedPaths);
   }
 
   static void doRemoveAll(RemoveAllIndexesProcess removeAllIndexesProcess) {
@@ -107,30 +91,6 @@ public class IndexProcessor {
     }
   }
 
-  private static void closeIndexReaders() {
-    final SilverLogger logger = SilverLogger.getLogger(IndexProcessor.class);
-    if (SEARCH_LOCK.getReadLockCount() == 0) {
-      synchronized (UPDATED_MUTEX) {
-        if (searchSettings.getBoolean("index.reader.closeAfterLastSearch", false)) {
-          logger.debug("no search is currently being performed, so closing all readers");
-          IndexReadersCache.closeAllIndexReaders();
-          UPDATED_INDEXES.clear();
-        } else {
-          logger.debug("no search is currently being performed, so closing readers if any");
-          final Iterator<String> it = UPDATED_INDEXES.iterator();
-          while (it.hasNext()) {
-            final String path = it.next();
-            IndexReadersCache.closeIndexReader(path);
-            it.remove();
-          }
-        }
-      }
-    } else {
-      logger.debug("no reader close is performed as {0} search process(es) are currently performed",
-          SEARCH_LOCK.getReadLockCount());
-    }
-  }
-
   /**
    * A search process.
    * @param <R> the type of result of processing.
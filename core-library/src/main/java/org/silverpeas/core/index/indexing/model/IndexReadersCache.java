@@ -23,30 +23,41 @@
  */
 package org.silverpeas.core.index.indexing.model;
 
-import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.store.FSDirectory;
 import org.silverpeas.core.util.ArrayUtil;
 import org.silverpeas.core.util.logging.SilverLogger;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
-import java.util.function.BiConsumer;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Cache of the readers of the different indexes. For each index path, a {@link SearcherManager}
+ * is kept in memory in order to share the opened {@link IndexReader} between all the concurrent
+ * searches. Each reader is reference counted: it is acquired by a search and released once the
+ * search is done. So refreshing or closing an index never disturbs the searches that are currently
+ * performed on it.
+ * <p>
+ * The readers are refreshed incrementally (by using {@code DirectoryReader.openIfChanged}) each
+ * time the corresponding index is flushed. When a writer is opened on an index (see
+ * {@link IndexWriterPool}), the reader is a near-real-time one obtained from this writer, so
+ * the indexed documents are searchable even before their commit. Each cached reader is bound to
+ * the writer that was opened on the index when the reader was opened: once the writer is opened,
+ * closed or replaced, the reader is reopened at the next search, so a reader opened on the index
+ * directory whereas a writer was being opened concurrently is never kept.
+ * </p>
+ */
 public class IndexReadersCache {
-  private static final Object READER_MUTEX = new Object();
-  private static final Map<String, IndexReader> INDEX_READERS = new HashMap<>();
-  private static final BiConsumer<String, IndexReader> CLOSE_INDEX_CONSUMER = (s, r) -> {
-    final SilverLogger logger = SilverLogger.getLogger(IndexReadersCache.class);
-    try {
-      logger.debug("closing reader of path {0}", s);
-      r.close();
-    } catch (IOException e) {
-      logger.warn(e);
-    }
-  };
+  private static final Map<String, CachedReader> INDEX_READERS = new ConcurrentHashMap<>();
+  private static final ThreadLocal<List<Acquisition>> ACQUISITIONS = new ThreadLocal<>();
 
   /**
    * Hidden constructor
@@ -57,48 +68,169 @@ public class IndexReadersCache {
   /**
    * This method must be called only within a
    * {@link IndexProcessor.SearchIndexProcess#process()} implementation in order to get a
-   * right behavior against the concurrent accesses.
+   * right behavior against the concurrent accesses. The returned reader is acquired for the
+   * current search and it is automatically released at the end of the search process.
    * @param path the index root path.
    * @return the {@link IndexReader} well initialized if necessary.
    */
   public static IndexReader getIndexReader(String path) {
-    synchronized (READER_MUTEX) {
-      final File rootPath = new File(path);
-      final boolean validRootPath = ArrayUtil.isNotEmpty(rootPath.list());
-      IndexReader indexReader = INDEX_READERS.get(path);
-      if (indexReader == null && validRootPath) {
-        try {
-          indexReader = DirectoryReader.open(FSDirectory.open(rootPath.toPath()));
-          INDEX_READERS.put(path, indexReader);
-        } catch (Exception e) {
-          SilverLogger.getLogger(IndexReadersCache.class).warn(e);
-        }
-      } else if (indexReader != null && !validRootPath) {
-        SilverLogger.getLogger(IndexReadersCache.class).warn(
-            "index reader exists in cache but no index path is existing! ({0})", path);
+    final File rootPath = new File(path);
+    final boolean validRootPath = ArrayUtil.isNotEmpty(rootPath.list());
+    if (!validRootPath) {
+      if (INDEX_READERS.containsKey(path)) {
+        SilverLogger.getLogger(IndexReadersCache.class)
+            .warn("index reader exists in cache but no index path is existing! ({0})", path);
         closeIndexReader(path);
-        indexReader = null;
-      } else if (!validRootPath) {
+      } else {
         SilverLogger.getLogger(IndexReadersCache.class)
             .debug("index reader for path {0} can not be open as there is no index data", path);
       }
-      return indexReader;
+      return null;
+    }
+    final List<Acquisition> acquisitions = ACQUISITIONS.get();
+    if (acquisitions == null) {
+      SilverLogger.getLogger(IndexReadersCache.class)
+          .error("index reader of path {0} requested outside of a search process", path);
+      return null;
+    }
+    final IndexWriter writer = IndexWriterPool.getOpenedIndexWriter(path);
+    final CachedReader reader = INDEX_READERS.compute(path, (p, r) -> {
+      if (r != null && r.writer == writer) {
+        return r;
+      }
+      if (r != null) {
+        close(p, r.manager);
+      }
+      try {
+        SilverLogger.getLogger(IndexReadersCache.class).debug("opening reader of path {0}", p);
+        return writer != null ? new CachedReader(new SearcherManager(writer, null), writer) :
+            new CachedReader(new SearcherManager(FSDirectory.open(rootPath.toPath()), null), null);
+      } catch (Exception e) {
+        SilverLogger.getLogger(IndexReadersCache.class).warn(e);
+        return null;
+      }
+    });
+    final SearcherManager manager = reader != null ? reader.manager : null;
+    if (manager == null) {
+      return null;
+    }
+    try {
+      final IndexSearcher searcher = manager.acquire();
+      acquisitions.add(new Acquisition(manager, searcher));
+      return searcher.getIndexReader();
+    } catch (Exception e) {
+      // the manager has been closed in the meantime
+      SilverLogger.getLogger(IndexReadersCache.class).debug(e.getMessage());
+      return null;
     }
   }
 
-  static void closeIndexReader(String path) {
-    synchronized (READER_MUTEX) {
-      final IndexReader indexReader = INDEX_READERS.remove(path);
-      if (indexReader != null) {
-        CLOSE_INDEX_CONSUMER.accept(path, indexReader);
+  /**
+   * Starts the tracking of the readers acquired by the current thread within a search process.
+   * @return true if the tracking has been started by this call, false if it was already started
+   * by an enclosing search process.
+   */
+  static boolean startAcquisitions() {
+    if (ACQUISITIONS.get() != null) {
+      return false;
+    }
+    ACQUISITIONS.set(new ArrayList<>());
+    return true;
+  }
+
+  /**
+   * Releases all the readers acquired by the current thread since the last call of
+   * {@link #startAcquisitions()}.
+   */
+  static void releaseAcquisitions() {
+    final List<Acquisition> acquisitions = ACQUISITIONS.get();
+    ACQUISITIONS.remove();
+    if (acquisitions != null) {
+      acquisitions.forEach(Acquisition::release);
+    }
+  }
+
+  /**
+   * Refreshes incrementally the readers of the given index paths. The readers are reopened only
+   * if their index has changed and the searches currently performed on the previous readers
+   * aren't disturbed: they are closed once no more search is using them.
+   * @param paths the paths of the updated indexes.
+   */
+  static void refreshIndexReaders(Collection<String> paths) {
+    for (String path : paths) {
+      final CachedReader reader = INDEX_READERS.get(path);
+      if (reader == null) {
+        continue;
+      }
+      if (reader.writer != IndexWriterPool.getOpenedIndexWriter(path)) {
+        // the writer of the index has changed: the reader will be reopened at the next search
+        closeIndexReader(path);
+        continue;
       }
+      try {
+        SilverLogger.getLogger(IndexReadersCache.class)
+            .debug("refreshing reader of path {0}", path);
+        reader.manager.maybeRefresh();
+      } catch (Exception e) {
+        SilverLogger.getLogger(IndexReadersCache.class).warn(e);
+        closeIndexReader(path);
+      }
+    }
+  }
+
+  static void closeIndexReader(String path) {
+    final CachedReader reader = INDEX_READERS.remove(path);
+    if (reader != null) {
+      close(path, reader.manager);
     }
   }
 
   static void closeAllIndexReaders() {
-    synchronized (READER_MUTEX) {
-      INDEX_READERS.forEach(CLOSE_INDEX_CONSUMER);
-      INDEX_READERS.clear();
+    new ArrayList<>(INDEX_READERS.keySet()).forEach(IndexReadersCache::closeIndexReader);
+  }
+
+  private static void close(final String path, final SearcherManager manager) {
+    final SilverLogger logger = SilverLogger.getLogger(IndexReadersCache.class);
+    try {
+      logger.debug("closing reader of path {0}", path);
+      manager.close();
+    } catch (IOException e) {
+      logger.warn(e);
+    }
+  }
+
+  /**
+   * A cached reader with the writer from which it has been opened, null if it has been opened on
+   * the index directory.
+   */
+  private static class CachedReader {
+    private final SearcherManager manager;
+    private final IndexWriter writer;
+
+    private CachedReader(final SearcherManager manager, final IndexWriter writer) {
+      this.manager = manager;
+      this.writer = writer;
+    }
+  }
+
+  /**
+   * A searcher acquired from a {@link SearcherManager} and that has to be released to it.
+   */
+  private static class Acquisition {
+    private final SearcherManager manager;
+    private final IndexSearcher searcher;
+
+    private Acquisition(final SearcherManager manager, final IndexSearcher searcher) {
+      this.manager = manager;
+      this.searcher = searcher;
+    }
+
+    private void release() {
+      try {
+        manager.release(searcher);
+      } catch (IOException e) {
+        SilverLogger.getLogger(IndexReadersCache.class).warn(e);
+      }
     }
   }
 }
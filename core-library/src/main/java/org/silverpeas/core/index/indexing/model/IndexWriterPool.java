@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.index.indexing.model;
+
+import org.apache.lucene.index.IndexWriter;
+import org.silverpeas.core.util.ResourceLocator;
+import org.silverpeas.core.util.SettingBundle;
+import org.silverpeas.core.util.logging.SilverLogger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Pool of the {@link IndexWriter} instances, keyed by index path. The writers are long-lived:
+ * they are opened at the first indexation request on an index and they are kept opened until the
+ * shutdown of Silverpeas (or the removing of all the indexes).
+ * <p>
+ * The changes are committed according to a time/size policy (see the
+ * {@code lucene.commit.maxPendingDocs} and {@code lucene.commit.maxDelay} parameters of the
+ * indexing settings) and, in the meantime, they are made searchable by the near-real-time readers
+ * opened from the writers (see {@link IndexReadersCache}).
+ * </p>
+ * @author silveryocha
+ */
+final class IndexWriterPool {
+
+  private static final int DEFAULT_COMMIT_MAX_PENDING_DOCS = 1000;
+  private static final int DEFAULT_COMMIT_MAX_DELAY = 60;
+  private static final Map<String, PooledWriter> WRITERS = new ConcurrentHashMap<>();
+  private static int commitMaxPendingDocs = DEFAULT_COMMIT_MAX_PENDING_DOCS;
+  private static long commitMaxDelayMs = DEFAULT_COMMIT_MAX_DELAY * 1000L;
+
+  static {
+    final SettingBundle settings =
+        ResourceLocator.getSettingBundle("org.silverpeas.index.indexing.IndexEngine");
+    commitMaxPendingDocs =
+        settings.getInteger("lucene.commit.maxPendingDocs", DEFAULT_COMMIT_MAX_PENDING_DOCS);
+    commitMaxDelayMs =
+        settings.getInteger("lucene.commit.maxDelay", DEFAULT_COMMIT_MAX_DELAY) * 1000L;
+  }
+
+  /**
+   * Hidden constructor.
+   */
+  private IndexWriterPool() {
+  }
+
+  /**
+   * Gets the delay in seconds after which the pending changes of an index have to be committed.
+   * @return a delay in seconds.
+   */
+  static int getCommitMaxDelay() {
+    return (int) (commitMaxDelayMs / 1000L);
+  }
+
+  /**
+   * Gets the opened writer of the index at the given path, opening it if necessary with the given
+   * opener. When a writer is opened, the reader of the index is reopened as a near-real-time one
+   * at the next search (see {@link IndexReadersCache}).
+   * @param path the index root path.
+   * @param opener the function that opens a new writer on the index at the given path. It returns
+   * null if the writer cannot be opened.
+   * @return the opened writer or null if it cannot be opened.
+   */
+  static IndexWriter getIndexWriter(String path, Function<String, IndexWriter> opener) {
+    final PooledWriter pooledWriter = WRITERS.compute(path, (p, w) -> {
+      if (w != null && w.writer.isOpen()) {
+        return w;
+      }
+      final IndexWriter writer = opener.apply(p);
+      return writer != null ? new PooledWriter(writer) : null;
+    });
+    return pooledWriter != null ? pooledWriter.writer : null;
+  }
+
+  /**
+   * Gets the writer of the index at the given path if it is currently opened.
+   * @param path the index root path.
+   * @return the opened writer or null if no writer is opened on the index.
+   */
+  static IndexWriter getOpenedIndexWriter(String path) {
+    final PooledWriter pooledWriter = WRITERS.get(path);
+    return pooledWriter != null && pooledWriter.writer.isOpen() ? pooledWriter.writer : null;
+  }
+
+  /**
+   * Indicates the index at the given path has been changed.
+   * @param path the index root path.
+   */
+  static void changed(String path) {
+    final PooledWriter pooledWriter = WRITERS.get(path);
+    if (pooledWriter != null) {
+      pooledWriter.changed();
+    }
+  }
+
+  /**
+   * Gets the paths of the indexes that have been changed since the last call of this method.
+   * @return a list of index paths.
+   */
+  static List<String> takeChangedPaths() {
+    final List<String> paths = new ArrayList<>(WRITERS.size());
+    WRITERS.forEach((p, w) -> {
+      if (w.refreshRequired.getAndSet(false)) {
+        paths.add(p);
+      }
+    });
+    return paths;
+  }
+
+  /**
+   * Commits the pending changes of the writers according to the commit policy.
+   * @param force true to commit all the pending changes whatever the commit policy.
+   * @return the paths of the indexes that have been committed.
+   */
+  static List<String> commit(boolean force) {
+    final long now = System.currentTimeMillis();
+    final List<String> paths = new ArrayList<>(WRITERS.size());
+    WRITERS.forEach((p, w) -> {
+      if (w.isCommitRequired(force, now)) {
+        SilverLogger.getLogger(IndexWriterPool.class)
+            .debug("committing {0} pending change(s) of path {1}", w.pendingDocs.get(), p);
+        boolean committed = false;
+        try {
+          w.commit();
+          committed = true;
+          paths.add(p);
+        } catch (IOException | RuntimeException e) {
+          SilverLogger.getLogger(IndexWriterPool.class).error("Cannot commit index " + p, e);
+        } finally {
+          if (!committed) {
+            release(p, w);
+          }
+        }
+      }
+    });
+    return paths;
+  }
+
+  /**
+   * Releases the given writer from the pool if it isn't usable anymore (for example, after a
+   * tragic event in Lucene), so that a new writer is opened at the next indexation request on the
+   * index. Its pending changes are lost and its near-real-time reader is closed.
+   * @param path the index root path.
+   * @param pooledWriter the writer of the pool on the index at the given path.
+   */
+  private static void release(final String path, final PooledWriter pooledWriter) {
+    if (pooledWriter.writer.isOpen() || !WRITERS.remove(path, pooledWriter)) {
+      return;
+    }
+    SilverLogger.getLogger(IndexWriterPool.class).debug("releasing writer of path {0}", path);
+    IndexReadersCache.closeIndexReader(path);
+  }
+
+  /**
+   * Closes all the writers, committing their pending changes.
+   * @return the paths of the indexes whose the writer has been closed.
+   */
+  static List<String> closeAll() {
+    final List<String> paths = new ArrayList<>(WRITERS.keySet());
+    for (String path : paths) {
+      final PooledWriter pooledWriter = WRITERS.remove(path);
+      if (pooledWriter != null) {
+        SilverLogger.getLogger(IndexWriterPool.class).debug("closing writer of path {0}", path);
+        IndexReadersCache.closeIndexReader(path);
+        try {
+          pooledWriter.writer.close();
+        } catch (IOException e) {
+          SilverLogger.getLogger(IndexWriterPool.class).error("Cannot close index " + path, e);
+        }
+      }
+    }
+    return paths;
+  }
+
+  /**
+   * A writer of the pool with its pending changes.
+   */
+  private static class PooledWriter {
+    private final IndexWriter writer;
+    private final AtomicInteger pendingDocs = new AtomicInteger(0);
+    private final AtomicBoolean refreshRequired = new AtomicBoolean(false);
+    private volatile long firstPendingTime = 0;
+
+    private PooledWriter(final IndexWriter writer) {
+      this.writer = writer;
+    }
+
+    private void changed() {
+      if (pendingDocs.getAndIncrement() == 0) {
+        firstPendingTime = System.currentTimeMillis();
+      }
+      refreshRequired.set(true);
+    }
+
+    private boolean isCommitRequired(final boolean force, final long now) {
+      final int pending = pendingDocs.get();
+      return pending > 0 && (force || pending >= commitMaxPendingDocs ||
+          (commitMaxDelayMs > 0 && now - firstPendingTime >= commitMaxDelayMs));
+    }
+
+    private synchronized void commit() throws IOException {
+      final int pending = pendingDocs.get();
+      if (pending > 0) {
+        writer.commit();
+        pendingDocs.addAndGet(-pending);
+        if (pendingDocs.get() > 0) {
+          firstPendingTime = System.currentTimeMillis();
+        }
+      }
+    }
+  }
+}
@@ -23,17 +23,47 @@
  */
 package org.silverpeas.core.index.indexing.model;
 
+import org.silverpeas.core.index.indexing.parser.FileContentExtractor;
 import org.silverpeas.core.thread.task.AbstractRequestTask;
 import org.silverpeas.core.thread.task.RequestTaskManager;
+import org.silverpeas.core.util.ResourceLocator;
+import org.silverpeas.core.util.logging.SilverLogger;
 
 import javax.inject.Inject;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * This task is in charge of processing indexation requests.
+ * <p>
+ * As each component instance has its own index, the requests are partitioned by component
+ * instance into several lanes (see {@code indexer.lanes} parameter of the indexing settings) so
+ * the indexation of different component instances is performed in parallel whereas the requests
+ * about a same component instance are always processed in the order they were pushed.
+ * </p>
+ * <p>
+ * The removal of all the index entries is a barrier across all the lanes: it is performed once all
+ * the requests pushed before it have been processed, whatever their lane, and the requests pushed
+ * after it are held in their lane until the removal is done. So a full reindexing never loses the
+ * entries indexed just after the removal.
+ * </p>
  */
 public class IndexerTask extends AbstractRequestTask<IndexerTask.IndexerProcessContext> {
 
   private static final int QUEUE_LIMIT = 200;
+  private static final int DEFAULT_LANE_COUNT = 4;
+  private static final int LANE_COUNT = ResourceLocator
+      .getSettingBundle("org.silverpeas.index.indexing.IndexEngine")
+      .getInteger("indexer.lanes", DEFAULT_LANE_COUNT);
+
+  /**
+   * The requests are pushed under the read lock whereas a removal of all the index entries is
+   * pushed under the write lock, so a request is always queued in the generation it belongs to.
+   */
+  private static final ReadWriteLock PUSH_LOCK = new ReentrantReadWriteLock();
+  private static Generation currentGeneration = new Generation(true);
 
   /**
    * This instance must be set with the thread which is pushing a new request and not the one
@@ -43,11 +73,17 @@ public class IndexerTask extends AbstractRequestTask<IndexerTask.IndexerProcessC
   private IndexManager indexManager;
 
   /**
-   * Add a request 'add entry index'.
+   * Add a request 'add entry index'. The extraction of the text content of the files of the
+   * entry is started right now in background (see {@link FileContentExtractor}).
    * @param indexEntry the index entry ro process.
    */
   public static void addIndexEntry(FullIndexEntry indexEntry) {
-    RequestTaskManager.push(IndexerTask.class, new AddIndexEntryRequest(indexEntry));
+    final FileContentExtractor extractor = FileContentExtractor.get();
+    indexEntry.getFileContentList()
+        .forEach(f -> extractor.prefetch(f.getPath(), f.getEncoding(), f.getFormat()));
+    indexEntry.getLinkedFileContentList()
+        .forEach(f -> extractor.prefetch(f.getPath(), f.getEncoding(), f.getFormat()));
+    push(new AddIndexEntryRequest(indexEntry));
   }
 
   /**
@@ -55,7 +91,7 @@ public class IndexerTask extends AbstractRequestTask<IndexerTask.IndexerProcessC
    * @param indexEntry the index entry ro process.
    */
   public static void removeIndexEntry(IndexEntryKey indexEntry) {
-    RequestTaskManager.push(IndexerTask.class, new RemoveIndexEntryRequest(indexEntry));
+    push(new RemoveIndexEntryRequest(indexEntry));
   }
 
   /**
@@ -63,14 +99,41 @@ public class IndexerTask extends AbstractRequestTask<IndexerTask.IndexerProcessC
    * @param scope the scope of index entries to process.
    */
   public static void removeIndexEntriesByScope(String scope) {
-    RequestTaskManager.push(IndexerTask.class, new RemoveScopedIndexEntriesRequest(scope));
+    push(new RemoveScopedIndexEntriesRequest(scope));
   }
 
   /**
-   * Add a request 'remove all index entries'.
+   * Add a request 'remove all index entries'. The requests pushed after this one are held until
+   * the removal is done.
    */
   public static void removeAllIndexEntries() {
-    RequestTaskManager.push(IndexerTask.class, new RemoveAllIndexEntriesRequest());
+    final Lock lock = PUSH_LOCK.writeLock();
+    lock.lock();
+    try {
+      final Generation previousGeneration = currentGeneration;
+      final Generation nextGeneration = new Generation(false);
+      RequestTaskManager.push(IndexerTask.class,
+          new RemoveAllIndexEntriesRequest(previousGeneration, nextGeneration));
+      currentGeneration = nextGeneration;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static void push(final IndexerRequest request) {
+    final Lock lock = PUSH_LOCK.readLock();
+    lock.lock();
+    try {
+      request.generation = currentGeneration.enter();
+      try {
+        RequestTaskManager.push(IndexerTask.class, request);
+      } catch (RuntimeException e) {
+        request.generation.leave();
+        throw e;
+      }
+    } finally {
+      lock.unlock();
+    }
   }
 
   @Override
@@ -78,10 +141,17 @@ public class IndexerTask extends AbstractRequestTask<IndexerTask.IndexerProcessC
     return QUEUE_LIMIT;
   }
 
+  @Override
+  protected int getLaneCount() {
+    return LANE_COUNT;
+  }
+
   @Override
   protected void afterNoMoreRequest() {
     super.afterNoMoreRequest();
     indexManager.flush();
+    SilverLogger.getLogger(this).debug(() -> "indexation lanes after flush: " +
+        RequestTaskManager.getLaneStatistics(IndexerTask.class));
   }
 
   @Override
@@ -101,10 +171,70 @@ public class IndexerTask extends AbstractRequestTask<IndexerTask.IndexerProcessC
     }
   }
 
+  /**
+   * A set of requests pushed between two removals of all the index entries. The requests of a
+   * generation are processed only once the removal that opened it is done.
+   */
+  static class Generation {
+    private final CountDownLatch opening;
+    private int pendingRequests = 0;
+
+    Generation(final boolean opened) {
+      this.opening = new CountDownLatch(opened ? 0 : 1);
+    }
+
+    synchronized Generation enter() {
+      pendingRequests++;
+      return this;
+    }
+
+    synchronized void leave() {
+      pendingRequests--;
+      if (pendingRequests == 0) {
+        notifyAll();
+      }
+    }
+
+    synchronized void awaitCompletion() throws InterruptedException {
+      while (pendingRequests > 0) {
+        wait();
+      }
+    }
+
+    void awaitOpening() throws InterruptedException {
+      opening.await();
+    }
+
+    void open() {
+      opening.countDown();
+    }
+  }
+
+  /**
+   * A request about some index entries. It is processed only once the removal of all the index
+   * entries pushed before it, if any, is done.
+   */
+  abstract static class IndexerRequest
+      implements AbstractRequestTask.Request<IndexerProcessContext> {
+    private Generation generation;
+
+    @Override
+    public final void process(IndexerProcessContext context) throws InterruptedException {
+      try {
+        generation.awaitOpening();
+        doProcess(context);
+      } finally {
+        generation.leave();
+      }
+    }
+
+    abstract void doProcess(IndexerProcessContext context);
+  }
+
   /**
    * An AddEntryIndex add an entry index.
    */
-  static class AddIndexEntryRequest implements AbstractRequestTask.Request<IndexerProcessContext> {
+  static class AddIndexEntryRequest extends IndexerRequest {
     private final FullIndexEntry indexEntry;
 
     /**
@@ -114,11 +244,16 @@ public class IndexerTask extends AbstractRequestTask<IndexerTask.IndexerProcessC
       this.indexEntry = indexEntry;
     }
 
+    @Override
+    public Object getLaneKey() {
+      return indexEntry.getPK().getComponent();
+    }
+
     /**
      * @param context process context.
      */
     @Override
-    public void process(IndexerProcessContext context) {
+    void doProcess(IndexerProcessContext context) {
       context.getIndexManager().addIndexEntry(indexEntry);
     }
   }
@@ -126,8 +261,7 @@ public class IndexerTask extends AbstractRequestTask<IndexerTask.IndexerProcessC
   /**
    * A RemoveEntryIndex remove an entry index.
    */
-  static class RemoveIndexEntryRequest
-      implements AbstractRequestTask.Request<IndexerProcessContext> {
+  static class RemoveIndexEntryRequest extends IndexerRequest {
     private final IndexEntryKey indexEntry;
 
     /**
@@ -137,11 +271,16 @@ public class IndexerTask extends AbstractRequestTask<IndexerTask.IndexerProcessC
       this.indexEntry = indexEntry;
     }
 
+    @Override
+    public Object getLaneKey() {
+      return indexEntry.getComponent();
+    }
+
     /**
      * @param context process context.
      */
     @Override
-    public void process(IndexerProcessContext context) {
+    void doProcess(IndexerProcessContext context) {
       context.getIndexManager().removeIndexEntry(indexEntry);
     }
   }
@@ -149,8 +288,7 @@ public class IndexerTask extends AbstractRequestTask<IndexerTask.IndexerProcessC
   /**
    * A RemoveEntryIndex remove an entry index.
    */
-  static class RemoveScopedIndexEntriesRequest
-      implements AbstractRequestTask.Request<IndexerProcessContext> {
+  static class RemoveScopedIndexEntriesRequest extends IndexerRequest {
     private final String scope;
 
     /**
@@ -160,11 +298,16 @@ public class IndexerTask extends AbstractRequestTask<IndexerTask.IndexerProcessC
       this.scope = scope;
     }
 
+    @Override
+    public Object getLaneKey() {
+      return scope;
+    }
+
     /**
      * @param context process context.
      */
     @Override
-    public void process(IndexerProcessContext context) {
+    void doProcess(IndexerProcessContext context) {
       context.getIndexManager().removeIndexEntries(scope);
     }
   }
@@ -174,13 +317,30 @@ public class IndexerTask extends AbstractRequestTask<IndexerTask.IndexerProcessC
    */
   static class RemoveAllIndexEntriesRequest
       implements AbstractRequestTask.Request<IndexerProcessContext> {
+    private final Generation previousGeneration;
+    private final Generation nextGeneration;
+
+    /**
+     * @param previousGeneration the generation of the requests pushed before this one.
+     * @param nextGeneration the generation of the requests pushed after this one.
+     */
+    RemoveAllIndexEntriesRequest(final Generation previousGeneration,
+        final Generation nextGeneration) {
+      this.previousGeneration = previousGeneration;
+      this.nextGeneration = nextGeneration;
+    }
 
     /**
      * @param context process context.
      */
     @Override
-    public void process(IndexerProcessContext context) {
-      context.getIndexManager().removeAllIndexEntries();
+    public void process(IndexerProcessContext context) throws InterruptedException {
+      try {
+        previousGeneration.awaitCompletion();
+        context.getIndexManager().removeAllIndexEntries();
+      } finally {
+        nextGeneration.open();
+      }
     }
   }
 }
\ No newline at end of file
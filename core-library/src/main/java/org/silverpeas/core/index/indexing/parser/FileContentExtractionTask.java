@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.index.indexing.parser;
+
+import org.silverpeas.core.thread.task.AbstractRequestTask;
+import org.silverpeas.core.thread.task.RequestTaskManager;
+import org.silverpeas.core.util.ResourceLocator;
+
+/**
+ * This task is in charge of processing in background the extraction of the text content of the
+ * files to index. The extractions are performed in parallel by a bounded number of lanes (see
+ * {@code extraction.lanes} parameter of the indexing settings).
+ * @author silveryocha
+ */
+public class FileContentExtractionTask
+    extends AbstractRequestTask<AbstractRequestTask.ProcessContext> {
+
+  private static final int DEFAULT_LANE_COUNT = 2;
+  private static final int LANE_COUNT = ResourceLocator
+      .getSettingBundle("org.silverpeas.index.indexing.IndexEngine")
+      .getInteger("extraction.lanes", DEFAULT_LANE_COUNT);
+
+  /**
+   * Add a request of file content extraction.
+   * @param path the path of the file whose the content has to be extracted.
+   * @param extraction the extraction to perform.
+   */
+  static void extract(String path, Runnable extraction) {
+    RequestTaskManager.push(FileContentExtractionTask.class,
+        new FileContentExtractionRequest(path, extraction));
+  }
+
+  @Override
+  protected int getLaneCount() {
+    return LANE_COUNT;
+  }
+
+  /**
+   * A request of file content extraction.
+   */
+  static class FileContentExtractionRequest
+      implements AbstractRequestTask.Request<AbstractRequestTask.ProcessContext> {
+    private final String path;
+    private final Runnable extraction;
+
+    FileContentExtractionRequest(final String path, final Runnable extraction) {
+      this.path = path;
+      this.extraction = extraction;
+    }
+
+    @Override
+    public Object getLaneKey() {
+      return path;
+    }
+
+    @Override
+    public void process(final AbstractRequestTask.ProcessContext context) {
+      extraction.run();
+    }
+  }
+}
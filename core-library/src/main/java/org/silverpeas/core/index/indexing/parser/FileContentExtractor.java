@@ -0,0 +1,372 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.index.indexing.parser;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.silverpeas.core.index.indexing.IndexFileManager;
+import org.silverpeas.core.util.Charsets;
+import org.silverpeas.core.util.ResourceLocator;
+import org.silverpeas.core.util.ServiceProvider;
+import org.silverpeas.core.util.SettingBundle;
+import org.silverpeas.core.util.logging.SilverLogger;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Extractor of the text content of the indexed files. It is the stage before the indexation
+ * itself: the files of an index entry are parsed in parallel by the lanes of the
+ * {@link FileContentExtractionTask} as soon as the entry is pushed for indexation (see
+ * {@link #prefetch(String, String, String)}) so that the text is ready when the entry is
+ * indexed.
+ * <p>
+ * The number of extractions waiting for a lane is bounded (see {@code extraction.queueLimit} of
+ * the indexing settings): beyond it, the files are extracted only when their entry is indexed.
+ * The parsing of a file is limited both in time (see {@code TimeOutParameter}) and in number of
+ * extracted characters (see {@code extraction.maxChars}). Once the time limit is exceeded, the
+ * extraction is given up and its lane is interrupted. The extracted text is cached on the disk
+ * with the SHA-256 digest of the file content as key, so a file whose the content hasn't changed
+ * is never parsed again. The size of this cache is capped (see {@code extraction.cache.maxSize}):
+ * once it is exceeded, the least recently used texts are deleted.
+ * </p>
+ * @author silveryocha
+ */
+@Singleton
+public class FileContentExtractor {
+
+  private static final String CACHE_FILE_SUFFIX = ".txt";
+  private static final int DEFAULT_TIMEOUT = 30000;
+  private static final int DEFAULT_MAX_CHARS = 500000;
+  private static final int DEFAULT_QUEUE_LIMIT = 1000;
+  private static final long DEFAULT_CACHE_MAX_SIZE_IN_MB = 1024;
+  private static final int BUFFER_SIZE = 8192;
+
+  private final Map<String, Extraction> extractions = new ConcurrentHashMap<>();
+  private final AtomicLong cacheSize = new AtomicLong(-1);
+  private final AtomicBoolean evicting = new AtomicBoolean(false);
+  private final long timeout;
+  private final int maxChars;
+  private final int queueLimit;
+  private final Path cachePath;
+  private final long cacheMaxSize;
+
+  @Inject
+  private ParserManager parserManager;
+
+  private FileContentExtractor() {
+    final SettingBundle settings =
+        ResourceLocator.getSettingBundle("org.silverpeas.index.indexing.IndexEngine");
+    timeout = settings.getInteger("TimeOutParameter", DEFAULT_TIMEOUT);
+    maxChars = settings.getInteger("extraction.maxChars", DEFAULT_MAX_CHARS);
+    queueLimit = settings.getInteger("extraction.queueLimit", DEFAULT_QUEUE_LIMIT);
+    final String defaultCachePath =
+        Paths.get(IndexFileManager.getIndexUpLoadPath()).getParent().resolve("extractedText")
+            .toString();
+    cachePath = Paths.get(settings.getString("extraction.cache.path", defaultCachePath));
+    cacheMaxSize =
+        settings.getLong("extraction.cache.maxSize", DEFAULT_CACHE_MAX_SIZE_IN_MB) * 1024 * 1024;
+  }
+
+  public static FileContentExtractor get() {
+    return ServiceProvider.getService(FileContentExtractor.class);
+  }
+
+  /**
+   * Starts in background the extraction of the text content of the given file. The result is
+   * then get by calling {@link #extract(String, String, String)} with the same file. If too many
+   * extractions are already waiting for a lane, nothing is done: the file will be extracted at
+   * its indexation.
+   * @param path the path of the file.
+   * @param encoding the encoding of the file.
+   * @param format the format (MIME type) of the file.
+   */
+  public void prefetch(String path, String encoding, String format) {
+    final File file = new File(path);
+    if (!file.isFile()) {
+      return;
+    }
+    if (extractions.size() >= queueLimit) {
+      SilverLogger.getLogger(this).debug(
+          "too many extractions are pending, the content of the file {0} will be extracted at " +
+              "its indexation", path);
+      return;
+    }
+    start(path, encoding, format);
+  }
+
+  /**
+   * Gets the text content of the given file. If the extraction of the file has been prefetched,
+   * then the result of this extraction is awaited, otherwise the extraction is started right now.
+   * If the extraction doesn't end within the time limit, it is given up. The time limit counts
+   * from the beginning of the parsing of the file: an extraction waiting for its lane, behind
+   * other extractions, is never given up.
+   * @param path the path of the file.
+   * @param encoding the encoding of the file.
+   * @param format the format (MIME type) of the file.
+   * @return the text content of the file, limited to the maximum number of characters to
+   * extract. An empty text if the file cannot be parsed within the time limit.
+   */
+  public String extract(String path, String encoding, String format) {
+    final Extraction extraction = start(path, encoding, format);
+    try {
+      while (true) {
+        try {
+          return extraction.result.get(extraction.getRemainingTime(timeout),
+              TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+          if (extraction.getRemainingTime(timeout) <= 0) {
+            SilverLogger.getLogger(this).warn(
+                "the extraction of the content of the file {0} is given up after {1}ms", path,
+                timeout);
+            extraction.giveUp();
+            return "";
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      SilverLogger.getLogger(this).error("Failed to parse file " + path, e.getCause());
+    }
+    return "";
+  }
+
+  /**
+   * Starts the extraction of the given file by a lane of the {@link FileContentExtractionTask}
+   * if it isn't yet started. The extraction is forgotten as soon as it is ended.
+   * @return the extraction of the file.
+   */
+  private Extraction start(final String path, final String encoding, final String format) {
+    final String key = getExtractionKey(new File(path));
+    final Extraction newExtraction = new Extraction();
+    final Extraction extraction = extractions.putIfAbsent(key, newExtraction);
+    if (extraction != null) {
+      return extraction;
+    }
+    FileContentExtractionTask.extract(path, () -> {
+      try {
+        if (newExtraction.begin()) {
+          newExtraction.result.complete(doExtract(path, encoding, format));
+        }
+      } catch (Exception e) {
+        newExtraction.result.completeExceptionally(e);
+      } finally {
+        newExtraction.end();
+        extractions.remove(key, newExtraction);
+      }
+    });
+    return newExtraction;
+  }
+
+  private String getExtractionKey(final File file) {
+    return file.getPath() + "|" + file.lastModified();
+  }
+
+  private String doExtract(final String path, final String encoding, final String format)
+      throws IOException {
+    final File file = new File(path);
+    final String digest;
+    try (InputStream input = new FileInputStream(file)) {
+      digest = DigestUtils.sha256Hex(input);
+    }
+    final Path cacheFile =
+        cachePath.resolve(digest.substring(0, 2)).resolve(digest + CACHE_FILE_SUFFIX);
+    if (Files.isRegularFile(cacheFile)) {
+      SilverLogger.getLogger(this)
+          .debug("content of the file {0} got from the cache {1}", path, cacheFile);
+      // the last modification date is the last access one for the eviction
+      Files.setLastModifiedTime(cacheFile, FileTime.fromMillis(System.currentTimeMillis()));
+      return FileUtils.readFileToString(cacheFile.toFile(), Charsets.UTF_8);
+    }
+    final Parser parser = parserManager.getParser(format);
+    if (parser == null) {
+      return "";
+    }
+    final StringBuilder content = new StringBuilder();
+    final boolean complete = read(parser.getReader(path, encoding), content, path);
+    if (complete) {
+      saveIntoCache(cacheFile, content.toString());
+    }
+    return content.toString();
+  }
+
+  /**
+   * Reads the text from the given reader, up to the maximum number of characters to extract and
+   * within the time limit. A read blocked beyond the time limit is ended by the interruption of
+   * the thread once the extraction is given up.
+   * @return true if the read has been completed, false if it has been stopped because of the
+   * time limit.
+   */
+  private boolean read(final Reader reader, final StringBuilder content, final String path)
+      throws IOException {
+    if (reader == null) {
+      return true;
+    }
+    final long deadline = System.currentTimeMillis() + timeout;
+    try (Reader r = reader) {
+      final char[] buffer = new char[BUFFER_SIZE];
+      int nb;
+      while (content.length() < maxChars && (nb = r.read(buffer)) != -1) {
+        content.append(buffer, 0, Math.min(nb, maxChars - content.length()));
+        if (System.currentTimeMillis() > deadline || Thread.currentThread().isInterrupted()) {
+          SilverLogger.getLogger(this).warn(
+              "the extraction of the content of the file {0} is stopped after {1}ms", path,
+              timeout);
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private void saveIntoCache(final Path cacheFile, final String content) {
+    try {
+      Files.createDirectories(cacheFile.getParent());
+      final Path tmpFile = Files.createTempFile(cacheFile.getParent(), "extract", ".tmp");
+      FileUtils.writeStringToFile(tmpFile.toFile(), content, Charsets.UTF_8);
+      final long size = Files.size(tmpFile);
+      Files.move(tmpFile, cacheFile, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      if (cacheSize.get() >= 0) {
+        cacheSize.addAndGet(size);
+      }
+      evictLeastRecentlyUsedTexts();
+    } catch (IOException e) {
+      SilverLogger.getLogger(this).warn(e);
+    }
+  }
+
+  /**
+   * Deletes the least recently used texts of the cache once its size exceeds the cap, until it
+   * is back under 90% of the cap. The size of the cache is computed again at each eviction and
+   * only one eviction is performed at a time.
+   */
+  private void evictLeastRecentlyUsedTexts() {
+    if (cacheSize.get() >= 0 && cacheSize.get() <= cacheMaxSize ||
+        !evicting.compareAndSet(false, true)) {
+      return;
+    }
+    try (Stream<Path> files = Files.walk(cachePath)) {
+      final List<File> texts = files.map(Path::toFile)
+          .filter(f -> f.isFile() && f.getName().endsWith(CACHE_FILE_SUFFIX))
+          .sorted(Comparator.comparingLong(File::lastModified))
+          .collect(Collectors.toList());
+      long size = texts.stream().mapToLong(File::length).sum();
+      final long targetSize = cacheMaxSize / 10 * 9;
+      for (int i = 0; size > targetSize && i < texts.size(); i++) {
+        final File text = texts.get(i);
+        final long length = text.length();
+        if (text.delete()) {
+          size -= length;
+        }
+      }
+      cacheSize.set(size);
+    } catch (IOException | UncheckedIOException e) {
+      SilverLogger.getLogger(this).warn(e);
+    } finally {
+      evicting.set(false);
+    }
+  }
+
+  /**
+   * An extraction of the text content of a file performed by a lane of the
+   * {@link FileContentExtractionTask}.
+   */
+  private static class Extraction {
+    private final CompletableFuture<String> result = new CompletableFuture<>();
+    private Thread worker = null;
+    private long beginning = 0;
+
+    /**
+     * Begins the extraction within the current thread.
+     * @return false if the extraction has been given up before its beginning.
+     */
+    private synchronized boolean begin() {
+      if (result.isDone()) {
+        return false;
+      }
+      worker = Thread.currentThread();
+      beginning = System.currentTimeMillis();
+      return true;
+    }
+
+    /**
+     * Gets the time remaining to the extraction before it is given up.
+     * @param timeout the time limit of an extraction in milliseconds.
+     * @return the remaining time in milliseconds, counted from the beginning of the extraction.
+     * The whole time limit if the extraction isn't yet begun.
+     */
+    private synchronized long getRemainingTime(final long timeout) {
+      if (beginning == 0) {
+        return timeout;
+      }
+      return Math.max(0, beginning + timeout - System.currentTimeMillis());
+    }
+
+    /**
+     * Ends the extraction. If it has been given up, the interruption of the current thread is
+     * cleared so that the lane goes on with its next requests.
+     */
+    private synchronized void end() {
+      if (worker != null && result.isCancelled()) {
+        Thread.interrupted();
+      }
+      worker = null;
+    }
+
+    /**
+     * Gives up the extraction, interrupting the thread performing it if it is begun.
+     */
+    private synchronized void giveUp() {
+      result.cancel(false);
+      if (worker != null) {
+        worker.interrupt();
+      }
+    }
+  }
+}
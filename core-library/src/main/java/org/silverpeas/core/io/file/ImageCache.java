@@ -24,16 +24,25 @@
 package org.silverpeas.core.io.file;
 
 import org.apache.commons.io.FileUtils;
+import org.silverpeas.core.util.ResourceLocator;
 import org.silverpeas.core.util.logging.SilverLogger;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
-import java.math.BigInteger;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static java.nio.charset.Charset.defaultCharset;
 
@@ -42,6 +51,19 @@ import static java.nio.charset.Charset.defaultCharset;
  * {@link ImageResizingProcessor} processor. In fact, it doesn't contain
  * the images themselves but their location in the file system. It is used by the image resizing
  * processor as a table of resized images in order to keep a trace of them for management purpose.
+ * <p>
+ * The table is kept in memory and it is journaled into a single index file from which it is
+ * loaded again at the first use. The total size of the resized images is capped: once it is
+ * exceeded, the least recently used resized images are deleted until the total size falls below
+ * 90% of the cap. The cap is given in MB by the <code>image.cache.maxSize</code> property of the
+ * <code>org.silverpeas.lookAndFeel.generalLook</code> settings.
+ * </p>
+ * <p>
+ * The table is a concurrent one: the requests for resized images don't wait for each other.
+ * Only one thread at a time evicts the least recently used images and the other ones don't wait
+ * for it. The last modification date of a resized image is moved forward when it is accessed, so
+ * that the order of the last accesses is recovered when the table is loaded again.
+ * </p>
  * @author mmoquillon
  */
 class ImageCache {
@@ -50,30 +72,76 @@ class ImageCache {
     // Not instantiatable
   }
 
+  /**
+   * The directory of the former cache entries, one text file per original image. They are
+   * imported into the index at the first use of the cache.
+   */
   private static final String IMAGE_CACHE_TABLE =
       ImageResizingProcessor.IMAGE_CACHE_PATH + File.separatorChar + ".data";
+  private static final String IMAGE_CACHE_INDEX =
+      ImageResizingProcessor.IMAGE_CACHE_PATH + File.separatorChar + ".index";
+  private static final String ADDITION = "+";
+  private static final String REMOVAL = "-";
+  private static final String SEPARATOR = "\t";
+  private static final long DEFAULT_MAX_SIZE_IN_MB = 1024;
+  private static final int MIN_JOURNAL_LINES_BEFORE_COMPACTION = 1000;
+  /**
+   * The delay in milliseconds below which the last modification date of a resized image isn't
+   * moved forward again on an access.
+   */
+  private static final long TOUCH_DELAY = 60000;
+
+  private static final Object LOADING_LOCK = new Object();
+  private static final Object JOURNAL_LOCK = new Object();
+  private static final ReentrantLock EVICTION_LOCK = new ReentrantLock();
+
+  private static final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private static final Map<String, Set<String>> resizedImagesByOriginal =
+      new ConcurrentHashMap<>();
+  private static final AtomicLong totalSize = new AtomicLong(0);
+  private static final AtomicLong accessClock = new AtomicLong(0);
+  private static volatile boolean loaded = false;
+  private static long maxSize = 0;
+  private static int journalLines = 0;
 
   /**
    * Puts an entry into the cache for the specified resized image of the specified original image.
+   * If then the total size of the resized images exceeds the cap of the cache, the least
+   * recently used resized images are deleted.
    * @param originalImagePath the absolute path of the original image from which the resized image
    * was made.
    * @param resizedImagePath the absolute path of the resized image for which an entry will be
    * created into the cache.
    */
-  protected static void putImage(final String originalImagePath, final String resizedImagePath) {
-    String entryName = hash(originalImagePath);
-    File entry = new File(IMAGE_CACHE_TABLE, entryName);
-    try {
-      List<String> lines = new ArrayList<>();
-      if (!entry.exists()) {
-        lines.add(originalImagePath);
+  protected static void putImage(final String originalImagePath,
+      final String resizedImagePath) {
+    load();
+    final long size = new File(resizedImagePath).length();
+    addEntry(resizedImagePath, originalImagePath, size);
+    journal(ADDITION + SEPARATOR + resizedImagePath + SEPARATOR + originalImagePath);
+    if (totalSize.get() > maxSize) {
+      evictLeastRecentlyUsedImages();
+    }
+  }
+
+  /**
+   * Marks the specified resized image as just used, so that it is the last one to be evicted
+   * from the cache. If the image isn't in the cache, nothing is performed.
+   * @param resizedImagePath the absolute path of a resized image.
+   */
+  protected static void touchImage(final String resizedImagePath) {
+    load();
+    final Entry entry = entries.get(resizedImagePath);
+    if (entry != null) {
+      entry.lastAccess = accessClock.incrementAndGet();
+      final long now = System.currentTimeMillis();
+      if (now - entry.lastTouch > TOUCH_DELAY) {
+        entry.lastTouch = now;
+        if (!new File(resizedImagePath).setLastModified(now)) {
+          SilverLogger.getLogger(ImageCache.class)
+              .debug("Cannot update the last modification date of {0}", resizedImagePath);
+        }
       }
-      lines.add(resizedImagePath);
-      FileUtils.writeLines(entry, lines, true);
-    } catch (IOException ex) {
-      SilverLogger.getLogger(ImageCache.class)
-          .error("Cannot write the cache entry {0} with value {1}. Cause: {2}",
-              entry.getAbsolutePath(), resizedImagePath, ex.getMessage());
     }
   }
 
@@ -84,29 +152,13 @@ class ImageCache {
    * has to be removed from the cache.
    */
   protected static void removeImages(String... originalImagePaths) {
+    load();
     for (String anOriginalImage : originalImagePaths) {
-      String entryName = hash(anOriginalImage);
-      File entry = new File(IMAGE_CACHE_TABLE, entryName);
-      if (entry.exists()) {
-        try {
-          List<String> lines = FileUtils.readLines(entry, defaultCharset());
-          for (String resizedImagePath : lines.subList(1, lines.size())) {
-            File resizedImage = new File(resizedImagePath);
-            if (resizedImage.exists() && !resizedImage.delete()) {
-              SilverLogger.getLogger(ImageCache.class)
-                  .warn("Cannot remove {0} from the cache entry {1}",
-                      resizedImage.getAbsolutePath(), entry.getAbsolutePath());
-            }
-          }
-          if (!entry.delete()) {
-            SilverLogger.getLogger(ImageCache.class)
-                .warn("Cannot delete the cache entry {0}", entry.getAbsolutePath());
-          }
-        } catch (IOException ex) {
-          SilverLogger.getLogger(ImageCache.class).error(ex.getMessage(), ex.getMessage());
-        }
+      for (String resizedImagePath : getImages(anOriginalImage)) {
+        deleteImage(resizedImagePath);
       }
     }
+    compactIfNeeded();
   }
 
   /**
@@ -115,19 +167,10 @@ class ImageCache {
    * @return an array with the path of the images resized from the specified one.
    */
   protected static List<String> getImages(String originalImagePath) {
-    String entryName = hash(originalImagePath);
-    File entry = new File(IMAGE_CACHE_TABLE, entryName);
-    if (entry.exists()) {
-      try {
-        List<String> lines = FileUtils.readLines(entry, defaultCharset());
-        if (!lines.isEmpty()) {
-          return lines.subList(1, lines.size());
-        }
-      } catch (IOException ex) {
-        SilverLogger.getLogger(ImageCache.class).error(ex.getMessage());
-      }
-    }
-    return Collections.emptyList();
+    load();
+    final Set<String> resizedImagePaths = resizedImagesByOriginal.get(originalImagePath);
+    return resizedImagePaths == null ? Collections.emptyList() :
+        new ArrayList<>(resizedImagePaths);
   }
 
   /**
@@ -136,31 +179,233 @@ class ImageCache {
    * @return a list of absolute path of the original images from which a resized image was made.
    */
   protected static List<String> getAllImageEntries() {
-    final List<String> originalImagePaths = new ArrayList<>();
-    final File entries = new File(IMAGE_CACHE_TABLE);
-    final File[] files = entries.listFiles();
+    load();
+    return new ArrayList<>(resizedImagesByOriginal.keySet());
+  }
+
+  /**
+   * Gets the total size in bytes of the resized images referred by this cache.
+   * @return the size of the cache.
+   */
+  protected static long getSize() {
+    load();
+    return totalSize.get();
+  }
+
+  /**
+   * For test purpose only: forgets the table of the resized images, so that it is loaded again
+   * from the index file at the next use of the cache.
+   */
+  static void unload() {
+    synchronized (LOADING_LOCK) {
+      entries.clear();
+      resizedImagesByOriginal.clear();
+      totalSize.set(0);
+      loaded = false;
+    }
+  }
+
+  private static void addEntry(final String resizedImagePath, final String originalImagePath,
+      final long size) {
+    final Entry entry = new Entry(originalImagePath, size);
+    entry.lastAccess = accessClock.incrementAndGet();
+    final Entry previous = entries.put(resizedImagePath, entry);
+    if (previous != null) {
+      forget(resizedImagePath, previous);
+    }
+    resizedImagesByOriginal.compute(originalImagePath, (k, resizedImagePaths) -> {
+      final Set<String> paths =
+          resizedImagePaths == null ? ConcurrentHashMap.newKeySet() : resizedImagePaths;
+      paths.add(resizedImagePath);
+      return paths;
+    });
+    totalSize.addAndGet(size);
+  }
+
+  private static void removeEntry(final String resizedImagePath) {
+    final Entry entry = entries.remove(resizedImagePath);
+    if (entry != null) {
+      forget(resizedImagePath, entry);
+    }
+  }
+
+  /**
+   * Forgets the specified entry of a resized image that was removed or replaced in the table.
+   * The resized image is kept among the ones of its original image if it was meanwhile put again
+   * in the table for the same original image.
+   */
+  private static void forget(final String resizedImagePath, final Entry entry) {
+    resizedImagesByOriginal.computeIfPresent(entry.originalImagePath, (k, resizedImagePaths) -> {
+      final Entry current = entries.get(resizedImagePath);
+      if (current == null || !current.originalImagePath.equals(k)) {
+        resizedImagePaths.remove(resizedImagePath);
+      }
+      return resizedImagePaths.isEmpty() ? null : resizedImagePaths;
+    });
+    totalSize.addAndGet(-entry.size);
+  }
+
+  private static void deleteImage(final String resizedImagePath) {
+    removeEntry(resizedImagePath);
+    final File resizedImage = new File(resizedImagePath);
+    if (resizedImage.exists() && !resizedImage.delete()) {
+      SilverLogger.getLogger(ImageCache.class)
+          .warn("Cannot remove {0} from the image cache", resizedImage.getAbsolutePath());
+    }
+    journal(REMOVAL + SEPARATOR + resizedImagePath);
+  }
+
+  /**
+   * Deletes the least recently used images until the total size of the cache falls below 90% of
+   * its cap, so that an eviction isn't performed again at each new resized image. If another
+   * thread is already evicting images, nothing is performed.
+   */
+  private static void evictLeastRecentlyUsedImages() {
+    if (!EVICTION_LOCK.tryLock()) {
+      return;
+    }
+    try {
+      final long lowWatermark = maxSize - maxSize / 10;
+      final List<Map.Entry<String, Entry>> leastRecentlyUsed = new ArrayList<>(entries.entrySet());
+      leastRecentlyUsed.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+      // the most recently used image is never evicted
+      for (int i = 0; i < leastRecentlyUsed.size() - 1 && totalSize.get() > lowWatermark; i++) {
+        deleteImage(leastRecentlyUsed.get(i).getKey());
+      }
+    } finally {
+      EVICTION_LOCK.unlock();
+    }
+    compactIfNeeded();
+  }
+
+  /**
+   * Loads the table of the resized images from the index file, if not already done. The resized
+   * images that don't exist anymore are skipped and the former cache entries are imported.
+   */
+  private static void load() {
+    if (loaded) {
+      return;
+    }
+    synchronized (LOADING_LOCK) {
+      if (loaded) {
+        return;
+      }
+      maxSize = ResourceLocator.getSettingBundle("org.silverpeas.lookAndFeel.generalLook")
+          .getLong("image.cache.maxSize", DEFAULT_MAX_SIZE_IN_MB) * 1024 * 1024;
+      final Map<String, String> originalImagePaths = new LinkedHashMap<>();
+      final File index = new File(IMAGE_CACHE_INDEX);
+      if (index.exists()) {
+        try {
+          for (String line : Files.readAllLines(index.toPath(), StandardCharsets.UTF_8)) {
+            final String[] fields = line.split(SEPARATOR);
+            if (ADDITION.equals(fields[0]) && fields.length == 3) {
+              originalImagePaths.put(fields[1], fields[2]);
+            } else if (REMOVAL.equals(fields[0]) && fields.length == 2) {
+              originalImagePaths.remove(fields[1]);
+            }
+          }
+        } catch (IOException ex) {
+          SilverLogger.getLogger(ImageCache.class).error(ex.getMessage(), ex);
+        }
+      }
+      importFormerEntries(originalImagePaths);
+
+      // the last modification date of the resized images is moved forward on their access
+      originalImagePaths.keySet().stream()
+          .map(File::new)
+          .filter(File::exists)
+          .sorted(Comparator.comparingLong(File::lastModified))
+          .forEach(resizedImage -> addEntry(resizedImage.getAbsolutePath(),
+              originalImagePaths.get(resizedImage.getAbsolutePath()), resizedImage.length()));
+      compact();
+      loaded = true;
+    }
+  }
+
+  private static void importFormerEntries(final Map<String, String> originalImagePaths) {
+    final File formerEntries = new File(IMAGE_CACHE_TABLE);
+    final File[] files = formerEntries.listFiles();
     if (files != null) {
       for (final File anEntry : files) {
         try {
-          List<String> resizedImagePaths = FileUtils.readLines(anEntry, defaultCharset());
-          originalImagePaths.add(resizedImagePaths.get(0));
+          final List<String> lines = FileUtils.readLines(anEntry, defaultCharset());
+          for (String resizedImagePath : lines.subList(Math.min(1, lines.size()), lines.size())) {
+            originalImagePaths.put(resizedImagePath, lines.get(0));
+          }
         } catch (IOException ex) {
           SilverLogger.getLogger(ImageCache.class).error(ex.getMessage());
         }
       }
+      try {
+        FileUtils.deleteDirectory(formerEntries);
+      } catch (IOException ex) {
+        SilverLogger.getLogger(ImageCache.class)
+            .warn("Cannot delete the former cache entries in {0}", formerEntries.getPath());
+      }
     }
-    return originalImagePaths;
   }
 
-  private static String hash(String name) {
-    MessageDigest m;
-    try {
-      m = MessageDigest.getInstance("MD5");
-      m.update(name.getBytes(), 0, name.length());
-      return new BigInteger(1, m.digest()).toString(16);
-    } catch (NoSuchAlgorithmException e) {
-      SilverLogger.getLogger(ImageCache.class).warn(e.getMessage());
-      return String.valueOf(name.hashCode());
+  private static void journal(final String line) {
+    final File index = new File(IMAGE_CACHE_INDEX);
+    synchronized (JOURNAL_LOCK) {
+      try {
+        Files.createDirectories(index.getParentFile().toPath());
+        try (BufferedWriter writer = Files.newBufferedWriter(index.toPath(),
+            StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+          writer.write(line);
+          writer.newLine();
+        }
+        journalLines++;
+      } catch (IOException ex) {
+        SilverLogger.getLogger(ImageCache.class)
+            .error("Cannot write the cache index {0}. Cause: {1}", index.getAbsolutePath(),
+                ex.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Rewrites the index file with only the current entries once the journal gets much longer
+   * than them.
+   */
+  private static void compactIfNeeded() {
+    synchronized (JOURNAL_LOCK) {
+      if (journalLines > Math.max(MIN_JOURNAL_LINES_BEFORE_COMPACTION, 2 * entries.size())) {
+        compact();
+      }
+    }
+  }
+
+  private static void compact() {
+    final File index = new File(IMAGE_CACHE_INDEX);
+    final File compacted = new File(IMAGE_CACHE_INDEX + ".tmp");
+    synchronized (JOURNAL_LOCK) {
+      final List<String> lines = new ArrayList<>(entries.size());
+      entries.forEach((resizedImagePath, entry) -> lines.add(
+          ADDITION + SEPARATOR + resizedImagePath + SEPARATOR + entry.originalImagePath));
+      try {
+        Files.createDirectories(index.getParentFile().toPath());
+        Files.write(compacted.toPath(), lines, StandardCharsets.UTF_8);
+        FileUtils.deleteQuietly(index);
+        FileUtils.moveFile(compacted, index);
+        journalLines = lines.size();
+      } catch (IOException ex) {
+        SilverLogger.getLogger(ImageCache.class)
+            .error("Cannot write the cache index {0}. Cause: {1}", index.getAbsolutePath(),
+                ex.getMessage());
+      }
+    }
+  }
+
+  private static class Entry {
+    private final String originalImagePath;
+    private final long size;
+    private volatile long lastAccess;
+    private volatile long lastTouch = System.currentTimeMillis();
+
+    private Entry(final String originalImagePath, final long size) {
+      this.originalImagePath = originalImagePath;
+      this.size = size;
     }
   }
 }
@@ -24,16 +24,23 @@
 package org.silverpeas.core.io.file;
 
 import org.silverpeas.core.io.media.image.ImageTool;
+import org.silverpeas.core.io.media.image.ImageToolException;
 import org.silverpeas.core.io.media.image.option.DimensionOption;
 import org.silverpeas.core.io.media.image.option.OrientationOption;
 import org.silverpeas.core.util.StringUtil;
 import org.silverpeas.core.util.file.FileRepositoryManager;
 import org.silverpeas.core.util.file.FileUtil;
-import org.silverpeas.core.util.logging.SilverLogger;
 
 import javax.inject.Inject;
 import java.io.File;
-import java.util.List;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import static org.silverpeas.core.io.media.image.ImageToolDirective.GEOMETRY_SHRINK;
 import static org.silverpeas.core.util.CollectionUtil.asSet;
@@ -48,6 +55,9 @@ public class ImageResizingProcessor extends AbstractSilverpeasFileProcessor {
 
   protected static final String IMAGE_CACHE_PATH = FileRepositoryManager.getAbsolutePath("cache");
 
+  private static final ConcurrentMap<String, FutureTask<Void>> resizingsInProgress =
+      new ConcurrentHashMap<>();
+
   @Inject
   private ImageTool imageTool;
 
@@ -95,14 +105,7 @@ public class ImageResizingProcessor extends AbstractSilverpeasFileProcessor {
   }
 
   private void removeResizedImagesOf(final File originaImage) {
-    List<String> resizedImagePaths = ImageCache.getImages(originaImage.getAbsolutePath());
-    for (String resizedImage : resizedImagePaths) {
-      if (!(new File(resizedImage)).delete()) {
-        SilverLogger.getLogger(this).warn(
-            "The resized image {0} for the in deletion original image {1} cannot be deleted!",
-            resizedImage, originaImage.getAbsolutePath());
-      }
-    }
+    ImageCache.removeImages(originaImage.getAbsolutePath());
   }
 
   private String resizeImage(final String path) {
@@ -112,19 +115,12 @@ public class ImageResizingProcessor extends AbstractSilverpeasFileProcessor {
       if (!sourceImage.exists()) {
         ResizingParameters parameters = computeResizingParameters(sourceImage);
         if (parameters.isDefined()) {
-          sourceImage = parameters.getSourceImage();
           File resizedImage = parameters.getDestinationImage();
           imagePath = resizedImage.getPath();
-          if (sourceImage.exists() && (!resizedImage.exists() ||
-              sourceImage.lastModified() >= resizedImage.lastModified())) {
-            if (!resizedImage.getParentFile().exists()) {
-              resizedImage.getParentFile().mkdirs();
-            }
-            final DimensionOption dimension =
-                DimensionOption.widthAndHeight(parameters.getWidth(), parameters.getHeight());
-            final OrientationOption auto = OrientationOption.auto();
-            imageTool.convert(sourceImage, resizedImage, asSet(dimension, auto), GEOMETRY_SHRINK);
-            ImageCache.putImage(sourceImage.getAbsolutePath(), resizedImage.getAbsolutePath());
+          if (isResizingRequired(parameters)) {
+            resizeOnce(parameters);
+          } else {
+            ImageCache.touchImage(resizedImage.getAbsolutePath());
           }
         }
       }
@@ -132,6 +128,101 @@ public class ImageResizingProcessor extends AbstractSilverpeasFileProcessor {
     return imagePath;
   }
 
+  private boolean isResizingRequired(final ResizingParameters parameters) {
+    final File sourceImage = parameters.getSourceImage();
+    final File resizedImage = parameters.getDestinationImage();
+    return sourceImage.exists() &&
+        (!resizedImage.exists() || sourceImage.lastModified() >= resizedImage.lastModified());
+  }
+
+  /**
+   * Resizes the image as specified by the given parameters, unless the same resizing is already
+   * in progress in which case its end is awaited: the requests of a same resized image at the
+   * same time, as for the thumbnails of a gallery page, are coalesced into one resizing.
+   * @param parameters the parameters of the resizing.
+   */
+  private void resizeOnce(final ResizingParameters parameters) {
+    final String resizedImagePath = parameters.getDestinationImage().getAbsolutePath();
+    final FutureTask<Void> resizing = new FutureTask<>(() -> {
+      resize(parameters);
+      return null;
+    });
+    final FutureTask<Void> resizingInProgress =
+        resizingsInProgress.putIfAbsent(resizedImagePath, resizing);
+    try {
+      if (resizingInProgress == null) {
+        try {
+          resizing.run();
+        } finally {
+          resizingsInProgress.remove(resizedImagePath, resizing);
+        }
+        resizing.get();
+      } else {
+        resizingInProgress.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ImageToolException(e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new ImageToolException((Exception) cause);
+    }
+  }
+
+  /**
+   * Resizes the image into a work file that is then moved to the destination, so that a resized
+   * image is never read while it is written.
+   * @param parameters the parameters of the resizing.
+   * @throws IOException if the resized image cannot be written.
+   * @throws InterruptedException if the resizing is interrupted.
+   */
+  private void resize(final ResizingParameters parameters)
+      throws IOException, InterruptedException {
+    // the resizing can have been done by another thread since the check of the request
+    if (!isResizingRequired(parameters)) {
+      return;
+    }
+    final File sourceImage = parameters.getSourceImage();
+    final File resizedImage = parameters.getDestinationImage();
+    if (!resizedImage.getParentFile().exists()) {
+      resizedImage.getParentFile().mkdirs();
+    }
+    final File workImage = new File(resizedImage.getParentFile(),
+        "." + UUID.randomUUID().toString() + "_" + resizedImage.getName());
+    try {
+      convert(sourceImage, workImage, parameters.getWidth(), parameters.getHeight());
+      Files.move(workImage.toPath(), resizedImage.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(workImage.toPath());
+    }
+    ImageCache.putImage(sourceImage.getAbsolutePath(), resizedImage.getAbsolutePath());
+  }
+
+  /**
+   * Converts the specified image into the specified destination resized to the given dimensions.
+   * The common formats are resized within the JVM, the others with the image tool.
+   * @param source the image to resize.
+   * @param destination the file into which the resized image is written.
+   * @param width the maximum width of the resized image or null if only the height matters.
+   * @param height the maximum height of the resized image or null if only the width matters.
+   * @throws IOException if the resized image cannot be written.
+   * @throws InterruptedException if the resizing is interrupted.
+   */
+  void convert(final File source, final File destination, final Integer width,
+      final Integer height) throws IOException, InterruptedException {
+    if (!Java2DImageResizer.resize(source, destination, width, height)) {
+      final DimensionOption dimension = DimensionOption.widthAndHeight(width, height);
+      final OrientationOption auto = OrientationOption.auto();
+      imageTool.convert(source, destination, asSet(dimension, auto), GEOMETRY_SHRINK);
+    }
+  }
+
   private static class ResizingParameters {
 
     private static ResizingParameters NO_RESIZING = new ResizingParameters(null, null, -1, -1);
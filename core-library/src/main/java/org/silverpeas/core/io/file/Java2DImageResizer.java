@@ -0,0 +1,345 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.io.file;
+
+import org.silverpeas.core.util.logging.SilverLogger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Resizer of the JPEG and PNG images within the JVM, so that the resizing of such images doesn't
+ * fork an ImageMagick process for each of them. The resizing is the one of ImageMagick with a
+ * shrinking geometry: the image is shrunk, keeping its aspect ratio, to fit within the asked
+ * width and height only if it is larger.
+ * <p>
+ * The JPEG images with an EXIF orientation other than the default one aren't handled, nor the
+ * images embedding an ICC color profile, as Java2D doesn't carry it over the resized image, nor
+ * the images that cannot be decoded by the JVM (CMYK JPEG for example): they are left to
+ * ImageMagick.
+ * As a decoded image takes a lot of memory, the count of resizing performed at the same time is
+ * bounded by the count of the available processors. For the same reason, the images with more
+ * than {@link #MAX_PIXELS} pixels are left to ImageMagick: their dimensions are read from their
+ * header before any decoding, so that a small file declaring huge dimensions cannot exhaust the
+ * memory of the JVM.
+ * </p>
+ */
+class Java2DImageResizer {
+
+  private static final int JPEG_START_OF_IMAGE = 0xFFD8;
+  private static final int JPEG_START_OF_SCAN = 0xFFDA;
+  private static final int JPEG_END_OF_IMAGE = 0xFFD9;
+  private static final int JPEG_APP1 = 0xFFE1;
+  private static final int JPEG_APP2 = 0xFFE2;
+  private static final int EXIF_ORIENTATION_TAG = 0x0112;
+  private static final int DEFAULT_ORIENTATION = 1;
+  private static final byte[] EXIF_HEADER = {'E', 'x', 'i', 'f', 0, 0};
+  private static final byte[] ICC_PROFILE_HEADER =
+      {'I', 'C', 'C', '_', 'P', 'R', 'O', 'F', 'I', 'L', 'E', 0};
+  private static final long PNG_SIGNATURE = 0x89504E470D0A1A0AL;
+  private static final int PNG_ICC_PROFILE_CHUNK = 0x69434350;
+  private static final int PNG_IMAGE_DATA_CHUNK = 0x49444154;
+  private static final float JPEG_QUALITY = 0.92f;
+  /**
+   * The maximum count of pixels of the images resized within the JVM (about 100 MB once decoded).
+   */
+  static final long MAX_PIXELS = 25_000_000L;
+
+  private static final Semaphore semaphore =
+      new Semaphore(Runtime.getRuntime().availableProcessors(), true);
+
+  private Java2DImageResizer() {
+  }
+
+  /**
+   * Resizes the specified image into the specified destination if it is a JPEG or a PNG image
+   * that can be handled within the JVM.
+   * @param source the image to resize.
+   * @param destination the file into which the resized image is written.
+   * @param width the maximum width of the resized image or null if only the height matters.
+   * @param height the maximum height of the resized image or null if only the width matters.
+   * @return true if the image was resized, false if it cannot be handled within the JVM.
+   * @throws IOException if the resized image cannot be written.
+   * @throws InterruptedException if the waiting of its turn is interrupted.
+   */
+  static boolean resize(final File source, final File destination, final Integer width,
+      final Integer height) throws IOException, InterruptedException {
+    final String format = formatOf(source);
+    if (format == null || ("jpeg".equals(format) && !isHandledJpeg(source)) ||
+        ("png".equals(format) && !isHandledPng(source)) || !isOfHandledSize(source)) {
+      return false;
+    }
+    semaphore.acquire();
+    try {
+      final BufferedImage image = read(source);
+      if (image == null) {
+        return false;
+      }
+      final double scale = scaleOf(image, width, height);
+      if (scale >= 1) {
+        Files.copy(source.toPath(), destination.toPath());
+      } else {
+        final int targetWidth = Math.max(1, (int) Math.floor(image.getWidth() * scale + 0.5));
+        final int targetHeight = Math.max(1, (int) Math.floor(image.getHeight() * scale + 0.5));
+        final boolean withAlpha = "png".equals(format) && image.getColorModel().hasAlpha();
+        write(shrink(image, targetWidth, targetHeight, withAlpha), format, destination);
+      }
+      return true;
+    } finally {
+      semaphore.release();
+    }
+  }
+
+  private static String formatOf(final File image) {
+    final String name = image.getName().toLowerCase(Locale.ROOT);
+    if (name.endsWith(".jpg") || name.endsWith(".jpeg")) {
+      return "jpeg";
+    } else if (name.endsWith(".png")) {
+      return "png";
+    }
+    return null;
+  }
+
+  /**
+   * Has the specified image at most {@link #MAX_PIXELS} pixels? Its dimensions are read from its
+   * header by an image reader without decoding it.
+   */
+  private static boolean isOfHandledSize(final File source) {
+    try (ImageInputStream input = ImageIO.createImageInputStream(source)) {
+      final Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+      if (!readers.hasNext()) {
+        return false;
+      }
+      final ImageReader reader = readers.next();
+      try {
+        reader.setInput(input, true, true);
+        final long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+        if (pixels > MAX_PIXELS) {
+          SilverLogger.getLogger(Java2DImageResizer.class)
+              .debug("{0} is too large to be resized within the JVM: {1} pixels",
+                  source.getPath(), pixels);
+          return false;
+        }
+        return true;
+      } finally {
+        reader.dispose();
+      }
+    } catch (IOException | RuntimeException e) {
+      return false;
+    }
+  }
+
+  private static BufferedImage read(final File source) {
+    try {
+      return ImageIO.read(source);
+    } catch (IOException | RuntimeException e) {
+      SilverLogger.getLogger(Java2DImageResizer.class)
+          .debug("Cannot decode {0}: {1}", source.getPath(), e.getMessage());
+      return null;
+    }
+  }
+
+  private static double scaleOf(final BufferedImage image, final Integer width,
+      final Integer height) {
+    final double widthScale = width == null ? Double.MAX_VALUE : (double) width / image.getWidth();
+    final double heightScale =
+        height == null ? Double.MAX_VALUE : (double) height / image.getHeight();
+    return Math.min(widthScale, heightScale);
+  }
+
+  /**
+   * Shrinks the image by successive halvings with a bilinear interpolation, so that all the
+   * pixels contribute to the result whatever the scale.
+   */
+  private static BufferedImage shrink(final BufferedImage image, final int targetWidth,
+      final int targetHeight, final boolean withAlpha) {
+    final int type = withAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+    BufferedImage result = image;
+    int width = image.getWidth();
+    int height = image.getHeight();
+    do {
+      width = Math.max(targetWidth, width / 2);
+      height = Math.max(targetHeight, height / 2);
+      final BufferedImage step = new BufferedImage(width, height, type);
+      final Graphics2D graphics = step.createGraphics();
+      try {
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+            RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.setRenderingHint(RenderingHints.KEY_RENDERING,
+            RenderingHints.VALUE_RENDER_QUALITY);
+        graphics.drawImage(result, 0, 0, width, height, null);
+      } finally {
+        graphics.dispose();
+      }
+      result = step;
+    } while (width != targetWidth || height != targetHeight);
+    return result;
+  }
+
+  private static void write(final BufferedImage image, final String format,
+      final File destination) throws IOException {
+    final ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+    try (ImageOutputStream output = ImageIO.createImageOutputStream(destination)) {
+      writer.setOutput(output);
+      final ImageWriteParam parameters = writer.getDefaultWriteParam();
+      if ("jpeg".equals(format)) {
+        parameters.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        parameters.setCompressionQuality(JPEG_QUALITY);
+      }
+      writer.write(null, new IIOImage(image, null, null), parameters);
+    } finally {
+      writer.dispose();
+    }
+  }
+
+  /**
+   * Is the specified JPEG image without any ICC color profile and without any EXIF orientation
+   * or with the default one? The orientation tag is looked for in the first image file directory
+   * of the EXIF segment.
+   */
+  private static boolean isHandledJpeg(final File jpeg) {
+    try (DataInputStream input = new DataInputStream(
+        new BufferedInputStream(new FileInputStream(jpeg)))) {
+      if (input.readUnsignedShort() != JPEG_START_OF_IMAGE) {
+        return false;
+      }
+      while (true) {
+        final int marker = input.readUnsignedShort();
+        if ((marker & 0xFF00) != 0xFF00 || marker == JPEG_START_OF_SCAN ||
+            marker == JPEG_END_OF_IMAGE) {
+          return true;
+        }
+        final int length = input.readUnsignedShort() - 2;
+        if (marker == JPEG_APP1 && length > EXIF_HEADER.length) {
+          final byte[] segment = new byte[length];
+          input.readFully(segment);
+          if (startsWith(segment, EXIF_HEADER) &&
+              orientationOf(segment, EXIF_HEADER.length) != DEFAULT_ORIENTATION) {
+            return false;
+          }
+        } else if (marker == JPEG_APP2 && length >= ICC_PROFILE_HEADER.length) {
+          final byte[] header = new byte[ICC_PROFILE_HEADER.length];
+          input.readFully(header);
+          if (startsWith(header, ICC_PROFILE_HEADER)) {
+            return false;
+          }
+          skip(input, (long) length - header.length);
+        } else {
+          skip(input, length);
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Is the specified PNG image without any ICC color profile? The profile chunk is looked for
+   * among the ones before the image data.
+   */
+  private static boolean isHandledPng(final File png) {
+    try (DataInputStream input = new DataInputStream(
+        new BufferedInputStream(new FileInputStream(png)))) {
+      if (input.readLong() != PNG_SIGNATURE) {
+        return false;
+      }
+      while (true) {
+        final long length = input.readInt() & 0xFFFFFFFFL;
+        final int type = input.readInt();
+        if (type == PNG_ICC_PROFILE_CHUNK) {
+          return false;
+        } else if (type == PNG_IMAGE_DATA_CHUNK) {
+          return true;
+        }
+        // the chunk data and its CRC
+        skip(input, length + 4);
+      }
+    } catch (IOException | RuntimeException e) {
+      return false;
+    }
+  }
+
+  private static int orientationOf(final byte[] segment, final int tiffHeader) {
+    final boolean littleEndian = segment[tiffHeader] == 'I';
+    final int directory = tiffHeader + readInt(segment, tiffHeader + 4, littleEndian);
+    final int entryCount = readShort(segment, directory, littleEndian);
+    for (int i = 0; i < entryCount; i++) {
+      final int entry = directory + 2 + i * 12;
+      if (readShort(segment, entry, littleEndian) == EXIF_ORIENTATION_TAG) {
+        return readShort(segment, entry + 8, littleEndian);
+      }
+    }
+    return DEFAULT_ORIENTATION;
+  }
+
+  private static boolean startsWith(final byte[] bytes, final byte[] prefix) {
+    for (int i = 0; i < prefix.length; i++) {
+      if (bytes[i] != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int readShort(final byte[] bytes, final int offset, final boolean littleEndian) {
+    final int first = bytes[offset] & 0xFF;
+    final int second = bytes[offset + 1] & 0xFF;
+    return littleEndian ? (second << 8) | first : (first << 8) | second;
+  }
+
+  private static int readInt(final byte[] bytes, final int offset, final boolean littleEndian) {
+    final int first = readShort(bytes, offset, littleEndian);
+    final int second = readShort(bytes, offset + 2, littleEndian);
+    return littleEndian ? (second << 16) | first : (first << 16) | second;
+  }
+
+  private static void skip(final InputStream input, final long length) throws IOException {
+    long remaining = length;
+    while (remaining > 0) {
+      final long skipped = input.skip(remaining);
+      if (skipped <= 0) {
+        throw new IOException("Unexpected end of the image");
+      }
+      remaining -= skipped;
+    }
+  }
+}
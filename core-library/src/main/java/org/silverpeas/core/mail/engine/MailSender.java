@@ -36,4 +36,20 @@ public interface MailSender {
    * @param mail the mail to send.
    */
   void send(MailToSend mail);
+
+  /**
+   * Releases the resources the sender keeps between two sendings, like the opened connections to
+   * the mail server. It is invoked when the sending of mails is stopped. By default, nothing is
+   * done.
+   */
+  default void release() {
+  }
+
+  /**
+   * Releases the resources the sender keeps since too long without using them, like the
+   * connections to the mail server that stay idle beyond their maximum idle time. It is invoked
+   * periodically in background. By default, nothing is done.
+   */
+  default void releaseExpired() {
+  }
 }
@@ -26,23 +26,36 @@ package org.silverpeas.core.mail.engine;
 import org.silverpeas.core.mail.MailToSend;
 import org.silverpeas.core.thread.task.AbstractRequestTask;
 import org.silverpeas.core.thread.task.RequestTaskManager;
+import org.silverpeas.core.util.MailUtil;
 import org.silverpeas.core.util.logging.SilverLogger;
 
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A task MailSenderTask runs in the background a batch of mail to send.<br>
  * When it get no more mail to send, the task ends and a new one will be instantiated on the next
  * mail sending request.<br>
- * Priority is given to synchronous mail sending request.
+ * Priority is given to synchronous mail sending request.<br>
+ * The mails can be sent in parallel on several lanes (see {@link MailUtil#getSenderLaneCount()}),
+ * each of them reusing its own connection to the SMTP server. By default, there is only one lane
+ * and the mails are sent one by one.
  */
 public class MailSenderTask extends AbstractRequestTask<MailSenderTask.MailProcessContext> {
 
+  private static final int LANE_COUNT = MailUtil.getSenderLaneCount();
+
   /**
-   * All the requests are processed by a single background thread. This thread is built and started
-   * by the start method.
+   * The asynchronous requests are processed by a background thread per lane. The synchronous ones
+   * are processed by the caller thread. This semaphore bounds to the number of lanes the mails
+   * sent at the same time, whatever the way they are sent.
    */
-  private static Semaphore orderedOneByOneSemaphore = new Semaphore(1, true);
+  private static final Semaphore sendingSemaphore = new Semaphore(LANE_COUNT, true);
+
+  /**
+   * Sequence of the requests used to spread them over the lanes.
+   */
+  private static final AtomicLong requestSequence = new AtomicLong(0);
 
   /**
    * Add a mail to send.
@@ -55,7 +68,7 @@ public class MailSenderTask extends AbstractRequestTask<MailSenderTask.MailProce
     } else {
       // The sending is performed synchronously
       try {
-        mailToSendRequest.process(new MailProcessContext(orderedOneByOneSemaphore));
+        mailToSendRequest.process(new MailProcessContext(sendingSemaphore));
       } catch (Exception e) {
         SilverLogger.getLogger(MailSenderTask.class).error(e.getLocalizedMessage(), e);
       }
@@ -64,7 +77,24 @@ public class MailSenderTask extends AbstractRequestTask<MailSenderTask.MailProce
 
   @Override
   protected MailProcessContext getProcessContext() {
-    return new MailProcessContext(orderedOneByOneSemaphore);
+    return new MailProcessContext(sendingSemaphore);
+  }
+
+  @Override
+  protected int getLaneCount() {
+    return LANE_COUNT;
+  }
+
+  /**
+   * Once a lane has no more mail to send, only the connections to the SMTP server that are idle
+   * beyond their maximum idle time are closed: the other lanes can still be sending mails and then
+   * reuse the idle connections of the pool. The remaining ones are closed in background by
+   * {@link SmtpTransportEvictionJobInitializer}.
+   */
+  @Override
+  protected void afterNoMoreRequest() {
+    super.afterNoMoreRequest();
+    MailSenderProvider.get().releaseExpired();
   }
 
   static class MailProcessContext implements AbstractRequestTask.ProcessContext {
@@ -84,6 +114,7 @@ public class MailSenderTask extends AbstractRequestTask<MailSenderTask.MailProce
    */
   static class MailToSendRequest implements AbstractRequestTask.Request<MailProcessContext> {
     private final MailToSend mailToSend;
+    private final long sequence = requestSequence.getAndIncrement();
 
     /**
      * Constructor declaration
@@ -93,9 +124,18 @@ public class MailSenderTask extends AbstractRequestTask<MailSenderTask.MailProce
       this.mailToSend = mailToSend;
     }
 
+    /**
+     * The mails are independent of each other: they are spread over the lanes in turn.
+     * @return the sequence number of the request.
+     */
+    @Override
+    public Object getLaneKey() {
+      return sequence;
+    }
+
     /**
      * As {@link MailSenderTask} can send a mail synchronously or asynchronously, this method is
-     * synchronized to ensure that one send is performed at a same time laps.
+     * synchronized to ensure that no more sends than lanes are performed at a same time laps.
      * @param context the context of the request processing.
      */
     @Override
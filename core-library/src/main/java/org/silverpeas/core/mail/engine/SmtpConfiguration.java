@@ -25,6 +25,8 @@ package org.silverpeas.core.mail.engine;
 
 import org.silverpeas.core.util.MailUtil;
 
+import java.util.Objects;
+
 /**
  * SMTP configuration
  * @author Emmanuel Hugonnet
@@ -40,6 +42,8 @@ public class SmtpConfiguration {
   private int port;
   private boolean authenticate;
   private boolean debug;
+  private int maxIdleTime;
+  private int maxMessagesPerConnection;
 
   /**
    * Gets an instance of {@link SmtpConfiguration} initializes with the data provided by {@link
@@ -55,6 +59,8 @@ public class SmtpConfiguration {
     smtpConfiguration.setPort(MailUtil.getPort());
     smtpConfiguration.setAuthenticate(MailUtil.isAuthenticated());
     smtpConfiguration.setDebug(MailUtil.isDebug());
+    smtpConfiguration.setMaxIdleTime(MailUtil.getConnectionMaxIdleTime());
+    smtpConfiguration.setMaxMessagesPerConnection(MailUtil.getConnectionMaxMessages());
     return smtpConfiguration;
   }
 
@@ -113,4 +119,51 @@ public class SmtpConfiguration {
   public void setDebug(final boolean debug) {
     this.debug = debug;
   }
+
+  /**
+   * Gets the time in seconds an opened connection to the SMTP server can stay unused before
+   * being closed.
+   * @return a time in seconds.
+   */
+  public int getMaxIdleTime() {
+    return maxIdleTime;
+  }
+
+  public void setMaxIdleTime(final int maxIdleTime) {
+    this.maxIdleTime = maxIdleTime;
+  }
+
+  /**
+   * Gets the number of mails that can be sent through a same connection to the SMTP server.
+   * @return a number of mails. 0 or less means no limit.
+   */
+  public int getMaxMessagesPerConnection() {
+    return maxMessagesPerConnection;
+  }
+
+  public void setMaxMessagesPerConnection(final int maxMessagesPerConnection) {
+    this.maxMessagesPerConnection = maxMessagesPerConnection;
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    final SmtpConfiguration that = (SmtpConfiguration) o;
+    return secure == that.secure && port == that.port && authenticate == that.authenticate &&
+        debug == that.debug && maxIdleTime == that.maxIdleTime &&
+        maxMessagesPerConnection == that.maxMessagesPerConnection &&
+        Objects.equals(username, that.username) && Objects.equals(password, that.password) &&
+        Objects.equals(server, that.server);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(username, password, server, secure, port, authenticate, debug,
+        maxIdleTime, maxMessagesPerConnection);
+  }
 }
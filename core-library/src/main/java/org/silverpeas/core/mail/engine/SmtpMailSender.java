@@ -33,8 +33,8 @@ import org.silverpeas.core.util.StringUtil;
 import org.silverpeas.core.util.logging.SilverLogger;
 
 import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
 import javax.mail.Session;
-import javax.mail.Transport;
 import javax.mail.internet.AddressException;
 import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
@@ -49,10 +49,16 @@ import java.util.Properties;
 /**
  * This is the SMTP implementation of the {@link MailSender} interface.
  * This implementation uses the parameters provided by {@link MailUtil}.
+ * <p>
+ * The connections to the SMTP server are pooled (see {@link SmtpTransportPool}) so that they are
+ * reused from one mail to another instead of being opened and closed for each mail.
+ * </p>
  * @author Yohann Chastagnier
  */
 public class SmtpMailSender implements MailSender {
 
+  private SmtpTransportPool transportPool;
+
   /**
    * Retrieves the system properties and configure a mail session. For further explanations, please
    * read the <code>RFC1891</code>.
@@ -69,12 +75,51 @@ public class SmtpMailSender implements MailSender {
     return session;
   }
 
+  /**
+   * Gets the SMTP configuration to use for sending the mails.
+   * @return the SMTP configuration.
+   */
+  protected SmtpConfiguration getSmtpConfiguration() {
+    return SmtpConfiguration.fromDefaultSettings();
+  }
+
+  /**
+   * Gets the pool of the transports matching the specified configuration. If the configuration
+   * has changed since the last sending, the transports of the previous configuration are closed.
+   * @param smtpConfiguration the current SMTP configuration.
+   * @return the pool of transports to use.
+   */
+  synchronized SmtpTransportPool getTransportPool(final SmtpConfiguration smtpConfiguration) {
+    if (transportPool == null || !transportPool.getConfiguration().equals(smtpConfiguration)) {
+      if (transportPool != null) {
+        transportPool.close();
+      }
+      transportPool = new SmtpTransportPool(smtpConfiguration,
+          getMailSession(smtpConfiguration), MailUtil.getSenderLaneCount());
+    }
+    return transportPool;
+  }
+
+  @Override
+  public synchronized void release() {
+    if (transportPool != null) {
+      transportPool.closeIdleTransports();
+    }
+  }
+
+  @Override
+  public synchronized void releaseExpired() {
+    if (transportPool != null) {
+      transportPool.closeExpiredIdleTransports();
+    }
+  }
+
   @Override
   public void send(final MailToSend mail) {
-    SmtpConfiguration smtpConfiguration = SmtpConfiguration.fromDefaultSettings();
+    SmtpTransportPool pool = getTransportPool(getSmtpConfiguration());
 
     MailAddress fromMailAddress = mail.getFrom();
-    Session session = getMailSession(smtpConfiguration);
+    Session session = pool.getSession();
     try {
       InternetAddress fromAddress = fromMailAddress.getAuthorizedInternetAddress();
       List<InternetAddress[]> toAddresses = new ArrayList<>();
@@ -98,7 +143,7 @@ public class SmtpMailSender implements MailSender {
       mail.getContent().applyOn(email);
 
       // Sending.
-      performSend(mail, smtpConfiguration, session, email, toAddresses);
+      performSend(mail, pool, email, toAddresses);
 
     } catch (MessagingException | UnsupportedEncodingException e) {
       SilverLogger.getLogger(this).error(e);
@@ -135,51 +180,58 @@ public class SmtpMailSender implements MailSender {
   /**
    * This method performs the treatment of the technical send:
    * <ul>
-   * <li>connection to the SMTP server</li>
+   * <li>borrowing a connection to the SMTP server from the pool</li>
    * <li>sending</li>
-   * <li>closing the connection</li>
+   * <li>giving back the connection to the pool</li>
    * </ul>
+   * If a reused connection fails, it was perhaps closed by the SMTP server in the meantime: the
+   * sending is then resumed once on a new connection from the first batch of receivers that
+   * wasn't sent.
    * @param mail the original data from which the given {@link MimeMessage} has been initialized.
-   * @param smtpConfiguration the SMTP configuration.
-   * @param session the current mail session.
+   * @param pool the pool of the connections to the SMTP server.
    * @param messageToSend the technical message to send.
    * @param batchedToAddresses the receivers of the message.
    * @throws MessagingException if an error occurs while delivering the message.
    */
-  private void performSend(final MailToSend mail, final SmtpConfiguration smtpConfiguration,
-      Session session, MimeMessage messageToSend, List<InternetAddress[]> batchedToAddresses)
+  private void performSend(final MailToSend mail, final SmtpTransportPool pool,
+      MimeMessage messageToSend, List<InternetAddress[]> batchedToAddresses)
       throws MessagingException {
 
-    // Creating a Transport connection (TCP)
-    final Transport transport;
-    if (smtpConfiguration.isSecure()) {
-      transport = session.getTransport(SmtpConfiguration.SECURE_TRANSPORT);
-    } else {
-      transport = session.getTransport(SmtpConfiguration.SIMPLE_TRANSPORT);
-    }
-
-    // Adding send reporting listener
-    transport.addTransportListener(new SmtpMailSendReportListener(mail));
-
-    try {
-      if (smtpConfiguration.isAuthenticate()) {
-        transport.connect(smtpConfiguration.getServer(), smtpConfiguration.getPort(),
-            smtpConfiguration.getUsername(), smtpConfiguration.getPassword());
-      } else {
-        transport.connect(smtpConfiguration.getServer(), smtpConfiguration.getPort(), null, null);
-      }
-
-      for (InternetAddress[] toAddressBatch : batchedToAddresses) {
-        messageToSend
-            .setRecipients(mail.getTo().getRecipientType().getTechnicalType(), toAddressBatch);
-        transport.sendMessage(messageToSend, toAddressBatch);
-      }
+    // Send reporting listener
+    final SmtpMailSendReportListener reportListener = new SmtpMailSendReportListener(mail);
 
-    } finally {
+    int nextBatch = 0;
+    boolean resumed = false;
+    while (nextBatch < batchedToAddresses.size()) {
+      final SmtpTransportPool.PooledTransport transport = pool.borrow();
+      transport.get().addTransportListener(reportListener);
+      MessagingException failure = null;
       try {
-        transport.close();
-      } catch (Exception e) {
-        SilverLogger.getLogger(this).error(e);
+        for (; nextBatch < batchedToAddresses.size(); nextBatch++) {
+          final InternetAddress[] toAddressBatch = batchedToAddresses.get(nextBatch);
+          messageToSend
+              .setRecipients(mail.getTo().getRecipientType().getTechnicalType(), toAddressBatch);
+          transport.sendMessage(messageToSend, toAddressBatch);
+        }
+      } catch (SendFailedException e) {
+        // some addresses are rejected but the connection is still valid
+        failure = e;
+      } catch (MessagingException | RuntimeException e) {
+        transport.get().removeTransportListener(reportListener);
+        pool.invalidate(transport);
+        if (resumed || !transport.isReused() || e instanceof RuntimeException) {
+          throw e;
+        }
+        SilverLogger.getLogger(this)
+            .warn("Reused SMTP connection failed ({0}), resuming the sending on a new one",
+                e.getMessage());
+        resumed = true;
+        continue;
+      }
+      transport.get().removeTransportListener(reportListener);
+      pool.release(transport);
+      if (failure != null) {
+        throw failure;
       }
     }
   }
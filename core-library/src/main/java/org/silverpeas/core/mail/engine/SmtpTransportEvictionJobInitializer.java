@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.mail.engine;
+
+import org.silverpeas.core.initialization.Initialization;
+import org.silverpeas.core.scheduler.Job;
+import org.silverpeas.core.scheduler.JobExecutionContext;
+import org.silverpeas.core.scheduler.Scheduler;
+import org.silverpeas.core.scheduler.trigger.JobTrigger;
+import org.silverpeas.core.scheduler.trigger.TimeUnit;
+import org.silverpeas.core.util.MailUtil;
+
+import javax.inject.Inject;
+
+/**
+ * This JOB is in charge of closing periodically the connections to the SMTP server that stay idle
+ * beyond their maximum idle time (see {@link SmtpTransportPool}), so that they aren't kept opened
+ * until the next mail sending.
+ */
+class SmtpTransportEvictionJobInitializer implements Initialization {
+
+  private static final String JOB_NAME = "SmtpTransportEvictionJob";
+
+  @Inject
+  private Scheduler scheduler;
+
+  @Override
+  public void init() throws Exception {
+    scheduler.unscheduleJob(JOB_NAME);
+    final int maxIdleTime = MailUtil.getConnectionMaxIdleTime();
+    if (maxIdleTime > 0) {
+      scheduler.scheduleJob(new SmtpTransportEvictionJob(),
+          JobTrigger.triggerEvery(maxIdleTime, TimeUnit.SECOND));
+    }
+  }
+
+  @Override
+  public void release() throws Exception {
+    scheduler.unscheduleJob(JOB_NAME);
+    MailSenderProvider.get().release();
+  }
+
+  private static class SmtpTransportEvictionJob extends Job {
+
+    /**
+     * Creates a new job.
+     */
+    private SmtpTransportEvictionJob() {
+      super(JOB_NAME);
+    }
+
+    @Override
+    public void execute(final JobExecutionContext context) {
+      MailSenderProvider.get().releaseExpired();
+    }
+  }
+}
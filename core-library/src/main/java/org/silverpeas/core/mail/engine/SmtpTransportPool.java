@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.mail.engine;
+
+import org.silverpeas.core.util.logging.SilverLogger;
+
+import javax.mail.Address;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of connected and authenticated SMTP transports for a given {@link SmtpConfiguration}.
+ * <p>
+ * Opening a transport implies a TCP connection, perhaps a TLS handshake and an authentication
+ * against the SMTP server. So a transport is kept opened once a mail is sent through it in order
+ * to be reused for the next mails. A pooled transport is closed when it stays unused beyond the
+ * maximum idle time of the configuration, when it has sent the maximum number of messages of the
+ * configuration or when it is detected as no more connected. The expired idle transports are
+ * closed once a lane has no more mail to send and in background by
+ * {@link SmtpTransportEvictionJobInitializer}, which closes all the idle ones at shutdown.
+ * </p>
+ * <p>
+ * The pool doesn't bound the number of opened transports: it is the number of threads sending
+ * mails at the same time that bounds it (see {@link MailSenderTask}). Only the number of idle
+ * transports kept in the pool is bounded.
+ * </p>
+ */
+class SmtpTransportPool {
+
+  private final SmtpConfiguration configuration;
+  private final Session session;
+  private final int maxIdleTransports;
+  private final Deque<PooledTransport> idleTransports = new ArrayDeque<>();
+  private final LongAdder openedTransports = new LongAdder();
+  private boolean closed = false;
+
+  /**
+   * Constructs a new pool of transports.
+   * @param configuration the SMTP configuration.
+   * @param session the mail session from which the transports are opened.
+   * @param maxIdleTransports the maximum number of idle transports kept in the pool.
+   */
+  SmtpTransportPool(final SmtpConfiguration configuration, final Session session,
+      final int maxIdleTransports) {
+    this.configuration = configuration;
+    this.session = session;
+    this.maxIdleTransports = Math.max(1, maxIdleTransports);
+  }
+
+  SmtpConfiguration getConfiguration() {
+    return configuration;
+  }
+
+  Session getSession() {
+    return session;
+  }
+
+  /**
+   * Gets the number of transports the pool has opened since its creation.
+   * @return a number of opened transports.
+   */
+  long getOpenedTransportCount() {
+    return openedTransports.sum();
+  }
+
+  /**
+   * Borrows a connected transport from the pool. If there is no idle transport, a new one is
+   * opened. The transport has to be given back to the pool by {@link #release(PooledTransport)}
+   * or by {@link #invalidate(PooledTransport)} once used.
+   * @return a connected transport.
+   * @throws MessagingException if a new transport cannot be opened.
+   */
+  PooledTransport borrow() throws MessagingException {
+    PooledTransport transport = pollIdleTransport();
+    while (transport != null) {
+      if (!transport.isExpired() && transport.isConnected()) {
+        transport.reused = true;
+        return transport;
+      }
+      close(transport);
+      transport = pollIdleTransport();
+    }
+    return open();
+  }
+
+  /**
+   * Gives back to the pool a transport that can be reused.
+   * @param transport a transport borrowed from the pool.
+   */
+  void release(final PooledTransport transport) {
+    transport.lastUseTime = System.currentTimeMillis();
+    final boolean exhausted = configuration.getMaxMessagesPerConnection() > 0 &&
+        transport.sentMessages >= configuration.getMaxMessagesPerConnection();
+    boolean pooled = false;
+    if (!exhausted) {
+      synchronized (idleTransports) {
+        if (!closed && idleTransports.size() < maxIdleTransports) {
+          idleTransports.push(transport);
+          pooled = true;
+        }
+      }
+    }
+    if (!pooled) {
+      close(transport);
+    }
+  }
+
+  /**
+   * Gives back to the pool a transport that cannot be reused, because of a failure for example.
+   * The transport is closed.
+   * @param transport a transport borrowed from the pool.
+   */
+  void invalidate(final PooledTransport transport) {
+    close(transport);
+  }
+
+  /**
+   * Closes all the idle transports of the pool. The transports currently borrowed are not
+   * concerned.
+   */
+  void closeIdleTransports() {
+    final List<PooledTransport> transports;
+    synchronized (idleTransports) {
+      transports = new ArrayList<>(idleTransports);
+      idleTransports.clear();
+    }
+    transports.forEach(this::close);
+  }
+
+  /**
+   * Closes the idle transports of the pool that stay unused beyond the maximum idle time of the
+   * configuration.
+   */
+  void closeExpiredIdleTransports() {
+    final List<PooledTransport> transports = new ArrayList<>();
+    synchronized (idleTransports) {
+      final Iterator<PooledTransport> it = idleTransports.iterator();
+      while (it.hasNext()) {
+        final PooledTransport transport = it.next();
+        if (transport.isExpired()) {
+          it.remove();
+          transports.add(transport);
+        }
+      }
+    }
+    transports.forEach(this::close);
+  }
+
+  /**
+   * Closes the pool: its idle transports are closed and the transports currently borrowed will
+   * be closed once given back.
+   */
+  void close() {
+    synchronized (idleTransports) {
+      closed = true;
+    }
+    closeIdleTransports();
+  }
+
+  private PooledTransport pollIdleTransport() {
+    synchronized (idleTransports) {
+      return idleTransports.poll();
+    }
+  }
+
+  private PooledTransport open() throws MessagingException {
+    final Transport transport;
+    if (configuration.isSecure()) {
+      transport = session.getTransport(SmtpConfiguration.SECURE_TRANSPORT);
+    } else {
+      transport = session.getTransport(SmtpConfiguration.SIMPLE_TRANSPORT);
+    }
+    if (configuration.isAuthenticate()) {
+      transport.connect(configuration.getServer(), configuration.getPort(),
+          configuration.getUsername(), configuration.getPassword());
+    } else {
+      transport.connect(configuration.getServer(), configuration.getPort(), null, null);
+    }
+    openedTransports.increment();
+    return new PooledTransport(transport);
+  }
+
+  private void close(final PooledTransport transport) {
+    try {
+      transport.transport.close();
+    } catch (Exception e) {
+      SilverLogger.getLogger(this).error(e);
+    }
+  }
+
+  /**
+   * A transport managed by the pool.
+   */
+  class PooledTransport {
+    private final Transport transport;
+    private long lastUseTime = System.currentTimeMillis();
+    private int sentMessages = 0;
+    private boolean reused = false;
+
+    private PooledTransport(final Transport transport) {
+      this.transport = transport;
+    }
+
+    /**
+     * Gets the underlying transport, for example to register a listener on it.
+     * @return the underlying transport.
+     */
+    Transport get() {
+      return transport;
+    }
+
+    /**
+     * Is this transport was already used before being borrowed?
+     * @return true if this transport was got from the idle ones of the pool, false if it was
+     * opened for the current borrowing.
+     */
+    boolean isReused() {
+      return reused;
+    }
+
+    /**
+     * Sends the specified message to the specified addresses.
+     * @param message the message to send.
+     * @param addresses the addresses to which the message is sent.
+     * @throws MessagingException if the message cannot be sent.
+     */
+    void sendMessage(final Message message, final Address[] addresses)
+        throws MessagingException {
+      sentMessages++;
+      transport.sendMessage(message, addresses);
+    }
+
+    private boolean isExpired() {
+      return System.currentTimeMillis() - lastUseTime >
+          TimeUnit.SECONDS.toMillis(configuration.getMaxIdleTime());
+    }
+
+    private boolean isConnected() {
+      return transport.isConnected();
+    }
+  }
+}
@@ -30,6 +30,7 @@ import org.silverpeas.core.node.model.NodeI18NDetail;
 import org.silverpeas.core.node.model.NodePK;
 import org.silverpeas.core.node.model.NodePath;
 import org.silverpeas.core.node.model.NodeRuntimeException;
+import org.silverpeas.core.persistence.Transaction;
 import org.silverpeas.core.persistence.jdbc.DBUtil;
 import org.silverpeas.core.persistence.jdbc.sql.JdbcSqlQuery;
 import org.silverpeas.core.util.DateUtil;
@@ -38,6 +39,10 @@ import org.silverpeas.core.util.logging.SilverLogger;
 
 import javax.ejb.NoSuchEntityException;
 import javax.inject.Singleton;
+import javax.transaction.RollbackException;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.SystemException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -46,9 +51,12 @@ import java.sql.Statement;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
@@ -64,31 +72,27 @@ import static org.apache.commons.lang3.time.DurationFormatUtils.formatDurationHM
 public class NodeDAO {
 
   private static final String NODE_TABLE = "SB_Node_Node";
-  private static final String SELECT_NODE_BY_ID = "SELECT nodeid, nodename, nodedescription, " +
+  private static final String NODE_COLUMNS = "nodeid, nodename, nodedescription, " +
       "nodecreationdate, nodecreatorid, nodepath, nodelevelnumber, nodefatherid, modelid, " +
-      "nodestatus, instanceid, type, ordernumber, lang, rightsdependson FROM sb_node_node WHERE " +
-      "nodeId = ? AND instanceId = ?";
+      "nodestatus, instanceid, type, ordernumber, lang, rightsdependson";
+  private static final String SELECT_NODE_BY_ID = "SELECT " + NODE_COLUMNS +
+      " FROM sb_node_node WHERE nodeId = ? AND instanceId = ?";
   private static final String COUNT_NODES_PER_LEVEL =
       "SELECT COUNT(nodeid) as nb FROM sb_node_node " +
           "WHERE nodelevelnumber = ? AND nodeName = ? AND instanceid = ? ";
   private static final String COUNT_NODES_PER_LEVEL_WITHOUT_CURRENT =
       "SELECT COUNT(nodeid) as nb FROM sb_node_node " +
           "WHERE nodeid <> ? AND nodelevelnumber = ? AND nodeName = ? AND instanceid = ? ";
-  private static final String SELECT_CHILDREN_IDS = "SELECT nodeid FROM sb_node_node WHERE " +
-      "nodefatherid = ? AND instanceId = ? ORDER BY nodeid";
-  private static final String SELECT_DESCENDANTS_PK =
-      "SELECT nodepath FROM sb_node_node WHERE " + "nodeid = ? AND instanceid = ?";
-  private static final String SELECT_DESCENDANTS_ID_BY_PATH = "SELECT nodeid FROM sb_node_node " +
-      "WHERE nodePath LIKE ? AND instanceid = ? ORDER BY nodeid";
-  private final Map<String, List<NodeDetail>> allTrees = new ConcurrentHashMap<>();
+  private final Map<String, NodeTree> trees = new ConcurrentHashMap<>();
+  private final Map<String, Long> versions = new ConcurrentHashMap<>();
+  private final Map<javax.transaction.Transaction, Map<String, PendingChanges>> pendingChanges =
+      new ConcurrentHashMap<>();
   private static final String SELECT_QUERY = "selectQuery = ";
   private static final String COMPO_NAME = " compo name = ";
   private static final String ID_EQUALS = " id = ";
   private static final String NODE_ID_AND_INSTANCE_ID_CLAUSE =
       " where nodeId = ? and instanceId = ?";
-  private static final String SELECT_FROM = "SELECT nodeid, nodename, nodedescription, " +
-      "nodecreationdate, nodecreatorid, nodepath, nodelevelnumber, nodefatherid, modelid, " +
-      "nodestatus, instanceid, type, ordernumber, lang, rightsdependson FROM ";
+  private static final String SELECT_FROM = "SELECT " + NODE_COLUMNS + " FROM ";
   private static final String NODE_STATEMENT = "nodeStatement = ";
   private static final String NODE_ID = "NodeId = ";
   private static final String UPDATE = "update ";
@@ -106,20 +110,239 @@ public class NodeDAO {
   public void deleteComponentInstanceData(String componentInstanceId) throws SQLException {
     JdbcSqlQuery.createDeleteFor("sb_node_node").where("instanceId = ?", componentInstanceId)
         .execute();
+    invalidateTree(componentInstanceId);
   }
 
+  /**
+   * Gets all the nodes of the component instance of the specified node, ordered by path and then
+   * by order number. The tree of the nodes of each component instance is loaded once and it is
+   * then kept in memory: the nodes added, modified or deleted through this DAO are updated one by
+   * one in the tree. The returned list is shared between all the callers until the tree is
+   * modified; it must not be modified.
+   * @param con A connection to the database
+   * @param nodePK the primary key of a node of the component instance.
+   * @return all the nodes of the component instance.
+   * @throws SQLException if the tree cannot be loaded.
+   */
   public List<NodeDetail> getTree(Connection con, NodePK nodePK) throws SQLException {
-    List<NodeDetail> tree = allTrees.get(nodePK.getComponentName());
+    return getNodeTree(con, nodePK).getNodes();
+  }
+
+  /**
+   * Unvalidates the tree of the nodes of the component instance of the specified node: it will be
+   * loaded again from the database at the next reading.
+   * @param nodePK the primary key of a node of the component instance.
+   */
+  public void unvalidateTree(NodePK nodePK) {
+    invalidateTree(nodePK.getComponentName());
+  }
+
+  /**
+   * Unvalidates the tree of the nodes of the component instance of the specified node.
+   * @param con a connection to the database. It isn't used.
+   * @param nodePK the primary key of a node of the component instance.
+   * @deprecated use {@link #unvalidateTree(NodePK)} instead.
+   */
+  @Deprecated
+  public void unvalidateTree(Connection con, NodePK nodePK) {
+    unvalidateTree(nodePK);
+  }
+
+  /**
+   * Unvalidates the specified node in the tree of the nodes of its component instance: only this
+   * node will be loaded again from the database at the next reading. This method has to be
+   * invoked when some data of the node are modified out of this DAO, like its translations.
+   * @param nodePK the primary key of the modified node.
+   */
+  public void unvalidateNode(NodePK nodePK) {
+    updateTree(nodePK.getComponentName(), nodePK.getId(), false);
+  }
+
+  /**
+   * Gets the tree of the nodes of the component instance of the specified node. Within a
+   * transaction that has modified some nodes of the component instance, the tree is the own one
+   * of the transaction, with its modifications; otherwise it is the tree shared by all the
+   * callers, with only the committed modifications.
+   */
+  private NodeTree getNodeTree(final Connection con, final NodePK nodePK) throws SQLException {
+    final String instanceId = nodePK.getComponentName();
+    final PendingChanges changes = getPendingChanges(instanceId, false);
+    if (changes != null) {
+      return getTransactionTree(con, instanceId, changes);
+    }
+    return getSharedTree(con, instanceId);
+  }
+
+  private NodeTree getSharedTree(final Connection con, final String instanceId)
+      throws SQLException {
+    NodeTree tree = trees.get(instanceId);
     if (tree == null) {
-      tree = getAllHeaders(con, nodePK);
-      allTrees.put(nodePK.getComponentName(), tree);
+      final Long version = versions.get(instanceId);
+      tree = new NodeTree(getAllHeaders(con, new NodePK("unknown", instanceId)));
+      trees.put(instanceId, tree);
+      if (!Objects.equals(version, versions.get(instanceId))) {
+        // a modification has been committed meanwhile: the tree can miss it
+        trees.remove(instanceId, tree);
+      }
+    } else {
+      reloadStaleNodes(con, tree, instanceId);
     }
     return tree;
   }
 
-  public void unvalidateTree(Connection con, NodePK nodePK) {
-    Objects.requireNonNull(con);
-    allTrees.remove(nodePK.getComponentName());
+  private NodeTree getTransactionTree(final Connection con, final String instanceId,
+      final PendingChanges changes) throws SQLException {
+    NodeTree tree = changes.tree;
+    if (tree == null) {
+      final NodeTree sharedTree = trees.get(instanceId);
+      if (changes.wholeTree || sharedTree == null) {
+        // the tree is loaded with the modifications of the transaction: it cannot be shared
+        tree = new NodeTree(getAllHeaders(con, new NodePK("unknown", instanceId)));
+      } else {
+        tree = sharedTree.copy();
+        changes.nodeIds.forEach(tree::markAsStale);
+      }
+      changes.tree = tree;
+    }
+    reloadStaleNodes(con, tree, instanceId);
+    return tree;
+  }
+
+  private void reloadStaleNodes(final Connection con, final NodeTree tree,
+      final String instanceId) throws SQLException {
+    final Set<String> nodeIds = tree.pollStaleNodes();
+    if (!nodeIds.isEmpty()) {
+      final NodePK pk = new NodePK("unknown", instanceId);
+      final Map<String, NodeDetail> nodes = new HashMap<>(nodeIds.size());
+      JdbcSqlQuery.executeBySplittingOn(
+          nodeIds.stream().map(Integer::parseInt).collect(Collectors.toList()),
+          (idBatch, ignore) -> JdbcSqlQuery.createSelect(NODE_COLUMNS)
+              .from(NODE_TABLE)
+              .where("instanceId = ?", instanceId)
+              .and("nodeId").in(idBatch)
+              .executeWith(con, r -> {
+                final NodeDetail node = resultSet2NodeDetail(r, pk);
+                nodes.put(node.getNodePK().getId(), node);
+                return null;
+              }));
+      setTranslations(con, nodes.values());
+      for (String nodeId : nodeIds) {
+        final NodeDetail node = nodes.get(nodeId);
+        if (node == null) {
+          tree.remove(nodeId);
+        } else {
+          tree.put(node);
+        }
+      }
+    }
+  }
+
+  /**
+   * Updates the tree of the nodes of the specified component instance with a node added,
+   * modified or deleted into the database. Within a transaction, the node is kept among the
+   * pending changes of the transaction and the shared tree is updated only once the transaction
+   * is committed, so that the concurrent readers don't see the uncommitted modification.
+   * @param instanceId the identifier of a component instance.
+   * @param nodeId the identifier of the modified node.
+   * @param deleted true if the node has been deleted from the database.
+   */
+  private void updateTree(final String instanceId, final String nodeId, final boolean deleted) {
+    final PendingChanges changes = getPendingChanges(instanceId, true);
+    if (changes != null) {
+      changes.nodeIds.add(nodeId);
+      final NodeTree tree = changes.tree;
+      if (tree != null) {
+        tree.markAsStale(nodeId);
+      }
+    } else {
+      versions.merge(instanceId, 1L, Long::sum);
+      final NodeTree tree = trees.get(instanceId);
+      if (tree != null) {
+        if (deleted) {
+          tree.remove(nodeId);
+        } else {
+          tree.markAsStale(nodeId);
+        }
+      }
+    }
+  }
+
+  /**
+   * Unvalidates the whole tree of the nodes of the specified component instance. Within a
+   * transaction, the shared tree is unvalidated only once the transaction is committed.
+   * @param instanceId the identifier of a component instance.
+   */
+  private void invalidateTree(final String instanceId) {
+    final PendingChanges changes = getPendingChanges(instanceId, true);
+    if (changes != null) {
+      changes.wholeTree = true;
+      changes.tree = null;
+    } else {
+      versions.merge(instanceId, 1L, Long::sum);
+      trees.remove(instanceId);
+    }
+  }
+
+  /**
+   * Gets the changes of the nodes of the specified component instance that are pending in the
+   * current transaction.
+   * @param instanceId the identifier of a component instance.
+   * @param create true if the pending changes have to be created when there is none yet.
+   * @return the pending changes or null if there is no active transaction, if there is no
+   * pending changes and they aren't created, or if the changes cannot be bound to the
+   * transaction.
+   */
+  private PendingChanges getPendingChanges(final String instanceId, final boolean create) {
+    if ((!create && pendingChanges.isEmpty()) ||
+        Transaction.getTransactionStatus() != Status.STATUS_ACTIVE) {
+      return null;
+    }
+    try {
+      final javax.transaction.Transaction transaction =
+          Transaction.getTransaction().getTransactionManager().getTransaction();
+      Map<String, PendingChanges> changes = pendingChanges.get(transaction);
+      if (changes == null) {
+        if (!create) {
+          return null;
+        }
+        final Map<String, PendingChanges> newChanges = new ConcurrentHashMap<>();
+        transaction.registerSynchronization(new Synchronization() {
+          @Override
+          public void beforeCompletion() {
+            // nothing to do before the completion
+          }
+
+          @Override
+          public void afterCompletion(final int status) {
+            pendingChanges.remove(transaction);
+            if (status == Status.STATUS_COMMITTED) {
+              applyCommittedChanges(newChanges);
+            }
+          }
+        });
+        pendingChanges.put(transaction, newChanges);
+        changes = newChanges;
+      }
+      return create ? changes.computeIfAbsent(instanceId, i -> new PendingChanges()) :
+          changes.get(instanceId);
+    } catch (RollbackException | SystemException | IllegalStateException e) {
+      SilverLogger.getLogger(this).warn(e);
+      return null;
+    }
+  }
+
+  private void applyCommittedChanges(final Map<String, PendingChanges> changes) {
+    changes.forEach((instanceId, instanceChanges) -> {
+      versions.merge(instanceId, 1L, Long::sum);
+      if (instanceChanges.wholeTree) {
+        trees.remove(instanceId);
+      } else {
+        final NodeTree tree = trees.get(instanceId);
+        if (tree != null) {
+          instanceChanges.nodeIds.forEach(tree::markAsStale);
+        }
+      }
+    });
   }
 
   /**
@@ -200,29 +423,15 @@ public class NodeDAO {
    */
   public Collection<NodePK> getChildrenPKs(Connection con, NodePK nodePK)
       throws SQLException {
-    try (final PreparedStatement prepStmt = con.prepareStatement(SELECT_CHILDREN_IDS)) {
-      prepStmt.setInt(1, Integer.parseInt(nodePK.getId()));
-      prepStmt.setString(2, nodePK.getComponentName());
-      try (final ResultSet rs = prepStmt.executeQuery()) {
-        final List<NodePK> pks = new ArrayList<>();
-        fetchSubNodes(rs, nodePK, pks);
-        return pks;
-      }
-    } catch (SQLException e) {
-      SilverLogger.getLogger(this)
-          .error("childrenStatement = " + SELECT_CHILDREN_IDS + ID_EQUALS + nodePK.getId() +
-              COMPO_NAME + nodePK.getComponentName(), e);
-      throw e;
-    }
+    return toNodePKs(getNodeTree(con, nodePK).getChildIds(nodePK.getId()), nodePK);
   }
 
-  private void fetchSubNodes(final ResultSet rs, final NodePK nodePK, final List<NodePK> pks)
-      throws SQLException {
-    while (rs.next()) {
-      final String nodeId = String.valueOf(rs.getInt("nodeid"));
-      final NodePK n = new NodePK(nodeId, nodePK);
-      pks.add(n); /* Stockage du sous thème */
+  private List<NodePK> toNodePKs(final List<String> nodeIds, final NodePK nodePK) {
+    final List<NodePK> pks = new ArrayList<>(nodeIds.size());
+    for (String nodeId : nodeIds) {
+      pks.add(new NodePK(nodeId, nodePK));
     }
+    return pks;
   }
 
   /**
@@ -235,44 +444,7 @@ public class NodeDAO {
    * @since 1.0
    */
   public Collection<NodePK> getDescendantPKs(Connection con, NodePK nodePK) throws SQLException {
-    String path = getNodePath(con, nodePK, SELECT_DESCENDANTS_PK);
-    final List<NodePK> nodePKS = new ArrayList<>();
-    if (path != null) {
-      path += nodePK.getId() + "/%";
-      try (final PreparedStatement prepStmt = con.prepareStatement(SELECT_DESCENDANTS_ID_BY_PATH)) {
-        prepStmt.setString(1, path);
-        prepStmt.setString(2, nodePK.getComponentName());
-        try (final ResultSet rs = prepStmt.executeQuery()) {
-          fetchSubNodes(rs, nodePK, nodePKS);
-        }
-      } catch (SQLException e) {
-        SilverLogger.getLogger(this)
-            .error(SELECT_QUERY + SELECT_DESCENDANTS_ID_BY_PATH + COMPO_NAME +
-                nodePK.getComponentName(), e);
-        throw e;
-      }
-    }
-    return nodePKS;
-  }
-
-  private String getNodePath(final Connection con, final NodePK nodePK, final String selectQuery)
-      throws SQLException {
-    String path = null;
-    try (final PreparedStatement prepStmt = con.prepareStatement(selectQuery)) {
-      prepStmt.setInt(1, Integer.parseInt(nodePK.getId()));
-      prepStmt.setString(2, nodePK.getComponentName());
-      try (final ResultSet rs = prepStmt.executeQuery()) {
-        if (rs.next()) {
-          path = rs.getString(1);
-        }
-      }
-    } catch (SQLException e) {
-      SilverLogger.getLogger(this)
-          .error(SELECT_QUERY + selectQuery + ID_EQUALS + nodePK.getId() + COMPO_NAME +
-              nodePK.getComponentName(), e);
-      throw e;
-    }
-    return path;
+    return toNodePKs(getNodeTree(con, nodePK).getDescendantIds(nodePK.getId()), nodePK);
   }
 
   /**
@@ -286,30 +458,7 @@ public class NodeDAO {
    */
   public List<NodeDetail> getDescendantDetails(Connection con, NodePK nodePK)
       throws SQLException {
-    final String selectNodePath =
-        "SELECT nodePath from " + nodePK.getTableName() + NODE_ID_AND_INSTANCE_ID_CLAUSE;
-    String path = getNodePath(con, nodePK, selectNodePath);
-    final List<NodeDetail> nodeDetails = new ArrayList<>();
-    if (path != null) {
-      path = path + nodePK.getId() + "/%";
-      final String selectNodes =
-          SELECT_FROM + nodePK.getTableName() + " where nodePath like '" + path +
-              "' and instanceId = ? order by nodePath";
-      try (final PreparedStatement prepStmt = con.prepareStatement(selectNodes)) {
-        prepStmt.setString(1, nodePK.getComponentName());
-        try (final ResultSet rs = prepStmt.executeQuery()) {
-          while (rs.next()) {
-            NodeDetail nd = resultSet2NodeDetail(rs, nodePK);
-            nodeDetails.add(nd);
-          }
-        }
-      } catch (SQLException e) {
-        SilverLogger.getLogger(this).error(SELECT_QUERY + selectNodes + COMPO_NAME +
-                nodePK.getComponentName(), e);
-        throw e;
-      }
-    }
-    return nodeDetails;
+    return getNodeTree(con, nodePK).getDescendants(nodePK.getId(), nodePK);
   }
 
   /**
@@ -322,25 +471,8 @@ public class NodeDAO {
    */
   public List<NodeDetail> getDescendantDetails(Connection con, NodeDetail node)
       throws SQLException {
-    final String path = node.getPath() + node.getNodePK().getId() + "/%";
-    final String selectQuery =
-        SELECT_FROM + node.getNodePK().getTableName() + " where nodePath like '" + path +
-            "' and instanceId = ? order by nodePath";
-    final List<NodeDetail> nodeDetails = new ArrayList<>();
-    try (final PreparedStatement prepStmt = con.prepareStatement(selectQuery)) {
-      prepStmt.setString(1, node.getNodePK().getComponentName());
-      try (final ResultSet rs = prepStmt.executeQuery()) {
-        while (rs.next()) {
-          final NodeDetail nd = resultSet2NodeDetail(rs, node.getNodePK());
-          nodeDetails.add(nd);
-        }
-      }
-    } catch (SQLException e) {
-      SilverLogger.getLogger(this).error(SELECT_QUERY + selectQuery + COMPO_NAME +
-              node.getNodePK().getComponentName(), e);
-      throw e;
-    }
-    return nodeDetails;
+    final NodePK nodePK = node.getNodePK();
+    return getNodeTree(con, nodePK).getDescendants(nodePK.getId(), nodePK);
   }
 
   /**
@@ -354,11 +486,7 @@ public class NodeDAO {
    */
   public List<NodeDetail> getHeadersByLevel(Connection con, NodePK nodePK, int level)
       throws SQLException {
-    final String selectQuery =
-        SELECT_FROM + nodePK.getTableName() + " where nodeLevelNumber=" + level +
-            " and instanceId='" + nodePK.getComponentName() +
-            "' order by ordernumber asc, nodeId asc";
-    return findSubNodeDetails(con, selectQuery, nodePK);
+    return getNodeTree(con, nodePK).getNodesAtLevel(level, nodePK);
   }
 
   private List<NodeDetail> findSubNodeDetails(final Connection con, final String selectQuery,
@@ -516,37 +644,12 @@ public class NodeDAO {
 
   public List<NodeDetail> getSubTree(Connection con, NodePK nodePK, String status)
       throws SQLException {
-    // get the path of the given nodePK
-    final NodeDetail detail = loadRow(con, nodePK);
-    final List<NodeDetail> headers = new ArrayList<>();
-    if (StringUtil.isDefined(status)) {
-      if (status.equals(detail.getStatus())) {
-        headers.add(detail);
-        getSubTree(con, headers, nodePK, status);
-      }
-    } else {
-      headers.add(detail);
-      getSubTree(con, headers, nodePK, status);
-    }
-    return headers;
-  }
-
-  private void getSubTree(Connection con, List<NodeDetail> tree, NodePK nodePK,
-      String status) throws SQLException {
-    final Collection<NodeDetail> childrenDetails = getChildrenDetails(con, nodePK);
-    if (!childrenDetails.isEmpty()) {
-      for (NodeDetail child : childrenDetails) {
-        if (StringUtil.isDefined(status)) {
-          if (status.equals(child.getStatus())) {
-            tree.add(child);
-            getSubTree(con, tree, child.getNodePK(), status);
-          }
-        } else {
-          tree.add(child);
-          getSubTree(con, tree, child.getNodePK(), status);
-        }
-      }
+    final List<NodeDetail> subTree =
+        getNodeTree(con, nodePK).getSubTree(nodePK.getId(), status, nodePK);
+    if (subTree == null) {
+      throw new NodeRuntimeException("Cannot load node " + NODE_ID + nodePK.getId());
     }
+    return subTree;
   }
 
   /**
@@ -561,15 +664,15 @@ public class NodeDAO {
    */
   public NodePath getNodePath(Connection con, NodePK nodePK)
       throws SQLException {
+    final NodeTree tree = getNodeTree(con, nodePK);
     final NodePath nodePath = new NodePath();
     /* le node courant */
-    NodeDetail nd = getAnotherHeader(con, nodePK);
+    NodeDetail nd = getAnotherHeader(tree, nodePK);
     nodePath.add(nd);
     for (int i = nd.getLevel() - 1; i >= 1; i--) {
-      nd = getAnotherHeader(con, nd.getFatherPK());
+      nd = getAnotherHeader(tree, nd.getFatherPK());
       nodePath.add(nd);
     }
-    setTranslations(con, nodePath);
     return nodePath;
   }
 
@@ -622,30 +725,18 @@ public class NodeDAO {
 
   /**
    * Get the detail of another Node
-   * @param con A connection to the database
+   * @param tree the tree of the nodes of the component instance
    * @param nodePK the PK of the Node
    * @return a NodeDetail
-   * @throws java.sql.SQLException
    * @see NodeDetail
    * @since 1.0
    */
-  private NodeDetail getAnotherHeader(Connection con, NodePK nodePK) throws SQLException {
-    final int nodeId = Integer.parseInt(nodePK.getId());
-    final String selectQuery = SELECT_FROM + NODE_TABLE + " WHERE nodeId = ? and instanceId = ?";
-    try (final PreparedStatement stmt = con.prepareStatement(selectQuery)) {
-      stmt.setInt(1, nodeId);
-      stmt.setString(2, nodePK.getComponentName());
-      try (final ResultSet rs = stmt.executeQuery()) {
-        if (rs.next()) {
-          return resultSet2NodeDetail(rs, nodePK);
-        } else {
-          throw new NoSuchEntityException("Row for id " + nodeId + " not found in database.");
-        }
-      }
-    } catch (SQLException e) {
-      SilverLogger.getLogger(this).error(NODE_STATEMENT + selectQuery, e);
-      throw e;
+  private NodeDetail getAnotherHeader(NodeTree tree, NodePK nodePK) {
+    final NodeDetail node = tree.getNode(nodePK.getId(), nodePK);
+    if (node == null) {
+      throw new NoSuchEntityException("Row for id " + nodePK.getId() + " not found in database.");
     }
+    return node;
   }
 
   /**
@@ -659,26 +750,7 @@ public class NodeDAO {
    */
   public Collection<NodeDetail> getChildrenDetails(Connection con, NodePK nodePK)
       throws SQLException {
-    String nodeId = nodePK.getId();
-    final String selectQuery = SELECT_FROM + nodePK.getTableName() +
-        " where nodeFatherId = ? and instanceId = ? order by orderNumber asc";
-    try (final PreparedStatement prepStmt = con.prepareStatement(selectQuery)) {
-      prepStmt.setInt(1, Integer.parseInt(nodeId));
-      prepStmt.setString(2, nodePK.getComponentName());
-      try (final ResultSet rs = prepStmt.executeQuery()) {
-        final List<NodeDetail> nodeDetails = new ArrayList<>();
-        while (rs.next()) {
-          nodeDetails.add(resultSet2NodeDetail(rs, nodePK));
-        }
-        setTranslations(con, nodeDetails);
-        return nodeDetails;
-      }
-    } catch (SQLException e) {
-      SilverLogger.getLogger(this)
-          .error("childrenStatement = " + selectQuery + " nodeId = " + nodeId +
-              COMPO_NAME + nodePK.getComponentName(), e);
-      throw e;
-    }
+    return getNodeTree(con, nodePK).getChildren(nodePK.getId(), nodePK);
   }
 
   /**
@@ -690,26 +762,7 @@ public class NodeDAO {
    * @since 1.0
    */
   public int getChildrenNumber(Connection con, NodePK nodePK) throws SQLException {
-    final String selectQuery = "select count(*) from " + nodePK.getTableName() +
-        " where nodeFatherId = ? and instanceId = ?";
-    try (final PreparedStatement prepStmt = con.prepareStatement(selectQuery)) {
-      prepStmt.setInt(1, Integer.parseInt(nodePK.getId()));
-      prepStmt.setString(2, nodePK.getComponentName());
-      try (final ResultSet rs = prepStmt.executeQuery()) {
-        final int nbChildren;
-        if (rs.next()) {
-          nbChildren = rs.getInt(1);
-        } else {
-          nbChildren = 0;
-        }
-        return nbChildren;
-      }
-    } catch (SQLException e) {
-      SilverLogger.getLogger(this)
-          .error(SELECT_QUERY + selectQuery + " nodeId = " + nodePK.getId() + COMPO_NAME +
-                  nodePK.getComponentName(), e);
-      throw e;
-    }
+    return getNodeTree(con, nodePK).getChildrenNumber(nodePK.getId());
   }
 
   /**
@@ -779,7 +832,7 @@ public class NodeDAO {
       prepStmt.setInt(15, nd.getRightsDependsOn());
       prepStmt.executeUpdate();
       pk.setId(String.valueOf(newId));
-      unvalidateTree(con, nd.getNodePK());
+      updateTree(pk.getComponentName(), pk.getId(), false);
     }
     return pk;
   }
@@ -798,7 +851,7 @@ public class NodeDAO {
             " and instanceId='" + nodePK.getComponentName() + "'";
     try (final Statement stmt = con.createStatement()) {
       stmt.executeUpdate(deleteQuery);
-      unvalidateTree(con, nodePK);
+      updateTree(nodePK.getComponentName(), nodePK.getId(), true);
     }
   }
 
@@ -920,7 +973,7 @@ public class NodeDAO {
       prepStmt.setInt(11, Integer.parseInt(nodeDetail.getNodePK().getId()));
       prepStmt.setString(12, nodeDetail.getNodePK().getComponentName());
       rowCount = prepStmt.executeUpdate();
-      unvalidateTree(con, nodeDetail.getNodePK());
+      updateTree(nodeDetail.getNodePK().getComponentName(), nodeDetail.getNodePK().getId(), false);
     }
 
     if (rowCount == 0) {
@@ -944,6 +997,11 @@ public class NodeDAO {
       prepStmt.setInt(7, Integer.parseInt(nodeDetail.getNodePK().getId()));
       rowCount = prepStmt.executeUpdate();
     }
+    // the node can come from any component instance
+    final String nodeId = nodeDetail.getNodePK().getId();
+    final Set<String> instanceIds = new HashSet<>(trees.keySet());
+    instanceIds.add(nodeDetail.getNodePK().getInstanceId());
+    instanceIds.forEach(i -> updateTree(i, nodeId, false));
     if (rowCount == 0) {
       throw new NodeRuntimeException(
           "Cannot store node " + NODE_ID + nodeDetail.getNodePK().getId());
@@ -960,6 +1018,7 @@ public class NodeDAO {
       prepStmt.setString(3, pk.getInstanceId());
       prepStmt.executeUpdate();
     }
+    updateTree(pk.getInstanceId(), pk.getId(), false);
   }
 
   public void sortNodes(Connection con, List<NodePK> nodePKs) throws SQLException {
@@ -970,8 +1029,18 @@ public class NodeDAO {
         prepStmt.setInt(1, i);
         prepStmt.setInt(2, Integer.parseInt(nodePK.getId()));
         prepStmt.executeUpdate();
+        updateTree(nodePK.getInstanceId(), nodePK.getId(), false);
         i++;
       }
     }
   }
+
+  /**
+   * The changes of the nodes of a component instance that are pending in a transaction.
+   */
+  private static class PendingChanges {
+    private final Set<String> nodeIds = ConcurrentHashMap.newKeySet();
+    private volatile boolean wholeTree = false;
+    private volatile NodeTree tree = null;
+  }
 }
@@ -0,0 +1,347 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.node.dao;
+
+import org.silverpeas.core.node.model.NodeDetail;
+import org.silverpeas.core.node.model.NodePK;
+import org.silverpeas.core.util.StringUtil;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The tree of the nodes of a component instance, indexed in memory by node identifier and by
+ * father identifier so that the children, the descendants and the ancestors of a node are got
+ * without any request to the database. The tree is loaded once and it is then updated node by
+ * node: a node added or modified into the database is marked as stale and it is loaded again at
+ * the next reading, a node deleted from the database is removed from the tree.
+ * <p>
+ * The nodes of the tree are never exposed: all the methods return copies of them, identified
+ * with the specified primary key, so that the callers can modify them freely. The whole tree is
+ * however shared as a single list between all the callers of {@link #getNodes()} until it is
+ * modified; each modification gives then a new list.
+ * </p>
+ */
+class NodeTree {
+
+  private static final Comparator<NodeDetail> BY_ID = Comparator.comparingInt(NodeDetail::getId);
+  private static final Comparator<NodeDetail> BY_ORDER =
+      Comparator.comparingInt(NodeDetail::getOrder).thenComparing(BY_ID);
+  private static final Comparator<NodeDetail> PATH =
+      Comparator.comparing(NodeDetail::getPath, Comparator.nullsFirst(Comparator.naturalOrder()));
+  private static final Comparator<NodeDetail> BY_PATH = PATH.thenComparing(BY_ID);
+  private static final Comparator<NodeDetail> BY_PATH_AND_ORDER = PATH.thenComparing(BY_ORDER);
+
+  private final Map<String, NodeDetail> nodes = new HashMap<>();
+  private final Map<String, List<NodeDetail>> children = new HashMap<>();
+  private final Set<String> staleNodes = new HashSet<>();
+  private List<NodeDetail> allNodes = null;
+
+  /**
+   * Constructs the tree made up of the specified nodes.
+   * @param nodes all the nodes of a component instance. They are kept as such by the tree and
+   * they must not be modified anymore by the caller.
+   */
+  NodeTree(final Collection<NodeDetail> nodes) {
+    for (NodeDetail node : nodes) {
+      this.nodes.put(node.getNodePK().getId(), node);
+      children.computeIfAbsent(fatherIdOf(node), i -> new ArrayList<>()).add(node);
+    }
+    children.values().forEach(c -> c.sort(BY_ORDER));
+  }
+
+  /**
+   * Gets all the nodes of the tree ordered by path and then by order number. The returned list
+   * is the same one between two modifications of the tree; it must not be modified.
+   * @return a list with all the nodes of the tree.
+   */
+  synchronized List<NodeDetail> getNodes() {
+    if (allNodes == null) {
+      final List<NodeDetail> sortedNodes = new ArrayList<>(nodes.size());
+      for (NodeDetail node : nodes.values()) {
+        sortedNodes.add(copy(node, node.getNodePK()));
+      }
+      sortedNodes.sort(BY_PATH_AND_ORDER);
+      allNodes = sortedNodes;
+    }
+    return allNodes;
+  }
+
+  /**
+   * Gets the number of nodes in the tree.
+   * @return the size of the tree.
+   */
+  synchronized int size() {
+    return nodes.size();
+  }
+
+  /**
+   * Gets the specified node.
+   * @param nodeId the identifier of a node.
+   * @param pk the primary key from which the primary key of the copy of the node is built.
+   * @return a copy of the node or null if there is no such node in the tree.
+   */
+  synchronized NodeDetail getNode(final String nodeId, final NodePK pk) {
+    final NodeDetail node = nodes.get(nodeId);
+    return node == null ? null : copy(node, pk);
+  }
+
+  /**
+   * Gets the children of the specified node ordered by order number.
+   * @param nodeId the identifier of a node.
+   * @param pk the primary key from which the primary keys of the copies of the nodes are built.
+   * @return a list of copies of the children. Empty if the node has no children or if it isn't
+   * in the tree.
+   */
+  synchronized List<NodeDetail> getChildren(final String nodeId, final NodePK pk) {
+    final List<NodeDetail> nodeChildren = children.getOrDefault(nodeId, Collections.emptyList());
+    final List<NodeDetail> copies = new ArrayList<>(nodeChildren.size());
+    for (NodeDetail child : nodeChildren) {
+      copies.add(copy(child, pk));
+    }
+    return copies;
+  }
+
+  /**
+   * Gets the identifiers of the children of the specified node in ascending order.
+   * @param nodeId the identifier of a node.
+   * @return the identifiers of the children. Empty if the node has no children or if it isn't in
+   * the tree.
+   */
+  synchronized List<String> getChildIds(final String nodeId) {
+    final List<NodeDetail> nodeChildren =
+        new ArrayList<>(children.getOrDefault(nodeId, Collections.emptyList()));
+    nodeChildren.sort(BY_ID);
+    return idsOf(nodeChildren);
+  }
+
+  /**
+   * Gets the number of children of the specified node.
+   * @param nodeId the identifier of a node.
+   * @return the number of children, 0 if the node isn't in the tree.
+   */
+  synchronized int getChildrenNumber(final String nodeId) {
+    return children.getOrDefault(nodeId, Collections.emptyList()).size();
+  }
+
+  /**
+   * Gets the descendants of the specified node ordered by path.
+   * @param nodeId the identifier of a node.
+   * @param pk the primary key from which the primary keys of the copies of the nodes are built.
+   * @return a list of copies of the descendants. Empty if the node has no descendants or if it
+   * isn't in the tree.
+   */
+  synchronized List<NodeDetail> getDescendants(final String nodeId, final NodePK pk) {
+    final List<NodeDetail> descendants = descendantsOf(nodeId);
+    descendants.sort(BY_PATH);
+    final List<NodeDetail> copies = new ArrayList<>(descendants.size());
+    for (NodeDetail descendant : descendants) {
+      copies.add(copy(descendant, pk));
+    }
+    return copies;
+  }
+
+  /**
+   * Gets the identifiers of the descendants of the specified node in ascending order.
+   * @param nodeId the identifier of a node.
+   * @return the identifiers of the descendants. Empty if the node has no descendants or if it
+   * isn't in the tree.
+   */
+  synchronized List<String> getDescendantIds(final String nodeId) {
+    final List<NodeDetail> descendants = descendantsOf(nodeId);
+    descendants.sort(BY_ID);
+    return idsOf(descendants);
+  }
+
+  /**
+   * Gets the nodes of the specified level ordered by order number.
+   * @param level a level in the tree, the root being at level 1.
+   * @param pk the primary key from which the primary keys of the copies of the nodes are built.
+   * @return a list of copies of the nodes at this level.
+   */
+  synchronized List<NodeDetail> getNodesAtLevel(final int level, final NodePK pk) {
+    final List<NodeDetail> nodesAtLevel = new ArrayList<>();
+    for (NodeDetail node : nodes.values()) {
+      if (node.getLevel() == level) {
+        nodesAtLevel.add(node);
+      }
+    }
+    nodesAtLevel.sort(BY_ORDER);
+    final List<NodeDetail> copies = new ArrayList<>(nodesAtLevel.size());
+    for (NodeDetail node : nodesAtLevel) {
+      copies.add(copy(node, pk));
+    }
+    return copies;
+  }
+
+  /**
+   * Gets the specified node followed by all of its descendants, each node being followed by its
+   * children ordered by order number. If a status is given, only the nodes with this status are
+   * got and the subtree of a node with another status is skipped.
+   * @param nodeId the identifier of the root of the subtree.
+   * @param status the status of the nodes to get. Null or empty to get all the nodes.
+   * @param pk the primary key from which the primary keys of the copies of the nodes are built.
+   * @return a list of copies of the nodes of the subtree or null if there is no such node in the
+   * tree.
+   */
+  synchronized List<NodeDetail> getSubTree(final String nodeId, final String status,
+      final NodePK pk) {
+    final NodeDetail root = nodes.get(nodeId);
+    if (root == null) {
+      return null;
+    }
+    final List<NodeDetail> subTree = new ArrayList<>();
+    final Deque<NodeDetail> nodesToVisit = new ArrayDeque<>();
+    nodesToVisit.push(root);
+    while (!nodesToVisit.isEmpty() && subTree.size() <= nodes.size()) {
+      final NodeDetail node = nodesToVisit.pop();
+      if (!StringUtil.isDefined(status) || status.equals(node.getStatus())) {
+        subTree.add(copy(node, pk));
+        final List<NodeDetail> nodeChildren =
+            children.getOrDefault(node.getNodePK().getId(), Collections.emptyList());
+        for (int i = nodeChildren.size() - 1; i >= 0; i--) {
+          nodesToVisit.push(nodeChildren.get(i));
+        }
+      }
+    }
+    return subTree;
+  }
+
+  /**
+   * Gets a copy of this tree, with its stale nodes. As the nodes of a tree are never modified
+   * but only replaced, they are shared between both trees.
+   * @return a new tree with the same nodes.
+   */
+  synchronized NodeTree copy() {
+    final NodeTree tree = new NodeTree(new ArrayList<>(nodes.values()));
+    tree.staleNodes.addAll(staleNodes);
+    return tree;
+  }
+
+  /**
+   * Puts the specified node into the tree. If the tree already has a node with the same
+   * identifier, it is replaced.
+   * @param node a node loaded from the database. It is kept as such by the tree and it must not
+   * be modified anymore by the caller.
+   */
+  synchronized void put(final NodeDetail node) {
+    final String nodeId = node.getNodePK().getId();
+    removeNode(nodeId);
+    nodes.put(nodeId, node);
+    final List<NodeDetail> brothers =
+        children.computeIfAbsent(fatherIdOf(node), i -> new ArrayList<>());
+    final int index = Collections.binarySearch(brothers, node, BY_ORDER);
+    brothers.add(index < 0 ? -index - 1 : index, node);
+    allNodes = null;
+  }
+
+  /**
+   * Removes the specified node from the tree. Its children, if any, are kept.
+   * @param nodeId the identifier of a node.
+   */
+  synchronized void remove(final String nodeId) {
+    staleNodes.remove(nodeId);
+    removeNode(nodeId);
+  }
+
+  /**
+   * Marks the specified node as stale: it has to be loaded again from the database.
+   * @param nodeId the identifier of a node added or modified into the database.
+   */
+  synchronized void markAsStale(final String nodeId) {
+    staleNodes.add(nodeId);
+  }
+
+  /**
+   * Gets the nodes marked as stale and unmarks them.
+   * @return the identifiers of the nodes to load again from the database.
+   */
+  synchronized Set<String> pollStaleNodes() {
+    if (staleNodes.isEmpty()) {
+      return Collections.emptySet();
+    }
+    final Set<String> nodeIds = new HashSet<>(staleNodes);
+    staleNodes.clear();
+    return nodeIds;
+  }
+
+  private void removeNode(final String nodeId) {
+    final NodeDetail node = nodes.remove(nodeId);
+    if (node != null) {
+      final String fatherId = fatherIdOf(node);
+      final List<NodeDetail> brothers = children.get(fatherId);
+      brothers.remove(node);
+      if (brothers.isEmpty()) {
+        children.remove(fatherId);
+      }
+      allNodes = null;
+    }
+  }
+
+  private List<NodeDetail> descendantsOf(final String nodeId) {
+    final List<NodeDetail> descendants = new ArrayList<>();
+    final Deque<String> nodesToVisit = new ArrayDeque<>();
+    nodesToVisit.push(nodeId);
+    while (!nodesToVisit.isEmpty() && descendants.size() <= nodes.size()) {
+      for (NodeDetail child : children.getOrDefault(nodesToVisit.pop(),
+          Collections.emptyList())) {
+        descendants.add(child);
+        nodesToVisit.push(child.getNodePK().getId());
+      }
+    }
+    return descendants;
+  }
+
+  private static List<String> idsOf(final List<NodeDetail> nodes) {
+    final List<String> ids = new ArrayList<>(nodes.size());
+    for (NodeDetail node : nodes) {
+      ids.add(node.getNodePK().getId());
+    }
+    return ids;
+  }
+
+  private static String fatherIdOf(final NodeDetail node) {
+    return node.getFatherPK() == null ? null : node.getFatherPK().getId();
+  }
+
+  private static NodeDetail copy(final NodeDetail node, final NodePK pk) {
+    final NodeDetail copy = new NodeDetail(node);
+    copy.setNodePK(new NodePK(node.getNodePK().getId(), pk));
+    if (node.getFatherPK() != null) {
+      copy.setFatherPK(new NodePK(node.getFatherPK().getId(), pk));
+    }
+    copy.setPath(node.getPath());
+    copy.setChildrenDetails(null);
+    return copy;
+  }
+}
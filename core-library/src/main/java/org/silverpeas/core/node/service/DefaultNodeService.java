@@ -302,8 +302,8 @@ public class DefaultNodeService implements NodeService, ComponentInstanceDeletio
         createIndex(newNode, true);
       }
 
-      nodeDAO.unvalidateTree(con, nodePK);
-      nodeDAO.unvalidateTree(con, toNode);
+      nodeDAO.unvalidateTree(nodePK);
+      nodeDAO.unvalidateTree(toNode);
     } catch (Exception e) {
       throw new NodeRuntimeException(e);
     } finally {
@@ -394,7 +394,7 @@ public class DefaultNodeService implements NodeService, ComponentInstanceDeletio
         } else {
           NodeI18NDAO.saveTranslation(con, translation);
         }
-        nodeDAO.unvalidateTree(con, nd.getNodePK());
+        nodeDAO.unvalidateNode(nd.getNodePK());
       } else {
         // the default language is modified
         updateNodeDetail(con, nd);
@@ -420,6 +420,7 @@ public class DefaultNodeService implements NodeService, ComponentInstanceDeletio
       }
     } else {
       NodeI18NDAO.removeTranslation(con, Integer.parseInt(nd.getTranslationId()));
+      nodeDAO.unvalidateNode(nd.getNodePK());
     }
   }
 
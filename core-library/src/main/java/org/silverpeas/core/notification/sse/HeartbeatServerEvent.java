@@ -26,6 +26,8 @@ package org.silverpeas.core.notification.sse;
 import org.silverpeas.core.admin.user.model.User;
 import org.silverpeas.core.notification.sse.behavior.IgnoreStoring;
 
+import java.util.Optional;
+
 /**
  * @author Yohann Chastagnier
  */
@@ -57,4 +59,9 @@ class HeartbeatServerEvent extends AbstractServerEvent implements IgnoreStoring
   public boolean isConcerned(final String receiverSessionId, final User receiver) {
     return emitterSessionId.equals(receiverSessionId);
   }
+
+  @Override
+  public Optional<String> getTargetedSessionId() {
+    return Optional.of(emitterSessionId);
+  }
 }
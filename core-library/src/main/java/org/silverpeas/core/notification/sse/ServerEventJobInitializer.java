@@ -34,9 +34,11 @@ import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.silverpeas.core.notification.sse.ServerEventDispatcherTask.getAsyncContextSnapshot;
+import static org.silverpeas.core.notification.sse.ServerEventDispatcherTask.sendInShards;
 import static org.silverpeas.core.notification.sse.ServerEventDispatcherTask.unregisterAsyncContext;
 import static org.silverpeas.core.notification.user.client.NotificationManagerSettings.getSseAsyncJobTrigger;
 
@@ -79,6 +81,7 @@ class ServerEventJobInitializer implements Initialization {
       SseLogger.get()
           .debug("doing quietly some stuffs over {0} {0,choice, 1#async context| 1<async contexts}",
               asyncContexts.size());
+      final List<SilverpeasAsyncContext> heartbeatContexts = new ArrayList<>(asyncContexts.size());
       asyncContexts.forEach(c -> {
         if (!c.isSendPossible()) {
 
@@ -88,20 +91,25 @@ class ServerEventJobInitializer implements Initialization {
         } else if (c.isHeartbeat()) {
 
           // Heartbeat is requested
-          try {
-            synchronized (c.getMutex()) {
-              SseLogger.get().debug("send heartbeat to {0}", c);
-              final HttpServletRequest request = (HttpServletRequest) c.getRequest();
-              final HttpServletResponse response = (HttpServletResponse) c.getResponse();
-              final HeartbeatServerEvent event = HeartbeatServerEvent.createFor(c.getSessionId());
-              event.send(request, response, c.getSessionId(), c.getUser());
-            }
-          } catch (IOException e) {
-            SseLogger.get().error(e);
-            unregisterAsyncContext(c);
-          }
+          heartbeatContexts.add(c);
         }
       });
+      sendInShards(heartbeatContexts, ServerEventCleanerJob::sendHeartbeat);
+    }
+
+    private static void sendHeartbeat(final SilverpeasAsyncContext c) {
+      try {
+        synchronized (c.getMutex()) {
+          SseLogger.get().debug("send heartbeat to {0}", c);
+          final HttpServletRequest request = (HttpServletRequest) c.getRequest();
+          final HttpServletResponse response = (HttpServletResponse) c.getResponse();
+          final HeartbeatServerEvent event = HeartbeatServerEvent.createFor(c.getSessionId());
+          event.send(request, response, c.getSessionId(), c.getUser());
+        }
+      } catch (IOException e) {
+        SseLogger.get().error(e);
+        unregisterAsyncContext(c);
+      }
     }
   }
 }
@@ -27,6 +27,8 @@ import org.silverpeas.core.admin.user.model.User;
 import org.silverpeas.core.notification.sse.CommonServerEvent;
 import org.silverpeas.core.util.JSONCodec;
 
+import java.util.Optional;
+
 import static org.silverpeas.core.notification.user.server.channel.silvermail.SILVERMAILPersistence.countNotReadMessagesOfFolder;
 
 /**
@@ -136,4 +138,9 @@ public class UserNotificationServerEvent extends CommonServerEvent {
   public boolean isConcerned(final String receiverSessionId, final User receiver) {
     return receiver.getId().equals(emitterUserId);
   }
+
+  @Override
+  public Optional<String> getTargetedUserId() {
+    return Optional.of(emitterUserId);
+  }
 }
@@ -47,18 +47,15 @@ public abstract class AbstractNotification {
     return (urlBase.startsWith("http") ? urlBase : getUserAutoRedirectURL(userId, urlBase));
   }
 
+  public String computeURL(final Domain domain, final String urlBase) {
+    return (urlBase.startsWith("http") ? urlBase : getUserAutoRedirectURL(domain, urlBase));
+  }
+
   public String getUserAutoRedirectURL(final String userId, final String target) {
     String encodedTarget = URLUtil.encodeURL(target);
     try {
       final UserDetail ud = UserDetail.getById(userId);
-      final Domain dom = ud.getDomain();
-      String url;
-      if (URLUtil.isPermalink(target)) {
-        url = dom.getSilverpeasServerURL() + getApplicationURL() + target;
-      } else {
-        url = getUserAutoRedirectURL(dom) + encodedTarget;
-      }
-      return url;
+      return getUserAutoRedirectURL(ud.getDomain(), target);
     } catch (final Exception e) {
       SilverLogger.getLogger(this)
           .error("Error while getting user auto redirect url {0} for user {1}",
@@ -67,6 +64,13 @@ public abstract class AbstractNotification {
     }
   }
 
+  public String getUserAutoRedirectURL(final Domain dom, final String target) {
+    if (URLUtil.isPermalink(target)) {
+      return dom.getSilverpeasServerURL() + getApplicationURL() + target;
+    }
+    return getUserAutoRedirectURL(dom) + URLUtil.encodeURL(target);
+  }
+
   public String getUserAutoRedirectURL(final Domain dom) {
       return dom.getSilverpeasServerURL() + getApplicationURL()
           + "/autoRedirect.jsp?domainId=" + dom.getId() + "&goto=";
@@ -74,7 +78,10 @@ public abstract class AbstractNotification {
 
   public String getUserAutoRedirectSilverpeasServerURL(final String userId) {
     final UserDetail ud = UserDetail.getById(userId);
-    final Domain dom = ud.getDomain();
+    return getUserAutoRedirectSilverpeasServerURL(ud.getDomain());
+  }
+
+  public String getUserAutoRedirectSilverpeasServerURL(final Domain dom) {
     return dom.getSilverpeasServerURL() + getApplicationURL();
   }
 }
@@ -28,6 +28,7 @@ import org.jetbrains.annotations.NotNull;
 import org.silverpeas.core.SilverpeasRuntimeException;
 import org.silverpeas.core.admin.component.ComponentInstanceDeletion;
 import org.silverpeas.core.admin.component.model.ComponentInst;
+import org.silverpeas.core.admin.domain.model.Domain;
 import org.silverpeas.core.admin.service.AdminException;
 import org.silverpeas.core.admin.service.AdministrationServiceProvider;
 import org.silverpeas.core.admin.service.OrganizationController;
@@ -55,6 +56,7 @@ import org.silverpeas.core.notification.user.model.NotificationResourceData;
 import org.silverpeas.core.notification.user.server.NotificationData;
 import org.silverpeas.core.notification.user.server.NotificationServer;
 import org.silverpeas.core.notification.user.server.NotificationServerException;
+import org.silverpeas.core.util.CollectionUtil;
 import org.silverpeas.core.util.LocalizationBundle;
 import org.silverpeas.core.util.ResourceLocator;
 import org.silverpeas.core.util.StringUtil;
@@ -67,9 +69,11 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -434,9 +438,7 @@ public class DefaultNotificationManager extends AbstractNotification
 
     try {
       params.trace();
-      for (String userId : recipientIds) {
-        doNewDelayedNotifications(params, userId);
-      }
+      new RecipientsFanOut(params).sendTo(recipientIds);
 
     } catch (Exception e) {
       throw new NotificationException(e);
@@ -450,19 +452,6 @@ public class DefaultNotificationManager extends AbstractNotification
     }
   }
 
-  private void doNewDelayedNotifications(final NotificationParameters params, final String userId)
-      throws NotificationException {
-    try {
-      for (final DelayedNotificationData dnd : createAllDelayedNotificationData(params, userId)) {
-        DelayedNotificationDelegate.executeNewNotification(dnd);
-      }
-    } catch (NotificationServerException e) {
-      throw new NotificationException(e);
-    } catch (Exception ex) {
-      SilverLogger.getLogger(this).error(ex);
-    }
-  }
-
   @Override
   public void notifyExternals(NotificationParameters params,
       Collection<ExternalRecipient> externals) throws NotificationException {
@@ -701,39 +690,6 @@ public class DefaultNotificationManager extends AbstractNotification
     return nar;
   }
 
-  private List<NotifAddressRow> getAllNotifAddressRow(final NotificationParameters params,
-      final String aUserId) throws SQLException {
-    final Stream<Integer> addressIdStream;
-    final int addressId = getAddressId(params, aUserId);
-    if (addressId == BuiltInNotifAddress.DEFAULT.getId()) {
-      NotifDefaultAddressTable ndat = schema.notifDefaultAddress();
-      NotifDefaultAddressRow[] ndars = ndat.getAllByUserId(Integer.parseInt(aUserId));
-      if (ndars.length > 0) {
-        addressIdStream = Stream.of(ndars).map(NotifDefaultAddressRow::getNotifAddressId);
-      } else {
-        addressIdStream = getDefaultNotificationChannels().stream()
-            .map(NotifChannel::getMediaType)
-            .map(BuiltInNotifAddress::getId);
-      }
-
-    } else {
-      // notification avec choix du canal
-      addressIdStream = Stream.of(addressId);
-    }
-
-    try {
-      return addressIdStream.map(m -> {
-        try {
-          return getNotifAddressRow(params, aUserId, m);
-        } catch (SQLException e) {
-          throw new SilverpeasRuntimeException(e);
-        }
-      }).collect(Collectors.toList());
-    } catch (SilverpeasRuntimeException e) {
-      throw (SQLException) e.getCause();
-    }
-  }
-
   private int getAddressId(final NotificationParameters params, final String aUserId)
       throws SQLException {
     int addressId = params.getAddressId();
@@ -881,8 +837,7 @@ public class DefaultNotificationManager extends AbstractNotification
   }
 
   private void setSource(final NotificationParameters params,
-      final Map<String, Object> theExtraParams,
-      final DelayedNotificationData delayedNotificationData) {
+      final Map<String, Object> theExtraParams, final NotificationResourceData resource) {
     if (StringUtil.isDefined(params.getSource())) {
       theExtraParams.put(SOURCE, params.getSource());
     } else {
@@ -891,12 +846,10 @@ public class DefaultNotificationManager extends AbstractNotification
         try {
           final String source = computeDefaultSource(instanceId);
           theExtraParams.put(SOURCE, source);
-          if (delayedNotificationData != null && delayedNotificationData.getResource() != null &&
-              StringUtils.isBlank(delayedNotificationData.getResource().getResourceLocation())) {
+          if (resource != null && StringUtils.isBlank(resource.getResourceLocation())) {
             final String resourceLocation =
                 getComponentFullName(instanceId, NotificationResourceData.LOCATION_SEPARATOR, true);
-            delayedNotificationData.getResource().setResourceLocation(resourceLocation);
-
+            resource.setResourceLocation(resourceLocation);
           }
         } catch (Exception e) {
           SilverLogger.getLogger(this).warn(e);
@@ -917,59 +870,6 @@ public class DefaultNotificationManager extends AbstractNotification
     theExtraParams.put(FROM, fromEmail);
   }
 
-  private List<DelayedNotificationData> createAllDelayedNotificationData(
-      NotificationParameters params, String aUserId) throws SQLException {
-    final List<NotifAddressRow> nars = getAllNotifAddressRow(params, aUserId);
-    final List<DelayedNotificationData> dnds = new ArrayList<>(nars.size());
-
-    NotifChannelRow notifChannelRow;
-    NotificationData notificationData;
-    for (final NotifAddressRow curAddresseRow : nars) {
-      notifChannelRow = schema.notifChannel().getNotifChannel(curAddresseRow.getNotifChannelId());
-
-      notificationData = new NotificationData();
-      // set the channel
-      notificationData.setTargetChannel(notifChannelRow.getName());
-      // set the destination address
-      notificationData.setTargetReceipt(curAddresseRow.getAddress());
-
-      final DelayedNotificationData delayedNotificationData =
-          initDelayedNotificationData(aUserId, params, notificationData, curAddresseRow);
-      dnds.add(delayedNotificationData);
-
-      StringBuilder theMessage = new StringBuilder(100);
-      Map<String, Object> theExtraParams = new HashMap<>();
-      // Set subject parameter
-
-      setSubject(params, theMessage, theExtraParams, notifChannelRow);
-
-      String senderName = getSenderName(params);
-      setSenderAddress(params, theMessage, theExtraParams, notifChannelRow, notificationData,
-          senderName);
-
-      // Set Url parameter
-      theExtraParams.put(SERVERURL, getUserAutoRedirectSilverpeasServerURL(aUserId));
-      if (StringUtil.isDefined(params.getLink().getLinkUrl())) {
-        theExtraParams.put(URL, computeURL(aUserId, params.getLink().getLinkUrl()));
-        theExtraParams.put(LINKLABEL, params.getLink().getLinkLabel());
-      }
-
-      if (params.getNotificationResourceData() != null &&
-          StringUtil.isDefined(params.getNotificationResourceData().getAttachmentTargetId())) {
-        theExtraParams.put(ATTACHMENT_TARGETID,
-            params.getNotificationResourceData().getAttachmentTargetId());
-        theExtraParams.put(COMPONENTID,
-            params.getNotificationResourceData().getComponentInstanceId());
-      }
-
-      // Set Source parameter
-      setSource(params, theExtraParams, delayedNotificationData);
-
-      setCommonNotifData(params, theExtraParams, theMessage, senderName, notificationData);
-    }
-    return dnds;
-  }
-
   @NotNull
   private DelayedNotificationData initDelayedNotificationData(final String aUserId,
       final NotificationParameters params, final NotificationData notificationData,
@@ -1050,4 +950,244 @@ public class DefaultNotificationManager extends AbstractNotification
   List<NotifChannel> getDefaultNotificationChannels() {
     return NotificationManagerSettings.getDefaultChannels();
   }
+  /**
+   * Fans out a notification to its recipients. The parts of the notification that don't depend
+   * on the recipients (the channels, the sender, the source and the message for each channel) are
+   * computed once, and the notification preferences, the default addresses and the addresses of
+   * the recipients are loaded in bulk by slices of recipients instead of one by one.
+   */
+  class RecipientsFanOut {
+
+    private final NotificationParameters params;
+    private final String senderName;
+    private final Map<Integer, NotifChannelRow> channels = new HashMap<>();
+    private final Map<Integer, ChannelContent> contents = new HashMap<>();
+    private final Map<Integer, NotifAddressRow> addresses = new HashMap<>();
+    private final Map<String, DomainURLs> domainURLs = new HashMap<>();
+
+    RecipientsFanOut(final NotificationParameters params) throws SQLException {
+      this.params = params;
+      this.senderName = getSenderName(params);
+      for (final NotifChannelRow channel : schema.notifChannel().getAllRows()) {
+        channels.put(channel.getId(), channel);
+      }
+    }
+
+    private void sendTo(final Collection<String> recipientIds)
+        throws SQLException, NotificationException {
+      final long start = System.currentTimeMillis();
+      int count = 0;
+      for (final Collection<String> slice : CollectionUtil.split(recipientIds)) {
+        final Map<Integer, List<Integer>> addressIds = getAddressIds(toUserIds(slice));
+        loadAddresses(addressIds.values());
+        final List<DelayedNotificationData> dnds = new ArrayList<>(addressIds.size());
+        addressIds.forEach((userId, ids) -> {
+          try {
+            dnds.addAll(createAllDelayedNotificationData(String.valueOf(userId), ids));
+          } catch (Exception e) {
+            SilverLogger.getLogger(DefaultNotificationManager.this).error(e);
+          }
+        });
+        try {
+          DelayedNotificationDelegate.executeNewNotifications(dnds);
+        } catch (NotificationServerException e) {
+          throw new NotificationException(e);
+        }
+        count += slice.size();
+      }
+      final long duration = Math.max(1, System.currentTimeMillis() - start);
+      SilverLogger.getLogger(DefaultNotificationManager.this)
+          .debug("{0} recipients notified in {1}ms ({2} recipients/s)", count, duration,
+              count * 1000L / duration);
+    }
+
+    private List<Integer> toUserIds(final Collection<String> recipientIds) {
+      final List<Integer> userIds = new ArrayList<>(recipientIds.size());
+      for (final String recipientId : recipientIds) {
+        if (StringUtil.isInteger(recipientId)) {
+          userIds.add(Integer.parseInt(recipientId));
+        } else {
+          SilverLogger.getLogger(DefaultNotificationManager.this)
+              .warn("Invalid recipient identifier: {0}", recipientId);
+        }
+      }
+      return userIds;
+    }
+
+    /**
+     * Gets the identifier of the addresses to which the notification has to be sent for each of
+     * the specified users.
+     */
+    Map<Integer, List<Integer>> getAddressIds(final List<Integer> userIds)
+        throws SQLException {
+      final Map<Integer, Integer> preferredAddressIds = new HashMap<>(userIds.size());
+      final int commonAddressId;
+      if (params.isAddressDefinedByComponent()) {
+        commonAddressId = BuiltInNotifAddress.DEFAULT.getId();
+        // In case of problems, try with the default value
+        if (params.isComponentInstanceDefined()) {
+          final NotifPreferenceRow[] nprs = schema.notifPreference()
+              .getAllByUserIdsAndComponentInstanceIdAndMessageType(userIds,
+                  params.getComponentInstance(), params.getMessagePriority());
+          for (final NotifPreferenceRow npr : nprs) {
+            preferredAddressIds.putIfAbsent(npr.getUserId(), npr.getNotifAddressId());
+          }
+        }
+      } else {
+        commonAddressId = params.getAddressId();
+      }
+
+      final List<Integer> usersWithDefaultAddress = userIds.stream()
+          .filter(u -> preferredAddressIds.getOrDefault(u, commonAddressId) ==
+              BuiltInNotifAddress.DEFAULT.getId())
+          .collect(Collectors.toList());
+      final Map<Integer, List<Integer>> defaultAddressIds = new HashMap<>();
+      for (final NotifDefaultAddressRow ndar : schema.notifDefaultAddress()
+          .getAllByUserIds(usersWithDefaultAddress)) {
+        defaultAddressIds.computeIfAbsent(ndar.getUserId(), u -> new ArrayList<>(2))
+            .add(ndar.getNotifAddressId());
+      }
+      final List<Integer> defaultChannelAddressIds = getDefaultNotificationChannels().stream()
+          .map(NotifChannel::getMediaType)
+          .map(BuiltInNotifAddress::getId)
+          .collect(Collectors.toList());
+
+      final Map<Integer, List<Integer>> addressIds = new LinkedHashMap<>(userIds.size());
+      for (final Integer userId : userIds) {
+        final int addressId = preferredAddressIds.getOrDefault(userId, commonAddressId);
+        if (addressId == BuiltInNotifAddress.DEFAULT.getId()) {
+          addressIds.put(userId, defaultAddressIds.getOrDefault(userId, defaultChannelAddressIds));
+        } else {
+          addressIds.put(userId, Collections.singletonList(addressId));
+        }
+      }
+      return addressIds;
+    }
+
+    /**
+     * Loads the addresses defined by the users among the specified ones that aren't yet loaded.
+     */
+    void loadAddresses(final Collection<List<Integer>> addressIds) throws SQLException {
+      final Set<Integer> idsToLoad = addressIds.stream()
+          .flatMap(List::stream)
+          .filter(i -> !isBuiltInAddress(i) && !addresses.containsKey(i))
+          .collect(Collectors.toSet());
+      for (final Collection<Integer> slice : CollectionUtil.split(idsToLoad)) {
+        for (final NotifAddressRow nar : schema.notifAddress().getNotifAddresses(slice)) {
+          addresses.put(nar.getId(), nar);
+        }
+      }
+    }
+
+    private boolean isBuiltInAddress(final int addressId) {
+      return BuiltInNotifAddress.decode(addressId).isPresent();
+    }
+
+    private List<DelayedNotificationData> createAllDelayedNotificationData(final String aUserId,
+        final List<Integer> addressIds) throws SQLException {
+      final List<DelayedNotificationData> dnds = new ArrayList<>(addressIds.size());
+      for (final int addressId : addressIds) {
+        final NotifAddressRow curAddressRow = isBuiltInAddress(addressId) ?
+            getNotifAddressRow(params, aUserId, addressId) :
+            addresses.get(addressId);
+        if (curAddressRow == null) {
+          SilverLogger.getLogger(DefaultNotificationManager.this)
+              .warn("No such notification address {0}" + FOR_THE_USER + "{1}", addressId,
+                  aUserId);
+          continue;
+        }
+        final NotifChannelRow notifChannelRow = channels.get(curAddressRow.getNotifChannelId());
+        final ChannelContent content = getContent(notifChannelRow);
+
+        final NotificationData notificationData = new NotificationData();
+        // set the channel
+        notificationData.setTargetChannel(notifChannelRow.getName());
+        // set the destination address
+        notificationData.setTargetReceipt(curAddressRow.getAddress());
+        notificationData.setSenderId(content.senderId);
+
+        dnds.add(initDelayedNotificationData(aUserId, params, notificationData, curAddressRow));
+
+        // Set Url parameters
+        final Map<String, Object> theExtraParams = new HashMap<>(content.extraParams);
+        final DomainURLs urls = getDomainURLs(aUserId);
+        theExtraParams.put(SERVERURL, urls.serverURL);
+        if (urls.linkURL != null) {
+          theExtraParams.put(URL, urls.linkURL);
+        }
+
+        setCommonNotifData(params, theExtraParams, new StringBuilder(content.message), senderName,
+            notificationData);
+      }
+      return dnds;
+    }
+
+    /**
+     * Gets the part of the notification that is specific to the specified channel. It is computed
+     * once for all the recipients.
+     */
+    private ChannelContent getContent(final NotifChannelRow notifChannelRow) {
+      return contents.computeIfAbsent(notifChannelRow.getId(), i -> {
+        final StringBuilder theMessage = new StringBuilder(100);
+        final Map<String, Object> theExtraParams = new HashMap<>();
+        final NotificationData sender = new NotificationData();
+        // Set subject parameter
+        setSubject(params, theMessage, theExtraParams, notifChannelRow);
+        setSenderAddress(params, theMessage, theExtraParams, notifChannelRow, sender, senderName);
+
+        if (StringUtil.isDefined(params.getLink().getLinkUrl())) {
+          theExtraParams.put(LINKLABEL, params.getLink().getLinkLabel());
+        }
+
+        if (params.getNotificationResourceData() != null &&
+            StringUtil.isDefined(params.getNotificationResourceData().getAttachmentTargetId())) {
+          theExtraParams.put(ATTACHMENT_TARGETID,
+              params.getNotificationResourceData().getAttachmentTargetId());
+          theExtraParams.put(COMPONENTID,
+              params.getNotificationResourceData().getComponentInstanceId());
+        }
+
+        // Set Source parameter
+        setSource(params, theExtraParams, params.getNotificationResourceData());
+        return new ChannelContent(theMessage.toString(), theExtraParams, sender.getSenderId());
+      });
+    }
+
+    /**
+     * Gets the URLs to put into the notification for the specified user. They depend only on the
+     * domain of the user and then they are computed once per domain.
+     */
+    private DomainURLs getDomainURLs(final String aUserId) {
+      final UserDetail user = UserDetail.getById(aUserId);
+      return domainURLs.computeIfAbsent(user.getDomainId(), d -> {
+        final Domain domain = user.getDomain();
+        final String url = params.getLink().getLinkUrl();
+        return new DomainURLs(getUserAutoRedirectSilverpeasServerURL(domain),
+            StringUtil.isDefined(url) ? computeURL(domain, url) : null);
+      });
+    }
+  }
+
+  private static class ChannelContent {
+    private final String message;
+    private final Map<String, Object> extraParams;
+    private final String senderId;
+
+    private ChannelContent(final String message, final Map<String, Object> extraParams,
+        final String senderId) {
+      this.message = message;
+      this.extraParams = extraParams;
+      this.senderId = senderId;
+    }
+  }
+
+  private static class DomainURLs {
+    private final String serverURL;
+    private final String linkURL;
+
+    private DomainURLs(final String serverURL, final String linkURL) {
+      this.serverURL = serverURL;
+      this.linkURL = linkURL;
+    }
+  }
 }
@@ -28,6 +28,7 @@ import org.silverpeas.core.persistence.jdbc.AbstractTable;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 
 public class NotifAddressTable extends AbstractTable<NotifAddressRow> {
@@ -55,6 +56,20 @@ public class NotifAddressTable extends AbstractTable<NotifAddressRow> {
   private static final String SELECT_NOTIFADDRESS_BY_ID = "Select "
       + NOTIFADDRESS_COLUMNS + " from ST_NotifAddress Where id = ?";
 
+  /**
+   * Returns the NotifAddress rows having the given ids
+   */
+  public NotifAddressRow[] getNotifAddresses(Collection<Integer> ids) throws SQLException {
+    if (ids.isEmpty()) {
+      return new NotifAddressRow[0];
+    }
+    List<NotifAddressRow> rows = getRowsIn(SELECT_NOTIFADDRESS_BY_IDS, new int[0], ids);
+    return rows.toArray(new NotifAddressRow[rows.size()]);
+  }
+
+  private static final String SELECT_NOTIFADDRESS_BY_IDS = "Select "
+      + NOTIFADDRESS_COLUMNS + " from ST_NotifAddress Where id in";
+
   /**
    * Returns all the NotifAddressRow having a given notifChannelId
    */
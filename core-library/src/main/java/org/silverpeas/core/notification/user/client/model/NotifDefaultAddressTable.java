@@ -28,6 +28,7 @@ import org.silverpeas.core.persistence.jdbc.AbstractTable;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 
 public class NotifDefaultAddressTable extends AbstractTable<NotifDefaultAddressRow> {
@@ -71,6 +72,23 @@ public class NotifDefaultAddressTable extends AbstractTable<NotifDefaultAddressR
       + NOTIFDEFAULTADDRESS_COLUMNS
       + " from ST_NotifDefaultAddress where userId=?";
 
+  /**
+   * Returns all the NotifDefaultAddressRow of the given users.
+   */
+  public NotifDefaultAddressRow[] getAllByUserIds(Collection<Integer> userIds)
+      throws SQLException {
+    if (userIds.isEmpty()) {
+      return new NotifDefaultAddressRow[0];
+    }
+    List<NotifDefaultAddressRow> rows =
+        getRowsIn(SELECT_ALL_NOTIFDEFAULTADDRESS_WITH_GIVEN_USERIDS, new int[0], userIds);
+    return rows.toArray(new NotifDefaultAddressRow[rows.size()]);
+  }
+
+  private static final String SELECT_ALL_NOTIFDEFAULTADDRESS_WITH_GIVEN_USERIDS = SELECT
+      + NOTIFDEFAULTADDRESS_COLUMNS
+      + " from ST_NotifDefaultAddress where userId in";
+
   /**
    * Returns all the rows.
    */
@@ -28,6 +28,7 @@ import org.silverpeas.core.persistence.jdbc.AbstractTable;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 
 public class NotifPreferenceTable extends AbstractTable<NotifPreferenceRow> {
@@ -73,6 +74,27 @@ public class NotifPreferenceTable extends AbstractTable<NotifPreferenceRow> {
       + " from ST_NotifPreference where "
       + "userId=? and componentInstanceId=? and messageType=?";
 
+  /**
+   * Returns the NotifPreference rows of the given users having the given componentInstanceId and
+   * messageType.
+   */
+  public NotifPreferenceRow[] getAllByUserIdsAndComponentInstanceIdAndMessageType(
+      Collection<Integer> userIds, int componentInstanceId, int messageType)
+      throws SQLException {
+    if (userIds.isEmpty()) {
+      return new NotifPreferenceRow[0];
+    }
+    int[] intArgs = { componentInstanceId, messageType };
+    List<NotifPreferenceRow> rows = getRowsIn(
+        SELECT_ALL_NOTIFPREFERENCE_BY_USERIDS, intArgs, userIds);
+    return rows.toArray(new NotifPreferenceRow[rows.size()]);
+  }
+
+  private static final String SELECT_ALL_NOTIFPREFERENCE_BY_USERIDS = SELECT
+      + NOTIFPREFERENCE_COLUMNS
+      + " from ST_NotifPreference where "
+      + "componentInstanceId=? and messageType=? and userId in";
+
   /**
    * Returns all the NotifPreferenceRow having a given componentInstanceId
    */
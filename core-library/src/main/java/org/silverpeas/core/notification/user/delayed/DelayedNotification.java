@@ -110,4 +110,14 @@ public interface DelayedNotification {
    * @return
    */
   DelayedNotificationFrequency getUserFrequency(final Integer userId, final NotifChannel channel);
+
+  /**
+   * Gets the notification frequency of each of the given users, the settings of the users being
+   * loaded in bulk
+   * @param userIds the identifiers of the users
+   * @param channel the channel of the notifications
+   * @return the frequency of each user indexed by the user identifier
+   */
+  Map<Integer, DelayedNotificationFrequency> getUserFrequencies(final Collection<Integer> userIds,
+      final NotifChannel channel);
 }
@@ -42,6 +42,7 @@ import javax.inject.Singleton;
 import javax.transaction.Transactional;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -274,4 +275,32 @@ public class DelayedNotificationManager implements DelayedNotification {
 
     return result;
   }
+
+  @Override
+  @Transactional(Transactional.TxType.NOT_SUPPORTED)
+  public Map<Integer, DelayedNotificationFrequency> getUserFrequencies(
+      final Collection<Integer> userIds, final NotifChannel channel) {
+    final Map<Integer, DelayedNotificationFrequency> result = new HashMap<>(userIds.size());
+
+    // For now, only the SMTP channel can be delayed (mail)
+    if (!getWiredChannels().contains(channel)) {
+      userIds.forEach(u -> result.put(u, DelayedNotificationFrequency.NONE));
+      return result;
+    }
+
+    // By default, the default frequency
+    final DelayedNotificationFrequency defaultFrequency = getDefaultDelayedNotificationFrequency();
+    userIds.forEach(u -> result.put(u, defaultFrequency));
+
+    // Search in the database the users' setting, ignoring the frequencies that are not possible
+    final Set<DelayedNotificationFrequency> possibleFrequencies = getPossibleFrequencies();
+    for (final Collection<Integer> userIdSlice : CollectionUtil.split(userIds)) {
+      dnUserSettingManager.findByUserIdsAndChannel(userIdSlice, channel.getId())
+          .stream()
+          .filter(s -> possibleFrequencies.contains(s.getFrequency()))
+          .forEach(s -> result.put(s.getUserId(), s.getFrequency()));
+    }
+
+    return result;
+  }
 }
@@ -56,6 +56,8 @@ import org.silverpeas.core.util.comparator.AbstractComplexComparator;
 
 import javax.annotation.Nonnull;
 import java.util.*;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 import static org.silverpeas.core.notification.user.client.NotificationTemplateKey.NOTIFICATION_SERVER_URL;
 import static org.silverpeas.core.notification.user.delayed.DelayedNotificationProvider.getDelayedNotification;
@@ -69,6 +71,7 @@ import static org.silverpeas.core.util.StringUtil.isDefined;
 public class DelayedNotificationDelegate extends AbstractNotification {
 
   private static final String LOCATION_SEPARATOR = " &gt; ";
+  private static final Pattern JAVA_STRINGS = Pattern.compile("[\r\n\t]");
 
   /**
    * User details cache
@@ -186,40 +189,111 @@ public class DelayedNotificationDelegate extends AbstractNotification {
     }
   }
 
+  /**
+   * Easy call of new notification process for several notifications at once
+   * @param delayedNotificationData
+   * @throws NotificationServerException
+   */
+  public static void executeNewNotifications(
+      final List<DelayedNotificationData> delayedNotificationData)
+      throws NotificationServerException {
+    new DelayedNotificationDelegate().performNewNotificationsSending(delayedNotificationData);
+  }
+
+  /**
+   * Handling several new notifications at once. The frequencies of the aimed users are loaded in
+   * bulk and the notifications that have not to be delayed are sent grouped by channel.
+   * @param delayedNotificationData
+   * @throws NotificationServerException
+   */
+  protected void performNewNotificationsSending(
+      final List<DelayedNotificationData> delayedNotificationData)
+      throws NotificationServerException {
+
+    // Loading the frequencies of the users that could be delayed
+    final Map<NotifChannel, Set<Integer>> userIdsByChannel = new EnumMap<>(NotifChannel.class);
+    for (final DelayedNotificationData data : delayedNotificationData) {
+      if (data.getUserId() != null && data.getChannel() != null && isThatCanBeDelayed(data)) {
+        userIdsByChannel.computeIfAbsent(data.getChannel(), c -> new HashSet<>())
+            .add(data.getUserId());
+      }
+    }
+    final Map<NotifChannel, Map<Integer, DelayedNotificationFrequency>> frequencies =
+        new EnumMap<>(NotifChannel.class);
+    userIdsByChannel.forEach((channel, userIds) -> frequencies.put(channel,
+        getDelayedNotification().getUserFrequencies(userIds, channel)));
+
+    // Saving the delayed notifications and sending the other ones grouped by channel
+    final Map<String, List<NotificationData>> toSend = new LinkedHashMap<>();
+    for (final DelayedNotificationData data : delayedNotificationData) {
+      if (!isThatToBeDelayed(data, () -> frequencies
+          .getOrDefault(data.getChannel(), Collections.emptyMap())
+          .get(data.getUserId()))) {
+        putAddList(toSend, data.getNotificationData().getTargetChannel(),
+            data.getNotificationData());
+      } else {
+        getDelayedNotification().saveDelayedNotification(data);
+      }
+    }
+    for (final List<NotificationData> notificationData : toSend.values()) {
+      sendNotifications(notificationData);
+    }
+  }
+
   /**
    * Checks if the notification has to be delayed or not
    * @param delayedNotificationData
    * @return
    */
   private boolean isThatToBeDelayed(final DelayedNotificationData delayedNotificationData) {
+    return isThatToBeDelayed(delayedNotificationData, () -> getDelayedNotification()
+        .getUserFrequency(delayedNotificationData.getUserId(),
+            delayedNotificationData.getChannel()));
+  }
 
-    // The notification have to be sent immediately
-    if (delayedNotificationData.isSendImmediately()) {
+  /**
+   * Checks if the notification has to be delayed or not
+   * @param delayedNotificationData
+   * @param userFrequency the supplier of the frequency of the aimed user, called only if needed
+   * @return
+   */
+  private boolean isThatToBeDelayed(final DelayedNotificationData delayedNotificationData,
+      final Supplier<DelayedNotificationFrequency> userFrequency) {
+
+    if (!isThatCanBeDelayed(delayedNotificationData)) {
       return false;
     }
 
-    // The notification action has to be defined
-    if (delayedNotificationData.getAction() == null) {
+    // The user frequency has to be different from NONE
+    if (DelayedNotificationFrequency.NONE.equals(userFrequency.get())) {
       return false;
     }
 
-    // The notification priority has to be different from URGENT or ERROR and the action type has to
-    // be set
-    if (NotificationParameters.PRIORITY_NORMAL !=
-        delayedNotificationData.getNotificationParameters().getMessagePriority()) {
+    // The last conditions
+    return delayedNotificationData.isValid();
+  }
+
+  /**
+   * Checks if the notification could be delayed regardless the settings of the aimed user
+   * @param delayedNotificationData
+   * @return
+   */
+  private boolean isThatCanBeDelayed(final DelayedNotificationData delayedNotificationData) {
+
+    // The notification have to be sent immediately
+    if (delayedNotificationData.isSendImmediately()) {
       return false;
     }
 
-    // The user frequency has to be different from NONE
-    if (DelayedNotificationFrequency.NONE.equals(
-        getDelayedNotification()
-            .getUserFrequency(delayedNotificationData.getUserId(),
-                delayedNotificationData.getChannel()))) {
+    // The notification action has to be defined
+    if (delayedNotificationData.getAction() == null) {
       return false;
     }
 
-    // The last conditions
-    return delayedNotificationData.isValid();
+    // The notification priority has to be different from URGENT or ERROR and the action type has to
+    // be set
+    return NotificationParameters.PRIORITY_NORMAL ==
+        delayedNotificationData.getNotificationParameters().getMessagePriority();
   }
 
   /*
@@ -703,10 +777,28 @@ public class DelayedNotificationDelegate extends AbstractNotification {
       throws NotificationServerException {
 
     // Removing Java Strings of the computed message
-    notificationData.setMessage(notificationData.getMessage().replaceAll("[\r\n\t]", ""));
+    notificationData.setMessage(JAVA_STRINGS.matcher(notificationData.getMessage()).replaceAll(""));
 
     // Adding the notification
     NotificationServer notificationServer = NotificationServer.get();
     notificationServer.addNotification(notificationData);
   }
+
+  /**
+   * Centralizes the sending of several notifications at once
+   * @param notificationData
+   * @throws NotificationServerException
+   */
+  protected void sendNotifications(final List<NotificationData> notificationData)
+      throws NotificationServerException {
+
+    // Removing Java Strings of the computed messages
+    for (final NotificationData data : notificationData) {
+      data.setMessage(JAVA_STRINGS.matcher(data.getMessage()).replaceAll(""));
+    }
+
+    // Adding the notifications
+    NotificationServer notificationServer = NotificationServer.get();
+    notificationServer.addNotifications(notificationData);
+  }
 }
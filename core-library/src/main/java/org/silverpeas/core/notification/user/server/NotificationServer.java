@@ -27,8 +27,10 @@ import org.silverpeas.core.notification.system.JMSOperation;
 import org.silverpeas.core.util.ServiceProvider;
 
 import javax.annotation.Resource;
+import javax.jms.JMSProducer;
 import javax.jms.Queue;
 import javax.jms.TextMessage;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -67,6 +69,33 @@ public class NotificationServer {
     return notificationId;
   }
 
+  /**
+   * Adds several notifications at once: they are all sent into the JMS queue with a single JMS
+   * context and producer instead of one per notification.
+   * @param notifications the notification data to send.
+   * @throws NotificationServerException if the sending fails.
+   */
+  public void addNotifications(Collection<NotificationData> notifications)
+      throws NotificationServerException {
+    if (notifications.isEmpty()) {
+      return;
+    }
+    try {
+      JMSOperation.realize(context -> {
+        final JMSProducer producer = context.createProducer();
+        for (NotificationData data : notifications) {
+          data.setNotificationId(0);
+          TextMessage textMsg = context.createTextMessage();
+          textMsg.setText(NotificationServerUtil.convertNotificationDataToXML(data));
+          textMsg.setStringProperty(JMS_HEADER_CHANNEL, data.getTargetChannel());
+          producer.send(queue, textMsg);
+        }
+      });
+    } catch (Exception e) {
+      throw new NotificationServerException(e);
+    }
+  }
+
   /**
    * Send the NotificationMessage in a JMS Queue
    */
@@ -47,6 +47,9 @@ public class MailUtil {
   public static final String SMTP_PASSWORD = "SMTPPwd";
   public static final String SMTP_DEBUG = "SMTPDebug";
   public static final String SMTP_SECURE = "SMTPSecure";
+  public static final String SMTP_SENDER_LANES = "SMTPSenderLanes";
+  public static final String SMTP_CONNECTION_MAX_IDLE_TIME = "SMTPConnectionMaxIdleTime";
+  public static final String SMTP_CONNECTION_MAX_MESSAGES = "SMTPConnectionMaxMessages";
   private static final String mailhost;
   private static final boolean authenticated;
   private static final boolean secure;
@@ -54,6 +57,9 @@ public class MailUtil {
   private static final int port;
   private static final String login;
   private static final String password;
+  private static final int senderLanes;
+  private static final int connectionMaxIdleTime;
+  private static final int connectionMaxMessages;
   private static final String notificationAddress;
   private static final String notificationPersonalName;
   private static final boolean forceReplyToSenderField;
@@ -69,6 +75,9 @@ public class MailUtil {
     password = configuration.getString(SMTP_PASSWORD);
     debug = configuration.getBoolean(SMTP_DEBUG, false);
     secure = configuration.getBoolean(SMTP_SECURE, false);
+    senderLanes = Math.max(1, configuration.getInteger(SMTP_SENDER_LANES, 1));
+    connectionMaxIdleTime = configuration.getInteger(SMTP_CONNECTION_MAX_IDLE_TIME, 30);
+    connectionMaxMessages = configuration.getInteger(SMTP_CONNECTION_MAX_MESSAGES, 100);
     notificationAddress = configuration.getString("NotificationAddress");
     notificationPersonalName = configuration.getString("NotificationPersonalName");
     forceReplyToSenderField = configuration.getBoolean("ForceReplyToSenderField", false);
@@ -160,6 +169,33 @@ public class MailUtil {
     return secure;
   }
 
+  /**
+   * Gets the number of mails that can be sent in parallel, each of them through its own
+   * connection to the SMTP server.
+   * @return the number of lanes of the mail sending, 1 at least.
+   */
+  public static int getSenderLaneCount() {
+    return senderLanes;
+  }
+
+  /**
+   * Gets the time in seconds an opened connection to the SMTP server can stay unused before
+   * being closed.
+   * @return the maximum idle time of a connection in seconds.
+   */
+  public static int getConnectionMaxIdleTime() {
+    return connectionMaxIdleTime;
+  }
+
+  /**
+   * Gets the number of mails that can be sent through a same connection to the SMTP server before
+   * reopening it.
+   * @return the maximum number of mails sent per connection. 0 or less means no limit.
+   */
+  public static int getConnectionMaxMessages() {
+    return connectionMaxMessages;
+  }
+
   private MailUtil() {
   }
 }
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.util;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+import static org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream.UnicodeExtraFieldPolicy.NOT_ENCODEABLE;
+import static org.silverpeas.core.util.Charsets.UTF_8;
+
+/**
+ * A ZIP archive written on the fly into an output stream, for example the one of an HTTP
+ * response. The contents are piped into the archive as the entries are added, without any
+ * temporary file and through buffers of a fixed size, so the memory in use doesn't depend on the
+ * size of the archive. The writes block while the receiver doesn't consume the archive, so a slow
+ * receiver slows down the reading of the contents; if the receiver goes away, the next write
+ * fails with an {@link IOException} that cancels the archiving.
+ * <p>
+ * The contents of the formats that are already compressed (images, videos, archives, office
+ * documents, ...) aren't compressed again. The output stream isn't closed with the archive.
+ * </p>
+ */
+public class StreamingZipArchive implements Closeable {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final Set<String> COMPRESSED_EXTENSIONS = new HashSet<>(Arrays
+      .asList("zip", "gz", "tgz", "bz2", "xz", "7z", "rar", "jar", "war", "ear", "jpg", "jpeg",
+          "png", "gif", "webp", "heic", "mp3", "m4a", "aac", "ogg", "oga", "flac", "wma", "mp4",
+          "m4v", "mov", "avi", "mkv", "webm", "ogv", "wmv", "flv", "docx", "xlsx", "pptx", "odt",
+          "ods", "odp", "odg", "epub"));
+
+  private final OutputStream output;
+  private final ZipArchiveOutputStream zip;
+  private final Set<String> entryNames = new HashSet<>();
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+
+  /**
+   * A writer of the content of an entry.
+   */
+  @FunctionalInterface
+  public interface ContentWriter {
+
+    /**
+     * Writes the content into the specified output stream. The stream doesn't have to be closed.
+     * @param output the output stream of the entry.
+     * @throws IOException if the content cannot be written.
+     */
+    void writeTo(OutputStream output) throws IOException;
+  }
+
+  /**
+   * Opens a ZIP archive written into the specified output stream.
+   * @param output the output stream into which the archive is written.
+   */
+  public StreamingZipArchive(final OutputStream output) {
+    this.output = new BufferedOutputStream(output, BUFFER_SIZE);
+    this.zip = new ZipArchiveOutputStream(new CloseShieldOutputStream(this.output));
+    this.zip.setFallbackToUTF8(true);
+    this.zip.setCreateUnicodeExtraFields(NOT_ENCODEABLE);
+    this.zip.setEncoding(UTF_8.name());
+  }
+
+  /**
+   * Is the specified file in a format that is already compressed?
+   * @param fileName the name of a file.
+   * @return true if the content of the file isn't worth compressing.
+   */
+  public static boolean isCompressedFormat(final String fileName) {
+    return COMPRESSED_EXTENSIONS.contains(FilenameUtils.getExtension(fileName).toLowerCase());
+  }
+
+  /**
+   * Adds the specified file into the archive.
+   * @param name the path of the entry in the archive. If an entry with the same path was already
+   * added, a number is appended to the name of the file.
+   * @param file the file to archive.
+   * @return the actual path of the entry in the archive.
+   * @throws IOException if the file cannot be read or if the archive cannot be written.
+   */
+  public String addEntry(final String name, final File file) throws IOException {
+    try (InputStream in = new FileInputStream(file)) {
+      return addEntry(name, file.lastModified(), in);
+    }
+  }
+
+  /**
+   * Adds an entry with the content read from the specified input stream into the archive. The
+   * input stream isn't closed.
+   * @param name the path of the entry in the archive. If an entry with the same path was already
+   * added, a number is appended to the name of the file.
+   * @param content the content of the entry.
+   * @return the actual path of the entry in the archive.
+   * @throws IOException if the content cannot be read or if the archive cannot be written.
+   */
+  public String addEntry(final String name, final InputStream content) throws IOException {
+    return addEntry(name, System.currentTimeMillis(), content);
+  }
+
+  /**
+   * Adds an entry with the content written by the specified writer into the archive.
+   * @param name the path of the entry in the archive. If an entry with the same path was already
+   * added, a number is appended to the name of the file.
+   * @param writer the writer of the content of the entry.
+   * @return the actual path of the entry in the archive.
+   * @throws IOException if the content cannot be written into the archive.
+   */
+  public String addEntry(final String name, final ContentWriter writer) throws IOException {
+    final String entryName = putEntry(name, System.currentTimeMillis());
+    writer.writeTo(new CloseShieldOutputStream(zip));
+    zip.closeArchiveEntry();
+    return entryName;
+  }
+
+  /**
+   * Writes the end of the archive and flushes it. The output stream isn't closed.
+   * @throws IOException if the archive cannot be written.
+   */
+  @Override
+  public void close() throws IOException {
+    zip.close();
+    output.flush();
+  }
+
+  private String addEntry(final String name, final long time, final InputStream content)
+      throws IOException {
+    final String entryName = putEntry(name, time);
+    IOUtils.copyLarge(content, zip, buffer);
+    zip.closeArchiveEntry();
+    return entryName;
+  }
+
+  private String putEntry(final String name, final long time) throws IOException {
+    final String entryName = uniqueEntryName(FilenameUtils.separatorsToUnix(name));
+    final ZipArchiveEntry entry = new ZipArchiveEntry(entryName);
+    entry.setTime(time);
+    zip.setLevel(isCompressedFormat(entryName) ? Deflater.NO_COMPRESSION :
+        Deflater.DEFAULT_COMPRESSION);
+    zip.putArchiveEntry(entry);
+    return entryName;
+  }
+
+  private String uniqueEntryName(final String name) {
+    String entryName = name;
+    final String path = FilenameUtils.removeExtension(name);
+    final String extension = FilenameUtils.getExtension(name);
+    for (int i = 1; !entryNames.add(entryName); i++) {
+      entryName = path + " (" + i + ")" + (extension.isEmpty() ? "" : "." + extension);
+    }
+    return entryName;
+  }
+}
@@ -46,6 +46,7 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.util.Collection;
 import java.util.Enumeration;
@@ -113,22 +114,30 @@ public class ZipUtil {
    * @throws IOException
    */
   public static long compressPathToZip(File folderToZip, File zipFile) throws IOException {
-    try (ZipArchiveOutputStream zos = new ZipArchiveOutputStream(new FileOutputStream(zipFile))) {
-      zos.setFallbackToUTF8(true);
-      zos.setCreateUnicodeExtraFields(NOT_ENCODEABLE);
-      zos.setEncoding(UTF_8.name());
+    try (OutputStream out = new FileOutputStream(zipFile)) {
+      compressPathToZip(folderToZip, out);
+    }
+    return zipFile.length();
+  }
+
+  /**
+   * Compresses recursively a folder into a ZIP archive that is written on the fly into the
+   * specified output stream. The files of the folder are piped into the stream without any
+   * temporary file. The output stream isn't closed.
+   *
+   * @param folderToZip the folder to compress.
+   * @param out the output stream into which the archive is written.
+   * @throws IOException if a file cannot be read or if the archive cannot be written.
+   * @see StreamingZipArchive
+   */
+  public static void compressPathToZip(File folderToZip, OutputStream out) throws IOException {
+    try (StreamingZipArchive zip = new StreamingZipArchive(out)) {
       Collection<File> folderContent = FileUtils.listFiles(folderToZip, null, true);
       for (File file : folderContent) {
         String entryName = file.getPath().substring(folderToZip.getParent().length() + 1);
-        entryName = FilenameUtils.separatorsToUnix(entryName);
-        zos.putArchiveEntry(new ZipArchiveEntry(entryName));
-        try (InputStream in = new FileInputStream(file)) {
-          IOUtils.copy(in, zos);
-          zos.closeArchiveEntry();
-        }
+        zip.addEntry(entryName, file);
       }
     }
-    return zipFile.length();
   }
 
   /**
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.admin.domain.driver.ldapdriver;
+
+import org.junit.jupiter.api.Test;
+import org.silverpeas.core.test.UnitTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests on the static capabilities of the LDAP driver.
+ */
+@UnitTest
+class LDAPDriverTest {
+
+  /**
+   * Test of getMostRecentTimeStamp method, of class LDAPDriver.
+   */
+  @Test
+  void testGetMostRecentTimeStamp() {
+    assertEquals("20120613133026Z",
+        LDAPDriver.getMostRecentTimeStamp("20120126083305Z", "20120613133026Z"));
+    assertEquals("20120613133026Z", LDAPDriver.getMostRecentTimeStamp(null, "20120613133026Z"));
+    assertEquals("20120613133026Z", LDAPDriver.getMostRecentTimeStamp("20120613133026Z", ""));
+    // the update sequence numbers are compared as numbers
+    assertEquals("12000", LDAPDriver.getMostRecentTimeStamp("9999", "12000"));
+  }
+}
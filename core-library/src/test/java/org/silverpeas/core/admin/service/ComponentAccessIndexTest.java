@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.admin.service;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkMethodChart;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.silverpeas.core.admin.service.cache.AdminCache;
+import org.silverpeas.core.admin.user.model.ProfileInst;
+import org.silverpeas.core.test.UnitTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the component instances available to a user are computed from the in-memory index and
+ * measures the availability checks of a user in 50 groups among 5,000 component instances.
+ */
+@UnitTest
+@BenchmarkMethodChart
+public class ComponentAccessIndexTest {
+
+  private static final int NB_COMPONENTS = 5000;
+  private static final int NB_GROUPS = 50;
+  private static final String USER_ID = "26";
+
+  @Rule
+  public TestRule benchmarkRun = new BenchmarkRule();
+
+  private AdminCache cache;
+  private ComponentInstManager componentManager;
+  private ComponentAccessIndex index;
+  private List<String> groupIds;
+  private List<String> allowedComponentIds;
+
+  @Before
+  public void setup() throws Exception {
+    cache = new AdminCache();
+    componentManager = mock(ComponentInstManager.class);
+    index = new ComponentAccessIndex();
+    FieldUtils.writeField(index, "cache", cache, true);
+    FieldUtils.writeField(index, "componentManager", componentManager, true);
+
+    groupIds = IntStream.range(0, NB_GROUPS).mapToObj(String::valueOf)
+        .collect(Collectors.toList());
+    // 1 public component instance of 20, 1 of 20 to the user and 1 of 100 to each group
+    when(componentManager.getPublicComponentIds()).thenReturn(componentIds(0, 20));
+    when(componentManager.getComponentIdsAvailableToUser(anyInt())).thenReturn(
+        componentIds(1, 20));
+    when(componentManager.getComponentIdsAvailableToGroup(anyString())).thenAnswer(
+        a -> componentIds(2 + Integer.parseInt(a.getArgument(0)), 100));
+    allowedComponentIds = new ArrayList<>(componentIds(0, 20));
+    allowedComponentIds.addAll(componentIds(1, 20));
+    groupIds.forEach(g -> allowedComponentIds.addAll(componentIds(2 + Integer.parseInt(g), 100)));
+  }
+
+  @Test
+  public void theAllowedComponentsShouldBeTheUnionOfThePublicOnesAndOfTheUserAndGroupsOnes()
+      throws Exception {
+    final List<String> actual = index.getAllowedComponentIds(USER_ID, null, u -> groupIds);
+    assertThat(actual, containsInAnyOrder(allowedComponentIds.stream().distinct().toArray()));
+    assertThat(index.isAvailable("kmelia" + 2, USER_ID, u -> groupIds), is(true));
+    assertThat(index.isAvailable("blog" + 2, USER_ID, u -> groupIds), is(false));
+    assertThat(index.isAvailable("kmelia" + 99, USER_ID, u -> groupIds), is(false));
+
+    index.isAvailable("kmelia" + 20, USER_ID, u -> groupIds);
+    verify(componentManager, times(1)).getPublicComponentIds();
+    verify(componentManager, times(NB_GROUPS)).getComponentIdsAvailableToGroup(anyString());
+  }
+
+  @Test
+  public void aProfileChangeShouldRecomputeOnlyTheBitsOfItsMembers() throws Exception {
+    index.isAvailable("kmelia" + 2, USER_ID, u -> groupIds);
+    final ProfileInst profile = new ProfileInst();
+    profile.setId("5");
+    profile.addGroup("3");
+    cache.opAddProfile(profile);
+
+    index.isAvailable("kmelia" + 2, USER_ID, u -> groupIds);
+    verify(componentManager, times(1)).getPublicComponentIds();
+    verify(componentManager, times(1)).getComponentIdsAvailableToUser(anyInt());
+    verify(componentManager, times(NB_GROUPS + 1)).getComponentIdsAvailableToGroup(anyString());
+  }
+
+  @Test
+  public void aRemovedComponentShouldBeForgotten() throws Exception {
+    assertThat(index.isAvailable("kmelia" + 20, USER_ID, u -> groupIds), is(true));
+    final Map<?, ?> componentIds = (Map<?, ?>) FieldUtils.readField(index, "componentIds", true);
+    final int nbComponentIds = componentIds.size();
+
+    index.remove("kmelia" + 20);
+    assertThat(componentIds.size(), is(nbComponentIds - 1));
+    assertThat(index.isAvailable("kmelia" + 20, USER_ID, u -> groupIds), is(false));
+    assertThat(index.getAllowedComponentIds(USER_ID, null, u -> groupIds),
+        not(hasItem("kmelia" + 20)));
+
+    index.remove("kmelia" + 99);
+    assertThat(componentIds.size(), is(nbComponentIds - 1));
+  }
+
+  @Test
+  @BenchmarkOptions(benchmarkRounds = 100000, warmupRounds = 1000)
+  public void benchmarkIsComponentAvailableToUser() throws Exception {
+    final int localId = ThreadLocalRandom.current().nextInt(NB_COMPONENTS);
+    index.isAvailable("kmelia" + localId, USER_ID, u -> groupIds);
+  }
+
+  @Test
+  @BenchmarkOptions(benchmarkRounds = 100000, warmupRounds = 1000)
+  public void benchmarkLookupInTheListOfAllowedComponentsAsBefore() {
+    // the previous implementation looked up the list of the available component instances
+    // after having computed it with SQL queries at each call
+    final int localId = ThreadLocalRandom.current().nextInt(NB_COMPONENTS);
+    allowedComponentIds.contains("kmelia" + localId);
+  }
+
+  private static List<String> componentIds(final int first, final int step) {
+    return IntStream.iterate(first, i -> i + step)
+        .limit(NB_COMPONENTS / step)
+        .mapToObj(i -> "kmelia" + i)
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.admin.service.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.silverpeas.core.admin.component.model.ComponentInst;
+import org.silverpeas.core.admin.user.model.GroupDetail;
+import org.silverpeas.core.admin.user.model.ProfileInst;
+import org.silverpeas.core.test.UnitTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Unit tests about the invalidation of the rights cached by the {@link AdminCache}.
+ */
+@UnitTest
+class AdminCacheTest {
+
+  private AdminCache cache;
+  private AtomicInteger computations;
+
+  @BeforeEach
+  void setup() {
+    cache = new AdminCache();
+    computations = new AtomicInteger(0);
+  }
+
+  @Test
+  void aChangeOnAUserShouldInvalidateOnlyTheRightsOfThisUser() throws Exception {
+    profileIdsOf("1", "G1");
+    profileIdsOf("2", "G1");
+    assertThat(computations.get(), is(2));
+
+    cache.opAddUserInGroup("1");
+    profileIdsOf("1", "G1");
+    profileIdsOf("2", "G1");
+    assertThat(computations.get(), is(3));
+    assertThat(statisticsOf("profileIds").getEvictions(), is(1L));
+  }
+
+  @Test
+  void aChangeOnAGroupShouldInvalidateTheRightsOfItsUsers() throws Exception {
+    profileIdsOf("1", "G1");
+    profileIdsOf("2", "G2");
+    availCompoIdsOf(5, "1", "G1");
+
+    final GroupDetail group = new GroupDetail();
+    group.setId("G1");
+    group.setUserIds(new String[]{"3"});
+    cache.opUpdateGroup(group);
+
+    profileIdsOf("1", "G1");
+    profileIdsOf("2", "G2");
+    availCompoIdsOf(5, "1", "G1");
+    assertThat(computations.get(), is(5));
+  }
+
+  @Test
+  void aChangeOnAProfileShouldInvalidateTheRightsOfItsMembersOnly() throws Exception {
+    profileIdsOf("1", "G1");
+    profileIdsOf("2", "G2");
+    profileIdsOf("3", "G3");
+
+    final ProfileInst profile = new ProfileInst();
+    profile.setId("7");
+    profile.setComponentFatherId(12);
+    profile.addUser("1");
+    profile.addGroup("G2");
+    cache.opAddProfile(profile);
+
+    profileIdsOf("1", "G1");
+    profileIdsOf("2", "G2");
+    profileIdsOf("3", "G3");
+    assertThat(computations.get(), is(5));
+  }
+
+  @Test
+  void aComponentChangeShouldInvalidateTheAvailableComponentsOfItsSpaceAndOfItsParents()
+      throws Exception {
+    availCompoIdsOf(1, "1", "G1", 1, 2);
+    availCompoIdsOf(2, "1", "G1", 2);
+    availCompoIdsOf(3, "1", "G1", 3);
+
+    final ComponentInst component = new ComponentInst();
+    component.setLocalId(20);
+    component.setDomainFatherId("2");
+    cache.opAddComponent(component);
+
+    availCompoIdsOf(1, "1", "G1", 1, 2);
+    availCompoIdsOf(2, "1", "G1", 2);
+    availCompoIdsOf(3, "1", "G1", 3);
+    assertThat(computations.get(), is(5));
+  }
+
+  @Test
+  void concurrentComputationsOfTheSameEntryShouldBeCoalesced() throws Exception {
+    final int nbThreads = 16;
+    final CountDownLatch computing = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newFixedThreadPool(nbThreads);
+    final List<Future<String[]>> results = new ArrayList<>();
+    try {
+      for (int i = 0; i < nbThreads; i++) {
+        results.add(executor.submit(() -> cache.getProfileIds("1", d -> {
+          computations.incrementAndGet();
+          await(computing);
+          return new String[]{"profile"};
+        })));
+      }
+      Thread.sleep(200);
+      computing.countDown();
+      for (Future<String[]> result : results) {
+        assertThat(result.get(5, TimeUnit.SECONDS), arrayContaining("profile"));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThat(computations.get(), is(1));
+  }
+
+  @Test
+  void aValueComputedDuringAnInvalidationShouldNotBeCached() throws Exception {
+    cache.getProfileIds("1", d -> {
+      computations.incrementAndGet();
+      d.onGroups(singletonList("G1"));
+      cache.opAddUserInGroup("2");
+      return new String[]{"stale"};
+    });
+    profileIdsOf("1", "G1");
+    assertThat(computations.get(), is(2));
+  }
+
+  @Test
+  void statisticsShouldCountHitsAndMisses() throws Exception {
+    profileIdsOf("1", "G1");
+    profileIdsOf("1", "G1");
+    profileIdsOf("1", "G1");
+    final CacheRegionStatistics statistics = statisticsOf("profileIds");
+    assertThat(statistics.getMisses(), is(1L));
+    assertThat(statistics.getHits(), is(2L));
+    assertThat(statistics.getSize(), is(1));
+  }
+
+  private String[] profileIdsOf(final String userId, final String groupId) throws Exception {
+    return cache.getProfileIds(userId, d -> {
+      computations.incrementAndGet();
+      d.onGroups(singletonList(groupId));
+      return new String[]{"profile_" + userId};
+    });
+  }
+
+  private String[] availCompoIdsOf(final int spaceId, final String userId, final String groupId,
+      final Integer... spaceIds) throws Exception {
+    return cache.getAvailCompoIds(spaceId, userId, d -> {
+      computations.incrementAndGet();
+      d.onGroups(singletonList(groupId)).onSpaces(
+          spaceIds.length == 0 ? singletonList(spaceId) : asList(spaceIds));
+      return new String[]{"component_" + spaceId};
+    });
+  }
+
+  private CacheRegionStatistics statisticsOf(final String region) {
+    return cache.getStatistics().stream()
+        .filter(s -> s.getRegion().equals(region))
+        .findFirst()
+        .orElseThrow(IllegalStateException::new);
+  }
+
+  private static void await(final CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -229,6 +229,37 @@ public class CalendarEventOccurrenceGenerationTest {
     assertThat(occurrence.getEndDate(), is(dateTimeInUTC(2016, 7, 29, 9, 15)));
   }
 
+  @Test
+  public void streamOfEventOccurrencesSinceAGivenDateShouldBeMergedByStartDate() {
+    final List<CalendarEvent> events = calendarEventsForTest();
+    final List<CalendarEventOccurrence> expected =
+        generator.generateOccurrencesOf(events, in(Year.of(2016)));
+    final List<CalendarEventOccurrence> occurrences = generator
+        .streamOccurrencesOf(events, ZonedDateTime.of(2016, 1, 1, 0, 0, 0, 0, UTC_ZONE_ID))
+        .limit(expected.size())
+        .collect(Collectors.toList());
+    assertThat(occurrences.size(), is(expected.size()));
+    for (int i = 0; i < expected.size(); i++) {
+      assertThat(occurrences.get(i).getStartDate(), is(expected.get(i).getStartDate()));
+      assertThat(occurrences.get(i).getEndDate(), is(expected.get(i).getEndDate()));
+    }
+  }
+
+  @Test
+  public void streamOfEventOccurrencesShouldStartWithTheOccurrencesNotYetEnded() {
+    final List<CalendarEventOccurrence> occurrences = generator
+        .streamOccurrencesOf(calendarEventsForTest(),
+            ZonedDateTime.of(2016, 7, 15, 0, 0, 0, 0, UTC_ZONE_ID))
+        .limit(2)
+        .collect(Collectors.toList());
+    assertThat(occurrences.get(0).getCalendarEvent().getAttributes().get(ATTR_TEST_ID).get(),
+        is("4"));
+    assertThat(occurrences.get(0).getStartDate(), is(date(2016, 7, 11)));
+    assertThat(occurrences.get(1).getCalendarEvent().getAttributes().get(ATTR_TEST_ID).get(),
+        is("3"));
+    assertThat(occurrences.get(1).getStartDate(), is(dateTimeInUTC(2016, 7, 29, 9, 0)));
+  }
+
   @Test
   public void nextOccurrenceAboutNonRecurrentOneDayEventShouldWork() {
     CalendarEvent event =
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.contribution.attachment.repository;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkMethodChart;
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+import org.junit.rules.TestRule;
+import org.silverpeas.core.test.UnitTest;
+import org.silverpeas.core.test.rule.CommonAPI4Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.silverpeas.core.contribution.attachment.repository.AttachmentContentStoreTest.ATTACHMENT_COUNT;
+
+/**
+ * Measures the copy of the contents of a component instance with 10,000 attachments by linking
+ * them onto the content-addressable store and, as before, by copying them. The first round of
+ * the copy with the store shares the contents of the source into the store; the next rounds only
+ * link them, as for the copies of already stored attachments.
+ */
+@UnitTest
+@BenchmarkMethodChart
+@BenchmarkOptions(benchmarkRounds = 5, warmupRounds = 1)
+public class AttachmentContentStoreBenchmarkTest {
+
+  private static Path uploads;
+  private static Path source;
+  private static final AtomicInteger copies = new AtomicInteger(0);
+
+  private final CommonAPI4Test commonAPI4Test = new CommonAPI4Test();
+
+  @Rule
+  public TestRule rules = RuleChain.outerRule(commonAPI4Test).around(new BenchmarkRule());
+
+  @BeforeClass
+  public static void createAttachments() throws IOException {
+    uploads = Files.createTempDirectory("uploads");
+    source = uploads.resolve("kmelia1");
+    final byte[] content = new byte[4096];
+    for (int i = 0; i < ATTACHMENT_COUNT; i++) {
+      content[i % content.length]++;
+      final Path file = source.resolve("simpledoc_" + i + "/0_0/fr/file.bin");
+      Files.createDirectories(file.getParent());
+      Files.write(file, content);
+    }
+  }
+
+  @AfterClass
+  public static void deleteUploads() {
+    FileUtils.deleteQuietly(uploads.toFile());
+  }
+
+  @Test
+  public void benchmarkCopyByLinkingOntoTheStore() throws IOException {
+    final AttachmentContentStore store =
+        new AttachmentContentStore(uploads.resolve(AttachmentContentStore.STORE_DIRECTORY), true);
+    assertThat("hard links must be supported by the file system", store.isEnabled(), is(true));
+    copyWith(store);
+  }
+
+  @Test
+  public void benchmarkCopyOfTheContentsAsBefore() throws IOException {
+    copyWith(
+        new AttachmentContentStore(uploads.resolve(AttachmentContentStore.STORE_DIRECTORY), false));
+  }
+
+  private void copyWith(final AttachmentContentStore store) throws IOException {
+    final Path target = uploads.resolve("kmelia" + (copies.incrementAndGet() + 1));
+    store.copyDirectory(source.toFile(), target.toFile());
+    assertThat(Files.isRegularFile(target.resolve("simpledoc_42/0_0/fr/file.bin")), is(true));
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.contribution.attachment.repository;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.silverpeas.core.test.extention.EnableSilverTestEnv;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit tests on the content-addressable store of the attachment contents.
+ */
+@EnableSilverTestEnv
+class AttachmentContentStoreTest {
+
+  static final int ATTACHMENT_COUNT = 10000;
+
+  private Path uploads;
+  private AttachmentContentStore store;
+
+  @BeforeEach
+  void createStore() throws IOException {
+    uploads = Files.createTempDirectory("uploads");
+    store = new AttachmentContentStore(uploads.resolve(AttachmentContentStore.STORE_DIRECTORY),
+        true);
+    assertThat("hard links must be supported by the file system", store.isEnabled(), is(true));
+  }
+
+  @AfterEach
+  void deleteUploads() {
+    FileUtils.deleteQuietly(uploads.toFile());
+  }
+
+  @Test
+  void identicalContentsAreStoredOnce() throws IOException {
+    final Path first = createAttachment("kmelia1/simpledoc_1/0_0/fr/a.txt", "content");
+    final Path second = createAttachment("kmelia2/simpledoc_2/0_0/fr/b.txt", "content");
+    final Path other = createAttachment("kmelia2/simpledoc_3/0_0/fr/b.txt", "other content");
+    store.share(first);
+    store.share(second);
+    store.share(other);
+    assertThat(Files.isSameFile(first, second), is(true));
+    assertThat(Files.isSameFile(first, other), is(false));
+    assertThat(contentOf(second), is("content"));
+
+    final AttachmentContentStore.Report report = store.verify();
+    assertThat(report.getBlobs(), is(2));
+    assertThat(report.getStoredSize(), is((long) ("content".length() + "other content".length())));
+    assertThat(report.getCorruptedBlobs(), empty());
+  }
+
+  @Test
+  void copiesAreLinksOntoTheSameContent() throws IOException {
+    final Path source = uploads.resolve("kmelia1/simpledoc_1");
+    createAttachment("kmelia1/simpledoc_1/0_0/fr/a.txt", "content in french");
+    createAttachment("kmelia1/simpledoc_1/0_0/en/a.txt", "content in english");
+    final Path target = uploads.resolve("kmelia1/simpledoc_2");
+    store.copyDirectory(source.toFile(), target.toFile());
+    assertThat(Files.isSameFile(source.resolve("0_0/fr/a.txt"), target.resolve("0_0/fr/a.txt")),
+        is(true));
+    assertThat(Files.isSameFile(source.resolve("0_0/en/a.txt"), target.resolve("0_0/en/a.txt")),
+        is(true));
+    assertThat(contentOf(target.resolve("0_0/en/a.txt")), is("content in english"));
+  }
+
+  @Test
+  void replacingTheContentOfACopyDoesNotModifyTheOriginal() throws IOException {
+    final Path original = createAttachment("kmelia1/simpledoc_1/0_0/fr/a.txt", "content");
+    final Path copy = uploads.resolve("kmelia1/simpledoc_2/0_0/fr/a.txt");
+    Files.createDirectories(copy.getParent());
+    store.copy(original, copy);
+    Files.deleteIfExists(copy);
+    Files.write(copy, "new content".getBytes(StandardCharsets.UTF_8));
+    store.share(copy);
+    assertThat(contentOf(original), is("content"));
+    assertThat(contentOf(copy), is("new content"));
+  }
+
+  @Test
+  void contentsAreCopiedWhenTheStoreIsDisabled() throws IOException {
+    final AttachmentContentStore disabledStore =
+        new AttachmentContentStore(uploads.resolve(AttachmentContentStore.STORE_DIRECTORY), false);
+    final Path original = createAttachment("kmelia1/simpledoc_1/0_0/fr/a.txt", "content");
+    final Path copy = uploads.resolve("kmelia1/simpledoc_2/0_0/fr/a.txt");
+    disabledStore.copy(original, copy);
+    assertThat(disabledStore.isEnabled(), is(false));
+    assertThat(Files.isSameFile(original, copy), is(false));
+    assertThat(contentOf(copy), is("content"));
+  }
+
+  @Test
+  void migrationSharesOnlyTheContentsOfTheDocuments() throws IOException {
+    final Path first = createAttachment("kmelia1/simpledoc_1/0_0/fr/a.txt", "content");
+    final Path second = createAttachment("kmelia1/simpledoc_2/1_0/fr/a.txt", "content");
+    final Path notAnAttachment = createAttachment("kmelia1/images/a.txt", "content");
+    final AttachmentContentStore.Report report = store.migrate(uploads);
+    assertThat(report.getSharedFiles(), is(2));
+    assertThat(Files.isSameFile(first, second), is(true));
+    assertThat(Files.isSameFile(first, notAnAttachment), is(false));
+
+    assertThat(store.migrate(uploads).getSharedFiles(), is(0));
+  }
+
+  @Test
+  void verificationPurgesOrphanedBlobsAndReportsCorruptedOnes() throws IOException {
+    final Path deleted = createAttachment("kmelia1/simpledoc_1/0_0/fr/a.txt", "deleted");
+    final Path corrupted = createAttachment("kmelia1/simpledoc_2/0_0/fr/a.txt", "corrupted");
+    final Path kept = createAttachment("kmelia1/simpledoc_3/0_0/fr/a.txt", "kept");
+    store.migrate(uploads);
+    Files.delete(deleted);
+    Files.write(corrupted, "modified in place".getBytes(StandardCharsets.UTF_8));
+
+    final AttachmentContentStore.Report report = store.verify();
+    assertThat(report.getPurgedBlobs(), is(1));
+    assertThat(report.getBlobs(), is(2));
+    assertThat(report.getCorruptedBlobs(), hasSize(1));
+    assertThat(contentOf(kept), is("kept"));
+  }
+
+  @Test
+  void copyOfManyAttachments() throws IOException {
+    final Path source = uploads.resolve("kmelia1");
+    final byte[] content = new byte[4096];
+    for (int i = 0; i < ATTACHMENT_COUNT; i++) {
+      content[i % content.length]++;
+      final Path file = source.resolve("simpledoc_" + i + "/0_0/fr/file.bin");
+      Files.createDirectories(file.getParent());
+      Files.write(file, content);
+    }
+
+    store.copyDirectory(source.toFile(), uploads.resolve("kmelia3").toFile());
+    // the second copy links the already shared files
+    store.copyDirectory(source.toFile(), uploads.resolve("kmelia4").toFile());
+
+    try (Stream<Path> copies = Files.walk(uploads.resolve("kmelia4"))) {
+      assertThat(copies.filter(Files::isRegularFile).count(), is((long) ATTACHMENT_COUNT));
+    }
+    final Path file = Paths.get("simpledoc_42", "0_0", "fr", "file.bin");
+    assertThat(Files.isSameFile(source.resolve(file), uploads.resolve("kmelia4").resolve(file)),
+        is(true));
+    assertThat(store.verify().getBlobs(), is(ATTACHMENT_COUNT));
+  }
+
+  private Path createAttachment(final String path, final String content) throws IOException {
+    final Path file = uploads.resolve(path);
+    Files.createDirectories(file.getParent());
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+  private String contentOf(final Path file) throws IOException {
+    return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.silverpeas.core.contribution.publication.service;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.silverpeas.core.contribution.publication.service.PublicationDistribution.Publication;
+import org.silverpeas.core.node.dao.NodeDAO;
+import org.silverpeas.core.node.model.NodeDetail;
+import org.silverpeas.core.node.model.NodePK;
+import org.silverpeas.core.persistence.Transaction;
+import org.silverpeas.core.test.extention.EnableSilverTestEnv;
+import org.silverpeas.core.test.extention.TestManagedMock;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionManager;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests on the invalidation of the publications counted by the {@link PublicationCounters}.
+ * The publications are loaded from an in-memory table of their folders instead of the database.
+ */
+@EnableSilverTestEnv
+class PublicationCountersTest {
+
+  private static final String KMELIA1 = "kmelia1";
+  private static final String KMELIA2 = "kmelia2";
+  private static final String VALID = "Valid";
+
+  /**
+   * The folders of the publications: the identifier of the publication, the component instance
+   * and the identifier of the folder.
+   */
+  private final List<String[]> fathers = new ArrayList<>();
+  private final Connection connection = mock(Connection.class);
+  private Transaction transaction;
+  private PublicationCounters counters;
+
+  /**
+   * In each component instance, the tree: 0 (root) with the children 1 and 2.
+   */
+  @BeforeEach
+  void setUp(@TestManagedMock Transaction transaction) throws Exception {
+    this.transaction = transaction;
+    when(transaction.getStatus()).thenReturn(Status.STATUS_NO_TRANSACTION);
+    final NodeDAO nodeDAO = mock(NodeDAO.class);
+    final Map<String, List<NodeDetail>> trees = new HashMap<>();
+    when(nodeDAO.getTree(any(Connection.class), any(NodePK.class))).thenAnswer(invocation -> {
+      final NodePK nodePK = invocation.getArgument(1);
+      return trees.computeIfAbsent(nodePK.getInstanceId(), i -> tree());
+    });
+    counters = new PublicationCounters() {
+      @Override
+      Map<String, Publication> loadPublications(final Connection con, final String instanceId,
+          final Collection<String> pubIds) {
+        final Map<String, Publication> publications = new HashMap<>();
+        fathers.stream()
+            .filter(f -> f[1].equals(instanceId) && (pubIds == null || pubIds.contains(f[0])))
+            .forEach(f -> publications.computeIfAbsent(f[0],
+                i -> new Publication(VALID, true, null, null, null, null)).in(f[2]));
+        return publications;
+      }
+    };
+    FieldUtils.writeField(counters, "nodeDAO", nodeDAO, true);
+
+    fathers.add(new String[]{"10", KMELIA1, "1"});
+    fathers.add(new String[]{"11", KMELIA1, "1"});
+    fathers.add(new String[]{"12", KMELIA1, "2"});
+  }
+
+  @Test
+  void aMovedPublicationIsCountedInItsNewFolder() throws Exception {
+    assertThat(countIn(KMELIA1, "1"), is(2));
+    assertThat(countIn(KMELIA2, "2"), is(0));
+
+    // move into another folder of the same instance
+    moveInto("10", KMELIA1, "2");
+    counters.invalidate("10", KMELIA1);
+    assertThat(countIn(KMELIA1, "1"), is(1));
+    assertThat(countIn(KMELIA1, "2"), is(2));
+
+    // move into another instance
+    moveInto("10", KMELIA2, "2");
+    counters.invalidate("10", KMELIA1, KMELIA2);
+    assertThat(countIn(KMELIA1, "2"), is(1));
+    assertThat(countIn(KMELIA2, "2"), is(1));
+    assertThat(counters.getNbVisiblePubInSubtree(connection, new NodePK("0", KMELIA1)), is(2));
+    assertThat(counters.getNbVisiblePubInSubtree(connection, new NodePK("0", KMELIA2)), is(1));
+  }
+
+  @Test
+  void aRemovedPublicationIsNotCountedAnymore() throws Exception {
+    assertThat(countIn(KMELIA1, "1"), is(2));
+
+    fathers.removeIf(f -> f[0].equals("11"));
+    counters.invalidate("11", KMELIA1);
+    assertThat(countIn(KMELIA1, "1"), is(1));
+    assertThat(counters.getNbVisiblePubInSubtree(connection, new NodePK("0", KMELIA1)), is(2));
+  }
+
+  @Test
+  void aPublicationIsCountedInAllOfItsFolders() throws Exception {
+    assertThat(countIn(KMELIA1, "2"), is(1));
+
+    fathers.add(new String[]{"10", KMELIA1, "2"});
+    counters.invalidate("10", KMELIA1);
+    assertThat(countIn(KMELIA1, "1"), is(2));
+    assertThat(countIn(KMELIA1, "2"), is(2));
+
+    fathers.removeIf(f -> f[0].equals("10") && f[2].equals("1"));
+    counters.invalidate("10", KMELIA1);
+    assertThat(countIn(KMELIA1, "1"), is(1));
+    assertThat(countIn(KMELIA1, "2"), is(2));
+  }
+
+  @Test
+  void aPublicationIsInvalidatedAgainWhenItsTransactionIsRolledBack() throws Exception {
+    final TransactionManager transactionManager = mock(TransactionManager.class);
+    final javax.transaction.Transaction currentTransaction =
+        mock(javax.transaction.Transaction.class);
+    when(transaction.getTransactionManager()).thenReturn(transactionManager);
+    when(transactionManager.getTransaction()).thenReturn(currentTransaction);
+    assertThat(countIn(KMELIA1, "1"), is(2));
+
+    // the not yet committed move is read concurrently
+    when(transaction.getStatus()).thenReturn(Status.STATUS_ACTIVE);
+    moveInto("10", KMELIA1, "2");
+    counters.invalidate("10", KMELIA1);
+    final ArgumentCaptor<Synchronization> synchronization =
+        ArgumentCaptor.forClass(Synchronization.class);
+    verify(currentTransaction).registerSynchronization(synchronization.capture());
+    assertThat(countIn(KMELIA1, "1"), is(1));
+
+    // the move is rolled back
+    moveInto("10", KMELIA1, "1");
+    synchronization.getValue().afterCompletion(Status.STATUS_ROLLEDBACK);
+    assertThat(countIn(KMELIA1, "1"), is(2));
+    assertThat(countIn(KMELIA1, "2"), is(1));
+  }
+
+  private int countIn(final String instanceId, final String folderId) throws Exception {
+    return counters.getDistributionTree(connection, instanceId, null, true).get(folderId);
+  }
+
+  private void moveInto(final String pubId, final String instanceId, final String folderId) {
+    fathers.removeIf(f -> f[0].equals(pubId));
+    fathers.add(new String[]{pubId, instanceId, folderId});
+  }
+
+  private static List<NodeDetail> tree() {
+    final List<NodeDetail> tree = new ArrayList<>();
+    tree.add(new NodeDetail("0", "root", "", 1, "-1"));
+    tree.add(new NodeDetail("1", "folder 1", "", 2, "0"));
+    tree.add(new NodeDetail("2", "folder 2", "", 2, "0"));
+    return tree;
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.contribution.publication.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.silverpeas.core.contribution.publication.service.PublicationDistribution.Publication;
+import org.silverpeas.core.node.model.NodeDetail;
+import org.silverpeas.core.test.UnitTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit tests on the counting of the publications in a tree of folders.
+ */
+@UnitTest
+class PublicationDistributionTest {
+
+  private static final String NOW = "2020/06/15 10:30";
+  private static final String VALID = "Valid";
+  private static final String DRAFT = "Draft";
+
+  private List<NodeDetail> tree;
+  private PublicationDistribution distribution;
+
+  /**
+   * The tree: 0 (root) with the children 1 and 2, 1 with the child 3, 3 with the child 4.
+   */
+  @BeforeEach
+  void createTree() {
+    tree = new ArrayList<>();
+    tree.add(new NodeDetail("0", "root", "", 1, "-1"));
+    tree.add(new NodeDetail("1", "folder 1", "", 2, "0"));
+    tree.add(new NodeDetail("2", "folder 2", "", 2, "0"));
+    tree.add(new NodeDetail("3", "folder 3", "", 3, "1"));
+    tree.add(new NodeDetail("4", "folder 4", "", 4, "3"));
+    distribution = new PublicationDistribution(tree);
+  }
+
+  @Test
+  void publicationsAreCountedPerFolderAndPerSubtree() {
+    distribution.put("10", visible(VALID).in("3"), NOW);
+    distribution.put("11", visible(VALID).in("4").in("2"), NOW);
+    distribution.put("12", visible(DRAFT).in("1"), NOW);
+
+    final Map<String, Integer> all = distribution.getDistribution(null, true, NOW);
+    assertThat(all.keySet(), containsInAnyOrder("0", "1", "2", "3", "4"));
+    assertThat(all.get("0"), is(0));
+    assertThat(all.get("1"), is(1));
+    assertThat(all.get("2"), is(1));
+    assertThat(all.get("3"), is(1));
+    assertThat(all.get("4"), is(1));
+
+    final Map<String, Integer> valid =
+        distribution.getDistribution(Collections.singletonList(VALID), true, NOW);
+    assertThat(valid.get("1"), is(0));
+    assertThat(valid.get("3"), is(1));
+
+    assertThat(distribution.countVisibleInSubtree("0", NOW), is(4));
+    assertThat(distribution.countVisibleInSubtree("1", NOW), is(3));
+    assertThat(distribution.countVisibleInSubtree("3", NOW), is(2));
+    assertThat(distribution.countVisibleInSubtree("2", NOW), is(1));
+  }
+
+  @Test
+  void aliasesAreCountedInTheFoldersButNotInTheSubtrees() {
+    distribution.put("10", new Publication(VALID, false, null, null, null, null).in("3"), NOW);
+    assertThat(distribution.getDistribution(null, true, NOW).get("3"), is(1));
+    assertThat(distribution.countVisibleInSubtree("3", NOW), is(0));
+  }
+
+  @Test
+  void movedAndRemovedPublicationsAreNotCountedAnymoreInTheirPreviousFolders() {
+    distribution.put("10", visible(VALID).in("4"), NOW);
+    distribution.put("10", visible(VALID).in("2"), NOW);
+    assertThat(distribution.getDistribution(null, false, NOW).get("4"), is(0));
+    assertThat(distribution.countVisibleInSubtree("1", NOW), is(0));
+    assertThat(distribution.countVisibleInSubtree("0", NOW), is(1));
+
+    distribution.put("10", visible(DRAFT).in("2"), NOW);
+    assertThat(distribution.getDistribution(Collections.singletonList(VALID), false, NOW)
+        .get("2"), is(0));
+
+    distribution.remove("10");
+    assertThat(distribution.contains("10"), is(false));
+    assertThat(distribution.getDistribution(null, false, NOW).get("2"), is(0));
+    assertThat(distribution.countVisibleInSubtree("0", NOW), is(0));
+  }
+
+  @Test
+  void visibilityPeriodsAreAppliedAsTheTimeGoesBy() {
+    distribution.put("10",
+        new Publication(VALID, true, "2020/06/15", "11:00", "2020/06/20", "08:00").in("4"), NOW);
+    distribution.put("11",
+        new Publication(VALID, true, "2020/06/01", "00:00", "2020/06/15", "12:00").in("4"), NOW);
+    distribution.put("12",
+        new Publication(VALID, true, "2020/07/01", "00:00", "2020/06/01", "00:00").in("4"), NOW);
+
+    assertThat(distribution.countVisibleInSubtree("0", NOW), is(1));
+    assertThat(distribution.getDistribution(null, false, NOW).get("4"), is(3));
+
+    // the visibility period of 10 begins after 11:00
+    assertThat(distribution.countVisibleInSubtree("0", "2020/06/15 11:00"), is(1));
+    assertThat(distribution.countVisibleInSubtree("0", "2020/06/15 11:01"), is(2));
+    // the visibility period of 11 ends at 12:00
+    assertThat(distribution.countVisibleInSubtree("0", "2020/06/15 11:59"), is(2));
+    assertThat(distribution.countVisibleInSubtree("0", "2020/06/15 12:00"), is(1));
+    assertThat(distribution.getDistribution(null, true, "2020/06/19 00:00").get("4"), is(1));
+    assertThat(distribution.getDistribution(null, true, "2020/06/20 08:00").get("4"), is(0));
+    assertThat(distribution.getDistribution(null, false, "2020/06/20 08:00").get("4"), is(3));
+  }
+
+  @Test
+  void aDistributionIsComputedOnlyOnItsTree() {
+    assertThat(distribution.isComputedOn(tree), is(true));
+    assertThat(distribution.isComputedOn(new ArrayList<>(tree)), is(false));
+  }
+
+  @Test
+  void countingInABigTree() {
+    final int folderCount = 8000;
+    final List<NodeDetail> bigTree = new ArrayList<>(folderCount);
+    bigTree.add(new NodeDetail("0", "root", "", 1, "-1"));
+    for (int i = 1; i < folderCount; i++) {
+      bigTree.add(new NodeDetail(String.valueOf(i), "folder " + i, "", 2, String.valueOf(i / 10)));
+    }
+    final PublicationDistribution bigDistribution = new PublicationDistribution(bigTree);
+    for (int i = 0; i < folderCount * 10; i++) {
+      final String day = String.format("%02d", 1 + i % 28);
+      bigDistribution.put(String.valueOf(i),
+          new Publication(VALID, true, "2020/06/" + day, "00:00", null, null)
+              .in(String.valueOf(i % folderCount)), NOW);
+    }
+
+    final Map<String, Integer> all =
+        bigDistribution.getDistribution(Arrays.asList(VALID, DRAFT), false, NOW);
+    assertThat(all.size(), is(folderCount));
+    assertThat(all.get("1"), is(10));
+    final int visibleNow = bigDistribution.countVisibleInSubtree("0", NOW);
+    final int visibleLater = bigDistribution.countVisibleInSubtree("0", "2020/07/01 00:00");
+    assertThat(visibleNow, both(greaterThan(0)).and(lessThan(folderCount * 10)));
+    assertThat(visibleLater, is(folderCount * 10));
+  }
+
+  private static Publication visible(final String status) {
+    return new Publication(status, true, null, null, null, null);
+  }
+}
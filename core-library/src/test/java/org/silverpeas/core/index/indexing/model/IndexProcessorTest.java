@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.index.indexing.model;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkMethodChart;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.TestRule;
+import org.silverpeas.core.index.search.model.ParseException;
+import org.silverpeas.core.test.UnitTest;
+import org.silverpeas.core.test.rule.CommonAPI4Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Measures the throughput of the searches performed concurrently on the same index, with an
+ * increasing number of threads. As the searches aren't blocking each others, the time spent by a
+ * search has not to increase with the concurrency.
+ * @author silveryocha
+ */
+@UnitTest
+@BenchmarkMethodChart
+public class IndexProcessorTest {
+
+  private static final int NB_DOCUMENTS = 1000;
+
+  @ClassRule
+  public static TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private static String indexPath;
+
+  @Rule
+  public CommonAPI4Test commonAPI4Test = new CommonAPI4Test();
+
+  @Rule
+  public TestRule benchmarkRun = new BenchmarkRule();
+
+  @BeforeClass
+  public static void createIndex() throws IOException {
+    final File indexDir = temporaryFolder.newFolder("kmelia1", "index");
+    indexPath = indexDir.getPath();
+    try (IndexWriter writer = new IndexWriter(FSDirectory.open(indexDir.toPath()),
+        new IndexWriterConfig(new StandardAnalyzer()))) {
+      for (int i = 0; i < NB_DOCUMENTS; i++) {
+        final Document doc = new Document();
+        doc.add(new StringField(IndexManager.KEY, "kmelia1|Publication|" + i, Field.Store.YES));
+        writer.addDocument(doc);
+      }
+    }
+  }
+
+  @AfterClass
+  public static void closeReaders() {
+    IndexReadersCache.closeAllIndexReaders();
+  }
+
+  @Test
+  @BenchmarkOptions(benchmarkRounds = 2000, warmupRounds = 200, concurrency = 1)
+  public void searchWith1Thread() throws Exception {
+    search();
+  }
+
+  @Test
+  @BenchmarkOptions(benchmarkRounds = 2000, warmupRounds = 200, concurrency = 4)
+  public void searchWith4Threads() throws Exception {
+    search();
+  }
+
+  @Test
+  @BenchmarkOptions(benchmarkRounds = 2000, warmupRounds = 200, concurrency = 16)
+  public void searchWith16Threads() throws Exception {
+    search();
+  }
+
+  @Test
+  @BenchmarkOptions(benchmarkRounds = 2000, warmupRounds = 200, concurrency = 64)
+  public void searchWith64Threads() throws Exception {
+    search();
+  }
+
+  @Test
+  @BenchmarkOptions(benchmarkRounds = 20, warmupRounds = 0, concurrency = 4)
+  public void searchWhileIndexIsRefreshed() throws Exception {
+    search();
+    IndexProcessor.doFlush(() -> Collections.singletonList(indexPath));
+    search();
+  }
+
+  private void search() throws Exception {
+    final int id = ThreadLocalRandom.current().nextInt(NB_DOCUMENTS);
+    final int nbHits = IndexProcessor.doSearch(() -> {
+      final IndexReader reader = IndexReadersCache.getIndexReader(indexPath);
+      try {
+        return new IndexSearcher(reader).count(
+            new TermQuery(new Term(IndexManager.KEY, "kmelia1|Publication|" + id)));
+      } catch (IOException e) {
+        throw new ParseException("search", e);
+      }
+    }, () -> 0);
+    assertThat(nbHits, is(1));
+  }
+}
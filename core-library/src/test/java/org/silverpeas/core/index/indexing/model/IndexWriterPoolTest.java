@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.index.indexing.model;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.silverpeas.core.index.search.model.ParseException;
+import org.silverpeas.core.test.UnitTest;
+import org.silverpeas.core.test.rule.CommonAPI4Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit tests on the pool of the index writers: the sharing of the writers, the near-real-time
+ * refresh of the readers and the commit policy.
+ */
+@UnitTest
+public class IndexWriterPoolTest {
+
+  private static final String KEY_PREFIX = "kmelia1|Publication|";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Rule
+  public CommonAPI4Test commonAPI4Test = new CommonAPI4Test();
+
+  private String indexPath;
+  private final AtomicInteger openings = new AtomicInteger(0);
+  private int commitMaxPendingDocs;
+  private long commitMaxDelayMs;
+
+  @Before
+  public void setUp() throws Exception {
+    indexPath = temporaryFolder.newFolder("kmelia1", "index").getPath();
+    commitMaxPendingDocs = (int) FieldUtils.readStaticField(IndexWriterPool.class,
+        "commitMaxPendingDocs", true);
+    commitMaxDelayMs = (long) FieldUtils.readStaticField(IndexWriterPool.class,
+        "commitMaxDelayMs", true);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    IndexWriterPool.closeAll();
+    IndexReadersCache.closeAllIndexReaders();
+    setCommitPolicy(commitMaxPendingDocs, commitMaxDelayMs);
+  }
+
+  @Test
+  public void theWriterIsSharedUntilItIsClosed() throws Exception {
+    final IndexWriter writer = getIndexWriter();
+    assertThat(getIndexWriter(), sameInstance(writer));
+    assertThat(IndexWriterPool.getOpenedIndexWriter(indexPath), sameInstance(writer));
+    assertThat(openings.get(), is(1));
+
+    writer.close();
+    assertThat(IndexWriterPool.getOpenedIndexWriter(indexPath), nullValue());
+    final IndexWriter newWriter = getIndexWriter();
+    assertThat(newWriter, not(sameInstance(writer)));
+    assertThat(openings.get(), is(2));
+  }
+
+  @Test
+  public void theChangedIndexesAreTakenOnce() throws Exception {
+    getIndexWriter();
+    assertThat(IndexWriterPool.takeChangedPaths(), empty());
+    index(1);
+    assertThat(IndexWriterPool.takeChangedPaths(), contains(indexPath));
+    assertThat(IndexWriterPool.takeChangedPaths(), empty());
+  }
+
+  @Test
+  public void theIndexedDocumentsAreSearchableBeforeTheirCommit() throws Exception {
+    final IndexWriter writer = getIndexWriter();
+    assertThat(count(1), is(0));
+    index(1);
+    IndexProcessor.doFlush(IndexWriterPool::takeChangedPaths);
+    assertThat(count(1), is(1));
+    assertThat(writer.hasUncommittedChanges(), is(true));
+  }
+
+  @Test
+  public void aReaderOpenedWhileTheWriterIsOpeningIsReopenedFromTheWriter() throws Exception {
+    try (IndexWriter writer = new IndexWriter(FSDirectory.open(new File(indexPath).toPath()),
+        new IndexWriterConfig(new StandardAnalyzer()))) {
+      writer.addDocument(document(0));
+    }
+    IndexWriterPool.getIndexWriter(indexPath, p -> {
+      final IndexWriter writer = open(p);
+      // a concurrent search opens a reader on the index directory as the writer isn't yet pooled
+      assertThat(CompletableFuture.supplyAsync(() -> count(0)).join(), is(1));
+      return writer;
+    });
+    index(1);
+    IndexProcessor.doFlush(IndexWriterPool::takeChangedPaths);
+    assertThat(count(0), is(1));
+    assertThat(count(1), is(1));
+  }
+
+  @Test
+  public void theChangesAreCommittedOnlyAccordingToTheCommitPolicy() throws Exception {
+    setCommitPolicy(3, 60000L);
+    final IndexWriter writer = getIndexWriter();
+    index(1);
+    index(2);
+    assertThat(IndexWriterPool.commit(false), empty());
+    assertThat(writer.hasUncommittedChanges(), is(true));
+
+    index(3);
+    assertThat(IndexWriterPool.commit(false), contains(indexPath));
+    assertThat(writer.hasUncommittedChanges(), is(false));
+    assertThat(IndexWriterPool.commit(true), empty());
+
+    index(4);
+    assertThat(IndexWriterPool.commit(true), contains(indexPath));
+    assertThat(writer.hasUncommittedChanges(), is(false));
+  }
+
+  @Test
+  public void theChangesAreCommittedOnceTheMaxDelayIsExceeded() throws Exception {
+    setCommitPolicy(1000, 100L);
+    final IndexWriter writer = getIndexWriter();
+    index(1);
+    assertThat(IndexWriterPool.commit(false), empty());
+    Thread.sleep(200);
+    assertThat(IndexWriterPool.commit(false), contains(indexPath));
+    assertThat(writer.hasUncommittedChanges(), is(false));
+  }
+
+  @Test
+  public void aWriterClosedBehindThePoolIsReleasedAtItsCommit() throws Exception {
+    final IndexWriter writer = getIndexWriter();
+    index(1);
+    writer.close();
+    assertThat(IndexWriterPool.commit(true), empty());
+    assertThat(IndexWriterPool.commit(true), empty());
+    assertThat(getIndexWriter(), not(sameInstance(writer)));
+    assertThat(openings.get(), is(2));
+  }
+
+  @Test
+  public void thePendingChangesAreCommittedWhenTheWritersAreClosed() throws Exception {
+    getIndexWriter();
+    index(1);
+    assertThat(IndexWriterPool.closeAll(), contains(indexPath));
+    assertThat(IndexWriterPool.getOpenedIndexWriter(indexPath), nullValue());
+    assertThat(count(1), is(1));
+  }
+
+  private IndexWriter getIndexWriter() {
+    return IndexWriterPool.getIndexWriter(indexPath, this::open);
+  }
+
+  private IndexWriter open(final String path) {
+    openings.incrementAndGet();
+    try {
+      return new IndexWriter(FSDirectory.open(new File(path).toPath()),
+          new IndexWriterConfig(new StandardAnalyzer()));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void index(final int id) throws IOException {
+    IndexWriterPool.getOpenedIndexWriter(indexPath).addDocument(document(id));
+    IndexWriterPool.changed(indexPath);
+  }
+
+  private Document document(final int id) {
+    final Document doc = new Document();
+    doc.add(new StringField(IndexManager.KEY, KEY_PREFIX + id, Field.Store.YES));
+    return doc;
+  }
+
+  private int count(final int id) {
+    try {
+      return IndexProcessor.doSearch(() -> {
+        final IndexReader reader = IndexReadersCache.getIndexReader(indexPath);
+        try {
+          return reader == null ? 0 : new IndexSearcher(reader).count(
+              new TermQuery(new Term(IndexManager.KEY, KEY_PREFIX + id)));
+        } catch (IOException e) {
+          throw new ParseException("search", e);
+        }
+      }, () -> 0);
+    } catch (ParseException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void setCommitPolicy(final int maxPendingDocs, final long maxDelayMs)
+      throws IllegalAccessException {
+    FieldUtils.writeStaticField(IndexWriterPool.class, "commitMaxPendingDocs", maxPendingDocs,
+        true);
+    FieldUtils.writeStaticField(IndexWriterPool.class, "commitMaxDelayMs", maxDelayMs, true);
+  }
+}
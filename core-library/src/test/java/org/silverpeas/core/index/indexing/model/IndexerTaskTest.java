@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.index.indexing.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.silverpeas.core.index.indexing.parser.FileContentExtractor;
+import org.silverpeas.core.test.extention.EnableSilverTestEnv;
+import org.silverpeas.core.test.extention.TestManagedBean;
+import org.silverpeas.core.test.extention.TestManagedMock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Unit tests on the processing of the indexation requests by the lanes of the
+ * {@link IndexerTask}.
+ */
+@EnableSilverTestEnv
+class IndexerTaskTest {
+
+  private static final String REMOVE_ALL = "removeAll";
+  private static final int NB_COMPONENTS = 20;
+
+  @TestManagedMock
+  private IndexManager indexManager;
+
+  @TestManagedMock
+  private FileContentExtractor fileContentExtractor;
+
+  @TestManagedBean
+  private IndexerTask indexerTask;
+
+  private final List<String> processed = Collections.synchronizedList(new ArrayList<>());
+
+  @BeforeEach
+  void mockIndexManager() throws Exception {
+    doAnswer(a -> {
+      Thread.sleep(20);
+      final FullIndexEntry entry = a.getArgument(0);
+      processed.add(entry.getPK().getObjectId() + ":" + entry.getPK().getComponent());
+      return null;
+    }).when(indexManager).addIndexEntry(any(FullIndexEntry.class));
+    doAnswer(a -> {
+      Thread.sleep(200);
+      processed.add(REMOVE_ALL);
+      return null;
+    }).when(indexManager).removeAllIndexEntries();
+  }
+
+  @Test
+  void theEntriesAddedAfterARemovalOfAllTheEntriesAreIndexedOnceTheRemovalIsDone()
+      throws InterruptedException {
+    for (int i = 0; i < NB_COMPONENTS; i++) {
+      IndexerTask.addIndexEntry(new FullIndexEntry("kmelia" + i, "Publication", "before"));
+    }
+    IndexerTask.removeAllIndexEntries();
+    for (int i = 0; i < NB_COMPONENTS; i++) {
+      IndexerTask.addIndexEntry(new FullIndexEntry("kmelia" + i, "Publication", "after"));
+    }
+    waitForProcessing(2 * NB_COMPONENTS + 1);
+
+    final int removal = processed.indexOf(REMOVE_ALL);
+    assertThat(removal, is(NB_COMPONENTS));
+    assertThat(processed.subList(0, removal), everyItem(startsWith("before:")));
+    assertThat(processed.subList(removal + 1, processed.size()), everyItem(startsWith("after:")));
+  }
+
+  @Test
+  void severalRemovalsOfAllTheEntriesArePerformedInTheOrderTheyWerePushed()
+      throws InterruptedException {
+    IndexerTask.addIndexEntry(new FullIndexEntry("kmelia1", "Publication", "first"));
+    IndexerTask.removeAllIndexEntries();
+    IndexerTask.addIndexEntry(new FullIndexEntry("kmelia2", "Publication", "second"));
+    IndexerTask.removeAllIndexEntries();
+    IndexerTask.addIndexEntry(new FullIndexEntry("kmelia3", "Publication", "third"));
+    waitForProcessing(5);
+
+    assertThat(processed,
+        contains("first:kmelia1", REMOVE_ALL, "second:kmelia2", REMOVE_ALL, "third:kmelia3"));
+  }
+
+  private void waitForProcessing(final int nbRequests) throws InterruptedException {
+    final long timeout = System.currentTimeMillis() + 10000;
+    while (processed.size() < nbRequests && System.currentTimeMillis() < timeout) {
+      Thread.sleep(10);
+    }
+    assertThat(processed.size(), is(nbRequests));
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.io.file;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.silverpeas.core.test.extention.EnableSilverTestEnv;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.silverpeas.core.io.file.ImageResizingProcessor.IMAGE_CACHE_PATH;
+
+/**
+ * Unit tests on the cache of the resized images. The cap of the cache is set to 1 MB in the
+ * test settings.
+ */
+@EnableSilverTestEnv
+class ImageCacheTest {
+
+  private static final int IMAGE_SIZE = 300 * 1024;
+  private static final String ORIGINAL_IMAGE = "/silverpeas/files/kmelia1/image.jpg";
+  private static final String OTHER_ORIGINAL_IMAGE = "/silverpeas/files/kmelia1/other.jpg";
+
+  @BeforeEach
+  @AfterEach
+  void clearCache() {
+    ImageCache.unload();
+    FileUtils.deleteQuietly(new File(IMAGE_CACHE_PATH));
+  }
+
+  @Test
+  void theResizedImagesAreKeptUnderTheCap() throws IOException {
+    final String[] images = createResizedImages(4);
+    ImageCache.putImage(ORIGINAL_IMAGE, images[0]);
+    ImageCache.putImage(ORIGINAL_IMAGE, images[1]);
+    ImageCache.putImage(ORIGINAL_IMAGE, images[2]);
+    assertThat(ImageCache.getSize(), is(3L * IMAGE_SIZE));
+
+    // the cap is exceeded: the images are evicted until the size falls below 90% of the cap
+    ImageCache.putImage(ORIGINAL_IMAGE, images[3]);
+    assertThat(ImageCache.getSize(), is(3L * IMAGE_SIZE));
+    assertThat(ImageCache.getImages(ORIGINAL_IMAGE),
+        containsInAnyOrder(images[1], images[2], images[3]));
+    assertThat(new File(images[0]).exists(), is(false));
+  }
+
+  @Test
+  void theLeastRecentlyUsedImagesAreEvictedFirst() throws IOException {
+    final String[] images = createResizedImages(4);
+    ImageCache.putImage(ORIGINAL_IMAGE, images[0]);
+    ImageCache.putImage(ORIGINAL_IMAGE, images[1]);
+    ImageCache.putImage(ORIGINAL_IMAGE, images[2]);
+    ImageCache.touchImage(images[0]);
+
+    ImageCache.putImage(ORIGINAL_IMAGE, images[3]);
+    assertThat(ImageCache.getImages(ORIGINAL_IMAGE),
+        containsInAnyOrder(images[0], images[2], images[3]));
+    assertThat(new File(images[1]).exists(), is(false));
+  }
+
+  @Test
+  void theResizedImagesAreLoadedAgainFromTheIndex() throws IOException {
+    final String[] images = createResizedImages(3);
+    ImageCache.putImage(ORIGINAL_IMAGE, images[0]);
+    ImageCache.putImage(ORIGINAL_IMAGE, images[1]);
+    ImageCache.putImage(OTHER_ORIGINAL_IMAGE, images[2]);
+    ImageCache.removeImages(OTHER_ORIGINAL_IMAGE);
+
+    ImageCache.unload();
+    assertThat(ImageCache.getImages(ORIGINAL_IMAGE), containsInAnyOrder(images[0], images[1]));
+    assertThat(ImageCache.getImages(OTHER_ORIGINAL_IMAGE), is(empty()));
+    assertThat(ImageCache.getSize(), is(2L * IMAGE_SIZE));
+  }
+
+  @Test
+  void theFormerEntriesAreImported() throws IOException {
+    final String[] images = createResizedImages(2);
+    final File formerEntries = new File(IMAGE_CACHE_PATH, ".data");
+    FileUtils.writeLines(new File(formerEntries, "entry"),
+        Arrays.asList(ORIGINAL_IMAGE, images[0], images[1]));
+    // the former entries of resized images that don't exist anymore are skipped
+    FileUtils.writeLines(new File(formerEntries, "removed"),
+        Arrays.asList(OTHER_ORIGINAL_IMAGE,
+            new File(IMAGE_CACHE_PATH, "removed.jpg").getAbsolutePath()));
+
+    assertThat(ImageCache.getAllImageEntries(), contains(ORIGINAL_IMAGE));
+    assertThat(ImageCache.getImages(ORIGINAL_IMAGE), containsInAnyOrder(images[0], images[1]));
+    assertThat(ImageCache.getSize(), is(2L * IMAGE_SIZE));
+    assertThat(formerEntries.exists(), is(false));
+
+    // the imported entries are kept in the index
+    ImageCache.unload();
+    assertThat(ImageCache.getImages(ORIGINAL_IMAGE), containsInAnyOrder(images[0], images[1]));
+  }
+
+  /**
+   * Creates the specified count of resized images in the cache directory. They are all of the
+   * same size.
+   */
+  private static String[] createResizedImages(final int count) throws IOException {
+    final File directory = new File(IMAGE_CACHE_PATH, "128x");
+    directory.mkdirs();
+    final String[] images = new String[count];
+    for (int i = 0; i < count; i++) {
+      final File image = File.createTempFile("resized_", "_image.jpg", directory);
+      FileUtils.writeByteArrayToFile(image, new byte[IMAGE_SIZE]);
+      images[i] = image.getAbsolutePath();
+    }
+    return images;
+  }
+}
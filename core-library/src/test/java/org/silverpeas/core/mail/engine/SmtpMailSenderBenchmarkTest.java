@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.mail.engine;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkMethodChart;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+import org.junit.rules.TestRule;
+import org.silverpeas.core.mail.MailAddress;
+import org.silverpeas.core.mail.MailSending;
+import org.silverpeas.core.mail.engine.SmtpMailSenderTest.ConfiguredSmtpMailSender;
+import org.silverpeas.core.test.UnitTest;
+import org.silverpeas.core.test.rule.CommonAPI4Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Measures the throughput of the mail sendings by {@link SmtpMailSender} with a connection to the
+ * SMTP server reused from one mail to another and, as before, with a connection per mail.
+ */
+@UnitTest
+@BenchmarkMethodChart
+@BenchmarkOptions(benchmarkRounds = 10, warmupRounds = 3)
+public class SmtpMailSenderBenchmarkTest {
+
+  private static final String COMMON_FROM = "from@titi.org";
+  private static final String COMMON_TO = "to@toto.org";
+  private static final int SMTP_PORT = 2500;
+  private static final int NB_MAILS = 100;
+
+  private static GreenMail greenMail;
+
+  private final CommonAPI4Test commonAPI4Test = new CommonAPI4Test();
+
+  @Rule
+  public TestRule rules = RuleChain.outerRule(commonAPI4Test).around(new BenchmarkRule());
+
+  private final ConfiguredSmtpMailSender reusedConnection = new ConfiguredSmtpMailSender(0);
+  private final ConfiguredSmtpMailSender oneConnectionPerMail = new ConfiguredSmtpMailSender(1);
+
+  @BeforeClass
+  public static void startSmtpServer() {
+    greenMail = new GreenMail(new ServerSetup(SMTP_PORT, null, ServerSetup.PROTOCOL_SMTP));
+    greenMail.start();
+  }
+
+  @AfterClass
+  public static void stopSmtpServer() {
+    greenMail.stop();
+  }
+
+  @Test
+  public void benchmarkSendingsThroughAReusedConnection() throws Exception {
+    sendMails(reusedConnection);
+    assertThat(reusedConnection.getOpenedTransportCount(), is(1L));
+  }
+
+  @Test
+  public void benchmarkSendingsWithAConnectionPerMailAsBefore() throws Exception {
+    sendMails(oneConnectionPerMail);
+  }
+
+  private void sendMails(final MailSender sender) throws Exception {
+    final MailSender previousSender = MailSenderProvider.get();
+    FieldUtils.writeDeclaredStaticField(MailSenderProvider.class, "mailSender", sender, true);
+    try {
+      for (int i = 0; i < NB_MAILS; i++) {
+        MailSending.from(MailAddress.eMail(COMMON_FROM))
+            .to(MailAddress.eMail(COMMON_TO))
+            .withSubject("Mail " + i)
+            .withContent("Content of mail " + i)
+            .sendSynchronously();
+      }
+    } finally {
+      FieldUtils.writeDeclaredStaticField(MailSenderProvider.class, "mailSender", previousSender,
+          true);
+    }
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.mail.engine;
+
+import com.icegreen.greenmail.base.GreenMailOperations;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.silverpeas.core.mail.MailAddress;
+import org.silverpeas.core.mail.MailSending;
+import org.silverpeas.core.test.extention.EnableSilverTestEnv;
+import org.silverpeas.core.test.extention.GreenMailExtension;
+import org.silverpeas.core.test.extention.LoggerExtension;
+import org.silverpeas.core.test.extention.LoggerLevel;
+import org.silverpeas.core.test.extention.SmtpConfig;
+import org.silverpeas.core.test.extention.TestManagedBeans;
+import org.silverpeas.core.util.logging.Level;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Tests about the reuse of the connections to the SMTP server by {@link SmtpMailSender}.
+ */
+@EnableSilverTestEnv
+@ExtendWith(LoggerExtension.class)
+@ExtendWith(GreenMailExtension.class)
+@LoggerLevel(Level.INFO)
+@SmtpConfig("/org/silverpeas/notificationserver/channel/smtp/smtpSettings.properties")
+@Execution(ExecutionMode.SAME_THREAD)
+@TestManagedBeans(MailSenderTask.class)
+public class SmtpMailSenderTest {
+
+  private static final String COMMON_FROM = "from@titi.org";
+  private static final String COMMON_TO = "to@toto.org";
+
+  private MailSender oldMailSender;
+
+  @BeforeEach
+  public void setup() {
+    oldMailSender = MailSenderProvider.get();
+  }
+
+  @AfterEach
+  public void destroy() throws Exception {
+    // Replacing by reflection the mock instances by the previous extracted one.
+    FieldUtils
+        .writeDeclaredStaticField(MailSenderProvider.class, "mailSender", oldMailSender, true);
+  }
+
+  @Test
+  public void mailsAreSentThroughASameConnection(GreenMailOperations mail) throws Exception {
+    final ConfiguredSmtpMailSender sender = new ConfiguredSmtpMailSender(0);
+    sendMails(sender, 10);
+    assertThat(mail.waitForIncomingEmail(10000, 10), is(true));
+    assertThat(sender.getOpenedTransportCount(), is(1L));
+  }
+
+  @Test
+  public void aConnectionIsReopenedAfterTheMaximumNumberOfMessages(GreenMailOperations mail)
+      throws Exception {
+    final ConfiguredSmtpMailSender sender = new ConfiguredSmtpMailSender(10);
+    sendMails(sender, 25);
+    assertThat(mail.waitForIncomingEmail(10000, 25), is(true));
+    assertThat(sender.getOpenedTransportCount(), is(3L));
+  }
+
+  @Test
+  public void aClosedPooledConnectionIsReplacedByANewOne(GreenMailOperations mail)
+      throws Exception {
+    final ConfiguredSmtpMailSender sender = new ConfiguredSmtpMailSender(0);
+    sendMails(sender, 1);
+
+    // closing the pooled connection as would do the SMTP server
+    final SmtpTransportPool pool = sender.getTransportPool(sender.getSmtpConfiguration());
+    final SmtpTransportPool.PooledTransport transport = pool.borrow();
+    transport.get().close();
+    pool.release(transport);
+
+    sendMails(sender, 1);
+    assertThat(mail.waitForIncomingEmail(10000, 2), is(true));
+    assertThat(mail.getReceivedMessages(), arrayWithSize(2));
+    assertThat(sender.getOpenedTransportCount(), is(2L));
+  }
+
+  @Test
+  public void theConnectionsIdleBeyondTheMaximumIdleTimeAreClosedInBackground(
+      GreenMailOperations mail) throws Exception {
+    final ConfiguredSmtpMailSender sender = new ConfiguredSmtpMailSender(0, 1);
+    sendMails(sender, 1);
+    sender.releaseExpired();
+    sendMails(sender, 1);
+    assertThat(sender.getOpenedTransportCount(), is(1L));
+
+    Thread.sleep(1500);
+    sender.releaseExpired();
+    final SmtpTransportPool pool = sender.getTransportPool(sender.getSmtpConfiguration());
+    final SmtpTransportPool.PooledTransport transport = pool.borrow();
+    assertThat(transport.isReused(), is(false));
+    pool.release(transport);
+
+    assertThat(mail.waitForIncomingEmail(10000, 2), is(true));
+    assertThat(sender.getOpenedTransportCount(), is(2L));
+  }
+
+  private void sendMails(final MailSender sender, final int nbMails) throws Exception {
+    FieldUtils.writeDeclaredStaticField(MailSenderProvider.class, "mailSender", sender, true);
+    for (int i = 0; i < nbMails; i++) {
+      MailSending.from(MailAddress.eMail(COMMON_FROM))
+          .to(MailAddress.eMail(COMMON_TO))
+          .withSubject("Mail " + i)
+          .withContent("Content of mail " + i)
+          .sendSynchronously();
+    }
+  }
+
+  /**
+   * SMTP mail sender with a specific maximum number of messages per connection and, optionally, a
+   * specific maximum idle time of the connections.
+   */
+  static class ConfiguredSmtpMailSender extends SmtpMailSender {
+
+    private final int maxMessagesPerConnection;
+    private final int maxIdleTime;
+
+    ConfiguredSmtpMailSender(final int maxMessagesPerConnection) {
+      this(maxMessagesPerConnection, -1);
+    }
+
+    ConfiguredSmtpMailSender(final int maxMessagesPerConnection, final int maxIdleTime) {
+      this.maxMessagesPerConnection = maxMessagesPerConnection;
+      this.maxIdleTime = maxIdleTime;
+    }
+
+    @Override
+    protected SmtpConfiguration getSmtpConfiguration() {
+      final SmtpConfiguration configuration = super.getSmtpConfiguration();
+      configuration.setMaxMessagesPerConnection(maxMessagesPerConnection);
+      if (maxIdleTime >= 0) {
+        configuration.setMaxIdleTime(maxIdleTime);
+      }
+      return configuration;
+    }
+
+    long getOpenedTransportCount() {
+      return getTransportPool(getSmtpConfiguration()).getOpenedTransportCount();
+    }
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.node.dao;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkMethodChart;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.silverpeas.core.node.model.NodeDetail;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.silverpeas.core.node.dao.NodeTreeTest.bigTreeNodes;
+import static org.silverpeas.core.node.dao.NodeTreeTest.queryChildrenAndDescendants;
+
+/**
+ * Benchmark of the loading and of the querying of the in-memory tree of a component instance
+ * with 20,000 nodes.
+ */
+@BenchmarkMethodChart
+@BenchmarkOptions(benchmarkRounds = 100, warmupRounds = 10)
+public class NodeTreeBenchmarkTest {
+
+  private static final int NODE_COUNT = 20000;
+  private static final List<NodeDetail> NODES = bigTreeNodes(NODE_COUNT);
+  private static final NodeTree TREE = new NodeTree(NODES);
+
+  @Rule
+  public TestRule benchmarkRun = new BenchmarkRule();
+
+  @Test
+  public void benchmarkLoadingOfTheTree() {
+    final NodeTree tree = new NodeTree(NODES);
+    assertThat(tree.getNodes().size(), is(NODE_COUNT));
+  }
+
+  @Test
+  public void benchmarkQueryingOfTheTree() {
+    assertThat(queryChildrenAndDescendants(TREE), greaterThan(NODE_COUNT));
+  }
+}
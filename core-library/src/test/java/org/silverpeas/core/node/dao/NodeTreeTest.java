@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.node.dao;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.silverpeas.core.node.model.NodeDetail;
+import org.silverpeas.core.node.model.NodePK;
+import org.silverpeas.core.test.UnitTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Unit tests on the tree of nodes of a component instance kept in memory.
+ */
+@UnitTest
+class NodeTreeTest {
+
+  private static final String INSTANCE_ID = "kmelia100";
+
+  private NodeTree tree;
+
+  /**
+   * The tree: 0 (root) with the children 3, 2 and 1 in this order, 3 with the child 4.
+   */
+  @BeforeEach
+  void createTree() {
+    final List<NodeDetail> nodes = new ArrayList<>();
+    nodes.add(node("0", "-1", 0));
+    nodes.add(node("1", "0", 3));
+    nodes.add(node("2", "0", 2));
+    nodes.add(node("3", "0", 1));
+    nodes.add(node("4", "3", 1));
+    tree = new NodeTree(nodes);
+  }
+
+  @Test
+  void childrenAreOrderedByOrderNumberAndTheirIdentifiersAscending() {
+    assertThat(ids(tree.getChildren("0", pk("0"))), contains("3", "2", "1"));
+    assertThat(tree.getChildIds("0"), contains("1", "2", "3"));
+    assertThat(tree.getChildrenNumber("0"), is(3));
+    assertThat(tree.getChildrenNumber("4"), is(0));
+    assertThat(tree.getChildren("99", pk("99")), empty());
+  }
+
+  @Test
+  void descendantsAreOrderedByPath() {
+    assertThat(ids(tree.getDescendants("0", pk("0"))), contains("1", "2", "3", "4"));
+    assertThat(tree.getDescendantIds("3"), contains("4"));
+    assertThat(tree.getDescendantIds("4"), empty());
+    assertThat(tree.getDescendantIds("99"), empty());
+  }
+
+  @Test
+  void nodesAreGotByLevelAndBySubtree() {
+    assertThat(ids(tree.getNodesAtLevel(2, pk("0"))), contains("3", "2", "1"));
+    assertThat(ids(tree.getSubTree("0", null, pk("0"))), contains("0", "3", "4", "2", "1"));
+    assertThat(ids(tree.getSubTree("0", "Visible", pk("0"))), contains("0", "3", "4", "2", "1"));
+    assertThat(tree.getSubTree("0", "Invisible", pk("0")), empty());
+    assertThat(tree.getSubTree("99", null, pk("99")), nullValue());
+  }
+
+  @Test
+  void theNodesAreCopiedWithTheGivenPrimaryKey() {
+    final NodePK pk = new NodePK("4", "WA1", INSTANCE_ID);
+    final NodeDetail node = tree.getNode("4", pk);
+    assertThat(node.getNodePK().getSpaceId(), is("WA1"));
+    assertThat(node.getFatherPK().getId(), is("3"));
+    assertThat(node.getFullPath(), is("/0/3/4/"));
+    node.setName("modified");
+    node.setChildrenDetails(new ArrayList<>());
+    assertThat(tree.getNode("4", pk("4")).getName(), is("node 4"));
+    assertThat(tree.getNodes().get(4).getChildrenDetails(), nullValue());
+  }
+
+  @Test
+  void theWholeTreeIsSharedUntilItIsModified() {
+    final List<NodeDetail> nodes = tree.getNodes();
+    assertThat(ids(nodes), contains("0", "3", "2", "1", "4"));
+    assertThat(tree.getNodes(), sameInstance(nodes));
+
+    tree.put(node("5", "4", 1));
+    final List<NodeDetail> modifiedNodes = tree.getNodes();
+    assertThat(modifiedNodes, not(sameInstance(nodes)));
+    assertThat(modifiedNodes.size(), is(6));
+  }
+
+  @Test
+  void modifiedNodesAreMovedInTheTree() {
+    final NodeDetail movedNode = node("4", "2", 5);
+    movedNode.setPath("/0/2/");
+    tree.put(movedNode);
+    assertThat(tree.getDescendantIds("3"), empty());
+    assertThat(tree.getDescendantIds("2"), contains("4"));
+    assertThat(tree.size(), is(5));
+
+    tree.remove("2");
+    assertThat(tree.getChildIds("0"), contains("1", "3"));
+    assertThat(tree.getNode("2", pk("2")), nullValue());
+    assertThat(tree.size(), is(4));
+  }
+
+  @Test
+  void staleNodesArePolledOnce() {
+    tree.markAsStale("3");
+    tree.markAsStale("5");
+    tree.remove("5");
+    assertThat(tree.pollStaleNodes(), contains("3"));
+    assertThat(tree.pollStaleNodes(), empty());
+  }
+
+  @Test
+  void aCopiedTreeIsModifiedIndependently() {
+    tree.markAsStale("3");
+    final NodeTree copy = tree.copy();
+    assertThat(copy.getNodes(), is(tree.getNodes()));
+
+    copy.remove("2");
+    assertThat(copy.getChildIds("0"), contains("1", "3"));
+    assertThat(tree.getChildIds("0"), contains("1", "2", "3"));
+    assertThat(copy.pollStaleNodes(), contains("3"));
+    assertThat(tree.pollStaleNodes(), contains("3"));
+  }
+
+  @Test
+  void queryingABigTree() {
+    final int nodeCount = 20000;
+    final NodeTree bigTree = new NodeTree(bigTreeNodes(nodeCount));
+
+    final int count = queryChildrenAndDescendants(bigTree);
+
+    for (int i = 1; i <= 1000; i++) {
+      final NodeDetail node = node(String.valueOf(nodeCount - i), "1", i);
+      node.setPath("/0/1/");
+      bigTree.put(node);
+    }
+
+    assertThat(count, greaterThan(nodeCount));
+    assertThat(bigTree.getDescendantIds("0").size(), is(nodeCount - 1));
+    assertThat(bigTree.getChildrenNumber("1"), is(1008));
+    assertThat(bigTree.getNodes().size(), is(nodeCount));
+  }
+
+  /**
+   * The nodes of a tree in which each node has 8 children, up to the specified count of nodes.
+   */
+  static List<NodeDetail> bigTreeNodes(final int nodeCount) {
+    final List<NodeDetail> nodes = new ArrayList<>(nodeCount);
+    nodes.add(node("0", "-1", 0));
+    final String[] paths = new String[nodeCount];
+    paths[0] = "/";
+    for (int i = 1; i < nodeCount; i++) {
+      final int fatherId = (i - 1) / 8;
+      paths[i] = paths[fatherId] + fatherId + "/";
+      final NodeDetail node = node(String.valueOf(i), String.valueOf(fatherId), i % 8);
+      node.setPath(paths[i]);
+      node.setLevel(levelOf(paths[i]));
+      nodes.add(node);
+    }
+    return nodes;
+  }
+
+  /**
+   * Queries the children of the first 1000 nodes and the descendants of the first 10 ones.
+   * @return the count of the nodes got by the queries.
+   */
+  static int queryChildrenAndDescendants(final NodeTree tree) {
+    int count = 0;
+    for (int i = 0; i < 1000; i++) {
+      final String nodeId = String.valueOf(i);
+      count += tree.getChildren(nodeId, pk(nodeId)).size();
+      count += tree.getDescendantIds(String.valueOf(i % 10)).size();
+    }
+    return count;
+  }
+
+  private static NodePK pk(final String id) {
+    return new NodePK(id, INSTANCE_ID);
+  }
+
+  private static NodeDetail node(final String id, final String fatherId, final int order) {
+    final String path = "-1".equals(fatherId) ? "/" : "/0/" + ("4".equals(id) ? "3/" : "");
+    final NodeDetail node = new NodeDetail(pk(id), "node " + id, "", levelOf(path), fatherId);
+    node.setPath(path);
+    node.setOrder(order);
+    node.setStatus("Visible");
+    return node;
+  }
+
+  private static int levelOf(final String path) {
+    return path.length() - path.replace("/", "").length();
+  }
+
+  private static List<String> ids(final List<NodeDetail> nodes) {
+    return nodes.stream().map(n -> n.getNodePK().getId()).collect(Collectors.toList());
+  }
+}
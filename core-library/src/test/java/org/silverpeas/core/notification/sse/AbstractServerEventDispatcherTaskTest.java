@@ -31,6 +31,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.mockito.ArgumentCaptor;
 import org.silverpeas.core.admin.user.model.User;
 import org.silverpeas.core.admin.user.model.UserDetail;
+import org.silverpeas.core.notification.sse.ServerEventDispatcherTask.AsyncContextRegistry;
 import org.silverpeas.core.notification.sse.ServerEventDispatcherTask.ServerEventStore;
 import org.silverpeas.core.test.extention.EnableSilverTestEnv;
 import org.silverpeas.core.test.extention.LoggerLevel;
@@ -38,13 +39,11 @@ import org.silverpeas.core.test.extention.RequesterProvider;
 import org.silverpeas.core.test.extention.TestManagedBeans;
 import org.silverpeas.core.util.logging.Level;
 
-import javax.servlet.AsyncContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.List;
-import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import static org.awaitility.Awaitility.with;
@@ -61,7 +60,7 @@ abstract class AbstractServerEventDispatcherTaskTest {
 
   final static String EVENT_SOURCE_REQUEST_URI = "/handled";
 
-  Set<AsyncContext> asyncContextMap;
+  AsyncContextRegistry asyncContextMap;
   private ServerEventStore serverEventStore;
 
   @RequesterProvider
@@ -73,10 +72,9 @@ abstract class AbstractServerEventDispatcherTaskTest {
 
   @BeforeEach
   @AfterEach
-  @SuppressWarnings("unchecked")
   public void setup() throws Exception {
-    asyncContextMap = (Set<AsyncContext>) FieldUtils
-        .readDeclaredStaticField(ServerEventDispatcherTask.class, "synchronizedContexts", true);
+    asyncContextMap = (AsyncContextRegistry) FieldUtils
+        .readDeclaredStaticField(ServerEventDispatcherTask.class, "contexts", true);
     serverEventStore = (ServerEventStore) FieldUtils
         .readDeclaredStaticField(ServerEventDispatcherTask.class, "serverEventStore", true);
     asyncContextMap.clear();
@@ -93,8 +91,16 @@ abstract class AbstractServerEventDispatcherTaskTest {
     return mock;
   }
 
+  void storeServerEvent(final ServerEvent serverEvent) {
+    serverEventStore.add(serverEvent);
+  }
+
   List<ServerEvent> getStoredServerEvents() throws Exception {
-    return serverEventStore.getFromId(-1);
+    return getStoredServerEventsFromId(-1);
+  }
+
+  List<ServerEvent> getStoredServerEventsFromId(final long lastServerEventId) throws Exception {
+    return serverEventStore.getFromId(lastServerEventId);
   }
 
   SilverpeasAsyncContext newMockedAsyncContext(final String sessionId) throws Exception {
@@ -24,10 +24,15 @@
 package org.silverpeas.core.notification.sse;
 
 import org.junit.jupiter.api.Test;
+import org.silverpeas.core.admin.user.model.User;
 import org.silverpeas.core.util.JSONCodec;
 
+import java.util.Optional;
+
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.*;
 
 /**
@@ -163,4 +168,66 @@ public class ServerEventDispatcherTaskTest extends AbstractServerEventDispatcher
           "data: {\"unitTest\":true,\"array\":[\"unit\",\"test\"]}\n\n"));
     });
   }
-}
\ No newline at end of file
+
+  @Test
+  public void handleEventTargetedToASessionWhenSeveralAsyncContexts() throws Exception {
+    final SilverpeasAsyncContext mockedAsyncContext = newMockedAsyncContext(SESSION_ID);
+    final SilverpeasAsyncContext otherAsyncContext = newMockedAsyncContext("OTHER_SESSION_ID");
+    ServerEventDispatcherTask.registerAsyncContext(mockedAsyncContext);
+    ServerEventDispatcherTask.registerAsyncContext(otherAsyncContext);
+    ServerEvent mockedServerEvent = newMockedServerEvent("EVENT_TARGETED", "Only for you");
+    when(mockedServerEvent.getTargetedSessionId()).thenReturn(Optional.of(SESSION_ID));
+    when(mockedServerEvent.isConcerned(anyString(), any(User.class)))
+        .thenAnswer(i -> SESSION_ID.equals(i.getArguments()[0]));
+    ServerEventDispatcherTask.dispatch(mockedServerEvent);
+    afterSomeTimesCheck(() -> {
+      assertThat(getStoredServerEvents(), contains(mockedServerEvent));
+      String eventStream = getSentServerEventStream(mockedAsyncContext);
+      assertThat(eventStream,
+          is("retry: 5000\nid: 0\nevent: EVENT_TARGETED\ndata: Only for you\n\n"));
+      verify(otherAsyncContext, never()).isSendPossible();
+      verify(otherAsyncContext, never()).getResponse();
+    });
+  }
+
+  @Test
+  public void getStoredEventsFromAGivenIdShouldReturnOnlyTheNextOnes() throws Exception {
+    ServerEvent firstServerEvent = newMockedServerEvent("EVENT_NAME", "first");
+    ServerEvent secondServerEvent = newMockedServerEvent("EVENT_NAME", "second");
+    ServerEvent thirdServerEvent = newMockedServerEvent("EVENT_NAME", "third");
+    ServerEventDispatcherTask.dispatch(firstServerEvent);
+    ServerEventDispatcherTask.dispatch(secondServerEvent);
+    ServerEventDispatcherTask.dispatch(thirdServerEvent);
+    afterSomeTimesCheck(() -> {
+      assertThat(getStoredServerEvents(),
+          contains(firstServerEvent, secondServerEvent, thirdServerEvent));
+      assertThat(getStoredServerEventsFromId(firstServerEvent.getId()),
+          contains(secondServerEvent, thirdServerEvent));
+      assertThat(getStoredServerEventsFromId(thirdServerEvent.getId()), empty());
+    });
+  }
+
+  @Test
+  public void storingAStoreLastOnlyEventReplacesTheOldestInstanceOfItsClassOrSubclasses()
+      throws Exception {
+    ServerEvent subclassEvent = new TestServerEventCSubclass();
+    storeServerEvent(subclassEvent);
+    assertThat(getStoredServerEvents(), contains(subclassEvent));
+
+    ServerEvent event = new TestServerEventCNotHandled();
+    storeServerEvent(event);
+    assertThat(getStoredServerEvents(), contains(event));
+
+    // an instance of the super class isn't replaced by an instance of a subclass
+    ServerEvent otherSubclassEvent = new TestServerEventCSubclass();
+    storeServerEvent(otherSubclassEvent);
+    assertThat(getStoredServerEvents(), contains(event, otherSubclassEvent));
+
+    ServerEvent otherEvent = new TestServerEventCNotHandled();
+    storeServerEvent(otherEvent);
+    assertThat(getStoredServerEvents(), contains(otherSubclassEvent, otherEvent));
+  }
+
+  private static class TestServerEventCSubclass extends TestServerEventCNotHandled {
+  }
+}
@@ -33,10 +33,13 @@ import org.silverpeas.core.test.extention.LoggerExtension;
 import org.silverpeas.core.test.extention.LoggerLevel;
 import org.silverpeas.core.test.extention.EnableSilverTestEnv;
 import org.silverpeas.core.test.extention.TestManagedBeans;
+import org.silverpeas.core.thread.task.RequestTaskManager.LaneStatistics;
 import org.silverpeas.core.thread.task.RequestTaskManager.RequestTaskMonitor;
 import org.silverpeas.core.util.logging.Level;
 import org.silverpeas.core.util.logging.SilverLogger;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
@@ -52,7 +55,7 @@ import static org.hamcrest.Matchers.*;
 @ExtendWith(LoggerExtension.class)
 @LoggerLevel(Level.DEBUG)
 @TestManagedBeans({TestRequestTask.class, TestRequestTaskWithLimit.class,
-    TestRequestTaskWithAfterNoMoreRequestLongTreatment.class})
+    TestRequestTaskWithAfterNoMoreRequestLongTreatment.class, TestRequestTaskWithLanes.class})
 public class RequestTaskManagerTest {
 
   private static int counter = 0;
@@ -78,6 +81,7 @@ public class RequestTaskManagerTest {
   @AfterEach
   public synchronized void clean() {
     RequestTaskManager.tasks.clear();
+    TestRequestTaskWithLanes.clear();
   }
 
   @BeforeEach
@@ -319,6 +323,44 @@ public class RequestTaskManagerTest {
     assertThat(counter, is(nbSleepRequests));
   }
 
+  @Test
+  public void requestsOfDifferentLanesArePerformedInParallelButInOrderForASameKey()
+      throws InterruptedException {
+    final int nbComponents = 20;
+    final int nbRequestsPerComponent = 10;
+    final int sleep = 5;
+    for (int i = 0; i < nbRequestsPerComponent; i++) {
+      for (int j = 0; j < nbComponents; j++) {
+        TestRequestTaskWithLanes.newKeyedSleepRequest("kmelia" + j, i, sleep);
+      }
+    }
+    final List<LaneStatistics> statistics =
+        RequestTaskManager.getLaneStatistics(TestRequestTaskWithLanes.class);
+    assertThat(statistics.size(), is(TestRequestTaskWithLanes.LANE_COUNT));
+    while (RequestTaskManager.isTaskRunning(TestRequestTaskWithLanes.class)) {
+      Thread.sleep(10);
+    }
+
+    assertThat(getCounter(), is(nbComponents * nbRequestsPerComponent));
+    // the requests of different lanes overlap whereas the ones of a same key never do
+    assertThat(TestRequestTaskWithLanes.MAX_RUNNING.get(), greaterThan(1));
+    assertThat(TestRequestTaskWithLanes.MAX_RUNNING.get(),
+        lessThanOrEqualTo(TestRequestTaskWithLanes.LANE_COUNT));
+    assertThat(TestRequestTaskWithLanes.OVERLAPS_OF_A_SAME_KEY.get(), is(0));
+    assertThat(TestRequestTaskWithLanes.PROCESSED.size(), is(nbComponents));
+    final List<Integer> expectedOrder = new ArrayList<>();
+    for (int i = 0; i < nbRequestsPerComponent; i++) {
+      expectedOrder.add(i);
+    }
+    TestRequestTaskWithLanes.PROCESSED.values()
+        .forEach(orders -> assertThat(orders, is(expectedOrder)));
+    final long totalProcessed = RequestTaskManager.getLaneStatistics(TestRequestTaskWithLanes.class)
+        .stream()
+        .mapToLong(LaneStatistics::getProcessedRequests)
+        .sum();
+    assertThat(totalProcessed, is((long) nbComponents * nbRequestsPerComponent));
+  }
+
   @SuppressWarnings("unchecked")
   private RequestTaskMonitor waitForTaskEndingAfterFirstInit(final Class testClass)
       throws InterruptedException, ExecutionException {
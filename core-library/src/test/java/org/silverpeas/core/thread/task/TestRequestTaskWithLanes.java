@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.thread.task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author silveryocha
+ */
+public class TestRequestTaskWithLanes extends TestRequestTask {
+
+  static final int LANE_COUNT = 4;
+  static final Map<String, List<Integer>> PROCESSED = new ConcurrentHashMap<>();
+  static final Set<String> RUNNING_KEYS = ConcurrentHashMap.newKeySet();
+  static final AtomicInteger RUNNING = new AtomicInteger(0);
+  static final AtomicInteger MAX_RUNNING = new AtomicInteger(0);
+  static final AtomicInteger OVERLAPS_OF_A_SAME_KEY = new AtomicInteger(0);
+
+  static void clear() {
+    PROCESSED.clear();
+    RUNNING_KEYS.clear();
+    RUNNING.set(0);
+    MAX_RUNNING.set(0);
+    OVERLAPS_OF_A_SAME_KEY.set(0);
+  }
+
+  static void newKeyedSleepRequest(final String key, final int order, final int sleep) {
+    RequestTaskManager.push(TestRequestTaskWithLanes.class,
+        new KeyedSleepTestRequest(key, order, sleep));
+  }
+
+  @Override
+  protected int getRequestQueueLimit() {
+    return 10;
+  }
+
+  @Override
+  protected int getLaneCount() {
+    return LANE_COUNT;
+  }
+
+  static class KeyedSleepTestRequest extends SleepTestRequest {
+    private final String key;
+    private final int order;
+
+    KeyedSleepTestRequest(final String key, final int order, final int sleep) {
+      super(sleep);
+      this.key = key;
+      this.order = order;
+    }
+
+    @Override
+    public Object getLaneKey() {
+      return key;
+    }
+
+    @Override
+    public void process(final TestProcessContext context) throws InterruptedException {
+      if (!RUNNING_KEYS.add(key)) {
+        OVERLAPS_OF_A_SAME_KEY.incrementAndGet();
+      }
+      MAX_RUNNING.accumulateAndGet(RUNNING.incrementAndGet(), Math::max);
+      try {
+        super.process(context);
+        PROCESSED.computeIfAbsent(key, k -> new ArrayList<>()).add(order);
+      } finally {
+        RUNNING.decrementAndGet();
+        RUNNING_KEYS.remove(key);
+      }
+    }
+  }
+}
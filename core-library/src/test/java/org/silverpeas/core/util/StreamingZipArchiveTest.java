@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.util;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.silverpeas.core.test.UnitTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests on the ZIP archives written on the fly.
+ */
+@UnitTest
+class StreamingZipArchiveTest {
+
+  @Test
+  void entriesAreWrittenIntoTheOutputStream() throws IOException {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (StreamingZipArchive zip = new StreamingZipArchive(output)) {
+      zip.addEntry("dir/text.txt", new ByteArrayInputStream(bytes("some text")));
+      zip.addEntry("dir\\été.txt",
+          out -> out.write(bytes("written by a writer")));
+    }
+    final Map<String, byte[]> entries = readEntries(output.toByteArray());
+    assertThat(entries.keySet(), containsInAnyOrder("dir/text.txt", "dir/été.txt"));
+    assertThat(new String(entries.get("dir/été.txt"), StandardCharsets.UTF_8),
+        is("written by a writer"));
+  }
+
+  @Test
+  void entriesWithTheSameNameAreRenamed() throws IOException {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (StreamingZipArchive zip = new StreamingZipArchive(output)) {
+      assertThat(zip.addEntry("file.txt", new ByteArrayInputStream(bytes("1"))), is("file.txt"));
+      assertThat(zip.addEntry("file.txt", new ByteArrayInputStream(bytes("2"))),
+          is("file (1).txt"));
+      assertThat(zip.addEntry("file.txt", new ByteArrayInputStream(bytes("3"))),
+          is("file (2).txt"));
+      assertThat(zip.addEntry("README", new ByteArrayInputStream(bytes("4"))), is("README"));
+      assertThat(zip.addEntry("README", new ByteArrayInputStream(bytes("5"))), is("README (1)"));
+    }
+    assertThat(readEntries(output.toByteArray()).size(), is(5));
+  }
+
+  @Test
+  void alreadyCompressedFormatsAreNotCompressedAgain() throws IOException {
+    final byte[] text = new byte[100000];
+    final byte[] pattern = bytes("a text compressed very well ");
+    for (int i = 0; i < text.length; i++) {
+      text[i] = pattern[i % pattern.length];
+    }
+    final ByteArrayOutputStream textArchive = new ByteArrayOutputStream();
+    try (StreamingZipArchive zip = new StreamingZipArchive(textArchive)) {
+      zip.addEntry("text.txt", new ByteArrayInputStream(text));
+    }
+    final ByteArrayOutputStream imageArchive = new ByteArrayOutputStream();
+    try (StreamingZipArchive zip = new StreamingZipArchive(imageArchive)) {
+      zip.addEntry("image.JPG", new ByteArrayInputStream(text));
+    }
+    assertThat(StreamingZipArchive.isCompressedFormat("image.JPG"), is(true));
+    assertThat(StreamingZipArchive.isCompressedFormat("text.txt"), is(false));
+    assertThat(textArchive.size(), lessThan(text.length / 10));
+    assertThat(imageArchive.size(), greaterThan(text.length));
+    assertThat(readEntries(imageArchive.toByteArray()).get("image.JPG"), is(text));
+  }
+
+  @Test
+  void archivingIsCancelledWhenTheOutputCannotBeWrittenAnymore() {
+    final CountingInputStream content = new CountingInputStream(64L * 1024 * 1024);
+    final OutputStream disconnectedClient = new OutputStream() {
+      private long written = 0;
+
+      @Override
+      public void write(final int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+      }
+
+      @Override
+      public void write(final byte[] b, final int off, final int len) throws IOException {
+        written += len;
+        if (written > 1024 * 1024) {
+          throw new IOException("Broken pipe");
+        }
+      }
+    };
+    assertThrows(IOException.class, () -> {
+      try (StreamingZipArchive zip = new StreamingZipArchive(disconnectedClient)) {
+        zip.addEntry("big.bin", content);
+      }
+    });
+    assertThat(content.read, lessThan(4L * 1024 * 1024));
+  }
+
+  @Test
+  void theOutputStreamIsNotClosed() throws IOException {
+    final boolean[] closed = {false};
+    final ByteArrayOutputStream output = new ByteArrayOutputStream() {
+      @Override
+      public void close() {
+        closed[0] = true;
+      }
+    };
+    try (StreamingZipArchive zip = new StreamingZipArchive(output)) {
+      zip.addEntry("file.txt", out -> {
+        out.write(bytes("content"));
+        out.close();
+      });
+    }
+    assertThat(closed[0], is(false));
+    assertThat(readEntries(output.toByteArray()).size(), is(1));
+  }
+
+  private static byte[] bytes(final String text) {
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static Map<String, byte[]> readEntries(final byte[] archive) throws IOException {
+    final Map<String, byte[]> entries = new HashMap<>();
+    try (ZipArchiveInputStream zip = new ZipArchiveInputStream(new ByteArrayInputStream(archive),
+        StandardCharsets.UTF_8.name(), true, true)) {
+      ZipArchiveEntry entry;
+      while ((entry = zip.getNextZipEntry()) != null) {
+        entries.put(entry.getName(), IOUtils.toByteArray(zip));
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * A content of random bytes generated as it is read.
+   */
+  private static class CountingInputStream extends InputStream {
+    private final Random random = new Random(42);
+    private final long size;
+    private long read = 0;
+
+    CountingInputStream(final long size) {
+      this.size = size;
+    }
+
+    @Override
+    public int read() {
+      final byte[] b = new byte[1];
+      return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) {
+      if (read >= size) {
+        return -1;
+      }
+      final int count = (int) Math.min(len, size - read);
+      final byte[] bytes = new byte[count];
+      random.nextBytes(bytes);
+      System.arraycopy(bytes, 0, b, off, count);
+      read += count;
+      return count;
+    }
+  }
+}
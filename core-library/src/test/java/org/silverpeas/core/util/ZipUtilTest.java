@@ -33,7 +33,9 @@ import org.silverpeas.core.test.extention.EnableSilverTestEnv;
 import org.silverpeas.core.test.util.MavenTestEnv;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.util.Enumeration;
 import java.util.Optional;
@@ -99,6 +101,24 @@ public class ZipUtilTest {
     }
   }
 
+  /**
+   * Test of compressPathToZip method into an output stream, of class ZipManager.
+   * @throws Exception
+   */
+  @Test
+  public void testCompressPathToOutputStream(MavenTestEnv mavenTestEnv) throws Exception {
+    File path = new File(mavenTestEnv.getResourceTestDirFile(), "ZipSample");
+    File outfile = new File(tempDir, "testCompressPathToOutputStream.zip");
+    try (OutputStream out = new FileOutputStream(outfile)) {
+      ZipUtil.compressPathToZip(path, out);
+    }
+    assertThat(ZipUtil.getNbFiles(outfile), is(5));
+    try (ZipFile zipFile = new ZipFile(outfile, CharEncoding.UTF_8)) {
+      assertThat(zipFile.getEntry("ZipSample/simple.txt"), is(notNullValue()));
+      assertThat(zipFile.getEntry("ZipSample/level1/level2b/simple.txt"), is(notNullValue()));
+    }
+  }
+
   /**
    * Test of compressStreamToZip method, of class ZipManager.
    * @throws Exception
@@ -35,6 +35,7 @@ import org.silverpeas.core.importexport.form.FormTemplateImportExport;
 import org.silverpeas.core.importexport.form.XMLModelContentType;
 import org.silverpeas.core.util.ResourceLocator;
 import org.silverpeas.core.util.SettingBundle;
+import org.silverpeas.core.util.StreamingZipArchive;
 import org.silverpeas.core.util.StringUtil;
 import org.silverpeas.core.util.error.SilverpeasTransverseErrorUtil;
 import org.silverpeas.core.util.file.FileRepositoryManager;
@@ -45,6 +46,7 @@ import org.silverpeas.core.util.logging.SilverLogger;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -244,6 +246,32 @@ public class AttachmentImportExport {
     return listToReturn;
   }
 
+  /**
+   * Exports the files attached to the specified object into a ZIP archive written on the fly.
+   * Only the attachments the user is allowed to download are exported.
+   *
+   * @param pk the reference of the object whose the attachments are exported.
+   * @param zip the ZIP archive into which the files are written.
+   * @param entryDirectory the directory of the files in the archive, empty for the root.
+   * @throws IOException if the archive cannot be written.
+   */
+  public void exportAttachments(ResourceReference pk, StreamingZipArchive zip,
+      String entryDirectory) throws IOException {
+    Collection<SimpleDocument> listAttachment = getAttachmentService()
+        .listDocumentsByForeignKey(pk, null);
+    for (SimpleDocument attachment : listAttachment) {
+      if (attachment.getDocumentType() == DocumentType.attachment
+          && attachment.isDownloadAllowedForRolesFrom(user)) {
+        String entryName = FileServerUtils.replaceAccentChars(attachment.getFilename());
+        if (isDefined(entryDirectory)) {
+          entryName = entryDirectory + File.separator + entryName;
+        }
+        zip.addEntry(entryName,
+            out -> getAttachmentService().getBinaryContent(out, attachment.getPk(), null));
+      }
+    }
+  }
+
   private void copyAttachment(SimpleDocument attDetail, String exportPath) {
     String fichierJointExport = exportPath + File.separatorChar + FileServerUtils.
         replaceAccentChars(attDetail.getFilename());
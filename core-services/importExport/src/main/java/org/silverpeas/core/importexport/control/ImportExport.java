@@ -66,6 +66,7 @@ import org.silverpeas.core.util.MultiSilverpeasBundle;
 import org.silverpeas.core.util.ResourceLocator;
 import org.silverpeas.core.util.ServiceProvider;
 import org.silverpeas.core.util.SettingBundle;
+import org.silverpeas.core.util.StreamingZipArchive;
 import org.silverpeas.core.util.StringUtil;
 import org.silverpeas.core.util.WAAttributeValuePair;
 import org.silverpeas.core.util.file.FileFolderManager;
@@ -87,6 +88,7 @@ import javax.xml.validation.SchemaFactory;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.net.MalformedURLException;
@@ -975,6 +977,36 @@ public class ImportExport extends AbstractExportProcess {
     return exportReport;
   }
 
+  /**
+   * Exports the files attached to the specified publications into a ZIP archive that is written
+   * on the fly into the specified output stream, for example the one of an HTTP response. Unlike
+   * {@link #processExport(UserDetail, String, List, NodePK, int)} with the
+   * {@link #EXPORT_FILESONLY} mode, the files aren't copied into an export directory and no
+   * temporary ZIP file is created: the first bytes of the archive are sent as soon as the first
+   * file is read. The export stops with an error as soon as the output stream cannot be written
+   * anymore, for example when the client has gone away.
+   * @param userDetail the user performing the export.
+   * @param listItemsToExport the publications whose the files are exported.
+   * @param rootPK the root folder of the export, null to put all the files at the root of the
+   * archive.
+   * @param output the output stream into which the ZIP archive is written. It isn't closed.
+   * @throws ImportExportException if the archive cannot be written.
+   */
+  public void processExportOfFilesOnly(UserDetail userDetail,
+      List<WAAttributeValuePair> listItemsToExport, NodePK rootPK, OutputStream output)
+      throws ImportExportException {
+    PublicationsTypeManager pubTypMgr = getPublicationsTypeManager();
+    StreamingZipArchive zip = new StreamingZipArchive(output);
+    try {
+      pubTypMgr.processExportOfFilesOnly(userDetail, listItemsToExport, zip, rootPK);
+      // the end of the archive isn't written on error, so that the receiver doesn't get a valid
+      // but truncated archive
+      zip.close();
+    } catch (IOException e) {
+      throw new ImportExportException("ImportExport", "root.EX_CANT_EXPORT_FILES", e);
+    }
+  }
+
   private ExportReport processExportOfPublicationsOnly(UserDetail userDetail,
       List<WAAttributeValuePair> listItemsToExport, NodePK rootPK) throws ImportExportException {
     PublicationsTypeManager pubTypMgr = getPublicationsTypeManager();
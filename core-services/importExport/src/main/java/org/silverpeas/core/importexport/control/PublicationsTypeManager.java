@@ -68,6 +68,7 @@ import org.silverpeas.core.pdc.pdc.importexport.PdcImportExport;
 import org.silverpeas.core.pdc.pdc.model.ClassifyPosition;
 import org.silverpeas.core.util.Charsets;
 import org.silverpeas.core.util.CollectionUtil;
+import org.silverpeas.core.util.StreamingZipArchive;
 import org.silverpeas.core.util.StringUtil;
 import org.silverpeas.core.util.WAAttributeValuePair;
 import org.silverpeas.core.util.error.SilverpeasTransverseErrorUtil;
@@ -131,7 +132,7 @@ public class PublicationsTypeManager {
       String componentId = attValue.getValue();
       ComponentInstLight componentInst = OrganizationControllerProvider.getOrganisationController()
           .getComponentInstLight(componentId);
-      GEDImportExport gedIE = ImportExportFactory.createGEDImportExport(userDetail, componentId);
+      GEDImportExport gedIE = createGEDImportExport(userDetail, componentId);
       // Récupération du PublicationType
       PublicationType publicationType = gedIE.getPublicationCompleteById(pubId, componentId);
       PublicationDetail publicationDetail = publicationType.getPublicationDetail();
@@ -343,7 +344,12 @@ public class PublicationsTypeManager {
 
   private String createDirectoryPathForExport(String exportPath, NodePK rootPK, NodePK pk,
       boolean useNameForFolders) throws IOException {
+    // ZIP API manage only ASCII characters. So directories are created in ASCII too.
+    return createASCIIPath(getDirectoryPathForExport(exportPath, rootPK, pk, useNameForFolders));
+  }
 
+  private String getDirectoryPathForExport(String exportPath, NodePK rootPK, NodePK pk,
+      boolean useNameForFolders) {
     StringBuilder pathToCreate = new StringBuilder(exportPath);
 
     List<NodeDetail> listNodes = new ArrayList<>(nodeImportExport.getPathOfNode(pk));
@@ -361,9 +367,7 @@ public class PublicationsTypeManager {
         pathToCreate.append(separator).append(nodeNameForm);
       }
     }
-
-    // ZIP API manage only ASCII characters. So directories are created in ASCII too.
-    return createASCIIPath(pathToCreate.toString());
+    return pathToCreate.toString();
   }
 
   private String createASCIIPath(String path) throws IOException {
@@ -439,7 +443,7 @@ public class PublicationsTypeManager {
     GEDImportExport gedIE = null;
     if (listItemsToExport != null && !listItemsToExport.isEmpty()) {
       String componentId = listItemsToExport.get(0).getValue();
-      gedIE = ImportExportFactory.createGEDImportExport(userDetail, componentId);
+      gedIE = createGEDImportExport(userDetail, componentId);
     }
 
     // Parcours des publications à exporter
@@ -453,30 +457,83 @@ public class PublicationsTypeManager {
         exportAttachments(attachmentIE, null, pk, "", exportPath);
       } else {
         // exporting attachments in directories according to place of publications
-        List<Location> folderPKs = gedIE.getAllTopicsOfPublicationInSameComponentInstance(pk);
-        // add place of aliases
-        folderPKs.addAll(gedIE.getAliases(pk));
-        NodePK rightFolderPK = null;
-        for (NodePK folderPK : folderPKs) {
-          if (folderPK.getInstanceId().equals(nodeRootPK.getInstanceId())) {
-            List<NodeDetail> listNodes = new ArrayList<>(nodeImportExport.getPathOfNode(folderPK));
-            Collections.reverse(listNodes);
-            for (NodeDetail nodeDetail : listNodes) {
-              if (nodeDetail.getNodePK().equals(nodeRootPK)) {
-                rightFolderPK = folderPK;
-                break;
-              }
-            }
-            if (rightFolderPK != null) {
-              String attachmentsExportPath =
-                  createDirectoryPathForExport(exportPath, nodeRootPK, rightFolderPK, true);
-              exportAttachments(attachmentIE, null, pk, "", attachmentsExportPath);
-              break;
-            }
+        NodePK rightFolderPK = getFolderOfPublicationUnder(gedIE, pk, nodeRootPK);
+        if (rightFolderPK != null) {
+          String attachmentsExportPath =
+              createDirectoryPathForExport(exportPath, nodeRootPK, rightFolderPK, true);
+          exportAttachments(attachmentIE, null, pk, "", attachmentsExportPath);
+        }
+      }
+    }
+  }
+
+  /**
+   * Exports the files attached to the specified publications into a ZIP archive written on the
+   * fly: the files are piped into the archive, without being copied first into an export
+   * directory. The entries are organized as the directories of
+   * {@link #processExportOfFilesOnly(ExportReport, UserDetail, List, String, NodePK)}.
+   * @param userDetail the user performing the export.
+   * @param listItemsToExport the publications whose the files are exported. If null or empty,
+   * nothing is exported.
+   * @param zip the ZIP archive into which the files are written.
+   * @param nodeRootPK the root folder of the export, null to put all the files at the root of
+   * the archive.
+   * @throws IOException if the archive cannot be written. It is mostly because the receiver of
+   * the archive has gone away.
+   */
+  public void processExportOfFilesOnly(UserDetail userDetail,
+      List<WAAttributeValuePair> listItemsToExport, StreamingZipArchive zip, NodePK nodeRootPK)
+      throws IOException {
+    if (listItemsToExport == null || listItemsToExport.isEmpty()) {
+      return;
+    }
+    AttachmentImportExport attachmentIE = new AttachmentImportExport(userDetail);
+    String componentId = listItemsToExport.get(0).getValue();
+    GEDImportExport gedIE = createGEDImportExport(userDetail, componentId);
+
+    for (WAAttributeValuePair attValue : listItemsToExport) {
+      PublicationPK pk = new PublicationPK(attValue.getName(), attValue.getValue());
+      if (nodeRootPK == null || !StringUtil.isDefined(nodeRootPK.getId())) {
+        attachmentIE.exportAttachments(pk.toResourceReference(), zip, "");
+      } else {
+        NodePK rightFolderPK = getFolderOfPublicationUnder(gedIE, pk, nodeRootPK);
+        if (rightFolderPK != null) {
+          // the path starts with the separator of the root folder
+          String entryDirectory = FileServerUtils.replaceAccentChars(
+              getDirectoryPathForExport("", nodeRootPK, rightFolderPK, true)).substring(1);
+          attachmentIE.exportAttachments(pk.toResourceReference(), zip, entryDirectory);
+        }
+      }
+    }
+  }
+
+  /**
+   * Creates the import-export of the publications of the specified component instance.
+   * @param userDetail the user performing the import or the export.
+   * @param componentId the identifier of the component instance.
+   * @return the import-export of the publications or null if it cannot be created.
+   */
+  GEDImportExport createGEDImportExport(UserDetail userDetail, String componentId) {
+    return ImportExportFactory.createGEDImportExport(userDetail, componentId);
+  }
+
+  private NodePK getFolderOfPublicationUnder(GEDImportExport gedIE, PublicationPK pk,
+      NodePK nodeRootPK) {
+    List<Location> folderPKs = gedIE.getAllTopicsOfPublicationInSameComponentInstance(pk);
+    // add place of aliases
+    folderPKs.addAll(gedIE.getAliases(pk));
+    for (NodePK folderPK : folderPKs) {
+      if (folderPK.getInstanceId().equals(nodeRootPK.getInstanceId())) {
+        List<NodeDetail> listNodes = new ArrayList<>(nodeImportExport.getPathOfNode(folderPK));
+        Collections.reverse(listNodes);
+        for (NodeDetail nodeDetail : listNodes) {
+          if (nodeDetail.getNodePK().equals(nodeRootPK)) {
+            return folderPK;
           }
         }
       }
     }
+    return null;
   }
 
   public List<AttachmentDetail> processPDFExport(ExportPDFReport exportReport,
@@ -489,7 +546,7 @@ public class PublicationsTypeManager {
     for (WAAttributeValuePair attValue : listItemsToExport) {
       String pubId = attValue.getName();
       String componentId = attValue.getValue();
-      GEDImportExport gedIE = ImportExportFactory.createGEDImportExport(userDetail, componentId);
+      GEDImportExport gedIE = createGEDImportExport(userDetail, componentId);
 
       // Récupération du PublicationType
       PublicationType publicationType = gedIE.getPublicationCompleteById(pubId, componentId);
@@ -546,7 +603,7 @@ public class PublicationsTypeManager {
   public void processImport(List<PublicationType> publicationTypes, ImportSettings settings,
       ImportReportManager reportManager) {
     GEDImportExport gedIE =
-        ImportExportFactory.createGEDImportExport(settings.getUser(), settings.getComponentId());
+        createGEDImportExport(settings.getUser(), settings.getComponentId());
     AttachmentImportExport attachmentIE = new AttachmentImportExport(gedIE.getCurrentUserDetail());
     VersioningImport versioningIE = new VersioningImport(settings.getUser());
 
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.importexport.control;
+
+import org.junit.jupiter.api.Test;
+import org.silverpeas.core.admin.user.model.UserDetail;
+import org.silverpeas.core.importexport.model.ImportExportException;
+import org.silverpeas.core.test.extention.EnableSilverTestEnv;
+import org.silverpeas.core.test.extention.TestManagedMock;
+import org.silverpeas.core.test.extention.TestedBean;
+import org.silverpeas.core.util.StreamingZipArchive;
+import org.silverpeas.core.util.WAAttributeValuePair;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.silverpeas.core.importexport.control.PublicationsTypeManagerTest.entriesOf;
+
+/**
+ * Unit tests on the export of the files of publications into a ZIP archive written on the fly
+ * into an output stream.
+ */
+@EnableSilverTestEnv
+class ImportExportTest {
+
+  private static final List<WAAttributeValuePair> PUBLICATIONS =
+      Collections.singletonList(new WAAttributeValuePair("10", "kmelia1"));
+
+  @TestManagedMock
+  private PublicationsTypeManager publicationsTypeManager;
+
+  @TestedBean
+  private ImportExport importExport;
+
+  @Test
+  void theArchiveIsCompletedOnceAllTheFilesAreExported() throws Exception {
+    doAnswer(i -> {
+      final StreamingZipArchive zip = i.getArgument(2);
+      zip.addEntry("a.txt", out -> out.write("content".getBytes(StandardCharsets.UTF_8)));
+      return null;
+    }).when(publicationsTypeManager)
+        .processExportOfFilesOnly(any(UserDetail.class), eq(PUBLICATIONS),
+            any(StreamingZipArchive.class), any());
+
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    importExport.processExportOfFilesOnly(new UserDetail(), PUBLICATIONS, null, output);
+    assertThat(entriesOf(output.toByteArray()), hasEntry("a.txt", "content"));
+    assertThat(isAValidArchive(output.toByteArray()), is(true));
+  }
+
+  @Test
+  void theArchiveIsAbortedWhenAFileCannotBeExported() throws Exception {
+    doAnswer(i -> {
+      final StreamingZipArchive zip = i.getArgument(2);
+      zip.addEntry("a.txt", out -> out.write("content".getBytes(StandardCharsets.UTF_8)));
+      throw new IOException("Broken pipe");
+    }).when(publicationsTypeManager)
+        .processExportOfFilesOnly(any(UserDetail.class), eq(PUBLICATIONS),
+            any(StreamingZipArchive.class), any());
+
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    assertThrows(ImportExportException.class, () -> importExport
+        .processExportOfFilesOnly(new UserDetail(), PUBLICATIONS, null, output));
+    // the end of the archive isn't written, so the receiver doesn't get a truncated archive
+    assertThat(isAValidArchive(output.toByteArray()), is(false));
+  }
+
+  private static boolean isAValidArchive(final byte[] archive) throws IOException {
+    final Path file = Files.createTempFile("export", ".zip");
+    try {
+      Files.write(file, archive);
+      try (ZipFile ignored = new ZipFile(file.toFile())) {
+        return true;
+      } catch (ZipException e) {
+        return false;
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
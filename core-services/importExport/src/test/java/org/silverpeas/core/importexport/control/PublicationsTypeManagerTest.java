@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.importexport.control;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.silverpeas.core.ResourceReference;
+import org.silverpeas.core.admin.user.model.UserDetail;
+import org.silverpeas.core.contribution.attachment.AttachmentService;
+import org.silverpeas.core.contribution.attachment.model.DocumentType;
+import org.silverpeas.core.contribution.attachment.model.SimpleDocument;
+import org.silverpeas.core.contribution.attachment.model.SimpleDocumentPK;
+import org.silverpeas.core.contribution.attachment.util.SimpleDocumentList;
+import org.silverpeas.core.contribution.publication.model.Location;
+import org.silverpeas.core.contribution.publication.model.PublicationPK;
+import org.silverpeas.core.node.importexport.NodeImportExport;
+import org.silverpeas.core.node.model.NodeDetail;
+import org.silverpeas.core.node.model.NodePK;
+import org.silverpeas.core.test.extention.EnableSilverTestEnv;
+import org.silverpeas.core.test.extention.TestManagedMock;
+import org.silverpeas.core.test.extention.TestedBean;
+import org.silverpeas.core.util.StreamingZipArchive;
+import org.silverpeas.core.util.WAAttributeValuePair;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests on the export of the files of publications into a ZIP archive written on the fly.
+ * The publications are in the following folders of a kmelia instance:
+ * <pre>
+ *   0 Accueil
+ *   |_ 1 Thèmes: publication 11
+ *   |  |_ 2 Sous/thème: publication 10
+ *   |_ 3 Autres: publication 12
+ * </pre>
+ */
+@EnableSilverTestEnv
+class PublicationsTypeManagerTest {
+
+  private static final String INSTANCE_ID = "kmelia1";
+
+  @TestManagedMock
+  private AttachmentService attachmentService;
+  @TestManagedMock
+  private NodeImportExport nodeImportExport;
+
+  private GEDImportExport gedImportExport;
+
+  @TestedBean
+  private PublicationsTypeManager manager = new PublicationsTypeManager() {
+    @Override
+    GEDImportExport createGEDImportExport(final UserDetail userDetail, final String componentId) {
+      return gedImportExport;
+    }
+  };
+
+  private final Map<String, NodeDetail> folders = new HashMap<>();
+  private final Map<String, String> folderOfPublications = new HashMap<>();
+  private final Map<String, String> fileOfPublications = new HashMap<>();
+
+  @BeforeEach
+  void setUpPublications() {
+    gedImportExport = mock(GEDImportExport.class);
+    addFolder("0", "Accueil", null);
+    addFolder("1", "Thèmes", "0");
+    addFolder("2", "Sous/thème", "1");
+    addFolder("3", "Autres", "0");
+    addPublication("10", "2", "a.txt");
+    addPublication("11", "1", "b.txt");
+    addPublication("12", "3", "c.txt");
+
+    when(nodeImportExport.getPathOfNode(any(NodePK.class)))
+        .thenAnswer(i -> pathOf(((NodePK) i.getArgument(0)).getId()));
+    when(gedImportExport.getAllTopicsOfPublicationInSameComponentInstance(any())).thenAnswer(
+        i -> new ArrayList<>(Collections.singletonList(
+            new Location(folderOfPublications.get(i.<PublicationPK>getArgument(0).getId()),
+                INSTANCE_ID))));
+    when(attachmentService.listDocumentsByForeignKey(any(ResourceReference.class), isNull()))
+        .thenAnswer(i -> attachmentsOf(i.<ResourceReference>getArgument(0).getId()));
+    doAnswer(i -> {
+      final OutputStream output = i.getArgument(0);
+      final SimpleDocumentPK pk = i.getArgument(1);
+      output.write(("content of " + pk.getId()).getBytes(StandardCharsets.UTF_8));
+      return null;
+    }).when(attachmentService)
+        .getBinaryContent(any(OutputStream.class), any(SimpleDocumentPK.class), isNull());
+  }
+
+  @Test
+  void theFilesAreExportedIntoTheFoldersOfTheirPublicationUnderTheRoot() throws IOException {
+    final Map<String, String> entries = export(new NodePK("1", INSTANCE_ID), "10", "11", "12");
+    assertThat(entries.keySet(), containsInAnyOrder("Themes/Sous_theme/a.txt", "Themes/b.txt"));
+    assertThat(entries.get("Themes/Sous_theme/a.txt"), is("content of 10"));
+    assertThat(entries.get("Themes/b.txt"), is("content of 11"));
+  }
+
+  @Test
+  void theFilesAreExportedAtTheRootOfTheArchiveWithoutRootFolder() throws IOException {
+    final Map<String, String> entries = export(null, "10", "11", "12");
+    assertThat(entries.keySet(), containsInAnyOrder("a.txt", "b.txt", "c.txt"));
+    assertThat(entries.get("c.txt"), is("content of 12"));
+  }
+
+  @Test
+  void nothingIsExportedWithoutPublications() throws IOException {
+    assertThat(export(new NodePK("1", INSTANCE_ID)).isEmpty(), is(true));
+  }
+
+  @Test
+  void theExportStopsAtTheFirstFileThatCannotBeRead() {
+    doThrow(new IllegalStateException("repository failure")).when(attachmentService)
+        .getBinaryContent(any(OutputStream.class), eq(new SimpleDocumentPK("11", INSTANCE_ID)),
+            isNull());
+    assertThrows(IllegalStateException.class, () -> export(null, "10", "11", "12"));
+    verify(attachmentService, never()).getBinaryContent(any(OutputStream.class),
+        eq(new SimpleDocumentPK("12", INSTANCE_ID)), isNull());
+  }
+
+  private Map<String, String> export(final NodePK root, final String... publicationIds)
+      throws IOException {
+    final List<WAAttributeValuePair> publications = new ArrayList<>();
+    for (String publicationId : publicationIds) {
+      publications.add(new WAAttributeValuePair(publicationId, INSTANCE_ID));
+    }
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (StreamingZipArchive zip = new StreamingZipArchive(output)) {
+      manager.processExportOfFilesOnly(new UserDetail(), publications, zip, root);
+    }
+    return entriesOf(output.toByteArray());
+  }
+
+  static Map<String, String> entriesOf(final byte[] archive) throws IOException {
+    final Map<String, String> entries = new HashMap<>();
+    try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+      ZipEntry entry;
+      while ((entry = zip.getNextEntry()) != null) {
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1024];
+        int length;
+        while ((length = zip.read(buffer)) > 0) {
+          content.write(buffer, 0, length);
+        }
+        entries.put(entry.getName(), new String(content.toByteArray(), StandardCharsets.UTF_8));
+      }
+    }
+    return entries;
+  }
+
+  private void addFolder(final String id, final String name, final String fatherId) {
+    folders.put(id, new NodeDetail(new NodePK(id, INSTANCE_ID), name, "", 0, fatherId));
+  }
+
+  private void addPublication(final String id, final String folderId, final String fileName) {
+    folderOfPublications.put(id, folderId);
+    fileOfPublications.put(id, fileName);
+  }
+
+  /**
+   * The path of the specified folder, from it up to the root folder.
+   */
+  private List<NodeDetail> pathOf(final String folderId) {
+    final List<NodeDetail> path = new ArrayList<>();
+    NodeDetail folder = folders.get(folderId);
+    while (folder != null) {
+      path.add(folder);
+      folder = folders.get(folder.getFatherPK().getId());
+    }
+    return path;
+  }
+
+  private SimpleDocumentList<SimpleDocument> attachmentsOf(final String publicationId) {
+    final SimpleDocument attachment = mock(SimpleDocument.class);
+    when(attachment.getDocumentType()).thenReturn(DocumentType.attachment);
+    when(attachment.isDownloadAllowedForRolesFrom(any())).thenReturn(true);
+    when(attachment.getFilename()).thenReturn(fileOfPublications.get(publicationId));
+    when(attachment.getPk()).thenReturn(new SimpleDocumentPK(publicationId, INSTANCE_ID));
+    return new SimpleDocumentList<>(Arrays.asList(attachment));
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.pdc.classification;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkMethodChart;
+import com.ninja_squad.dbsetup.operation.Operation;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.Archive;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+import org.junit.rules.TestRule;
+import org.junit.runner.RunWith;
+import org.silverpeas.core.test.BasicWarBuilder;
+import org.silverpeas.core.test.rule.DbSetupRule;
+import org.silverpeas.core.util.ServiceProvider;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+import static org.silverpeas.core.pdc.classification.ClassifyEngineIT.*;
+
+/**
+ * Benchmark of the computing of the pertinent axis of a PDC search among 500,000 silver contents
+ * classified on 20 axis: from the in-memory index of the classify engine and, as before, with the
+ * SQL statements.
+ */
+@RunWith(Arquillian.class)
+@BenchmarkMethodChart
+public class ClassifyEngineBenchmarkIT {
+
+  private static final int NB_OBJECTS = 500000;
+
+  private static final Operation CLASSIFICATION_SET_UP =
+      (connection, configuration) -> generateClassification(connection, NB_OBJECTS);
+
+  private final DbSetupRule dbSetupRule = DbSetupRule.createTablesFrom("")
+      .loadInitialDataSetFrom(DROP_ALL, TABLES_CREATION, CLASSIFICATION_SET_UP);
+
+  /**
+   * The database is set up once per test, then the benchmark rounds are run on it.
+   */
+  @Rule
+  public TestRule rules = RuleChain.outerRule(dbSetupRule).around(new BenchmarkRule());
+
+  @Deployment
+  public static Archive<?> createTestArchive() {
+    return BasicWarBuilder.onWarForTestClass(ClassifyEngineBenchmarkIT.class)
+        .addMavenDependenciesWithPersistence("org.silverpeas.core:silverpeas-core")
+        .addMavenDependencies("com.carrotsearch:junit-benchmarks")
+        .testFocusedOn(war -> war.addPackages(true, "org.silverpeas.core.pdc.classification"))
+        .build();
+  }
+
+  @Test
+  @BenchmarkOptions(benchmarkRounds = 200, warmupRounds = 20)
+  public void benchmarkPertinentAxisFromTheIndex() throws Exception {
+    final ClassifyEngine engine = ServiceProvider.getService(ClassifyEngine.class);
+    final List<Integer> counts = countPertinentAxisByIndex(engine, randomRefinement());
+    assertThat(counts, hasSize(NB_AXIS));
+  }
+
+  @Test
+  @BenchmarkOptions(benchmarkRounds = 20, warmupRounds = 2)
+  public void benchmarkPertinentAxisFromTheSQLStatementsAsBefore() throws Exception {
+    try (Connection con = DbSetupRule.getSafeConnection()) {
+      final List<Integer> counts = countPertinentAxisBySQL(con, randomRefinement(), INSTANCE_IDS);
+      assertThat(counts, hasSize(NB_AXIS));
+    }
+  }
+
+  private static List<Criteria> randomRefinement() {
+    return refinement(ThreadLocalRandom.current().nextInt(NB_REFINEMENTS));
+  }
+}
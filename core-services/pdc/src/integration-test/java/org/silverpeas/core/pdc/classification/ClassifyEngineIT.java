@@ -0,0 +1,304 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.pdc.classification;
+
+import com.ninja_squad.dbsetup.Operations;
+import com.ninja_squad.dbsetup.operation.Operation;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.Archive;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.silverpeas.core.persistence.Transaction;
+import org.silverpeas.core.persistence.TransactionRuntimeException;
+import org.silverpeas.core.persistence.jdbc.DBUtil;
+import org.silverpeas.core.persistence.jdbc.sql.JdbcSqlQuery;
+import org.silverpeas.core.test.BasicWarBuilder;
+import org.silverpeas.core.test.DataSetTest;
+import org.silverpeas.core.util.DateUtil;
+import org.silverpeas.core.util.JoinStatement;
+import org.silverpeas.core.util.ServiceProvider;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Integration tests on the in-memory index of the classify engine. They check the pertinent axis
+ * and values computed from the index are the ones computed by the SQL statements and that the
+ * index follows only the committed changes of the classification.
+ */
+@RunWith(Arquillian.class)
+public class ClassifyEngineIT extends DataSetTest {
+
+  private static final int MAX_AXIS = 50;
+  static final int NB_AXIS = 20;
+  private static final int NB_OBJECTS = 2000;
+  private static final int NB_INSTANCES = 10;
+  static final int NB_REFINEMENTS = 20;
+
+  public static final Operation DROP_ALL = Operations.sql(
+      "DROP TABLE IF EXISTS SB_ClassifyEngine_Classify",
+      "DROP TABLE IF EXISTS SB_ContentManager_Content",
+      "DROP TABLE IF EXISTS SB_ContentManager_Instance",
+      "DROP TABLE IF EXISTS UniqueId");
+
+  static final List<String> INSTANCE_IDS =
+      Arrays.asList("kmelia1", "kmelia2", "kmelia3");
+  static final List<Integer> AXIS_IDS =
+      IntStream.range(0, NB_AXIS).boxed().collect(Collectors.toList());
+
+  public static final Operation TABLES_CREATION = Operations.sql(
+      "CREATE TABLE UniqueId (maxId BIGINT NOT NULL, tableName varchar(100) NOT NULL)",
+      "CREATE TABLE SB_ContentManager_Instance" +
+          "(" +
+          "    instanceId      int           not null," +
+          "    componentId     varchar(100)  not null," +
+          "    containerType   varchar(100)  not null," +
+          "    contentType     varchar(100)  not null" +
+          ")",
+      "CREATE TABLE SB_ContentManager_Content" +
+          "(" +
+          "    silverContentId     int           not null," +
+          "    internalContentId   varchar(100)  not null," +
+          "    contentInstanceId   int           not null," +
+          "    authorId            int           not null," +
+          "    creationDate        date          not null," +
+          "    beginDate           varchar(10)   null," +
+          "    endDate             varchar(10)   null," +
+          "    isVisible           int           null" +
+          ")",
+      "CREATE TABLE SB_ClassifyEngine_Classify (PositionId int not null, ObjectId int not null" +
+          axisColumns(MAX_AXIS, " varchar(150)") + ")",
+      "INSERT INTO SB_ClassifyEngine_Classify (PositionId, ObjectId" +
+          axisColumns(MAX_AXIS, "") + ") VALUES (-1, -1, " + registeredAxis() + ")");
+
+  private static final SQLStatement SQL_STATEMENT = new SQLStatement();
+
+  @Deployment
+  public static Archive<?> createTestArchive() {
+    return BasicWarBuilder.onWarForTestClass(ClassifyEngineIT.class)
+        .addMavenDependenciesWithPersistence("org.silverpeas.core:silverpeas-core")
+        .testFocusedOn(war -> war.addPackages(true, "org.silverpeas.core.pdc.classification"))
+        .build();
+  }
+
+  @Override
+  protected Operation getDbSetupInitializations() {
+    return Operations.sequenceOf(DROP_ALL, TABLES_CREATION);
+  }
+
+  @Test
+  public void theIndexShouldComputeTheSameCountsThanTheSQLStatements() throws Exception {
+    try (Connection con = getConnection()) {
+      generateClassification(con, NB_OBJECTS);
+
+      final ClassifyEngine engine = ServiceProvider.getService(ClassifyEngine.class);
+      for (int i = 0; i < NB_REFINEMENTS; i++) {
+        final List<Criteria> refinement = refinement(i);
+        assertThat(countPertinentAxisByIndex(engine, refinement),
+            is(countPertinentAxisBySQL(con, refinement, INSTANCE_IDS)));
+        assertThat(engine.getPertinentValuesByJoin(refinement, NB_AXIS - 1, INSTANCE_IDS)
+            .stream()
+            .map(v -> v.getValue() + "=" + v.getNbObjects())
+            .sorted()
+            .collect(Collectors.toList()),
+            is(countPertinentValuesBySQL(con, refinement, INSTANCE_IDS)));
+      }
+    }
+  }
+
+  @Test
+  public void theIndexShouldFollowTheClassification() throws Exception {
+    try (Connection con = getConnection()) {
+      generateClassification(con, NB_OBJECTS);
+      final ClassifyEngine engine = ServiceProvider.getService(ClassifyEngine.class);
+      final List<Criteria> anyValue = Collections.singletonList(new Criteria(0, "/0/"));
+      final List<Criteria> newValue = Collections.singletonList(new Criteria(0, "/0/new/"));
+      // loads the index
+      countPertinentAxisByIndex(engine, anyValue);
+
+      final int objectId = NB_OBJECTS + 1;
+      insertSilverContent(con, objectId);
+      engine.classifySilverObject(con, objectId, newPosition());
+      assertThat(countPertinentAxisByIndex(engine, anyValue),
+          is(countPertinentAxisBySQL(con, anyValue, INSTANCE_IDS)));
+      assertThat(engine.findSilverOjectByCriterias(newValue, INSTANCE_IDS, contentJoin(), null,
+          null, true, true), is(Collections.singletonList(objectId)));
+
+      engine.unclassifySilverObject(con, objectId);
+      assertThat(engine.findSilverOjectByCriterias(newValue, INSTANCE_IDS, contentJoin(), null,
+          null, true, true).isEmpty(), is(true));
+      assertThat(countPertinentAxisByIndex(engine, anyValue),
+          is(countPertinentAxisBySQL(con, anyValue, INSTANCE_IDS)));
+    }
+  }
+
+  @Test
+  public void aRolledBackClassificationShouldNotBeIndexed() throws Exception {
+    try (Connection con = getConnection()) {
+      generateClassification(con, NB_OBJECTS);
+      final ClassifyEngine engine = ServiceProvider.getService(ClassifyEngine.class);
+      final List<Criteria> anyValue = Collections.singletonList(new Criteria(0, "/0/"));
+      final List<Integer> expected = countPertinentAxisByIndex(engine, anyValue);
+
+      final int objectId = NB_OBJECTS + 1;
+      try {
+        Transaction.performInOne(() -> {
+          try (Connection connection = DBUtil.openConnection()) {
+            insertSilverContent(connection, objectId);
+            engine.classifySilverObject(connection, objectId, newPosition());
+          }
+          throw new IllegalStateException("rollback of the classification");
+        });
+      } catch (TransactionRuntimeException e) {
+        // the transaction is rolled back
+      }
+
+      assertThat(countPertinentAxisBySQL(con, anyValue, INSTANCE_IDS), is(expected));
+      assertThat(countPertinentAxisByIndex(engine, anyValue), is(expected));
+    }
+  }
+
+  private static void insertSilverContent(final Connection con, final int objectId)
+      throws SQLException {
+    JdbcSqlQuery.create("INSERT INTO SB_ContentManager_Content VALUES " +
+        "(?, ?, 1, 0, CURRENT_DATE, '0000/00/00', '9999/99/99', 1)", objectId,
+        String.valueOf(objectId)).executeWith(con);
+  }
+
+  private static Position<Value> newPosition() {
+    return new Position<>(
+        Arrays.asList(new Value(0, "/0/new/"), new Value(NB_AXIS - 1, "/0/new/")));
+  }
+
+  static List<Integer> countPertinentAxisByIndex(final ClassifyEngine engine,
+      final List<Criteria> criteria) throws Exception {
+    return engine.getPertinentAxisByJoin(criteria, AXIS_IDS, INSTANCE_IDS)
+        .stream()
+        .map(PertinentAxis::getNbObjects)
+        .collect(Collectors.toList());
+  }
+
+  static void generateClassification(final Connection con, final int nbObjects)
+      throws SQLException {
+    JdbcSqlQuery.create("INSERT INTO SB_ContentManager_Instance " +
+        "SELECT X, 'kmelia' || X, 'containerPDC', 'fileBoxPlus' FROM SYSTEM_RANGE(0, ?)",
+        NB_INSTANCES - 1).executeWith(con);
+    JdbcSqlQuery.create("INSERT INTO SB_ContentManager_Content " +
+        "SELECT X, CAST(X AS VARCHAR), MOD(X, ?), 0, CURRENT_DATE, '0000/00/00', '9999/99/99', " +
+        "CASE WHEN MOD(X, 20) = 0 THEN 0 ELSE 1 END FROM SYSTEM_RANGE(1, ?)",
+        NB_INSTANCES, nbObjects).executeWith(con);
+    // one position for each silver content and a second one for one silver content out of ten
+    JdbcSqlQuery.create("INSERT INTO SB_ClassifyEngine_Classify (PositionId, ObjectId" +
+        axisColumns(NB_AXIS, "") + ") SELECT X, X" + axisValues(0) +
+        " FROM SYSTEM_RANGE(1, ?)", nbObjects).executeWith(con);
+    JdbcSqlQuery.create("INSERT INTO SB_ClassifyEngine_Classify (PositionId, ObjectId" +
+        axisColumns(NB_AXIS, "") + ") SELECT ? + X, X * 10" + axisValues(1) +
+        " FROM SYSTEM_RANGE(1, ?)", nbObjects, nbObjects / 10).executeWith(con);
+  }
+
+  static List<Integer> countPertinentAxisBySQL(final Connection con,
+      final List<Criteria> criteria, final List<String> instanceIds) throws SQLException {
+    final String today = DateUtil.today2SQLDate();
+    final List<Integer> counts = new ArrayList<>();
+    for (int axis = 0; axis < NB_AXIS; axis++) {
+      try (PreparedStatement statement = con.prepareStatement(
+          SQL_STATEMENT.buildGetPertinentAxisStatementByJoin(criteria, axis, "", instanceIds,
+              today));
+           ResultSet rs = statement.executeQuery()) {
+        int count = 0;
+        while (rs.next()) {
+          count += rs.getInt(1);
+        }
+        counts.add(count);
+      }
+    }
+    return counts;
+  }
+
+  private static List<String> countPertinentValuesBySQL(final Connection con,
+      final List<Criteria> criteria, final List<String> instanceIds) throws SQLException {
+    final List<String> counts = new ArrayList<>();
+    try (PreparedStatement statement = con.prepareStatement(
+        SQL_STATEMENT.buildGetPertinentValueByJoinStatement(criteria, NB_AXIS - 1, instanceIds,
+            DateUtil.today2SQLDate()));
+         ResultSet rs = statement.executeQuery()) {
+      while (rs.next()) {
+        counts.add(rs.getString(2) + "=" + rs.getInt(1));
+      }
+    }
+    Collections.sort(counts);
+    return counts;
+  }
+
+  /**
+   * The criteria of a refinement of a PDC search: a value on the first axis and, for one
+   * refinement out of two, a deeper value on the second axis.
+   */
+  static List<Criteria> refinement(final int i) {
+    final List<Criteria> criteria = new ArrayList<>();
+    criteria.add(new Criteria(0, "/0/" + (i % 3) + "/"));
+    if (i % 2 == 1) {
+      criteria.add(new Criteria(1, "/0/" + (i % 4) + "/" + (i % 7) + "/"));
+    }
+    return criteria;
+  }
+
+  private static JoinStatement contentJoin() {
+    final JoinStatement joinStatement = new JoinStatement();
+    joinStatement.setTables(Collections.singletonList("SB_ContentManager_Content"));
+    joinStatement.setJoinKeys(Collections.singletonList("silverContentId"));
+    return joinStatement;
+  }
+
+  private static String axisColumns(final int nbAxis, final String type) {
+    return IntStream.range(0, nbAxis)
+        .mapToObj(i -> ", Axis" + i + type)
+        .collect(Collectors.joining());
+  }
+
+  private static String axisValues(final int shift) {
+    return IntStream.range(0, NB_AXIS)
+        .mapToObj(i -> ", '/0/' || CAST(MOD(X + " + shift + ", " + (i + 3) + ") AS VARCHAR) || " +
+            "'/' || CAST(MOD(X / " + (i + 3) + ", 7) AS VARCHAR) || '/'")
+        .collect(Collectors.joining());
+  }
+
+  private static String registeredAxis() {
+    return IntStream.range(0, MAX_AXIS)
+        .mapToObj(i -> i < NB_AXIS ? "'" + i + "'" : "'-1'")
+        .collect(Collectors.joining(", "));
+  }
+}
@@ -0,0 +1,544 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.pdc.classification;
+
+import org.silverpeas.core.persistence.jdbc.DBUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+
+/**
+ * In-memory index of the positions of the silver contents on the axis of the classify engine.
+ * For each physical axis, the index maps each value path to the identifiers of the positions
+ * having this value on the axis. The positions matching some criteria are then got by
+ * intersecting the bitmaps of the values starting with the criteria values, and the number of
+ * silver contents by value as the cardinality of the silver contents of the matching positions.
+ * As the values of a position are matched together, a silver content classified on two positions
+ * matches the criteria only if one of its positions matches all of them, like with the SQL
+ * statements.
+ * <p>
+ * The positions of a value are kept as a sorted array of identifiers, which is far more compact
+ * than a bitmap for the numerous values carried by few positions, whereas the results of the
+ * queries are computed into bitmaps as they are dense with regard to the positions. To update
+ * the index without scanning it, the positions of each silver content and the values of each
+ * position are also kept. As a position has a value on few of the axis, only these values are
+ * kept, in the order of the axis.
+ * </p>
+ * <p>
+ * The index is loaded from the classification table at its first use and it is then updated
+ * along with the classification of the silver contents. The bulk modifications of the
+ * classification (unregistering of an axis, replacement of values) invalidate it instead, so that
+ * it is loaded again at its next use.
+ * </p>
+ */
+class ClassificationIndex {
+
+  private static final String CLASSIFICATION_TABLE = "SB_ClassifyEngine_Classify";
+
+  private final int nbMaxAxis;
+  private final List<NavigableMap<String, Postings>> positionsByValue;
+  private final BitSet[] positionsOnAxis;
+  private final BitSet positions = new BitSet();
+  private final Map<Integer, Postings> positionsByObject = new HashMap<>();
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private int[] objectIds = new int[0];
+  private String[][] valuesOfPositions = new String[0][];
+  private boolean loaded = false;
+
+  ClassificationIndex(final int nbMaxAxis) {
+    this.nbMaxAxis = nbMaxAxis;
+    this.positionsByValue = new ArrayList<>(nbMaxAxis);
+    this.positionsOnAxis = new BitSet[nbMaxAxis];
+    for (int nI = 0; nI < nbMaxAxis; nI++) {
+      positionsByValue.add(new TreeMap<>());
+      positionsOnAxis[nI] = new BitSet();
+    }
+  }
+
+  /**
+   * Finds the silver contents having a position matching all the given criteria.
+   * @param criteria the criteria on the physical axis.
+   * @param byPrefix true if the values of the positions have to start with the criteria values,
+   * false if they have to be equal to them.
+   * @param contents the silver contents among which the search is performed.
+   * @return the identifiers of the matching silver contents.
+   * @throws ClassifyEngineException if the index cannot be loaded.
+   */
+  BitSet findObjects(final List<? extends Criteria> criteria, final boolean byPrefix,
+      final BitSet contents) throws ClassifyEngineException {
+    lockForReading();
+    try {
+      return toObjects(matchPositions(criteria, byPrefix), contents);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Counts the silver contents having a position matching all the given criteria and having a
+   * value on the given axis.
+   * @param criteria the criteria on the physical axis.
+   * @param nAxisId a physical axis.
+   * @param rootValue the value the positions have to start with on the axis. If empty, any
+   * value on the axis is taken into account.
+   * @param contents the silver contents among which the count is performed.
+   * @return the number of matching silver contents.
+   * @throws ClassifyEngineException if the index cannot be loaded.
+   */
+  int countObjects(final List<? extends Criteria> criteria, final int nAxisId,
+      final String rootValue, final BitSet contents) throws ClassifyEngineException {
+    lockForReading();
+    try {
+      final BitSet matchingPositions = matchPositions(criteria, true);
+      if (rootValue.isEmpty()) {
+        matchingPositions.and(positionsOnAxis[nAxisId]);
+      } else {
+        matchingPositions.and(getPositionsWithValue(nAxisId, rootValue, true));
+      }
+      return toObjects(matchingPositions, contents).cardinality();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Counts by value on the given axis the silver contents having a position matching all the
+   * given criteria.
+   * @param criteria the criteria on the physical axis.
+   * @param nAxisId a physical axis.
+   * @param contents the silver contents among which the count is performed.
+   * @return the number of matching silver contents by value, without the values matched by no
+   * silver content.
+   * @throws ClassifyEngineException if the index cannot be loaded.
+   */
+  SortedMap<String, Integer> countObjectsByValue(final List<? extends Criteria> criteria,
+      final int nAxisId, final BitSet contents) throws ClassifyEngineException {
+    lockForReading();
+    try {
+      final BitSet matchingPositions = matchPositions(criteria, true);
+      final SortedMap<String, Integer> counts = new TreeMap<>();
+      final BitSet objects = new BitSet();
+      for (Map.Entry<String, Postings> value : positionsByValue.get(nAxisId).entrySet()) {
+        objects.clear();
+        value.getValue().forEach(positionId -> {
+          if (matchingPositions.get(positionId) && contents.get(objectIds[positionId])) {
+            objects.set(objectIds[positionId]);
+          }
+        });
+        if (!objects.isEmpty()) {
+          counts.put(value.getKey(), objects.cardinality());
+        }
+      }
+      return counts;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Adds the specified position of a silver content. Nothing is done if the index isn't loaded.
+   * @param positionId the identifier of the position.
+   * @param objectId the identifier of the classified silver content.
+   * @param values the values of the position with their physical axis.
+   */
+  void add(final int positionId, final int objectId, final List<Value> values) {
+    lock.writeLock().lock();
+    try {
+      if (loaded) {
+        addPosition(positionId, objectId, values);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Replaces the values of the specified position by the given ones. Nothing is done if the index
+   * isn't loaded.
+   * @param positionId the identifier of the position.
+   * @param values the new values of the position with their physical axis.
+   */
+  void update(final int positionId, final List<Value> values) {
+    lock.writeLock().lock();
+    try {
+      if (loaded && positions.get(positionId)) {
+        final int objectId = objectIds[positionId];
+        removePosition(positionId);
+        addPosition(positionId, objectId, values);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Sets the given value on the specified axis to all the positions of a silver content having
+   * already a value on this axis. Nothing is done if the index isn't loaded.
+   * @param objectId the identifier of a silver content.
+   * @param nAxisId a physical axis.
+   * @param value the new value.
+   */
+  void updateObject(final int objectId, final int nAxisId, final String value) {
+    lock.writeLock().lock();
+    try {
+      if (loaded) {
+        for (int positionId : getPositionsOf(objectId)) {
+          if (positionsOnAxis[nAxisId].get(positionId)) {
+            removeValue(positionId, nAxisId);
+            addValue(positionId, nAxisId, value);
+          }
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes the specified position. Nothing is done if the index isn't loaded.
+   * @param positionId the identifier of a position.
+   */
+  void remove(final int positionId) {
+    lock.writeLock().lock();
+    try {
+      if (loaded) {
+        removePosition(positionId);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes all the positions of the specified silver content. Nothing is done if the index isn't
+   * loaded.
+   * @param objectId the identifier of a silver content.
+   */
+  void removeObject(final int objectId) {
+    lock.writeLock().lock();
+    try {
+      if (loaded) {
+        for (int positionId : getPositionsOf(objectId)) {
+          removePosition(positionId);
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Invalidates the index. It will be loaded again from the classification table at its next
+   * use.
+   */
+  void invalidate() {
+    lock.writeLock().lock();
+    try {
+      clear();
+      loaded = false;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void lockForReading() throws ClassifyEngineException {
+    lock.readLock().lock();
+    if (!loaded) {
+      lock.readLock().unlock();
+      lock.writeLock().lock();
+      try {
+        if (!loaded) {
+          load();
+        }
+        // downgrade the lock
+        lock.readLock().lock();
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+  }
+
+  private void load() throws ClassifyEngineException {
+    clear();
+    final StringBuilder sSQLStatement = new StringBuilder(500);
+    sSQLStatement.append("SELECT PositionId, ObjectId");
+    for (int nI = 0; nI < nbMaxAxis; nI++) {
+      sSQLStatement.append(", Axis").append(nI);
+    }
+    // the position -1 is the one of the registered axis
+    sSQLStatement.append(" FROM ").append(CLASSIFICATION_TABLE).append(" WHERE PositionId >= 0");
+    try (final Connection connection = DBUtil.openConnection();
+         final PreparedStatement prepStmt = connection.prepareStatement(sSQLStatement.toString());
+         final ResultSet resSet = prepStmt.executeQuery()) {
+      final String[] axisValues = new String[nbMaxAxis];
+      while (resSet.next()) {
+        for (int nI = 0; nI < nbMaxAxis; nI++) {
+          axisValues[nI] = resSet.getString(3 + nI);
+        }
+        addPosition(resSet.getInt(1), resSet.getInt(2), axisValues);
+      }
+      loaded = true;
+    } catch (Exception e) {
+      clear();
+      throw new ClassifyEngineException(e);
+    }
+  }
+
+  private void clear() {
+    positionsByValue.forEach(Map::clear);
+    for (BitSet axisPositions : positionsOnAxis) {
+      axisPositions.clear();
+    }
+    positions.clear();
+    positionsByObject.clear();
+    objectIds = new int[0];
+    valuesOfPositions = new String[0][];
+  }
+
+  private BitSet matchPositions(final List<? extends Criteria> criteria,
+      final boolean byPrefix) {
+    BitSet matchingPositions = null;
+    for (Criteria criterion : criteria) {
+      if (criterion.getValue() != null) {
+        final BitSet valuePositions =
+            getPositionsWithValue(criterion.getAxisId(), criterion.getValue(), byPrefix);
+        if (matchingPositions == null) {
+          matchingPositions = valuePositions;
+        } else {
+          matchingPositions.and(valuePositions);
+        }
+      }
+    }
+    return matchingPositions == null ? (BitSet) positions.clone() : matchingPositions;
+  }
+
+  private BitSet getPositionsWithValue(final int nAxisId, final String value,
+      final boolean byPrefix) {
+    final BitSet valuePositions = new BitSet();
+    final NavigableMap<String, Postings> values = positionsByValue.get(nAxisId);
+    if (byPrefix) {
+      values.subMap(value, true, value + Character.MAX_VALUE, false)
+          .values()
+          .forEach(p -> p.forEach(valuePositions::set));
+    } else {
+      final Postings postings = values.get(value);
+      if (postings != null) {
+        postings.forEach(valuePositions::set);
+      }
+    }
+    return valuePositions;
+  }
+
+  private BitSet toObjects(final BitSet matchingPositions, final BitSet contents) {
+    final BitSet objects = new BitSet();
+    for (int positionId = matchingPositions.nextSetBit(0); positionId >= 0;
+         positionId = matchingPositions.nextSetBit(positionId + 1)) {
+      final int objectId = objectIds[positionId];
+      if (contents.get(objectId)) {
+        objects.set(objectId);
+      }
+    }
+    return objects;
+  }
+
+  private int[] getPositionsOf(final int objectId) {
+    final Postings objectPositions = positionsByObject.get(objectId);
+    return objectPositions == null ? new int[0] : objectPositions.toArray();
+  }
+
+  private void addPosition(final int positionId, final int objectId, final List<Value> values) {
+    final String[] axisValues = new String[nbMaxAxis];
+    for (Value value : values) {
+      axisValues[value.getPhysicalAxisId()] = value.getValue();
+    }
+    addPosition(positionId, objectId, axisValues);
+  }
+
+  private void addPosition(final int positionId, final int objectId, final String[] axisValues) {
+    objectIds = ensureCapacity(objectIds, positionId);
+    objectIds[positionId] = objectId;
+    positions.set(positionId);
+    positionsByObject.computeIfAbsent(objectId, o -> new Postings()).add(positionId);
+    final List<String> positionValues = new ArrayList<>(2);
+    for (int nI = 0; nI < nbMaxAxis; nI++) {
+      if (axisValues[nI] != null) {
+        positionValues.add(addPosting(positionId, nI, axisValues[nI]));
+      }
+    }
+    valuesOfPositions = ensureCapacity(valuesOfPositions, positionId);
+    valuesOfPositions[positionId] = positionValues.toArray(new String[0]);
+  }
+
+  private void addValue(final int positionId, final int nAxisId, final String value) {
+    if (value != null) {
+      final String[] positionValues = valuesOfPositions[positionId];
+      final int slot = slotOf(positionId, nAxisId);
+      final String[] newValues = new String[positionValues.length + 1];
+      System.arraycopy(positionValues, 0, newValues, 0, slot);
+      newValues[slot] = addPosting(positionId, nAxisId, value);
+      System.arraycopy(positionValues, slot, newValues, slot + 1, positionValues.length - slot);
+      valuesOfPositions[positionId] = newValues;
+    }
+  }
+
+  /**
+   * Adds the position to the postings of the value on the axis.
+   * @return the value as it is kept by the index, so that the positions share it.
+   */
+  private String addPosting(final int positionId, final int nAxisId, final String value) {
+    final NavigableMap<String, Postings> values = positionsByValue.get(nAxisId);
+    final Map.Entry<String, Postings> entry = values.ceilingEntry(value);
+    final String key;
+    if (entry != null && entry.getKey().equals(value)) {
+      key = entry.getKey();
+      entry.getValue().add(positionId);
+    } else {
+      key = value;
+      final Postings postings = new Postings();
+      postings.add(positionId);
+      values.put(key, postings);
+    }
+    positionsOnAxis[nAxisId].set(positionId);
+    return key;
+  }
+
+  private void removeValue(final int positionId, final int nAxisId) {
+    final String[] positionValues = valuesOfPositions[positionId];
+    final int slot = slotOf(positionId, nAxisId);
+    final NavigableMap<String, Postings> values = positionsByValue.get(nAxisId);
+    final Postings postings = values.get(positionValues[slot]);
+    if (postings != null && postings.remove(positionId) && postings.isEmpty()) {
+      values.remove(positionValues[slot]);
+    }
+    final String[] newValues = new String[positionValues.length - 1];
+    System.arraycopy(positionValues, 0, newValues, 0, slot);
+    System.arraycopy(positionValues, slot + 1, newValues, slot, newValues.length - slot);
+    valuesOfPositions[positionId] = newValues;
+    positionsOnAxis[nAxisId].clear(positionId);
+  }
+
+  private void removePosition(final int positionId) {
+    if (positions.get(positionId)) {
+      for (int nI = nbMaxAxis - 1; nI >= 0; nI--) {
+        if (positionsOnAxis[nI].get(positionId)) {
+          removeValue(positionId, nI);
+        }
+      }
+      final int objectId = objectIds[positionId];
+      final Postings objectPositions = positionsByObject.get(objectId);
+      if (objectPositions != null && objectPositions.remove(positionId) &&
+          objectPositions.isEmpty()) {
+        positionsByObject.remove(objectId);
+      }
+      valuesOfPositions[positionId] = null;
+      positions.clear(positionId);
+    }
+  }
+
+  /**
+   * Gets the index of the value on the given axis among the values of the position, that is the
+   * number of the axis before it on which the position has a value.
+   */
+  private int slotOf(final int positionId, final int nAxisId) {
+    int slot = 0;
+    for (int nI = 0; nI < nAxisId; nI++) {
+      if (positionsOnAxis[nI].get(positionId)) {
+        slot++;
+      }
+    }
+    return slot;
+  }
+
+  private static int[] ensureCapacity(final int[] array, final int index) {
+    if (index < array.length) {
+      return array;
+    }
+    return Arrays.copyOf(array, Math.max(index + 1, array.length * 2));
+  }
+
+  private static String[][] ensureCapacity(final String[][] array, final int index) {
+    if (index < array.length) {
+      return array;
+    }
+    return Arrays.copyOf(array, Math.max(index + 1, array.length * 2));
+  }
+
+  /**
+   * The identifiers of the positions having a given value, sorted in an array.
+   */
+  private static class Postings {
+    private int[] ids = new int[2];
+    private int size = 0;
+
+    void add(final int id) {
+      int index = Arrays.binarySearch(ids, 0, size, id);
+      if (index < 0) {
+        index = -index - 1;
+        if (size == ids.length) {
+          ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        ids[index] = id;
+        size++;
+      }
+    }
+
+    boolean remove(final int id) {
+      final int index = Arrays.binarySearch(ids, 0, size, id);
+      if (index < 0) {
+        return false;
+      }
+      System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+      size--;
+      return true;
+    }
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(ids, size);
+    }
+
+    void forEach(final IntConsumer consumer) {
+      for (int nI = 0; nI < size; nI++) {
+        consumer.accept(ids[nI]);
+      }
+    }
+  }
+}
@@ -24,6 +24,7 @@
 package org.silverpeas.core.pdc.classification;
 
 import org.silverpeas.core.contribution.contentcontainer.content.SilverContentPostUpdate;
+import org.silverpeas.core.persistence.Transaction;
 import org.silverpeas.core.persistence.jdbc.DBUtil;
 import org.silverpeas.core.util.DateUtil;
 import org.silverpeas.core.util.JoinStatement;
@@ -35,33 +36,50 @@ import org.silverpeas.core.util.logging.SilverLogger;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Singleton;
+import javax.transaction.RollbackException;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.SystemException;
 import javax.transaction.Transactional;
 import java.sql.Connection;
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 /**
  * This class represents the ClassifyEngine API It gives access to functions for classifying,
  * unclassifying and searching SilverObjetIds Assumption : The SilverObjetIds processed are int
  * values from 0 to n The axis processed are int values from 0 to n
+ * The searches by criteria and the counts of the pertinent axis and values are performed with an
+ * in-memory index of the positions (see {@link ClassificationIndex}) that is updated once the
+ * changes of the classification are committed.
  */
 @Singleton
 @Transactional
 public class ClassifyEngine implements SilverContentPostUpdate {
+  // Maximum number of sets of component instances whose visible silver contents are cached
+  private static final int MAX_CACHED_VISIBLE_CONTENTS = 100;
   // Maximum number of axis processed by the classifyEngine (from properties)
   private int nbMaxAxis = 0;
   // Helper object to build all the SQL statements
   private org.silverpeas.core.pdc.classification.SQLStatement sqlStatement = new SQLStatement();
   // Registered axis cache
   private int[] registeredAxis = null;
-  // GetSinglePertinentAxis Cache
-  private Map<String, PertinentAxis> singlePertinentAxis = new ConcurrentHashMap<>(0);
+  // In-memory index of the positions on the axis
+  private ClassificationIndex index = null;
+  // Visible silver contents cache, by component instances, for the day of visibleContentsDay
+  private Map<String, BitSet> visibleContents = new ConcurrentHashMap<>(0);
+  private volatile String visibleContentsDay = null;
+  // Version of the visible silver contents cache, incremented at each clearing of the cache
+  private final AtomicLong visibleContentsVersion = new AtomicLong(0);
 
   private static ClassifyEngine getInstance() {
     return ServiceProvider.getService(ClassifyEngine.class);
@@ -74,6 +92,7 @@ public class ClassifyEngine implements SilverContentPostUpdate {
         ResourceLocator.getSettingBundle("org.silverpeas.classifyEngine.ClassifyEngine");
     String sMaxAxis = res.getString("MaxAxis");
     nbMaxAxis = Integer.parseInt(sMaxAxis);
+    index = new ClassificationIndex(nbMaxAxis);
     try {
       registeredAxis = loadRegisteredAxis();
     } catch (ClassifyEngineException e) {
@@ -99,7 +118,42 @@ public class ClassifyEngine implements SilverContentPostUpdate {
   }
 
   private static void clearCache() {
-    getInstance().singlePertinentAxis.clear();
+    final ClassifyEngine engine = getInstance();
+    engine.afterCommit(engine::clearVisibleContents);
+  }
+
+  /**
+   * Performs the specified change of the index or of the cache once the current transaction is
+   * committed, so that they never expose uncommitted changes of the classification nor keep the
+   * ones rolled back. Without transaction, the change is performed at once. If the change cannot
+   * be bound to the transaction, the index is invalidated and the cache cleared.
+   * @param change the change to perform.
+   */
+  private void afterCommit(final Runnable change) {
+    if (Transaction.getTransactionStatus() == Status.STATUS_ACTIVE) {
+      try {
+        Transaction.getTransaction().getTransactionManager().getTransaction()
+            .registerSynchronization(new Synchronization() {
+              @Override
+              public void beforeCompletion() {
+                // nothing to do before the completion
+              }
+
+              @Override
+              public void afterCompletion(final int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                  change.run();
+                }
+              }
+            });
+      } catch (RollbackException | SystemException e) {
+        SilverLogger.getLogger(this).warn(e);
+        index.invalidate();
+        clearVisibleContents();
+      }
+    } else {
+      change.run();
+    }
   }
 
   /*
@@ -136,9 +190,6 @@ public class ClassifyEngine implements SilverContentPostUpdate {
         // Register the axis in memory
         registeredAxis[nNextAvailableAxis] = nLogicalAxisId;
       }
-
-      // Clear cache
-      singlePertinentAxis.clear();
     } catch (Exception e) {
       throw new ClassifyEngineException(e);
     } finally {
@@ -178,9 +229,6 @@ public class ClassifyEngine implements SilverContentPostUpdate {
         alDeletedPositionIds = this.removeEmptyPositions(connection);
       }
 
-      // Clear cache
-      singlePertinentAxis.clear();
-
       return alDeletedPositionIds;
     } catch (Exception e) {
       throw new ClassifyEngineException(e);
@@ -322,8 +370,11 @@ public class ClassifyEngine implements SilverContentPostUpdate {
         prepStmt.executeUpdate();
       }
 
-      // Clear cache
-      singlePertinentAxis.clear();
+      // Update the index and clear the cache as the content can be a new one
+      afterCommit(() -> {
+        index.add(newPositionId, silverObjectId, alValues);
+        clearVisibleContents();
+      });
 
       return newPositionId;
     } catch (Exception e) {
@@ -346,8 +397,8 @@ public class ClassifyEngine implements SilverContentPostUpdate {
     try (final PreparedStatement prepStmt = connection.prepareStatement(sSQLStatement)) {
       prepStmt.executeUpdate();
 
-      // Clear cache
-      singlePertinentAxis.clear();
+      // Update the index
+      afterCommit(() -> index.removeObject(nSilverObjectId));
     } catch (Exception e) {
       throw new ClassifyEngineException(e);
     }
@@ -368,8 +419,8 @@ public class ClassifyEngine implements SilverContentPostUpdate {
     try (final PreparedStatement prepStmt = connection.prepareStatement(sSQLStatement)) {
       prepStmt.executeUpdate();
 
-      // Clear cache
-      singlePertinentAxis.clear();
+      // Update the index
+      afterCommit(() -> index.remove(nPositionId));
     } catch (Exception e) {
       throw new ClassifyEngineException(e);
     }
@@ -399,8 +450,8 @@ public class ClassifyEngine implements SilverContentPostUpdate {
         prepStmt.executeUpdate();
       }
 
-      // Clear cache
-      singlePertinentAxis.clear();
+      // Update the index
+      afterCommit(() -> index.update(newPosition.getPositionId(), alValues));
     } catch (Exception e) {
       throw new ClassifyEngineException(e);
     }
@@ -423,8 +474,9 @@ public class ClassifyEngine implements SilverContentPostUpdate {
           prepStmt.executeUpdate();
         }
 
-        // Clear cache
-        singlePertinentAxis.clear();
+        // Update the index
+        afterCommit(() -> index.updateObject(nSilverObjectId, classifyValue.getAxisId(),
+            classifyValue.getValue()));
       }
     } catch (Exception e) {
       throw new ClassifyEngineException(e);
@@ -432,22 +484,23 @@ public class ClassifyEngine implements SilverContentPostUpdate {
   }
 
   /*
-   * Find all the SilverObjectId corresponding to the given criterias and the given Join Statement
+   * Find all the SilverObjectId corresponding to the given criterias and the given Join Statement.
+   * The silver contents matching the join statement are got from the database whereas the ones
+   * matching the criterias are got from the index.
    */
   public List<Integer> findSilverOjectByCriterias(List<Criteria> alGivenCriterias,
       List<String> instanceIds, JoinStatement joinStatementContent,
       String afterDate, String beforeDate, boolean recursiveSearch,
       boolean visibilitySensitive) throws ClassifyEngineException {
-    final List<Integer> allObjectIds = new ArrayList<>();
     final List<Criteria> allCriteria = buildCriteriaOnAxis(alGivenCriterias);
+    final BitSet contents = new BitSet();
     try (final Connection connection = DBUtil.openConnection()) {
       String today = DateUtil.today2SQLDate();
 
       // build the statement to get the SilverObjectIds
       String sSQLStatement =
-          sqlStatement.buildFindByCriteriasStatementByJoin(allCriteria, instanceIds,
-              joinStatementContent, today,
-          recursiveSearch, visibilitySensitive);
+          sqlStatement.buildFindContentsStatementByJoin(instanceIds, joinStatementContent, today,
+              visibilitySensitive);
 
       // Execute the finding
       try (final PreparedStatement prepStmt = connection.prepareStatement(sSQLStatement)) {
@@ -466,14 +519,17 @@ public class ClassifyEngine implements SilverContentPostUpdate {
         try (final ResultSet resSet = prepStmt.executeQuery()) {
           // Fetch the results
           while (resSet.next()) {
-            allObjectIds.add(resSet.getInt(1));
+            contents.set(resSet.getInt(1));
           }
         }
       }
-      return allObjectIds;
     } catch (Exception e) {
       throw new ClassifyEngineException(e);
     }
+    return index.findObjects(allCriteria, recursiveSearch, contents)
+        .stream()
+        .boxed()
+        .collect(Collectors.toList());
   }
 
   private List<Criteria> buildCriteriaOnAxis(final List<? extends Criteria> allGivenCriteria)
@@ -541,8 +597,8 @@ public class ClassifyEngine implements SilverContentPostUpdate {
     try (final PreparedStatement prepStmt = connection.prepareStatement(sSQLStatement)) {
       prepStmt.executeUpdate();
 
-      // Clear cache
-      singlePertinentAxis.clear();
+      // Invalidate the index
+      afterCommit(index::invalidate);
     } catch (Exception e) {
       throw new ClassifyEngineException(e);
     }
@@ -573,9 +629,8 @@ public class ClassifyEngine implements SilverContentPostUpdate {
     try (final PreparedStatement prepStmt = connection.prepareStatement(sSQLStatement)) {
       prepStmt.executeUpdate();
 
-      // Clear cache
-      singlePertinentAxis.clear();
-
+      // Invalidate the index
+      afterCommit(index::invalidate);
     } catch (Exception e) {
       throw new ClassifyEngineException(e);
     }
@@ -632,8 +687,8 @@ public class ClassifyEngine implements SilverContentPostUpdate {
         prepStmt.executeUpdate();
       }
 
-      // Clear cache
-      singlePertinentAxis.clear();
+      // Invalidate the index
+      afterCommit(index::invalidate);
     } catch (Exception e) {
       throw new ClassifyEngineException(e);
     }
@@ -686,62 +741,20 @@ public class ClassifyEngine implements SilverContentPostUpdate {
       List<Integer> alAxisIds, List<String> instanceIds) throws ClassifyEngineException {
     // Convert the Axis Ids
     List<Criteria> alCriterias = buildCriteriaOnAxis(alGivenCriterias);
+    final BitSet contents = getVisibleContents(instanceIds);
 
-    try (final Connection connection = DBUtil.openConnection()) {
-
-      String today = DateUtil.today2SQLDate();
-
-      // Call the search On axis one by one
-      ArrayList<PertinentAxis> alPertinentAxis = new ArrayList<>();
-      for (Integer alAxisId : alAxisIds) {
-        int nAxisId = this.getPhysicalAxisId(alAxisId);
-        alPertinentAxis.add(getSinglePertinentAxisByJoin(connection,
-            alCriterias, nAxisId, "", instanceIds, today));
-      }
-
-      return alPertinentAxis;
-    } catch (Exception e) {
-      throw new ClassifyEngineException(e);
+    // Call the search On axis one by one
+    ArrayList<PertinentAxis> alPertinentAxis = new ArrayList<>();
+    for (Integer alAxisId : alAxisIds) {
+      int nAxisId = this.getPhysicalAxisId(alAxisId);
+      PertinentAxis pertinentAxis = new PertinentAxis();
+      pertinentAxis.setAxisId(alAxisId);
+      pertinentAxis.setNbObjects(index.countObjects(alCriterias, nAxisId, "", contents));
+      pertinentAxis.setRootValue("");
+      alPertinentAxis.add(pertinentAxis);
     }
-  }
-
-  /*
-   * Return a PertinentAxis object corresponding to the given AxisId, rootValue and search Criterias
-   */
-  private PertinentAxis getSinglePertinentAxisByJoin(final Connection connection,
-      final List<? extends Criteria> alCriterias, final int nAxisId, final String sRootValue,
-      final List<String> instanceIds, final String todayFormatted) throws ClassifyEngineException {
-
-    // build the statements
-    final String sSQLStatement =
-        sqlStatement.buildGetPertinentAxisStatementByJoin(alCriterias, nAxisId,
-            sRootValue, instanceIds, todayFormatted);
-
-    PertinentAxis pertinentAxis = singlePertinentAxis.get(sSQLStatement);
-    if (pertinentAxis == null) {
-      // Execute the finding
-      try (final PreparedStatement prepStmt = connection.prepareStatement(sSQLStatement);
-           final ResultSet resSet = prepStmt.executeQuery()) {
-
-        // Fetch the results
-        pertinentAxis = new PertinentAxis();
-        pertinentAxis.setAxisId(this.getLogicalAxisId(nAxisId));
-        int nDocs = 0;
-        while (resSet.next()) {
-          nDocs += resSet.getInt(1);
-        }
-        pertinentAxis.setNbObjects(nDocs);
-        pertinentAxis.setRootValue(sRootValue);
 
-        // Add in cache
-        singlePertinentAxis.put(sSQLStatement, pertinentAxis);
-
-
-      } catch (Exception e) {
-        throw new ClassifyEngineException(e);
-      }
-    }
-    return pertinentAxis;
+    return alPertinentAxis;
   }
 
   /*
@@ -753,34 +766,74 @@ public class ClassifyEngine implements SilverContentPostUpdate {
 
     // Convert the Axis Ids
     final List<Criteria> alCriterias = buildCriteriaOnAxis(alGivenCriterias);
-    try (Connection connection = DBUtil.openConnection()) {
+    final BitSet contents = getVisibleContents(instanceIds);
 
-      String today = DateUtil.today2SQLDate();
+    final Map<String, Integer> nbObjectsByValue = index.countObjectsByValue(alCriterias,
+        this.getPhysicalAxisId(nLogicalAxisId), contents);
+    ArrayList<PertinentValue> alPertinentValues = new ArrayList<>();
+    for (Map.Entry<String, Integer> nbObjects : nbObjectsByValue.entrySet()) {
+      PertinentValue pValue = new PertinentValue();
+      pValue.setAxisId(nLogicalAxisId);
+      pValue.setNbObjects(nbObjects.getValue());
+      pValue.setValue(nbObjects.getKey());
 
-      // Build the statement
-      String sSQLStatement = sqlStatement.buildGetPertinentValueByJoinStatement(alCriterias, this.
-          getPhysicalAxisId(nLogicalAxisId), instanceIds, today);
+      alPertinentValues.add(pValue);
+    }
 
-      // Execute the finding
-      try (final PreparedStatement prepStmt = connection.prepareStatement(sSQLStatement);
-           final ResultSet resSet = prepStmt.executeQuery()) {
+    return alPertinentValues;
+  }
 
-        // Fetch the results
-        ArrayList<PertinentValue> alPertinentValues = new ArrayList<>();
-        while (resSet.next()) {
-          PertinentValue pValue = new PertinentValue();
-          pValue.setAxisId(nLogicalAxisId);
-          pValue.setNbObjects(resSet.getInt(1));
-          pValue.setValue(resSet.getString(2));
+  /*
+   * Clear the cache of the visible silver contents. The version of the cache is incremented first
+   * so that the contents being loaded from the database at this time aren't cached.
+   */
+  private void clearVisibleContents() {
+    visibleContentsVersion.incrementAndGet();
+    visibleContents.clear();
+  }
 
-          alPertinentValues.add(pValue);
+  /*
+   * Return the visible silver contents of the given component instances. They are cached for the
+   * current day until a silver content is updated or classified. The cache is bounded: it is
+   * cleared once too many sets of component instances are cached. The contents are cached only if
+   * the cache hasn't been cleared while they were loaded, otherwise they could miss a change
+   * committed in the meantime.
+   */
+  private BitSet getVisibleContents(List<String> instanceIds) throws ClassifyEngineException {
+    final String today = DateUtil.today2SQLDate();
+    if (!today.equals(visibleContentsDay)) {
+      clearVisibleContents();
+      visibleContentsDay = today;
+    }
+    final String cacheKey = String.join(",", instanceIds);
+    BitSet contents = visibleContents.get(cacheKey);
+    if (contents == null) {
+      final long version = visibleContentsVersion.get();
+      final String sSQLStatement =
+          sqlStatement.buildGetVisibleContentsStatement(instanceIds, today);
+      try (final Connection connection = DBUtil.openConnection();
+           final PreparedStatement prepStmt = connection.prepareStatement(sSQLStatement);
+           final ResultSet resSet = prepStmt.executeQuery()) {
+        contents = new BitSet();
+        while (resSet.next()) {
+          contents.set(resSet.getInt(1));
         }
 
-        return alPertinentValues;
+        // Add in cache, unless it has been cleared in the meantime
+        if (visibleContents.size() >= MAX_CACHED_VISIBLE_CONTENTS) {
+          visibleContents.clear();
+        }
+        if (version == visibleContentsVersion.get()) {
+          visibleContents.put(cacheKey, contents);
+          if (version != visibleContentsVersion.get()) {
+            visibleContents.remove(cacheKey, contents);
+          }
+        }
+      } catch (Exception e) {
+        throw new ClassifyEngineException(e);
       }
-    } catch (Exception e) {
-      throw new ClassifyEngineException(e);
     }
+    return contents;
   }
 
   /*
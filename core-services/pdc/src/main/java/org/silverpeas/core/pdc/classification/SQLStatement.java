@@ -332,6 +332,62 @@ class SQLStatement {
     return sSQLStatement.toString();
   }
 
+  // Build the SQL statement to find the silver contents matching the given join statement,
+  // whatever their classification
+  public String buildFindContentsStatementByJoin(List<String> instanceIds,
+      JoinStatement joinStatementContent, String todayFormatted, boolean visibilitySensitive) {
+    StringBuilder sSQLStatement = new StringBuilder(1000);
+    String contentMgr = joinStatementContent.getTable(0);
+    String contentMgrKey = joinStatementContent.getJoinKey(0);
+
+    sSQLStatement.append(" SELECT CMC.").append(contentMgrKey).append(" FROM ").append(
+        INSTANCES_TABLE).append(" CMI,").append(contentMgr).append(" CMC");
+    sSQLStatement.append(" WHERE ");
+    sSQLStatement.append(" CMC.contentInstanceId = CMI.instanceId");
+    if (!instanceIds.isEmpty()) {
+      sSQLStatement.append(" AND ").append("CMI.componentId IN ('");
+      sSQLStatement.append(StringUtil.join(instanceIds, "','"));
+      sSQLStatement.append("')");
+    }
+
+    // works on the content statement
+    String whereClause = joinStatementContent.getWhere();
+    if (StringUtil.isDefined(whereClause)) {
+      sSQLStatement.append(" AND ").append(whereClause);
+    }
+
+    // Set the visibility constraints
+    sSQLStatement.append(" AND ('").append(todayFormatted).append(
+        "' between CMC.beginDate AND CMC.endDate)");
+
+    if (visibilitySensitive) {
+      sSQLStatement.append(" AND (CMC.isVisible = 1 )");
+    }
+
+    return sSQLStatement.toString();
+  }
+
+  // Build the SQL statement to get the visible silver contents of the given component instances
+  public String buildGetVisibleContentsStatement(List<String> instanceIds,
+      String todayFormatted) {
+    StringBuilder sSQLStatement = new StringBuilder(1000);
+    sSQLStatement.append("SELECT CMC.silverContentId FROM ").append(INSTANCES_TABLE).append(
+        " CMI, SB_ContentManager_Content CMC ");
+    sSQLStatement.append(" WHERE CMC.contentInstanceId").append(" = CMI.instanceId");
+    if (!instanceIds.isEmpty()) {
+      sSQLStatement.append(" AND ").append("CMI.componentId IN ('");
+      sSQLStatement.append(StringUtil.join(instanceIds, "','"));
+      sSQLStatement.append("')");
+    }
+
+    // Set the visibility constraints
+    sSQLStatement.append(" AND ('").append(todayFormatted).append(
+        "' between CMC.beginDate AND CMC.endDate)");
+    sSQLStatement.append(" AND (CMC.isVisible = 1 )");
+
+    return sSQLStatement.toString();
+  }
+
   // Build the SQL statement to find the objects
   public String buildFindBySilverObjectIdStatement(int nSilverObjectId) {
     StringBuilder sSQLStatement = new StringBuilder(100);
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.silverstatistics.access.dao;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkMethodChart;
+import com.ninja_squad.dbsetup.Operations;
+import com.ninja_squad.dbsetup.operation.Operation;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.Archive;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+import org.junit.rules.TestRule;
+import org.junit.runner.RunWith;
+import org.silverpeas.core.ResourceReference;
+import org.silverpeas.core.persistence.jdbc.sql.JdbcSqlQuery;
+import org.silverpeas.core.test.BasicWarBuilder;
+import org.silverpeas.core.test.rule.DbSetupRule;
+
+import java.sql.Connection;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Benchmark of the counting of the accesses to a resource among 5,000,000 history rows: from the
+ * counters of the accesses and, as before, by counting the history rows of the resource.
+ */
+@RunWith(Arquillian.class)
+@BenchmarkMethodChart
+public class HistoryCountBenchmarkIT {
+
+  private static final int NB_HISTORY_ROWS = 5000000;
+  private static final int NB_RESOURCES = 100;
+  private static final int ACCESS = 1;
+  private static final String PUBLICATION = "Publication";
+
+  private static final Operation HISTORY_SET_UP = Operations.sql(
+      "INSERT INTO SB_Statistic_History " +
+          "(dateStat, heureStat, userId, resourceId, componentId, actionType, resourceType) " +
+          "SELECT '2020/01/' || LPAD(CAST(MOD(X, 28) + 1 AS VARCHAR), 2, '0'), '10:00', " +
+          "MOD(X, 1000), MOD(X, " + NB_RESOURCES + "), " +
+          "'kmelia' || MOD(MOD(X, " + NB_RESOURCES + "), 10), " + ACCESS + ", '" + PUBLICATION +
+          "' FROM SYSTEM_RANGE(1, " + NB_HISTORY_ROWS + ")");
+  private static final Operation COUNTERS_SET_UP =
+      (connection, configuration) -> HistoryCountDAO.rebuild(connection);
+
+  private final DbSetupRule dbSetupRule = DbSetupRule.createTablesFrom("")
+      .loadInitialDataSetFrom(HistoryCountDAOIT.DROP_ALL, HistoryCountDAOIT.TABLES_CREATION,
+          HISTORY_SET_UP, COUNTERS_SET_UP);
+
+  /**
+   * The database is set up once per test, then the benchmark rounds are run on it.
+   */
+  @Rule
+  public TestRule rules = RuleChain.outerRule(dbSetupRule).around(new BenchmarkRule());
+
+  @Deployment
+  public static Archive<?> createTestArchive() {
+    return BasicWarBuilder.onWarForTestClass(HistoryCountBenchmarkIT.class)
+        .addMavenDependenciesWithPersistence("org.silverpeas.core:silverpeas-core")
+        .createMavenDependencies("org.silverpeas.core.services:silverpeas-core-tagcloud")
+        .addMavenDependencies("com.carrotsearch:junit-benchmarks")
+        .testFocusedOn(war -> war.addPackages(true, "org.silverpeas.core.silverstatistics"))
+        .build();
+  }
+
+  @Test
+  @BenchmarkOptions(benchmarkRounds = 200, warmupRounds = 20)
+  public void benchmarkCountFromTheCounters() throws Exception {
+    final ResourceReference resource = randomResource();
+    try (Connection con = DbSetupRule.getSafeConnection()) {
+      assertThat(HistoryObjectDAO.getCount(con, resource, PUBLICATION),
+          is(NB_HISTORY_ROWS / NB_RESOURCES));
+    }
+  }
+
+  @Test
+  @BenchmarkOptions(benchmarkRounds = 200, warmupRounds = 20)
+  public void benchmarkCountOfTheHistoryRowsAsBefore() throws Exception {
+    final ResourceReference resource = randomResource();
+    try (Connection con = DbSetupRule.getSafeConnection()) {
+      final int count = JdbcSqlQuery.createSelect(
+          "COUNT(resourceId) FROM SB_Statistic_History WHERE resourceId = ? " +
+              "AND componentId = ? AND resourceType = ?", resource.getId(),
+          resource.getInstanceId(), PUBLICATION).executeUniqueWith(con, r -> r.getInt(1));
+      assertThat(count, is(NB_HISTORY_ROWS / NB_RESOURCES));
+    }
+  }
+
+  private static ResourceReference randomResource() {
+    final int resourceId = ThreadLocalRandom.current().nextInt(NB_RESOURCES);
+    return new ResourceReference(String.valueOf(resourceId), "kmelia" + (resourceId % 10));
+  }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.silverstatistics.access.dao;
+
+import com.ninja_squad.dbsetup.Operations;
+import com.ninja_squad.dbsetup.operation.Operation;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.Archive;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.silverpeas.core.ResourceReference;
+import org.silverpeas.core.persistence.Transaction;
+import org.silverpeas.core.persistence.jdbc.DBUtil;
+import org.silverpeas.core.persistence.jdbc.sql.JdbcSqlQuery;
+import org.silverpeas.core.test.BasicWarBuilder;
+import org.silverpeas.core.test.DataSetTest;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Integration tests on the counters of the accesses to the resources. They check the counters
+ * follow the modifications of the history, as they are performed by the statistic service within
+ * a transaction, and that the counters rebuilt from the history match the counting of the history
+ * rows.
+ */
+@RunWith(Arquillian.class)
+public class HistoryCountDAOIT extends DataSetTest {
+
+  private static final int NB_HISTORY_ROWS = 10000;
+  private static final int NB_RESOURCES = 100;
+  private static final int ACCESS = 1;
+  private static final String PUBLICATION = "Publication";
+
+  public static final Operation TABLES_CREATION = Operations.sql(
+      "CREATE TABLE IF NOT EXISTS SB_Statistic_History" +
+          "(" +
+          "    dateStat        varchar(10)   not null," +
+          "    heureStat       varchar(10)   not null," +
+          "    userId          varchar(100)  not null," +
+          "    resourceId      varchar(50)   not null," +
+          "    componentId     varchar(50)   not null," +
+          "    actionType      int           not null," +
+          "    resourceType    varchar(50)   not null" +
+          ")",
+      "CREATE TABLE IF NOT EXISTS SB_Statistic_HistoryCount" +
+          "(" +
+          "    resourceId      varchar(50)   not null," +
+          "    componentId     varchar(50)   not null," +
+          "    resourceType    varchar(50)   not null," +
+          "    actionType      int           not null," +
+          "    dateStat        varchar(10)   not null," +
+          "    nbAccess        int           not null," +
+          "    PRIMARY KEY (resourceId, componentId, resourceType, actionType, dateStat)" +
+          ")",
+      "CREATE INDEX IF NOT EXISTS IND_Statistic_ResourceId ON SB_Statistic_History (resourceId)");
+
+  public static final Operation DROP_ALL = Operations.sql(
+      "DROP TABLE IF EXISTS SB_Statistic_History",
+      "DROP TABLE IF EXISTS SB_Statistic_HistoryCount");
+
+  private static final String HISTORY_COUNT =
+      "COUNT(resourceId) FROM SB_Statistic_History WHERE resourceId = ? AND componentId = ? " +
+          "AND resourceType = ?";
+
+  @Deployment
+  public static Archive<?> createTestArchive() {
+    return BasicWarBuilder.onWarForTestClass(HistoryCountDAOIT.class)
+        .addMavenDependenciesWithPersistence("org.silverpeas.core:silverpeas-core")
+        .createMavenDependencies("org.silverpeas.core.services:silverpeas-core-tagcloud")
+        .testFocusedOn(war -> war.addPackages(true, "org.silverpeas.core.silverstatistics"))
+        .build();
+  }
+
+  @Override
+  protected Operation getDbSetupInitializations() {
+    return Operations.sequenceOf(DROP_ALL, TABLES_CREATION);
+  }
+
+  @Test
+  public void countersShouldFollowTheModificationsOfTheHistory() throws Exception {
+    final ResourceReference publi1 = new ResourceReference("1", "kmelia1");
+    final ResourceReference publi2 = new ResourceReference("2", "kmelia1");
+    final ResourceReference movedPubli1 = new ResourceReference("1", "kmelia2");
+    inTransaction(con -> {
+      HistoryObjectDAO.add(con, "0", publi1, ACCESS, PUBLICATION);
+      HistoryObjectDAO.add(con, "1", publi1, ACCESS, PUBLICATION);
+      HistoryObjectDAO.add(con, "1", publi1, 2, PUBLICATION);
+      HistoryObjectDAO.add(con, "0", publi2, ACCESS, PUBLICATION);
+    });
+    try (Connection con = getConnection()) {
+      assertThat(HistoryObjectDAO.getCount(con, publi1, PUBLICATION), is(3));
+      assertThat(HistoryObjectDAO.getCount(con, publi2, PUBLICATION), is(1));
+      assertThat(countInHistory(con, publi1), is(3));
+    }
+
+    inTransaction(con -> HistoryObjectDAO.move(con, movedPubli1, ACCESS, PUBLICATION));
+    try (Connection con = getConnection()) {
+      assertThat(HistoryObjectDAO.getCount(con, publi1, PUBLICATION), is(1));
+      assertThat(HistoryObjectDAO.getCount(con, movedPubli1, PUBLICATION), is(2));
+      assertThat(countInHistory(con, movedPubli1), is(2));
+    }
+
+    inTransaction(con -> HistoryObjectDAO.deleteHistoryByObject(con, movedPubli1, PUBLICATION));
+    try (Connection con = getConnection()) {
+      assertThat(HistoryObjectDAO.getCount(con, movedPubli1, PUBLICATION), is(0));
+    }
+
+    inTransaction(con -> HistoryObjectDAO.deleteStatsOfComponent(con, "kmelia1"));
+    try (Connection con = getConnection()) {
+      assertThat(HistoryObjectDAO.getCount(con, publi1, PUBLICATION), is(0));
+      assertThat(HistoryObjectDAO.getCount(con, publi2, PUBLICATION), is(0));
+    }
+  }
+
+  @Test
+  public void concurrentAccessesToAResourceShouldAllBeCounted() throws Exception {
+    final ResourceReference publi = new ResourceReference("1", "kmelia1");
+    final int nbThreads = 8;
+    final int nbAccessesPerThread = 20;
+    final List<Callable<Void>> accesses = new ArrayList<>(nbThreads);
+    for (int i = 0; i < nbThreads; i++) {
+      final String userId = String.valueOf(i);
+      accesses.add(() -> {
+        for (int j = 0; j < nbAccessesPerThread; j++) {
+          inTransaction(con -> HistoryObjectDAO.add(con, userId, publi, ACCESS, PUBLICATION));
+        }
+        return null;
+      });
+    }
+    final ExecutorService executorService = Executors.newFixedThreadPool(nbThreads);
+    try {
+      for (Future<Void> access : executorService.invokeAll(accesses)) {
+        access.get();
+      }
+    } finally {
+      executorService.shutdown();
+    }
+    try (Connection con = getConnection()) {
+      assertThat(countInHistory(con, publi), is(nbThreads * nbAccessesPerThread));
+      assertThat(HistoryObjectDAO.getCount(con, publi, PUBLICATION),
+          is(nbThreads * nbAccessesPerThread));
+    }
+  }
+
+  @Test
+  public void rebuiltCountersShouldMatchTheCountingOfTheHistory() throws Exception {
+    inTransaction(con -> {
+      JdbcSqlQuery.create("INSERT INTO SB_Statistic_History " +
+          "(dateStat, heureStat, userId, resourceId, componentId, actionType, resourceType) " +
+          "SELECT '2020/01/' || LPAD(CAST(MOD(X, 28) + 1 AS VARCHAR), 2, '0'), '10:00', " +
+          "MOD(X, 1000), MOD(X, ?), 'kmelia' || MOD(MOD(X, ?), 10), ?, ? " +
+          "FROM SYSTEM_RANGE(1, ?)",
+          NB_RESOURCES, NB_RESOURCES, ACCESS, PUBLICATION, NB_HISTORY_ROWS).executeWith(con);
+      HistoryCountDAO.rebuild(con);
+    });
+    try (Connection con = getConnection()) {
+      for (int i = 0; i < NB_RESOURCES; i++) {
+        final ResourceReference resource =
+            new ResourceReference(String.valueOf(i), "kmelia" + (i % 10));
+        assertThat(HistoryObjectDAO.getCount(con, resource, PUBLICATION),
+            is(countInHistory(con, resource)));
+        assertThat(HistoryObjectDAO.getCount(con, resource, PUBLICATION),
+            is(NB_HISTORY_ROWS / NB_RESOURCES));
+      }
+    }
+  }
+
+  private static void inTransaction(final DatabaseModification modification) {
+    Transaction.performInOne(() -> {
+      try (Connection con = DBUtil.openConnection()) {
+        modification.perform(con);
+      }
+      return null;
+    });
+  }
+
+  private static int countInHistory(final Connection con, final ResourceReference reference)
+      throws SQLException {
+    return JdbcSqlQuery.createSelect(HISTORY_COUNT, reference.getId(),
+        reference.getInstanceId(), PUBLICATION).executeUniqueWith(con, r -> r.getInt(1));
+  }
+
+  @FunctionalInterface
+  private interface DatabaseModification {
+    void perform(Connection con) throws SQLException;
+  }
+}
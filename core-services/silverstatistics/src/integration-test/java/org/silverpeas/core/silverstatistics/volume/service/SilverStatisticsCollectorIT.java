@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.silverstatistics.volume.service;
+
+import com.ninja_squad.dbsetup.Operations;
+import com.ninja_squad.dbsetup.operation.Operation;
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.Archive;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.silverpeas.core.persistence.Transaction;
+import org.silverpeas.core.persistence.jdbc.sql.JdbcSqlQuery;
+import org.silverpeas.core.silverstatistics.volume.dao.SilverStatisticsDAO;
+import org.silverpeas.core.silverstatistics.volume.model.StatType;
+import org.silverpeas.core.silverstatistics.volume.model.StatisticsConfig;
+import org.silverpeas.core.test.BasicWarBuilder;
+import org.silverpeas.core.test.DataSetTest;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Integration tests on the collect of the statistics in memory before flushing them by JDBC
+ * batches. They check the flushed statistics are the same as the ones put one by one and that
+ * a statistic that cannot be put doesn't prevent the other ones to be flushed.
+ */
+@RunWith(Arquillian.class)
+public class SilverStatisticsCollectorIT extends DataSetTest {
+
+  private static final int NB_EVENTS = 2000;
+  private static final int NB_USERS = 100;
+  private static final StatType TYPE_OF_STAT = StatType.Access;
+
+  public static final Operation TABLES_CREATION = Operations.sql(
+      "CREATE TABLE IF NOT EXISTS SB_Stat_Access" +
+          "(" +
+          "    dateStat        varchar(10)  not null," +
+          "    userId          integer      not null," +
+          "    peasType        varchar(50)  not null," +
+          "    spaceId         varchar(50)  not null," +
+          "    componentId     varchar(50)  not null," +
+          "    countAccess     decimal(19)  not null" +
+          ")");
+
+  public static final Operation DROP_ALL = Operations.sql("DROP TABLE IF EXISTS SB_Stat_Access");
+
+  private static final String SELECT_ALL_ACCESS =
+      "dateStat, userId, peasType, spaceId, componentId, countAccess FROM SB_Stat_Access " +
+          "ORDER BY dateStat, userId, componentId";
+
+  @Deployment
+  public static Archive<?> createTestArchive() {
+    return BasicWarBuilder.onWarForTestClass(SilverStatisticsCollectorIT.class)
+        .addMavenDependenciesWithPersistence("org.silverpeas.core:silverpeas-core")
+        .createMavenDependencies("org.silverpeas.core.services:silverpeas-core-tagcloud")
+        .testFocusedOn(war -> {
+          war.addPackages(true, "org.silverpeas.core.silverstatistics");
+          war.addAsResource("org/silverpeas/silverstatistics/SilverStatisticsTest.properties");
+          war.addAsResource("org/silverpeas/silverstatistics/SilverStatistics.properties");
+        }).build();
+  }
+
+  @Override
+  protected Operation getDbSetupInitializations() {
+    return Operations.sequenceOf(DROP_ALL, TABLES_CREATION);
+  }
+
+  private StatisticsConfig config;
+
+  @Before
+  public void initialiseConfig() throws Exception {
+    config = new StatisticsConfig();
+    config.init();
+  }
+
+  @Test
+  public void collectedStatisticsAreSummedUpBeforeBeingFlushed() throws Exception {
+    final SilverStatisticsCollector collector = new SilverStatisticsCollector(config);
+    collector.collect(TYPE_OF_STAT, access("2020-03-12", 1, "kmelia12", "3"));
+    collector.collect(TYPE_OF_STAT, access("2020-03-12", 1, "kmelia12", "2"));
+    collector.collect(TYPE_OF_STAT, access("2020-03-12", 2, "kmelia12", "1"));
+    collector.collect(TYPE_OF_STAT, access("2020-03-13", 1, "kmelia12", "1"));
+    assertThat(collector.getBufferSize(), is(3));
+
+    collector.flush();
+    assertThat(collector.getBufferSize(), is(0));
+    assertThat(collector.getFlushedEntryCount(), is(3L));
+    assertThat(selectAllAccess(), contains(
+        "2020-03-12|1|kmelia|WA3|kmelia12|5",
+        "2020-03-12|2|kmelia|WA3|kmelia12|1",
+        "2020-03-13|1|kmelia|WA3|kmelia12|1"));
+
+    collector.collect(TYPE_OF_STAT, access("2020-03-12", 1, "kmelia12", "4"));
+    collector.collect(TYPE_OF_STAT, access("2020-03-13", 3, "kmelia12", "1"));
+    collector.flush();
+    assertThat(collector.getFlushedEntryCount(), is(5L));
+    assertThat(selectAllAccess(), contains(
+        "2020-03-12|1|kmelia|WA3|kmelia12|9",
+        "2020-03-12|2|kmelia|WA3|kmelia12|1",
+        "2020-03-13|1|kmelia|WA3|kmelia12|1",
+        "2020-03-13|3|kmelia|WA3|kmelia12|1"));
+  }
+
+  @Test
+  public void flushedStatisticsShouldBeTheSameThanTheOnesPutOneByOne() throws Exception {
+    final List<List<String>> events = new ArrayList<>(NB_EVENTS);
+    for (int i = 0; i < NB_EVENTS; i++) {
+      final int userId = i % NB_USERS;
+      events.add(access("2020-03-1" + (i % 3), userId, "kmelia" + (userId % 7), "1"));
+    }
+
+    try (Connection connection = getConnection()) {
+      for (List<String> event : events) {
+        SilverStatisticsDAO.putDataStats(connection, TYPE_OF_STAT, event, config);
+      }
+    }
+    final List<String> expected = selectAllAccess();
+    Transaction.performInOne(() -> JdbcSqlQuery.createDeleteFor("SB_Stat_Access").execute());
+
+    final SilverStatisticsCollector collector = new SilverStatisticsCollector(config);
+    for (List<String> event : events) {
+      collector.collect(TYPE_OF_STAT, event);
+    }
+    collector.flush();
+
+    assertThat(selectAllAccess(), is(expected));
+    assertThat(expected, hasSize(3 * NB_USERS));
+  }
+
+  @Test
+  public void aStatisticFailingToBePutIsDroppedWithoutBlockingTheOtherOnes() throws Exception {
+    // the component identifier exceeds the size of the column
+    final String tooLongComponentId = String.format("kmelia%050d", 12);
+    final SilverStatisticsCollector collector = new SilverStatisticsCollector(config);
+    collector.collect(TYPE_OF_STAT, access("2020-03-12", 1, "kmelia12", "3"));
+    collector.collect(TYPE_OF_STAT, access("2020-03-12", 1, tooLongComponentId, "1"));
+    collector.collect(TYPE_OF_STAT, access("2020-03-13", 1, "kmelia12", "1"));
+
+    collector.flush();
+    assertThat(collector.getBufferSize(), is(0));
+    assertThat(collector.getFlushedEntryCount(), is(2L));
+    assertThat(selectAllAccess(), contains(
+        "2020-03-12|1|kmelia|WA3|kmelia12|3",
+        "2020-03-13|1|kmelia|WA3|kmelia12|1"));
+
+    collector.collect(TYPE_OF_STAT, access("2020-03-12", 1, "kmelia12", "2"));
+    collector.flush();
+    assertThat(collector.getBufferSize(), is(0));
+    assertThat(collector.getFlushedEntryCount(), is(3L));
+    assertThat(selectAllAccess(), contains(
+        "2020-03-12|1|kmelia|WA3|kmelia12|5",
+        "2020-03-13|1|kmelia|WA3|kmelia12|1"));
+  }
+
+  private static List<String> access(final String date, final int userId,
+      final String componentId, final String count) {
+    return Arrays.asList(date, String.valueOf(userId), "kmelia", "WA3", componentId, count);
+  }
+
+  private static List<String> selectAllAccess() throws Exception {
+    return JdbcSqlQuery.createSelect(SELECT_ALL_ACCESS).execute(
+        row -> row.getString(1) + "|" + row.getInt(2) + "|" + row.getString(3) + "|" +
+            row.getString(4) + "|" + row.getString(5) + "|" + row.getLong(6));
+  }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.silverstatistics.access.dao;
+
+import org.silverpeas.core.ResourceReference;
+import org.silverpeas.core.WAPrimaryKey;
+import org.silverpeas.core.persistence.jdbc.sql.JdbcSqlQuery;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.silverpeas.core.util.DateUtil.date2SQLDate;
+
+/**
+ * DAO on the counters of the accesses to the resources. The rows of SB_Statistic_History are
+ * counted per resource, action type and day into SB_Statistic_HistoryCount so that the number of
+ * accesses to a resource is got from a few rows found by their key instead of counting all the
+ * history rows of the resource.
+ * <p>
+ * The counters are maintained by {@link HistoryObjectDAO} each time history rows are added, moved
+ * or deleted. They can be rebuilt from the history with {@link #rebuild(Connection)}.
+ * </p>
+ */
+public class HistoryCountDAO {
+
+  private static final String COUNT_TABLE_NAME = "SB_Statistic_HistoryCount";
+  private static final String COUNT_COLUMNS =
+      "resourceId, componentId, resourceType, actionType, dateStat";
+  private static final String INSERT_FROM_HISTORY =
+      "INSERT INTO " + COUNT_TABLE_NAME + " (" + COUNT_COLUMNS + ", nbAccess) SELECT " +
+          COUNT_COLUMNS + ", COUNT(*) FROM SB_Statistic_History";
+  private static final String GROUP_BY_COUNT_COLUMNS = " GROUP BY " + COUNT_COLUMNS;
+  private static final String NB_ACCESS_SUM = "SUM(nbAccess)";
+  private static final String RESOURCE_ID = "resourceId = ?";
+  private static final String COMPONENT_ID = "componentId = ?";
+  private static final String RESOURCE_TYPE = "resourceType = ?";
+  private static final String ACTION_TYPE = "actionType = ?";
+  private static final String DATE_STAT = "dateStat = ?";
+
+  private HistoryCountDAO() {
+  }
+
+  /**
+   * Increments the counter of the accesses to the specified resource at the specified day. If the
+   * counter doesn't exist yet, it is inserted. As it can be inserted meanwhile for another access
+   * at the same day, the insertion is guarded by a savepoint: on some databases, like PostgreSQL,
+   * a failed statement aborts the whole transaction unless it is rolled back to a savepoint.
+   * @param con the database connection.
+   * @param resourceReference the reference of the accessed resource.
+   * @param actionType the type of the access.
+   * @param objectType the type of the resource.
+   * @param dateStat the day of the access in the SQL date format.
+   * @throws SQLException on technical error with database.
+   */
+  public static void increment(Connection con, ResourceReference resourceReference,
+      int actionType, String objectType, String dateStat) throws SQLException {
+    if (incrementExisting(con, resourceReference, actionType, objectType, dateStat) == 0) {
+      final Savepoint savepoint = con.getAutoCommit() ? null : con.setSavepoint();
+      try {
+        JdbcSqlQuery.createInsertFor(COUNT_TABLE_NAME)
+            .addInsertParam("resourceId", resourceReference.getId())
+            .addInsertParam("componentId", resourceReference.getInstanceId())
+            .addInsertParam("resourceType", objectType)
+            .addInsertParam("actionType", actionType)
+            .addInsertParam("dateStat", dateStat)
+            .addInsertParam("nbAccess", 1)
+            .executeWith(con);
+        if (savepoint != null) {
+          con.releaseSavepoint(savepoint);
+        }
+      } catch (SQLException e) {
+        if (savepoint != null) {
+          con.rollback(savepoint);
+        }
+        // the counter can have been inserted meanwhile for another access at the same day
+        if (incrementExisting(con, resourceReference, actionType, objectType, dateStat) == 0) {
+          throw e;
+        }
+      }
+    }
+  }
+
+  private static long incrementExisting(Connection con, ResourceReference resourceReference,
+      int actionType, String objectType, String dateStat) throws SQLException {
+    return JdbcSqlQuery.create("UPDATE " + COUNT_TABLE_NAME + " SET nbAccess = nbAccess + 1")
+        .where(RESOURCE_ID, resourceReference.getId())
+        .and(COMPONENT_ID, resourceReference.getInstanceId())
+        .and(RESOURCE_TYPE, objectType)
+        .and(ACTION_TYPE, actionType)
+        .and(DATE_STAT, dateStat)
+        .executeWith(con);
+  }
+
+  /**
+   * Gets the number of accesses to the specified resource, whatever the type of the accesses.
+   * @param con the database connection.
+   * @param resourceReference the reference of the resource.
+   * @param objectType the type of the resource.
+   * @return the number of accesses.
+   * @throws SQLException on technical error with database.
+   */
+  public static int getCount(Connection con, ResourceReference resourceReference,
+      String objectType) throws SQLException {
+    final Integer count = JdbcSqlQuery.createSelect(NB_ACCESS_SUM)
+        .from(COUNT_TABLE_NAME)
+        .where(RESOURCE_ID, resourceReference.getId())
+        .and(COMPONENT_ID, resourceReference.getInstanceId())
+        .and(RESOURCE_TYPE, objectType)
+        .executeUniqueWith(con, r -> r.getInt(1));
+    return count == null ? 0 : count;
+  }
+
+  /**
+   * Gets the number of accesses to the specified resource within the specified period, whatever
+   * the type of the accesses.
+   * @param con the database connection.
+   * @param primaryKey the primary key of the resource.
+   * @param objectType the type of the resource.
+   * @param startDate the first day of the period.
+   * @param endDate the last day of the period.
+   * @return the number of accesses.
+   * @throws SQLException on technical error with database.
+   */
+  public static int getCountByPeriod(Connection con, WAPrimaryKey primaryKey, String objectType,
+      Date startDate, Date endDate) throws SQLException {
+    final Integer count = JdbcSqlQuery.createSelect(NB_ACCESS_SUM)
+        .from(COUNT_TABLE_NAME)
+        .where(RESOURCE_ID, primaryKey.getId())
+        .and(COMPONENT_ID, primaryKey.getInstanceId())
+        .and(RESOURCE_TYPE, objectType)
+        .and("dateStat >= ?", date2SQLDate(startDate))
+        .and("dateStat <= ?", date2SQLDate(endDate))
+        .executeUniqueWith(con, r -> r.getInt(1));
+    return count == null ? 0 : count;
+  }
+
+  /**
+   * Gets the identifiers of the specified resources that were accessed within the specified
+   * period. The resources are all expected to be in the same component instance.
+   * @param con the database connection.
+   * @param primaryKeys the primary keys of the resources.
+   * @param objectType the type of the resources.
+   * @param startDate the first day of the period.
+   * @param endDate the last day of the period.
+   * @return the identifiers of the accessed resources.
+   * @throws SQLException on technical error with database.
+   */
+  public static Set<String> getAccessedResourceIdsByPeriod(Connection con,
+      List<WAPrimaryKey> primaryKeys, String objectType, Date startDate, Date endDate)
+      throws SQLException {
+    final Set<String> resourceIds = new HashSet<>();
+    if (primaryKeys == null || primaryKeys.isEmpty()) {
+      return resourceIds;
+    }
+    final String instanceId = primaryKeys.get(0).getInstanceId();
+    final Set<String> ids =
+        primaryKeys.stream().map(WAPrimaryKey::getId).collect(Collectors.toSet());
+    JdbcSqlQuery.executeBySplittingOn(ids, (idBatch, ignore) -> JdbcSqlQuery
+        .createSelect("DISTINCT resourceId")
+        .from(COUNT_TABLE_NAME)
+        .where(COMPONENT_ID, instanceId)
+        .and(RESOURCE_TYPE, objectType)
+        .and("dateStat >= ?", date2SQLDate(startDate))
+        .and("dateStat <= ?", date2SQLDate(endDate))
+        .and("resourceId").in(idBatch)
+        .executeWith(con, r -> resourceIds.add(r.getString(1))));
+    return resourceIds;
+  }
+
+  /**
+   * Deletes the counters of the accesses to the specified resource.
+   * @param con the database connection.
+   * @param resourceReference the reference of the resource.
+   * @param objectType the type of the resource.
+   * @throws SQLException on technical error with database.
+   */
+  public static void deleteByResource(Connection con, ResourceReference resourceReference,
+      String objectType) throws SQLException {
+    JdbcSqlQuery.createDeleteFor(COUNT_TABLE_NAME)
+        .where(RESOURCE_ID, resourceReference.getId())
+        .and(COMPONENT_ID, resourceReference.getInstanceId())
+        .and(RESOURCE_TYPE, objectType)
+        .executeWith(con);
+  }
+
+  /**
+   * Deletes the counters of the accesses to the resources of the specified component instance.
+   * @param con the database connection.
+   * @param componentId the identifier of the component instance.
+   * @throws SQLException on technical error with database.
+   */
+  public static void deleteByComponent(Connection con, String componentId)
+      throws SQLException {
+    JdbcSqlQuery.createDeleteFor(COUNT_TABLE_NAME)
+        .where(COMPONENT_ID, componentId)
+        .executeWith(con);
+  }
+
+  /**
+   * Computes again from the history the counters of the specified accesses to the specified
+   * resource. It is the way to update the counters once the history rows of a resource are moved
+   * to another component instance, the moved rows being possibly merged with the rows of
+   * existing counters.
+   * @param con the database connection.
+   * @param resourceId the identifier of the resource.
+   * @param actionType the type of the accesses.
+   * @param objectType the type of the resource.
+   * @throws SQLException on technical error with database.
+   */
+  public static void recount(Connection con, String resourceId, int actionType,
+      String objectType) throws SQLException {
+    JdbcSqlQuery.createDeleteFor(COUNT_TABLE_NAME)
+        .where(RESOURCE_ID, resourceId)
+        .and(ACTION_TYPE, actionType)
+        .and(RESOURCE_TYPE, objectType)
+        .executeWith(con);
+    JdbcSqlQuery.create(INSERT_FROM_HISTORY)
+        .where(RESOURCE_ID, resourceId)
+        .and(ACTION_TYPE, actionType)
+        .and(RESOURCE_TYPE, objectType)
+        .addSqlPart(GROUP_BY_COUNT_COLUMNS)
+        .executeWith(con);
+  }
+
+  /**
+   * Rebuilds all the counters from the history.
+   * @param con the database connection.
+   * @return the number of counters.
+   * @throws SQLException on technical error with database.
+   */
+  public static long rebuild(Connection con) throws SQLException {
+    JdbcSqlQuery.createDeleteFor(COUNT_TABLE_NAME).executeWith(con);
+    return JdbcSqlQuery.create(INSERT_FROM_HISTORY + GROUP_BY_COUNT_COLUMNS).executeWith(con);
+  }
+}
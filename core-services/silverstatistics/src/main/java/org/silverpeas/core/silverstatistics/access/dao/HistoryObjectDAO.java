@@ -75,14 +75,6 @@ public class HistoryObjectDAO {
   private static final String QUERY_STATISTIC_DELETE_BY_COMPONENT =
       "DELETE FROM SB_Statistic_History WHERE componentId = ?";
 
-  private static final String QUERY_STATISTIC_COUNT =
-      "SELECT COUNT(resourceId) FROM SB_Statistic_History WHERE resourceId=? AND ComponentId =? " +
-          "AND resourceType = ?";
-
-  private static final String QUERY_STATISTIC_COUNT_BY_PERIOD =
-      "SELECT COUNT(resourceId) FROM SB_Statistic_History WHERE resourceId=? AND ComponentId =? " +
-          "AND resourceType = ? AND datestat >= ? AND datestat <= ?";
-
   private HistoryObjectDAO() {
   }
 
@@ -134,8 +126,9 @@ public class HistoryObjectDAO {
 
     try {
       Date now = new Date();
+      String dateStat = date2SQLDate(now);
       prepStmt = con.prepareStatement(QUERY_STATISTIC_INSERT);
-      prepStmt.setString(1, date2SQLDate(now));
+      prepStmt.setString(1, dateStat);
       prepStmt.setString(2, DateUtil.formatTime(now));
       prepStmt.setString(3, userId);
       prepStmt.setString(4, resourceReference.getId());
@@ -143,6 +136,7 @@ public class HistoryObjectDAO {
       prepStmt.setInt(6, actionType);
       prepStmt.setString(7, objectType);
       prepStmt.executeUpdate();
+      HistoryCountDAO.increment(con, resourceReference, actionType, objectType, dateStat);
     } finally {
       DBUtil.close(prepStmt);
     }
@@ -224,6 +218,7 @@ public class HistoryObjectDAO {
       prepStmt.setString(2, resourceReference.getInstanceId());
       prepStmt.setString(3, objectType);
       prepStmt.executeUpdate();
+      HistoryCountDAO.deleteByResource(con, resourceReference, objectType);
     } finally {
       DBUtil.close(prepStmt);
     }
@@ -238,6 +233,7 @@ public class HistoryObjectDAO {
       prepStmt = con.prepareStatement(QUERY_STATISTIC_DELETE_BY_COMPONENT);
       prepStmt.setString(1, componentId);
       prepStmt.executeUpdate();
+      HistoryCountDAO.deleteByComponent(con, componentId);
     } finally {
       DBUtil.close(prepStmt);
     }
@@ -252,48 +248,24 @@ public class HistoryObjectDAO {
     return nb;
   }
 
+  /**
+   * Gets the number of accesses to the specified resource from the counters maintained with the
+   * history.
+   * @see HistoryCountDAO#getCount(Connection, ResourceReference, String)
+   */
   public static int getCount(Connection con, ResourceReference resourceReference, String objectType)
       throws SQLException {
-    int nb = 0;
-
-    PreparedStatement prepStmt = null;
-    ResultSet rs = null;
-    try {
-      prepStmt = con.prepareStatement(QUERY_STATISTIC_COUNT);
-      prepStmt.setString(1, resourceReference.getId());
-      prepStmt.setString(2, resourceReference.getInstanceId());
-      prepStmt.setString(3, objectType);
-      rs = prepStmt.executeQuery();
-      if (rs.next()) {
-        nb = rs.getInt(1);
-      }
-      return nb;
-    } finally {
-      DBUtil.close(rs, prepStmt);
-    }
+    return HistoryCountDAO.getCount(con, resourceReference, objectType);
   }
 
+  /**
+   * Gets the number of accesses to the specified resource within the specified period from the
+   * counters maintained with the history.
+   * @see HistoryCountDAO#getCountByPeriod(Connection, WAPrimaryKey, String, Date, Date)
+   */
   public static int getCountByPeriod(Connection con, WAPrimaryKey primaryKey, String objectType,
       Date startDate, Date endDate) throws SQLException {
-    int nb = 0;
-
-    PreparedStatement prepStmt = null;
-    ResultSet rs = null;
-    try {
-      prepStmt = con.prepareStatement(QUERY_STATISTIC_COUNT_BY_PERIOD);
-      prepStmt.setString(1, primaryKey.getId());
-      prepStmt.setString(2, primaryKey.getInstanceId());
-      prepStmt.setString(3, objectType);
-      prepStmt.setString(4, date2SQLDate(startDate));
-      prepStmt.setString(5, date2SQLDate(endDate));
-      rs = prepStmt.executeQuery();
-      if (rs.next()) {
-        nb = rs.getInt(1);
-      }
-      return nb;
-    } finally {
-      DBUtil.close(rs, prepStmt);
-    }
+    return HistoryCountDAO.getCountByPeriod(con, primaryKey, objectType, startDate, endDate);
   }
 
   public static Stream<Pair<ContributionIdentifier, Integer>> countByPeriodAndUser(
@@ -344,51 +316,12 @@ public class HistoryObjectDAO {
       prepStmt.setInt(3, actionType);
       prepStmt.setString(4, objectType);
       prepStmt.executeUpdate();
+      HistoryCountDAO.recount(con, toResourceReference.getId(), actionType, objectType);
     } finally {
       DBUtil.close(prepStmt);
     }
   }
 
-  public static List<String> getListObjectAccessByPeriod(Connection con,
-      List<WAPrimaryKey> primaryKeys, String objectType, Date startDate, Date endDate)
-      throws SQLException {
-    StringBuilder query = new StringBuilder();
-    query.append(
-        "SELECT resourceId FROM SB_Statistic_History WHERE ComponentId =? AND resourceType = ? " +
-            "AND datestat >= ? AND datestat <= ? ");
-    String instanceId = null;
-    if (primaryKeys != null && !primaryKeys.isEmpty()) {
-      query.append("AND resourceId IN (");
-      for (WAPrimaryKey pk : primaryKeys) {
-        if (primaryKeys.indexOf(pk) != 0) {
-          query.append(",");
-        }
-        query.append("'").append(pk.getId()).append("'");
-      }
-      query.append(")");
-      instanceId = primaryKeys.get(0).getInstanceId();
-    }
-
-    List<String> results = new ArrayList<>();
-
-    PreparedStatement prepStmt = null;
-    ResultSet rs = null;
-    try {
-      prepStmt = con.prepareStatement(query.toString());
-      prepStmt.setString(1, instanceId);
-      prepStmt.setString(2, objectType);
-      prepStmt.setString(3, date2SQLDate(startDate));
-      prepStmt.setString(4, date2SQLDate(endDate));
-      rs = prepStmt.executeQuery();
-      while (rs.next()) {
-        results.add(rs.getString(1));
-      }
-    } finally {
-      DBUtil.close(rs, prepStmt);
-    }
-    return results;
-  }
-
   public static List<String> getListObjectAccessByPeriodAndUser(Connection con,
       List<WAPrimaryKey> primaryKeys, String objectType, Date startDate, Date endDate,
       String userId) throws SQLException {
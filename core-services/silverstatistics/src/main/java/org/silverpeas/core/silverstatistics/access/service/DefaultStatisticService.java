@@ -34,6 +34,7 @@ import org.silverpeas.core.contribution.model.Contribution;
 import org.silverpeas.core.contribution.model.ContributionIdentifier;
 import org.silverpeas.core.contribution.model.SilverpeasContent;
 import org.silverpeas.core.persistence.jdbc.DBUtil;
+import org.silverpeas.core.silverstatistics.access.dao.HistoryCountDAO;
 import org.silverpeas.core.silverstatistics.access.dao.HistoryObjectDAO;
 import org.silverpeas.core.silverstatistics.access.model.HistoryByUser;
 import org.silverpeas.core.silverstatistics.access.model.HistoryCriteria;
@@ -83,6 +84,7 @@ public class DefaultStatisticService implements StatisticService, ComponentInsta
   }
 
   @Override
+  @Transactional
   public void addStat(String userId, ResourceReference resourceReference, int actionType, String objectType) {
 
     Connection con = getConnection();
@@ -96,6 +98,7 @@ public class DefaultStatisticService implements StatisticService, ComponentInsta
   }
 
   @Override
+  @Transactional
   public void addStat(String userId, SilverpeasContent content) {
     addStat(userId, getForeignPK(content), ACTION_ACCESS, content.getContributionType());
   }
@@ -223,6 +226,7 @@ public class DefaultStatisticService implements StatisticService, ComponentInsta
   }
 
   @Override
+  @Transactional
   public void deleteStats(ResourceReference resourceReference, String objectType) {
 
     Connection con = getConnection();
@@ -236,11 +240,13 @@ public class DefaultStatisticService implements StatisticService, ComponentInsta
   }
 
   @Override
+  @Transactional
   public void deleteStats(SilverpeasContent content) {
     deleteStats(getForeignPK(content), content.getContributionType());
   }
 
   @Override
+  @Transactional
   public void moveStat(ResourceReference toResourceReference, int actionType, String objectType) {
     SilverTrace
         .info("statistic", "DefaultStatisticService.deleteHistoryByAction", "root.MSG_GEN_ENTER_METHOD");
@@ -300,10 +306,9 @@ public class DefaultStatisticService implements StatisticService, ComponentInsta
     int nb = 0;
     Connection con = getConnection();
     try {
-      List<String> objectIds = HistoryObjectDAO
-          .getListObjectAccessByPeriod(con, primaryKeys, objectType, startDate, endDate);
-      Set<String> distinctObjectIds = new HashSet<>(objectIds);
-      nb = distinctObjectIds.size();
+      nb = HistoryCountDAO
+          .getAccessedResourceIdsByPeriod(con, primaryKeys, objectType, startDate, endDate)
+          .size();
     } catch (Exception e) {
       throw new StatisticRuntimeException(e);
     } finally {
@@ -366,6 +371,16 @@ public class DefaultStatisticService implements StatisticService, ComponentInsta
     }
   }
 
+  @Override
+  @Transactional
+  public long rebuildCounts() {
+    try (Connection con = getConnection()) {
+      return HistoryCountDAO.rebuild(con);
+    } catch (Exception e) {
+      throw new StatisticRuntimeException(e);
+    }
+  }
+
   private ResourceReference getForeignPK(SilverpeasContent content) {
     return new ResourceReference(content.getId(), content.getComponentInstanceId());
   }
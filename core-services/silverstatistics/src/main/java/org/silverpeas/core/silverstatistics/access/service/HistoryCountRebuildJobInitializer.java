@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.silverstatistics.access.service;
+
+import org.silverpeas.core.initialization.Initialization;
+import org.silverpeas.core.scheduler.Job;
+import org.silverpeas.core.scheduler.JobExecutionContext;
+import org.silverpeas.core.scheduler.Scheduler;
+import org.silverpeas.core.scheduler.SchedulerProvider;
+import org.silverpeas.core.scheduler.trigger.JobTrigger;
+import org.silverpeas.core.util.ResourceLocator;
+import org.silverpeas.core.util.StringUtil;
+import org.silverpeas.core.util.logging.SilverLogger;
+
+/**
+ * This JOB is in charge of rebuilding from the history the counters of the accesses to the
+ * resources, at the moments given by the cron expression of the statistics settings. Without
+ * cron expression, the job isn't scheduled.
+ */
+class HistoryCountRebuildJobInitializer implements Initialization {
+
+  private static final String JOB_NAME = "StatisticHistoryCountRebuild";
+
+  @Override
+  public void init() throws Exception {
+    final Scheduler scheduler = SchedulerProvider.getVolatileScheduler();
+    scheduler.unscheduleJob(JOB_NAME);
+    final String cron =
+        ResourceLocator.getSettingBundle("org.silverpeas.silverstatistics.SilverStatistics")
+            .getString("scheduledHistoryCountRebuildTimeStamp", "");
+    if (StringUtil.isDefined(cron)) {
+      scheduler.scheduleJob(new HistoryCountRebuildJob(), JobTrigger.triggerAt(cron));
+    }
+  }
+
+  @Override
+  public void release() throws Exception {
+    SchedulerProvider.getVolatileScheduler().unscheduleJob(JOB_NAME);
+  }
+
+  private static class HistoryCountRebuildJob extends Job {
+
+    private HistoryCountRebuildJob() {
+      super(JOB_NAME);
+    }
+
+    @Override
+    public void execute(final JobExecutionContext context) {
+      final long start = System.currentTimeMillis();
+      final long count = StatisticService.get().rebuildCounts();
+      SilverLogger.getLogger(this).info("{0} access counters rebuilt in {1} ms", count,
+          System.currentTimeMillis() - start);
+    }
+  }
+}
@@ -146,4 +146,12 @@ public interface StatisticService {
    * @return a stream of read <T>
    */
   <T extends Contribution> Stream<T> filterRead(Collection<T> contributions, String userId);
+
+  /**
+   * Rebuilds from the whole history the counters of the accesses to the resources. The counters
+   * are maintained each time the history is modified, so this rebuild is only required to repair
+   * them.
+   * @return the number of counters.
+   */
+  long rebuildCounts();
 }
\ No newline at end of file
@@ -26,7 +26,9 @@ package org.silverpeas.core.silverstatistics.volume.dao;
 import org.silverpeas.core.persistence.jdbc.DBUtil;
 import org.silverpeas.core.silverstatistics.volume.model.StatType;
 import org.silverpeas.core.silverstatistics.volume.model.StatisticsConfig;
+import org.silverpeas.core.util.CollectionUtil;
 import org.silverpeas.core.util.StringUtil;
+import org.silverpeas.core.util.logging.SilverLogger;
 
 import java.io.IOException;
 import java.sql.Connection;
@@ -34,9 +36,13 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
 
 /**
  * This is the alimentation statistics DAO Object
@@ -44,6 +50,10 @@ import java.util.List;
  */
 public class SilverStatisticsDAO {
 
+  private static final String DECIMAL = "DECIMAL";
+  private static final String INTEGER = "INTEGER";
+  private static final String VARCHAR = "VARCHAR";
+
   /**
    * Insert data into statistic table
    * @param con the database connection
@@ -54,13 +64,16 @@ public class SilverStatisticsDAO {
    */
   static void insertDataStats(Connection con, StatType type, List<String> valueKeys,
       StatisticsConfig conf) throws SQLException {
+    try (PreparedStatement prepStmt = con.prepareStatement(buildInsertStatement(type, conf))) {
+      setInsertParameters(prepStmt, type, valueKeys, conf);
+      prepStmt.executeUpdate();
+    }
+  }
+
+  private static String buildInsertStatement(StatType type, StatisticsConfig conf) {
     StringBuilder insertStatementBuf = new StringBuilder("INSERT INTO ");
     insertStatementBuf.append(conf.getTableName(type)).append("(");
-    PreparedStatement prepStmt = null;
-    int i = 0;
-
-    Collection<String> theKeys = conf.getAllKeys(type);
-    insertStatementBuf.append(StringUtil.join(theKeys, ','));
+    insertStatementBuf.append(StringUtil.join(conf.getAllKeys(type), ','));
     insertStatementBuf.append(") ");
 
     insertStatementBuf.append("VALUES(?");
@@ -68,62 +81,61 @@ public class SilverStatisticsDAO {
       insertStatementBuf.append(",?");
     }
     insertStatementBuf.append(")");
-    String insertStatement = insertStatementBuf.toString();
-
-    try {
+    return insertStatementBuf.toString();
+  }
 
-      prepStmt = con.prepareStatement(insertStatement);
-      for (String currentKey : theKeys) {
-        i++;
-        String currentType = conf.getKeyType(type, currentKey);
-        if (currentType.equals("DECIMAL")) {
-          long tmpLong;
-          try {
-            String tmpString = valueKeys.get(i - 1);
-            if (!StringUtil.isDefined(tmpString)) {
-              if (!conf.isCumulKey(type, currentKey)) {
-                prepStmt.setNull(i, java.sql.Types.DECIMAL);
-              } else {
-                prepStmt.setLong(i, 0);
-              }
-            } else {
-              tmpLong = Long.parseLong(tmpString);
-              prepStmt.setLong(i, tmpLong);
-            }
-          } catch (NumberFormatException e) {
-            prepStmt.setLong(i, 0);
-          }
-        }
-        if (currentType.equals("INTEGER")) {
-          int tmpInt;
-          try {
-            String tmpString = valueKeys.get(i - 1);
-            if (!StringUtil.isDefined(tmpString)) {
-              if (!conf.isCumulKey(type, currentKey)) {
-                prepStmt.setNull(i, java.sql.Types.INTEGER);
-              } else {
-                prepStmt.setInt(i, 0);
-              }
+  private static void setInsertParameters(PreparedStatement prepStmt, StatType type,
+      List<String> valueKeys, StatisticsConfig conf) throws SQLException {
+    int i = 0;
+    for (String currentKey : conf.getAllKeys(type)) {
+      i++;
+      String currentType = conf.getKeyType(type, currentKey);
+      if (currentType.equals(DECIMAL)) {
+        long tmpLong;
+        try {
+          String tmpString = valueKeys.get(i - 1);
+          if (!StringUtil.isDefined(tmpString)) {
+            if (!conf.isCumulKey(type, currentKey)) {
+              prepStmt.setNull(i, java.sql.Types.DECIMAL);
             } else {
-              tmpInt = Integer.parseInt(tmpString);
-              prepStmt.setInt(i, tmpInt);
+              prepStmt.setLong(i, 0);
             }
-          } catch (NumberFormatException e) {
-            prepStmt.setInt(i, 0);
+          } else {
+            tmpLong = Long.parseLong(tmpString);
+            prepStmt.setLong(i, tmpLong);
           }
+        } catch (NumberFormatException e) {
+          prepStmt.setLong(i, 0);
         }
-        if (currentType.equals("VARCHAR")) {
+      }
+      if (currentType.equals(INTEGER)) {
+        int tmpInt;
+        try {
           String tmpString = valueKeys.get(i - 1);
           if (!StringUtil.isDefined(tmpString)) {
-            prepStmt.setNull(i, java.sql.Types.VARCHAR);
+            if (!conf.isCumulKey(type, currentKey)) {
+              prepStmt.setNull(i, java.sql.Types.INTEGER);
+            } else {
+              prepStmt.setInt(i, 0);
+            }
+          } else if (conf.isCumulKey(type, currentKey)) {
+            prepStmt.setInt(i, toIntegerCumul(Long.parseLong(tmpString)));
           } else {
-            prepStmt.setString(i, valueKeys.get(i - 1));
+            tmpInt = Integer.parseInt(tmpString);
+            prepStmt.setInt(i, tmpInt);
           }
+        } catch (NumberFormatException e) {
+          prepStmt.setInt(i, 0);
+        }
+      }
+      if (currentType.equals(VARCHAR)) {
+        String tmpString = valueKeys.get(i - 1);
+        if (!StringUtil.isDefined(tmpString)) {
+          prepStmt.setNull(i, java.sql.Types.VARCHAR);
+        } else {
+          prepStmt.setString(i, valueKeys.get(i - 1));
         }
       }
-      prepStmt.executeUpdate();
-    } finally {
-      DBUtil.close(prepStmt);
     }
   }
 
@@ -182,7 +194,7 @@ public class SilverStatisticsDAO {
         selectStatementBuf.append(keyNameCurrent);
         updateStatementBuf.append(keyNameCurrent);
         String currentType = conf.getKeyType(type, keyNameCurrent);
-        if ("DECIMAL".equals(currentType)) {
+        if (DECIMAL.equals(currentType)) {
           try {
             Long.parseLong(valueKeys.get(k));
           } catch (Exception e) {
@@ -195,7 +207,7 @@ public class SilverStatisticsDAO {
             selectStatementBuf.append("=").append(valueKeys.get(k));
             updateStatementBuf.append("=").append(valueKeys.get(k));
           }
-        } else if ("INTEGER".equals(currentType)) {
+        } else if (INTEGER.equals(currentType)) {
           try {
             Integer.valueOf(valueKeys.get(k));
           } catch (Exception e) {
@@ -208,7 +220,7 @@ public class SilverStatisticsDAO {
             selectStatementBuf.append("=").append(valueKeys.get(k));
             updateStatementBuf.append("=").append(valueKeys.get(k));
           }
-        } else if ("VARCHAR".equals(currentType)) {
+        } else if (VARCHAR.equals(currentType)) {
           if (!StringUtil.isDefined(valueKeys.get(k))) {
             selectStatementBuf.append("=" + "NULL");
             updateStatementBuf.append("=" + "NULL");
@@ -245,7 +257,7 @@ public class SilverStatisticsDAO {
             if (conf.isCumulKey(type, keyNameCurrent)) {
               countCumulKey++;
               String currentType = conf.getKeyType(type, keyNameCurrent);
-              if (currentType.equals("INTEGER")) {
+              if (currentType.equals(INTEGER)) {
                 try {
                   intToAdd = Integer.parseInt(valueKeys.get(conf.indexOfKey(type, keyNameCurrent)));
                 } catch (NumberFormatException e) {
@@ -253,7 +265,7 @@ public class SilverStatisticsDAO {
                 }
                 pstmt.setInt(countCumulKey, intToAdd);
               }
-              if (currentType.equals("DECIMAL")) {
+              if (currentType.equals(DECIMAL)) {
                 try {
                   longToAdd = Long.parseLong(valueKeys.get(conf.indexOfKey(type, keyNameCurrent)));
                 } catch (NumberFormatException e) {
@@ -274,4 +286,198 @@ public class SilverStatisticsDAO {
       }
     }
   }
+
+  /**
+   * Updates or inserts in one go the specified statistics inside the statistic table defined
+   * inside conf parameter. Each statistic is added to the row having the same non cumulative key
+   * values as done by {@link #putDataStats(Connection, StatType, List, StatisticsConfig)}, but
+   * the statistics are here put with parameterized statements executed by JDBC batches: first
+   * all the rows are updated, then the statistics for which no row exists are inserted.
+   * The statistics with invalid numeric key values are ignored.
+   * @param con the database connection
+   * @param type the statistic type
+   * @param allValueKeys the values of the keys of each statistic to put.
+   * @param conf the statistics configuration.
+   * @return the number of statistics that were put into the table.
+   * @throws SQLException if an error occurs while putting the statistics.
+   */
+  public static int putAllDataStats(Connection con, StatType type,
+      Collection<List<String>> allValueKeys, StatisticsConfig conf) throws SQLException {
+    final String tableName = conf.getTableName(type);
+    final Map<String, List<List<String>>> statsByCriteria = new HashMap<>();
+    for (List<String> valueKeys : allValueKeys) {
+      if (areValidKeyValues(type, valueKeys, conf)) {
+        statsByCriteria.computeIfAbsent(buildCriteria(type, valueKeys, conf),
+            c -> new ArrayList<>()).add(valueKeys);
+      } else {
+        SilverLogger.getLogger(SilverStatisticsDAO.class)
+            .error("Invalid statistic {0} for {1}", valueKeys, type);
+      }
+    }
+
+    int count = 0;
+    final List<List<String>> toInsert = new ArrayList<>();
+    for (Map.Entry<String, List<List<String>>> stats : statsByCriteria.entrySet()) {
+      final String criteria = stats.getKey();
+      try (PreparedStatement update = con.prepareStatement(
+          buildUpdateStatement(type, conf) + " WHERE " + criteria);
+           PreparedStatement select = con.prepareStatement(
+               "SELECT COUNT(*) FROM " + tableName + " WHERE " + criteria)) {
+        for (List<List<String>> slice : CollectionUtil.splitList(stats.getValue())) {
+          for (List<String> valueKeys : slice) {
+            int index = setCumulParameters(update, 1, type, valueKeys, conf);
+            setCriteriaParameters(update, index, type, valueKeys, conf);
+            update.addBatch();
+          }
+          final int[] results = update.executeBatch();
+          for (int i = 0; i < results.length; i++) {
+            final List<String> valueKeys = slice.get(i);
+            final boolean updated = results[i] > 0 ||
+                (results[i] == Statement.SUCCESS_NO_INFO && exists(select, type, valueKeys, conf));
+            if (!updated) {
+              toInsert.add(valueKeys);
+            } else {
+              count++;
+            }
+          }
+        }
+      }
+    }
+
+    if (!toInsert.isEmpty()) {
+      try (PreparedStatement insert = con.prepareStatement(buildInsertStatement(type, conf))) {
+        for (List<List<String>> slice : CollectionUtil.splitList(toInsert)) {
+          for (List<String> valueKeys : slice) {
+            setInsertParameters(insert, type, valueKeys, conf);
+            insert.addBatch();
+          }
+          insert.executeBatch();
+          count += slice.size();
+        }
+      }
+    }
+    return count;
+  }
+
+  private static boolean areValidKeyValues(StatType type, List<String> valueKeys,
+      StatisticsConfig conf) {
+    int k = 0;
+    for (String keyName : conf.getAllKeys(type)) {
+      if (!conf.isCumulKey(type, keyName)) {
+        final String currentType = conf.getKeyType(type, keyName);
+        try {
+          if (DECIMAL.equals(currentType)) {
+            Long.parseLong(valueKeys.get(k));
+          } else if (INTEGER.equals(currentType)) {
+            Integer.parseInt(valueKeys.get(k));
+          }
+        } catch (NumberFormatException e) {
+          return false;
+        }
+      }
+      k++;
+    }
+    return true;
+  }
+
+  private static String buildUpdateStatement(StatType type, StatisticsConfig conf) {
+    final StringJoiner update =
+        new StringJoiner(",", "UPDATE " + conf.getTableName(type) + " SET ", "");
+    for (String keyName : conf.getAllKeys(type)) {
+      if (conf.isCumulKey(type, keyName)) {
+        update.add(keyName + "=" + keyName + "+?");
+      }
+    }
+    return update.toString();
+  }
+
+  /**
+   * The criteria on the non cumulative keys. As a key without value is matched with IS NULL,
+   * the criteria depend on the values of the keys.
+   */
+  private static String buildCriteria(StatType type, List<String> valueKeys,
+      StatisticsConfig conf) {
+    final StringJoiner criteria = new StringJoiner(" AND ");
+    int k = 0;
+    for (String keyName : conf.getAllKeys(type)) {
+      if (!conf.isCumulKey(type, keyName)) {
+        criteria.add(keyName + (StringUtil.isDefined(valueKeys.get(k)) ? "=?" : " IS NULL"));
+      }
+      k++;
+    }
+    return criteria.toString();
+  }
+
+  private static int setCumulParameters(PreparedStatement pstmt, int firstIndex, StatType type,
+      List<String> valueKeys, StatisticsConfig conf) throws SQLException {
+    int index = firstIndex;
+    int k = 0;
+    for (String keyName : conf.getAllKeys(type)) {
+      if (conf.isCumulKey(type, keyName)) {
+        final String currentType = conf.getKeyType(type, keyName);
+        if (INTEGER.equals(currentType)) {
+          int intToAdd;
+          try {
+            intToAdd = toIntegerCumul(Long.parseLong(valueKeys.get(k)));
+          } catch (NumberFormatException e) {
+            intToAdd = 0;
+          }
+          pstmt.setInt(index++, intToAdd);
+        } else {
+          long longToAdd;
+          try {
+            longToAdd = Long.parseLong(valueKeys.get(k));
+          } catch (NumberFormatException e) {
+            longToAdd = 0;
+          }
+          pstmt.setLong(index++, longToAdd);
+        }
+      }
+      k++;
+    }
+    return index;
+  }
+
+  /**
+   * Converts the specified cumul to the value of an INTEGER column. As the statistics are summed
+   * up in memory before being put, a cumul can exceed the INTEGER range: it is then clamped to
+   * the range rather than lost.
+   */
+  private static int toIntegerCumul(long cumul) {
+    if (cumul > Integer.MAX_VALUE || cumul < Integer.MIN_VALUE) {
+      SilverLogger.getLogger(SilverStatisticsDAO.class)
+          .warn("The cumul {0} exceeds the INTEGER range and is clamped", cumul);
+      return cumul > 0 ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+    }
+    return (int) cumul;
+  }
+
+  private static int setCriteriaParameters(PreparedStatement pstmt, int firstIndex,
+      StatType type, List<String> valueKeys, StatisticsConfig conf) throws SQLException {
+    int index = firstIndex;
+    int k = 0;
+    for (String keyName : conf.getAllKeys(type)) {
+      final String value = valueKeys.get(k);
+      if (!conf.isCumulKey(type, keyName) && StringUtil.isDefined(value)) {
+        final String currentType = conf.getKeyType(type, keyName);
+        if (DECIMAL.equals(currentType)) {
+          pstmt.setLong(index++, Long.parseLong(value));
+        } else if (INTEGER.equals(currentType)) {
+          pstmt.setInt(index++, Integer.parseInt(value));
+        } else {
+          pstmt.setString(index++, value);
+        }
+      }
+      k++;
+    }
+    return index;
+  }
+
+  private static boolean exists(PreparedStatement select, StatType type, List<String> valueKeys,
+      StatisticsConfig conf) throws SQLException {
+    setCriteriaParameters(select, 1, type, valueKeys, conf);
+    try (ResultSet rs = select.executeQuery()) {
+      return rs.next() && rs.getInt(1) > 0;
+    }
+  }
 }
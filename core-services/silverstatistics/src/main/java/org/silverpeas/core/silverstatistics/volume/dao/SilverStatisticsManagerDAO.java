@@ -25,6 +25,7 @@ package org.silverpeas.core.silverstatistics.volume.dao;
 
 import org.jetbrains.annotations.NotNull;
 import org.silverpeas.core.persistence.jdbc.DBUtil;
+import org.silverpeas.core.persistence.jdbc.sql.JdbcSqlQuery;
 import org.silverpeas.core.silverstatistics.volume.model.StatDataType;
 import org.silverpeas.core.silverstatistics.volume.model.StatType;
 import org.silverpeas.core.silverstatistics.volume.model.StatisticMode;
@@ -299,24 +300,26 @@ public class SilverStatisticsManagerDAO {
    * @throws SQLException
    */
   public static void makeStatCumul(Connection con, StatType statsType, StatisticsConfig conf) {
-    String keyNameCurrent;
-    String selectStatement = "SELECT * FROM " + conf.getTableName(statsType);
-    try (Statement stmt = con.createStatement();
-         ResultSet rs = stmt.executeQuery(selectStatement)) {
-      Collection<String> theKeys = conf.getAllKeys(statsType);
-      while (rs.next()) {
-        List<String> valueKeys = new ArrayList<>();
-
-        for (String theKey : theKeys) {
-          keyNameCurrent = theKey;
+    final Collection<String> theKeys = conf.getAllKeys(statsType);
+    final JdbcSqlQuery select = JdbcSqlQuery.createSelect("*").from(conf.getTableName(statsType));
+    try {
+      // the rows are streamed so that the whole statistic table isn't loaded into memory
+      select.forEachWith(con, rs -> {
+        List<String> valueKeys = new ArrayList<>(theKeys.size());
+        for (String keyNameCurrent : theKeys) {
           StatDataType currentType =
               StatDataType.valueOf(conf.getKeyType(statsType, keyNameCurrent));
-          final String addToValueKeys = getValueKey(rs, keyNameCurrent, currentType);
-          valueKeys.add(addToValueKeys);
+          valueKeys.add(getValueKey(rs, keyNameCurrent, currentType));
         }
-        putDataStatsCumul(con, statsType, valueKeys, conf);
-      }
-    } catch (SQLException e) {
+        return valueKeys;
+      }, valueKeys -> {
+        try {
+          putDataStatsCumul(con, statsType, valueKeys, conf);
+        } catch (SQLException e) {
+          throw new StatisticsRuntimeException(e);
+        }
+      });
+    } catch (SQLException | StatisticsRuntimeException e) {
       SilverLogger.getLogger(SilverStatisticsManagerDAO.class)
           .error("Error while making stat cummul", e);
     }
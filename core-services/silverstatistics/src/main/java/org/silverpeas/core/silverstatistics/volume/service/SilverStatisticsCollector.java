@@ -0,0 +1,365 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.silverstatistics.volume.service;
+
+import org.silverpeas.core.initialization.Initialization;
+import org.silverpeas.core.persistence.jdbc.DBUtil;
+import org.silverpeas.core.scheduler.Job;
+import org.silverpeas.core.scheduler.JobExecutionContext;
+import org.silverpeas.core.scheduler.Scheduler;
+import org.silverpeas.core.scheduler.SchedulerProvider;
+import org.silverpeas.core.scheduler.trigger.JobTrigger;
+import org.silverpeas.core.scheduler.trigger.TimeUnit;
+import org.silverpeas.core.silverstatistics.volume.dao.SilverStatisticsDAO;
+import org.silverpeas.core.silverstatistics.volume.model.StatType;
+import org.silverpeas.core.silverstatistics.volume.model.StatisticsConfig;
+import org.silverpeas.core.util.ResourceLocator;
+import org.silverpeas.core.util.ServiceProvider;
+import org.silverpeas.core.util.logging.SilverLogger;
+
+import javax.inject.Singleton;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collector of the statistics to put into the database. Rather than updating a statistic table
+ * for each event, the statistics are aggregated in memory: the ones of a same type and with the
+ * same non cumulative key values (the day of the statistic included) are summed up into a single
+ * entry. The entries are then periodically flushed into the database by JDBC batches, and a last
+ * time when the collector is released at the shutdown.
+ * <p>
+ * A statistic is always added to the row having the same non cumulative key values, whatever the
+ * cumul mode of its type. So summing up the statistics before putting them gives the same data
+ * as putting them one by one.
+ * </p>
+ * <p>
+ * The buffer is split into stripes, each of them with its own lock, so that the threads
+ * collecting statistics contend only when their statistics fall into the same stripe.
+ * </p>
+ * The collector is enabled only if a flush delay is set in the statistics settings. Otherwise the
+ * statistics have to be directly put into the database.
+ */
+@Singleton
+public class SilverStatisticsCollector implements Initialization {
+
+  private static final String JOB_NAME = "SilverStatisticsFlush";
+  private static final String FLUSH_DELAY = "StatsFlushDelay";
+  private static final int STRIPE_COUNT = 16;
+
+  private final Stripe[] stripes = new Stripe[STRIPE_COUNT];
+  private final Object flushLock = new Object();
+  private final AtomicInteger bufferSize = new AtomicInteger(0);
+  private final AtomicLong flushedEntryCount = new AtomicLong(0);
+  private volatile long lastFlushDuration = 0;
+  private volatile int flushDelay = 0;
+  private StatisticsConfig config;
+
+  private SilverStatisticsCollector() {
+    for (int i = 0; i < STRIPE_COUNT; i++) {
+      stripes[i] = new Stripe();
+    }
+  }
+
+  /**
+   * Constructs a collector that isn't scheduled and whose statistics are flushed explicitly.
+   * @param config the statistics configuration.
+   */
+  SilverStatisticsCollector(final StatisticsConfig config) {
+    this();
+    this.config = config;
+  }
+
+  public static SilverStatisticsCollector get() {
+    return ServiceProvider.getSingleton(SilverStatisticsCollector.class);
+  }
+
+  @Override
+  public void init() throws Exception {
+    config = new StatisticsConfig();
+    config.init();
+    final Scheduler scheduler = SchedulerProvider.getVolatileScheduler();
+    scheduler.unscheduleJob(JOB_NAME);
+    flushDelay =
+        ResourceLocator.getSettingBundle("org.silverpeas.silverstatistics.SilverStatistics")
+            .getInteger(FLUSH_DELAY, 0);
+    if (flushDelay > 0) {
+      scheduler.scheduleJob(new Job(JOB_NAME) {
+        @Override
+        public void execute(final JobExecutionContext context) {
+          flush();
+        }
+      }, JobTrigger.triggerEvery(flushDelay, TimeUnit.SECOND));
+    }
+  }
+
+  @Override
+  public void release() throws Exception {
+    flushDelay = 0;
+    SchedulerProvider.getVolatileScheduler().unscheduleJob(JOB_NAME);
+    flush();
+  }
+
+  /**
+   * Is this collector enabled? If not, the statistics have to be directly put into the database.
+   * @return true if the statistics are collected and periodically flushed, false otherwise.
+   */
+  public boolean isEnabled() {
+    return flushDelay > 0;
+  }
+
+  /**
+   * Collects the specified statistic. It is added to the entry of the buffer having the same
+   * type and the same non cumulative key values.
+   * @param type the statistic type.
+   * @param valueKeys the values of the keys of the statistic, in the order of the keys defined
+   * for the type in the statistics configuration.
+   */
+  public void collect(final StatType type, final List<String> valueKeys) {
+    final List<String> criteria = new ArrayList<>();
+    final List<Long> values = new ArrayList<>();
+    int k = 0;
+    for (String keyName : config.getAllKeys(type)) {
+      if (config.isCumulKey(type, keyName)) {
+        long value;
+        try {
+          value = Long.parseLong(valueKeys.get(k));
+        } catch (NumberFormatException e) {
+          value = 0;
+        }
+        values.add(value);
+      } else {
+        criteria.add(valueKeys.get(k));
+      }
+      k++;
+    }
+    final StatKey key = new StatKey(type, criteria);
+    stripes[Math.floorMod(key.hashCode(), STRIPE_COUNT)].add(key, values);
+  }
+
+  /**
+   * Flushes all the statistics collected so far into the database. Each entry of the buffer is
+   * put with the statistics of the same type in a JDBC batch. All the entries are put within a
+   * single transaction: if it fails, the entries are then put one by one, each in its own
+   * transaction, and the ones that still fail are dropped so that an invalid entry cannot block
+   * the next flushes. Only if no connection to the database can be opened, the entries are merged
+   * back into the buffer to be flushed again at the next flush.
+   */
+  public void flush() {
+    synchronized (flushLock) {
+      final long start = System.currentTimeMillis();
+      final Map<StatKey, long[]> drained = new HashMap<>();
+      for (Stripe stripe : stripes) {
+        drained.putAll(stripe.drain());
+      }
+      if (drained.isEmpty()) {
+        return;
+      }
+      final Map<StatType, List<List<String>>> statsByType = new EnumMap<>(StatType.class);
+      drained.forEach((key, sums) -> statsByType
+          .computeIfAbsent(key.type, t -> new ArrayList<>())
+          .add(key.toValueKeys(sums, config)));
+      int count;
+      try (Connection con = DBUtil.openConnection()) {
+        count = putAllOrOneByOne(con, statsByType, drained);
+      } catch (SQLException e) {
+        SilverLogger.getLogger(this).error(
+            "Flush of the collected statistics failed, they will be flushed again at the next " +
+                "flush", e);
+        drained.forEach(this::restore);
+        count = 0;
+      }
+      lastFlushDuration = System.currentTimeMillis() - start;
+      flushedEntryCount.addAndGet(count);
+      final int flushed = count;
+      SilverLogger.getLogger(this).debug(
+          () -> flushed + " statistic entries flushed in " + lastFlushDuration + " ms");
+    }
+  }
+
+  private int putAllOrOneByOne(final Connection con,
+      final Map<StatType, List<List<String>>> statsByType, final Map<StatKey, long[]> drained) {
+    try {
+      return putAll(con, statsByType);
+    } catch (SQLException e) {
+      SilverLogger.getLogger(this).warn(
+          "Flush by batches of the collected statistics failed, they are put one by one: {0}",
+          e.getMessage());
+    }
+    int count = 0;
+    for (Map.Entry<StatKey, long[]> entry : drained.entrySet()) {
+      final StatType type = entry.getKey().type;
+      final List<String> valueKeys = entry.getKey().toValueKeys(entry.getValue(), config);
+      try {
+        count += putAll(con,
+            Collections.singletonMap(type, Collections.singletonList(valueKeys)));
+      } catch (SQLException e) {
+        SilverLogger.getLogger(this)
+            .error("Statistic " + valueKeys + " for " + type + " dropped", e);
+      }
+    }
+    return count;
+  }
+
+  private int putAll(final Connection con, final Map<StatType, List<List<String>>> statsByType)
+      throws SQLException {
+    final boolean autoCommit = con.getAutoCommit();
+    con.setAutoCommit(false);
+    try {
+      int count = 0;
+      for (Map.Entry<StatType, List<List<String>>> stats : statsByType.entrySet()) {
+        count += SilverStatisticsDAO.putAllDataStats(con, stats.getKey(), stats.getValue(),
+            config);
+      }
+      con.commit();
+      return count;
+    } catch (SQLException e) {
+      con.rollback();
+      throw e;
+    } finally {
+      con.setAutoCommit(autoCommit);
+    }
+  }
+
+  private void restore(final StatKey key, final long[] sums) {
+    stripes[Math.floorMod(key.hashCode(), STRIPE_COUNT)].merge(key, sums);
+  }
+
+  /**
+   * Gets the number of aggregated entries currently in the buffer.
+   * @return the number of entries waiting to be flushed.
+   */
+  public int getBufferSize() {
+    return bufferSize.get();
+  }
+
+  /**
+   * Gets the duration of the last flush of the buffer.
+   * @return a duration in milliseconds.
+   */
+  public long getLastFlushDuration() {
+    return lastFlushDuration;
+  }
+
+  /**
+   * Gets the number of entries put into the database since the start of the collector.
+   * @return a number of flushed entries.
+   */
+  public long getFlushedEntryCount() {
+    return flushedEntryCount.get();
+  }
+
+  /**
+   * A part of the buffer.
+   */
+  private class Stripe {
+    private Map<StatKey, long[]> entries = new HashMap<>();
+
+    private synchronized void add(final StatKey key, final List<Long> values) {
+      long[] sums = entries.get(key);
+      if (sums == null) {
+        sums = new long[values.size()];
+        entries.put(key, sums);
+        bufferSize.incrementAndGet();
+      }
+      for (int i = 0; i < sums.length; i++) {
+        sums[i] += values.get(i);
+      }
+    }
+
+    private synchronized void merge(final StatKey key, final long[] values) {
+      final long[] sums = entries.get(key);
+      if (sums == null) {
+        entries.put(key, values);
+        bufferSize.incrementAndGet();
+      } else {
+        for (int i = 0; i < sums.length; i++) {
+          sums[i] += values[i];
+        }
+      }
+    }
+
+    private synchronized Map<StatKey, long[]> drain() {
+      final Map<StatKey, long[]> drained = entries;
+      entries = new HashMap<>();
+      bufferSize.addAndGet(-drained.size());
+      return drained;
+    }
+  }
+
+  /**
+   * The key of an entry of the buffer: the type of the statistic and its non cumulative key
+   * values.
+   */
+  private static class StatKey {
+    private final StatType type;
+    private final List<String> criteria;
+    private final int hash;
+
+    private StatKey(final StatType type, final List<String> criteria) {
+      this.type = type;
+      this.criteria = criteria;
+      this.hash = Objects.hash(type, criteria);
+    }
+
+    private List<String> toValueKeys(final long[] sums, final StatisticsConfig config) {
+      final List<String> valueKeys = new ArrayList<>(criteria.size() + sums.length);
+      int c = 0;
+      int s = 0;
+      for (String keyName : config.getAllKeys(type)) {
+        if (config.isCumulKey(type, keyName)) {
+          valueKeys.add(String.valueOf(sums[s++]));
+        } else {
+          valueKeys.add(criteria.get(c++));
+        }
+      }
+      return valueKeys;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final StatKey statKey = (StatKey) o;
+      return type == statKey.type && criteria.equals(statKey.criteria);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
@@ -58,7 +58,14 @@ public class SilverStatisticsService implements SilverStatistics {
   public void putStats(StatType type, String data) {
     StringTokenizer stData = new StringTokenizer(data, SEPARATOR);
     List<String> dataArray = stData.getTokenList();
-    if (myStatsConfig.isGoodDatas(type, dataArray)) {
+    if (!myStatsConfig.isGoodDatas(type, dataArray)) {
+      SilverLogger.getLogger(this).error("input data={0} for {1}", data, type);
+      return;
+    }
+    final SilverStatisticsCollector collector = SilverStatisticsCollector.get();
+    if (collector.isEnabled()) {
+      collector.collect(type, dataArray);
+    } else {
       try(Connection myCon = DBUtil.openConnection()) {
 
         SilverStatisticsDAO.putDataStats(myCon, type, dataArray, myStatsConfig);
@@ -69,8 +76,6 @@ public class SilverStatisticsService implements SilverStatistics {
         SilverLogger.getLogger(this)
             .error("typeOfStats={0}, dataArray={1}", new Object[]{type, dataArray}, e);
       }
-    } else {
-      SilverLogger.getLogger(this).error("input data={0} for {1}", data, type);
     }
   }
 
@@ -81,6 +86,8 @@ public class SilverStatisticsService implements SilverStatistics {
 
   @Override
   public void makeStatAllCumul() {
+    // the statistics collected so far have to be taken into account in the cumul
+    SilverStatisticsCollector.get().flush();
     SilverStatisticsManagerDAO.makeStatAllCumul(myStatsConfig);
   }
 
@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.workflow.engine.instance;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.shrinkwrap.api.Archive;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.silverpeas.core.persistence.Transaction;
+import org.silverpeas.core.persistence.jdbc.sql.JdbcSqlQuery;
+import org.silverpeas.core.test.BasicWarBuilder;
+import org.silverpeas.core.test.rule.DbSetupRule;
+import org.silverpeas.core.util.ListSlice;
+import org.silverpeas.core.workflow.api.instance.ProcessInstanceRow;
+import org.silverpeas.core.workflow.api.instance.ProcessInstanceRowCriteria;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Integration tests on the projection of the process instances onto the rows of the lists of
+ * process instances.
+ */
+@RunWith(Arquillian.class)
+public class ProcessInstanceRowDAOIT {
+
+  private static final String TABLE_CREATION_SCRIPT =
+      "/org/silverpeas/core/workflow/engine/instance/create-tables.sql";
+  private static final String DATA_SET_SCRIPT =
+      "/org/silverpeas/core/workflow/engine/instance/create-dataset.sql";
+  private static final String MODEL_ID = "processManager1";
+  private static final String SUPERVISOR = "supervisor";
+  private static final String EMPLOYEE = "employee";
+  private static final int NB_INSTANCES = 4;
+
+  @Rule
+  public DbSetupRule dbSetupRule =
+      DbSetupRule.createTablesFrom(TABLE_CREATION_SCRIPT).loadInitialDataSetFrom(DATA_SET_SCRIPT);
+
+  @Deployment
+  public static Archive<?> createTestArchive() {
+    return BasicWarBuilder.onWarForTestClass(ProcessInstanceRowDAOIT.class)
+        .addMavenDependenciesWithPersistence("org.silverpeas.core:silverpeas-core")
+        .createMavenDependenciesWithPersistence("org.silverpeas.core.services:silverpeas-core-pdc")
+        .createMavenDependencies("org.silverpeas.core.services:silverpeas-core-tagcloud")
+        .createMavenDependencies("org.silverpeas.core.services:silverpeas-core-personalorganizer")
+        .testFocusedOn(war -> war.addPackages(true, "org.silverpeas.core.workflow"))
+        .build();
+  }
+
+  @Test
+  public void theTitleOfTheRowsShouldBeTheOneOfTheRoleAndOfTheLanguage() throws SQLException {
+    Transaction.performInOne(() -> {
+      ProcessInstanceRowDAO.save(aProjectionOf("1").withItemValue("amount", "100"));
+      ProcessInstanceRowDAO.save(aProjectionOf("2").withItemValue("amount", "50"));
+      return null;
+    });
+
+    List<ProcessInstanceRow> rows = find(SUPERVISOR, "fr");
+    assertThat(rows.size(), is(2));
+    assertThat(rows.get(0).getInstanceId(), is("2"));
+    assertThat(rows.get(0).getTitle(), is("Demande 2 (supervisor)"));
+    assertThat(rows.get(0).getItemValue("amount"), is("50"));
+    assertThat(rows.get(0).getStates().get(0), is("Created"));
+
+    rows = find(EMPLOYEE, "en");
+    assertThat(rows.size(), is(2));
+    assertThat(rows.get(1).getInstanceId(), is("1"));
+    assertThat(rows.get(1).getTitle(), is("Request 1 (employee)"));
+    assertThat(rows.get(1).getItemValue("amount"), is("100"));
+
+    rows = findRows(ProcessInstanceRowCriteria.forModel(MODEL_ID)
+        .visibleBy(null, EMPLOYEE, null, null)
+        .inLanguage("en")
+        .withTitleContaining("request 1"));
+    assertThat(rows.size(), is(1));
+    assertThat(rows.get(0).getInstanceId(), is("1"));
+  }
+
+  @Test
+  public void savingTheRowOfAProcessInstanceShouldReplaceItsPreviousRow() throws SQLException {
+    Transaction.performInOne(() -> {
+      ProcessInstanceRowDAO.save(aProjectionOf("1").withItemValue("amount", "100"));
+      ProcessInstanceRowDAO.save(new ProcessInstanceRowDAO.Projection("1", MODEL_ID)
+          .withStates("Validated")
+          .withTitle(SUPERVISOR, "fr", "Demande validée")
+          .withItemValue("amount", "200"));
+      return null;
+    });
+
+    final List<ProcessInstanceRow> rows = find(SUPERVISOR, "fr");
+    assertThat(rows.size(), is(1));
+    assertThat(rows.get(0).getTitle(), is("Demande validée"));
+    assertThat(rows.get(0).getStates().get(0), is("Validated"));
+    assertThat(rows.get(0).getItemValue("amount"), is("200"));
+    assertThat(countOf("SB_Workflow_InstanceRowTitle"), is(1L));
+  }
+
+  @Test
+  public void theMissingRowsShouldBeSavedWithoutReplacingTheExistingOnes() throws SQLException {
+    Transaction.performInOne(() -> {
+      ProcessInstanceRowDAO.save(new ProcessInstanceRowDAO.Projection("3", MODEL_ID)
+          .withStates("Created")
+          .withTitle(SUPERVISOR, "fr", "Demande saisie"));
+      return null;
+    });
+    assertThat(ProcessInstanceRowDAO.getInstanceIdsWithoutRow(10).size(), is(NB_INSTANCES - 1));
+
+    assertThat(ProcessInstanceRowDAO.saveMissingRows(10, this::aProjectionOf),
+        is(NB_INSTANCES - 1));
+    assertThat(ProcessInstanceRowDAO.getInstanceIdsWithoutRow(10).isEmpty(), is(true));
+    assertThat(ProcessInstanceRowDAO.saveMissingRows(10, this::aProjectionOf), is(0));
+
+    final List<ProcessInstanceRow> rows = find(SUPERVISOR, "fr");
+    assertThat(rows.size(), is(3));
+    assertThat(rows.get(0).getInstanceId(), is("3"));
+    assertThat(rows.get(0).getTitle(), is("Demande saisie"));
+    assertThat(countOf("SB_Workflow_InstanceRow"), is((long) NB_INSTANCES));
+  }
+
+  @Test
+  public void concurrentSavingsOfTheMissingRowsShouldSaveEachRowOnce() throws Exception {
+    final int nbThreads = 4;
+    final List<Callable<Integer>> savings = new ArrayList<>(nbThreads);
+    for (int i = 0; i < nbThreads; i++) {
+      savings.add(() -> ProcessInstanceRowDAO.saveMissingRows(10, this::aProjectionOf));
+    }
+    final ExecutorService executorService = Executors.newFixedThreadPool(nbThreads);
+    int nbSavedRows = 0;
+    try {
+      for (Future<Integer> saving : executorService.invokeAll(savings)) {
+        nbSavedRows += saving.get();
+      }
+    } finally {
+      executorService.shutdown();
+    }
+    assertThat(nbSavedRows, is(NB_INSTANCES));
+    assertThat(countOf("SB_Workflow_InstanceRow"), is((long) NB_INSTANCES));
+    assertThat(countOf("SB_Workflow_InstanceRowTitle"), is(4L * NB_INSTANCES));
+    assertThat(find(EMPLOYEE, "fr").size(), is(3));
+  }
+
+  private ProcessInstanceRowDAO.Projection aProjectionOf(final String instanceId) {
+    final String modelId = "4".equals(instanceId) ? "processManager2" : MODEL_ID;
+    return new ProcessInstanceRowDAO.Projection(instanceId, modelId)
+        .withStates("Created")
+        .withTitle(SUPERVISOR, "fr", "Demande " + instanceId + " (supervisor)")
+        .withTitle(SUPERVISOR, "en", "Request " + instanceId + " (supervisor)")
+        .withTitle(EMPLOYEE, "fr", "Demande " + instanceId + " (employee)")
+        .withTitle(EMPLOYEE, "en", "Request " + instanceId + " (employee)");
+  }
+
+  private static List<ProcessInstanceRow> find(final String role, final String language)
+      throws SQLException {
+    return findRows(ProcessInstanceRowCriteria.forModel(MODEL_ID)
+        .visibleBy(null, role, null, null)
+        .inLanguage(language));
+  }
+
+  private static ListSlice<ProcessInstanceRow> findRows(
+      final ProcessInstanceRowCriteria criteria) throws SQLException {
+    return ProcessInstanceRowDAO.find(criteria, null);
+  }
+
+  private static long countOf(final String tableName) throws SQLException {
+    return JdbcSqlQuery.createCountFor(tableName).execute();
+  }
+}
@@ -0,0 +1,13 @@
+INSERT INTO SB_Workflow_ProcessInstance (instanceId, modelId, locked, errorStatus, timeoutStatus)
+VALUES
+  (1, 'processManager1', 0, 0, 0),
+  (2, 'processManager1', 0, 0, 0),
+  (3, 'processManager1', 0, 0, 0),
+  (4, 'processManager2', 0, 0, 0);
+
+INSERT INTO SB_Workflow_ActiveState (id, instanceId, state, backStatus, timeoutStatus)
+VALUES
+  (1, 1, 'Created', 0, 0),
+  (2, 2, 'Validated', 0, 0),
+  (3, 3, 'Created', 0, 0),
+  (4, 4, 'Created', 0, 0);
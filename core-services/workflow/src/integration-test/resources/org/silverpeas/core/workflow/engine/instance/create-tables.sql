@@ -0,0 +1,44 @@
+CREATE TABLE SB_Workflow_ProcessInstance
+(
+  instanceId    int         NOT NULL,
+  modelId       varchar(50) NOT NULL,
+  locked        numeric(1)  NOT NULL,
+  errorStatus   numeric(1) DEFAULT 0 NOT NULL,
+  timeoutStatus numeric(1) DEFAULT 0 NOT NULL,
+  CONSTRAINT PK_Workflow_ProcessInstance PRIMARY KEY (instanceId)
+);
+
+CREATE TABLE SB_Workflow_ActiveState
+(
+  id            int         NOT NULL,
+  instanceId    int         NOT NULL,
+  state         varchar(50) NOT NULL,
+  backStatus    numeric(1) DEFAULT 0 NOT NULL,
+  timeoutStatus numeric(1) DEFAULT 0 NOT NULL,
+  timeoutDate   timestamp
+);
+
+CREATE TABLE SB_Workflow_InstanceRow
+(
+  instanceId    int           NOT NULL,
+  modelId       varchar(50)   NOT NULL,
+  states        varchar(2000) NULL,
+  CONSTRAINT PK_Workflow_InstanceRow PRIMARY KEY (instanceId)
+);
+
+CREATE TABLE SB_Workflow_InstanceRowItem
+(
+  instanceId    int           NOT NULL,
+  itemName      varchar(100)  NOT NULL,
+  itemValue     varchar(2000) NULL,
+  CONSTRAINT PK_Workflow_InstanceRowItem PRIMARY KEY (instanceId, itemName)
+);
+
+CREATE TABLE SB_Workflow_InstanceRowTitle
+(
+  instanceId    int           NOT NULL,
+  role          varchar(50)   NOT NULL,
+  lang          varchar(2)    NOT NULL,
+  title         varchar(2000) NULL,
+  CONSTRAINT PK_Workflow_InstanceRowTitle PRIMARY KEY (instanceId, role, lang)
+);
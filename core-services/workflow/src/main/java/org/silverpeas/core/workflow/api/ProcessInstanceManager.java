@@ -27,6 +27,8 @@ import org.silverpeas.core.util.SilverpeasList;
 import org.silverpeas.core.workflow.api.instance.Actor;
 import org.silverpeas.core.workflow.api.instance.HistoryStep;
 import org.silverpeas.core.workflow.api.instance.ProcessInstance;
+import org.silverpeas.core.workflow.api.instance.ProcessInstanceRow;
+import org.silverpeas.core.workflow.api.instance.ProcessInstanceRowCriteria;
 import org.silverpeas.core.workflow.api.model.State;
 import org.silverpeas.core.workflow.api.user.User;
 
@@ -59,6 +61,18 @@ public interface ProcessInstanceManager {
   List<ProcessInstance> getProcessInstances(String peasId, User user, String role,
       String[] userRoles, String[] groupIds) throws WorkflowException;
 
+  /**
+   * Gets the rows of the list of the process instances matching the specified criteria. The rows
+   * are read from a projection of the process instances maintained at each of their steps, so
+   * that they are filtered, sorted and paginated by the database without loading the folder of
+   * each process instance. The process instances created before the projection was maintained
+   * are projected in background, from the most recent one, and they are listed once projected.
+   * @param criteria the criteria on the rows.
+   * @return the matching rows, paginated as asked by the criteria.
+   */
+  SilverpeasList<ProcessInstanceRow> getProcessInstanceRows(ProcessInstanceRowCriteria criteria)
+      throws WorkflowException;
+
   /**
    * Get the process instances for a given instance id
    * @param instanceId id of searched instance
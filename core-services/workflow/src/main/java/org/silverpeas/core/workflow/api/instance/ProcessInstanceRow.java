@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.workflow.api.instance;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A row of the list of the process instances of a process manager component. It is a projection
+ * of a process instance onto the data displayed in the list: its title, its active states and
+ * the values of the folder items declared as columns in the presentation of the process model.
+ * The row is read from a table maintained at each step of the process instance, so that a list
+ * of process instances is got without loading the folder of each of them.
+ */
+public class ProcessInstanceRow {
+
+  private final String instanceId;
+  private final String modelId;
+  private final String title;
+  private final List<String> states;
+  private final boolean lockedByAdmin;
+  private final boolean inError;
+  private final boolean inTimeout;
+  private final Map<String, String> itemValues = new HashMap<>();
+
+  public ProcessInstanceRow(final String instanceId, final String modelId, final String title,
+      final List<String> states, final boolean lockedByAdmin, final boolean inError,
+      final boolean inTimeout) {
+    this.instanceId = instanceId;
+    this.modelId = modelId;
+    this.title = title;
+    this.states = states;
+    this.lockedByAdmin = lockedByAdmin;
+    this.inError = inError;
+    this.inTimeout = inTimeout;
+  }
+
+  /**
+   * Gets the identifier of the process instance.
+   * @return the process instance identifier.
+   */
+  public String getInstanceId() {
+    return instanceId;
+  }
+
+  /**
+   * Gets the identifier of the component instance to which the process instance belongs.
+   * @return the model identifier.
+   */
+  public String getModelId() {
+    return modelId;
+  }
+
+  /**
+   * Gets the title of the process instance as defined in the presentation of the process model
+   * for the role and in the language asked by the criteria on the rows.
+   * @return the title of the process instance.
+   */
+  public String getTitle() {
+    return title;
+  }
+
+  /**
+   * Gets the names of the active states of the process instance.
+   * @return an unmodifiable list of state names.
+   */
+  public List<String> getStates() {
+    return Collections.unmodifiableList(states);
+  }
+
+  /**
+   * Is the process instance locked by the workflow engine?
+   * @return true if locked, false otherwise.
+   */
+  public boolean isLockedByAdmin() {
+    return lockedByAdmin;
+  }
+
+  /**
+   * Is the process instance in error?
+   * @return true if in error, false otherwise.
+   */
+  public boolean isInError() {
+    return inError;
+  }
+
+  /**
+   * Is the process instance in timeout?
+   * @return true if in timeout, false otherwise.
+   */
+  public boolean isInTimeout() {
+    return inTimeout;
+  }
+
+  /**
+   * Gets the value of the specified folder item. Only the items declared as columns in the
+   * presentation of the process model are available.
+   * @param itemName the name of a folder item.
+   * @return the value of the item as it is stored in the folder or null if the item has no value.
+   */
+  public String getItemValue(final String itemName) {
+    return itemValues.get(itemName);
+  }
+
+  /**
+   * Gets the values of the folder items declared as columns in the presentation of the process
+   * model.
+   * @return an unmodifiable map of the item values by item name.
+   */
+  public Map<String, String> getItemValues() {
+    return Collections.unmodifiableMap(itemValues);
+  }
+
+  /**
+   * Sets the value of the specified folder item.
+   * @param itemName the name of a folder item.
+   * @param value the value of the item.
+   */
+  public void setItemValue(final String itemName, final String value) {
+    itemValues.put(itemName, value);
+  }
+}
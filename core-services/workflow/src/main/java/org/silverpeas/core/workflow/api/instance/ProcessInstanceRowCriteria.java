@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.workflow.api.instance;
+
+import org.silverpeas.core.admin.PaginationPage;
+import org.silverpeas.core.i18n.I18NHelper;
+import org.silverpeas.core.util.StringUtil;
+import org.silverpeas.core.workflow.api.user.User;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Criteria on the rows of the list of the process instances of a process manager component. The
+ * rows can be filtered, sorted and paginated, all of these being performed by the database.
+ * <p>
+ * Without ordering, the rows are sorted from the most recent process instance to the oldest
+ * one.
+ * </p>
+ */
+public class ProcessInstanceRowCriteria {
+
+  /**
+   * The name to use to sort the rows by title. It is the name of the title field in the records
+   * of the process instance rows.
+   */
+  public static final String TITLE = "title";
+
+  /**
+   * The name to use to sort the rows by state. It is the name of the state field in the records
+   * of the process instance rows.
+   */
+  public static final String STATE = "instance.state";
+
+  private final String modelId;
+  private User user;
+  private String role;
+  private String[] userRoles;
+  private String[] groupIds;
+  private String language;
+  private String state;
+  private String title;
+  private final Map<String, String> itemValues = new LinkedHashMap<>();
+  private String orderBy;
+  private boolean ascending = true;
+  private PaginationPage pagination;
+
+  private ProcessInstanceRowCriteria(final String modelId) {
+    this.modelId = modelId;
+  }
+
+  /**
+   * Initializes criteria on the process instances of the specified process manager component.
+   * @param modelId the identifier of the process manager component.
+   * @return an instance of process instance row criteria.
+   */
+  public static ProcessInstanceRowCriteria forModel(final String modelId) {
+    return new ProcessInstanceRowCriteria(modelId);
+  }
+
+  /**
+   * Restricts the rows to the process instances the specified user can see with the specified
+   * role, as for the lists of process instances got from the process instance manager. The title
+   * of the rows is the one defined for this role. Without this criterion, the rows of all the
+   * process instances are returned as for a supervisor.
+   * @param user the user for who the list is.
+   * @param role the role of the user for who the list is.
+   * @param userRoles all the roles of the user in the component. Can be null.
+   * @param groupIds the identifiers of the groups of the user. Can be null.
+   * @return itself.
+   */
+  public ProcessInstanceRowCriteria visibleBy(final User user, final String role,
+      final String[] userRoles, final String[] groupIds) {
+    this.user = user;
+    this.role = role;
+    this.userRoles = userRoles;
+    this.groupIds = groupIds;
+    return this;
+  }
+
+  /**
+   * Sets the language in which the title of the rows is. Without this criterion, the title is in
+   * the default language of the platform.
+   * @param language the code of a language.
+   * @return itself.
+   */
+  public ProcessInstanceRowCriteria inLanguage(final String language) {
+    this.language = language;
+    return this;
+  }
+
+  /**
+   * Restricts the rows to the process instances having the specified active state.
+   * @param stateName the name of a state.
+   * @return itself.
+   */
+  public ProcessInstanceRowCriteria inState(final String stateName) {
+    this.state = stateName;
+    return this;
+  }
+
+  /**
+   * Restricts the rows to the process instances whose title contains the specified text,
+   * whatever the case.
+   * @param text a text.
+   * @return itself.
+   */
+  public ProcessInstanceRowCriteria withTitleContaining(final String text) {
+    this.title = text;
+    return this;
+  }
+
+  /**
+   * Restricts the rows to the process instances whose specified folder item has the specified
+   * value. The item has to be declared as a column in the presentation of the process model.
+   * @param itemName the name of a folder item.
+   * @param value the value of the item as it is stored in the folder.
+   * @return itself.
+   */
+  public ProcessInstanceRowCriteria withItemValue(final String itemName, final String value) {
+    this.itemValues.put(itemName, value);
+    return this;
+  }
+
+  /**
+   * Sorts the rows by the specified name: either {@link #TITLE}, {@link #STATE} or the name of a
+   * folder item declared as a column in the presentation of the process model.
+   * @param name the name of the data to sort by.
+   * @param ascending true for an ascending order, false for a descending one.
+   * @return itself.
+   */
+  public ProcessInstanceRowCriteria orderedBy(final String name, final boolean ascending) {
+    this.orderBy = name;
+    this.ascending = ascending;
+    return this;
+  }
+
+  /**
+   * Sets the criteria of pagination.
+   * @param pagination the pagination.
+   * @return itself.
+   */
+  public ProcessInstanceRowCriteria paginatedBy(final PaginationPage pagination) {
+    this.pagination = pagination;
+    return this;
+  }
+
+  public String getModelId() {
+    return modelId;
+  }
+
+  public User getUser() {
+    return user;
+  }
+
+  public String getRole() {
+    return role;
+  }
+
+  public String[] getUserRoles() {
+    return userRoles;
+  }
+
+  public String[] getGroupIds() {
+    return groupIds;
+  }
+
+  public String getLanguage() {
+    return StringUtil.isDefined(language) ? language : I18NHelper.defaultLanguage;
+  }
+
+  public String getState() {
+    return state;
+  }
+
+  public String getTitle() {
+    return title;
+  }
+
+  public Map<String, String> getItemValues() {
+    return Collections.unmodifiableMap(itemValues);
+  }
+
+  public String getOrderBy() {
+    return orderBy;
+  }
+
+  public boolean isAscending() {
+    return ascending;
+  }
+
+  public PaginationPage getPagination() {
+    return pagination;
+  }
+}
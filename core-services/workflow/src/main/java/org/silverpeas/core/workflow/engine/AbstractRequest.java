@@ -15,6 +15,7 @@ import org.silverpeas.core.workflow.engine.instance.HistoryStepRepository;
 import org.silverpeas.core.workflow.engine.instance.ProcessInstanceImpl;
 import org.silverpeas.core.workflow.engine.instance.ProcessInstanceManagerImpl;
 import org.silverpeas.core.workflow.engine.instance.ProcessInstanceRepository;
+import org.silverpeas.core.workflow.engine.instance.ProcessInstanceRowDAO;
 
 import javax.inject.Inject;
 import java.util.Date;
@@ -110,6 +111,7 @@ public abstract class AbstractRequest implements AbstractRequestTask.Request {
           ((ProcessInstanceManagerImpl) instanceManager).removeProcessInstance(id);
         } else {
           getProcessInstanceRepository().save((ProcessInstanceImpl) processInstance);
+          ProcessInstanceRowDAO.save(processInstance);
         }
       } catch (WorkflowException we) {
         saveError(processInstance, event, we);
@@ -132,6 +134,17 @@ public abstract class AbstractRequest implements AbstractRequestTask.Request {
   protected abstract boolean processEvent(UpdatableProcessInstance instance, String stepId)
       throws WorkflowException;
 
+  /**
+   * The events of a same process instance are processed in the order they were sent whereas
+   * the events of different process instances can be processed in parallel.
+   * @return the identifier of the process instance of the event.
+   */
+  @Override
+  public Object getLaneKey() {
+    final ProcessInstance instance = event.getProcessInstance();
+    return instance != null ? instance.getInstanceId() : null;
+  }
+
   void setEvent(final GenericEvent event) {
     this.event = event;
   }
@@ -25,6 +25,7 @@ package org.silverpeas.core.workflow.engine;
 
 import org.silverpeas.core.thread.task.AbstractRequestTask;
 import org.silverpeas.core.thread.task.RequestTaskManager;
+import org.silverpeas.core.util.ResourceLocator;
 import org.silverpeas.core.util.logging.SilverLogger;
 import org.silverpeas.core.workflow.api.event.QuestionEvent;
 import org.silverpeas.core.workflow.api.event.ResponseEvent;
@@ -32,15 +33,35 @@ import org.silverpeas.core.workflow.api.event.TaskDoneEvent;
 import org.silverpeas.core.workflow.api.event.TaskSavedEvent;
 import org.silverpeas.core.workflow.api.event.TimeoutEvent;
 
+import java.util.List;
+
 /**
+ * The events of the process instances are processed over several lanes: the events are
+ * dispatched among the lanes according to the identifier of their process instance so that the
+ * process instances progress in parallel whereas the events of a same process instance are always
+ * processed in the order they were sent.
  * @author ebonnet
  */
 public class WorkflowEngineTask extends AbstractRequestTask {
 
+  private static final int DEFAULT_LANE_COUNT = 4;
+  private static final int LANE_COUNT = ResourceLocator
+      .getSettingBundle("org.silverpeas.workflow.engine.settings")
+      .getInteger("engine.lanes", DEFAULT_LANE_COUNT);
+
   private WorkflowEngineTask() {
     super();
   }
 
+  /**
+   * Gets the statistics about each lane of the workflow engine: the number of events waiting to
+   * be processed and the number of events processed so far.
+   * @return the statistics of the lanes.
+   */
+  public static List<RequestTaskManager.LaneStatistics> getLaneStatistics() {
+    return RequestTaskManager.getLaneStatistics(WorkflowEngineTask.class);
+  }
+
   /**
    * Add a request 'TaskDoneEvent'
    */
@@ -91,6 +112,11 @@ public class WorkflowEngineTask extends AbstractRequestTask {
     push(request);
   }
 
+  @Override
+  protected int getLaneCount() {
+    return LANE_COUNT;
+  }
+
   private static void push(Request request) {
     RequestTaskManager.push(WorkflowEngineTask.class, request);
   }
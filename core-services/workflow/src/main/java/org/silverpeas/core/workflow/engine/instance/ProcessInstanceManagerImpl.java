@@ -38,6 +38,8 @@ import org.silverpeas.core.workflow.api.instance.ActionStatus;
 import org.silverpeas.core.workflow.api.instance.Actor;
 import org.silverpeas.core.workflow.api.instance.HistoryStep;
 import org.silverpeas.core.workflow.api.instance.ProcessInstance;
+import org.silverpeas.core.workflow.api.instance.ProcessInstanceRow;
+import org.silverpeas.core.workflow.api.instance.ProcessInstanceRowCriteria;
 import org.silverpeas.core.workflow.api.model.State;
 import org.silverpeas.core.workflow.api.user.User;
 import org.silverpeas.core.workflow.engine.WorkflowHub;
@@ -64,6 +66,9 @@ public class ProcessInstanceManagerImpl implements UpdatableProcessInstanceManag
 
   private static final String MODEL_ID_CRITERION = "I.modelId = ?";
   private static final String SB_WORKFLOW_PROCESS_INSTANCE_TABLE = "SB_Workflow_ProcessInstance I";
+  private static final String INSTANCE_COLUMNS =
+      "I.instanceId, I.modelId, I.locked, I.errorStatus, I.timeoutStatus";
+  private static final String SUPERVISOR = "supervisor";
 
   @Inject
   private SilverpeasCalendar calendar;
@@ -85,61 +90,15 @@ public class ProcessInstanceManagerImpl implements UpdatableProcessInstanceManag
     final SilverpeasList<ProcessInstanceImpl> instances;
     final JdbcSqlQuery select;
 
-    if ("supervisor".equals(role)) {
+    if (SUPERVISOR.equals(role)) {
       select = JdbcSqlQuery
-          .createSelect("I.instanceId, I.modelId, I.locked, I.errorStatus, I.timeoutStatus")
+          .createSelect(INSTANCE_COLUMNS)
           .from(SB_WORKFLOW_PROCESS_INSTANCE_TABLE)
           .where(MODEL_ID_CRITERION, peasId)
           .orderBy("I.instanceId DESC");
     } else {
-      select = JdbcSqlQuery
-          .createSelect("*")
-          .from("(")
-
-          .addSqlPart("SELECT I.instanceId, I.modelId, I.locked, I.errorStatus, I.timeoutStatus")
-          .from("SB_Workflow_InterestedUser intUser")
-          .join(SB_WORKFLOW_PROCESS_INSTANCE_TABLE).on("I.instanceId = intUser.instanceId")
-          .where(MODEL_ID_CRITERION, peasId)
-          .and("(intUser.userId = ?", user.getUserId());
-      if (ArrayUtil.isNotEmpty(userRoles)) {
-        select
-          .or("intUser.usersRole").in(userRoles);
-      }
-      if (ArrayUtil.isNotEmpty(userGroupIds)) {
-        select
-          .or("(intUser.groupId is not null")
-          .and("intUser.groupId").in(userGroupIds)
-          .addSqlPart(")");
-      }
-      select
-          .addSqlPart(")")
-          .and("intUser.role = ?", role)
-
-          .union()
-
-          .addSqlPart("SELECT I.instanceId, I.modelId, I.locked, I.errorStatus, I.timeoutStatus")
-          .from("SB_Workflow_WorkingUser wkUser")
-          .join(SB_WORKFLOW_PROCESS_INSTANCE_TABLE).on("I.instanceId = wkUser.instanceId")
-          .where(MODEL_ID_CRITERION, peasId)
-          .and("(wkUser.userId = ?", user.getUserId());
-      if (ArrayUtil.isNotEmpty(userRoles)) {
-        select
-          .or("wkUser.usersRole").in(userRoles);
-      }
-      if (ArrayUtil.isNotEmpty(userGroupIds)) {
-        select
-          .or("(wkUser.groupId is not null")
-          .and("wkUser.groupId").in(userGroupIds)
-          .addSqlPart(")");
-      }
-      select
-          .addSqlPart(")")
-          .and("(wkUser.role = ?", role)
-          .or("wkUser.role like ?", "%," + role)
-          .or("wkUser.role like ?", role + ",%")
-          .or("wkUser.role like ?)", "%," + role + ",%")
-
-          .addSqlPart(") u")
+      select = selectVisibleInstances(INSTANCE_COLUMNS, peasId, user, role, userRoles,
+          userGroupIds)
           .orderBy("u.instanceId DESC");
     }
 
@@ -210,6 +169,84 @@ public class ProcessInstanceManagerImpl implements UpdatableProcessInstanceManag
     }
   }
 
+  @Override
+  public SilverpeasList<ProcessInstanceRow> getProcessInstanceRows(
+      ProcessInstanceRowCriteria criteria) throws WorkflowException {
+    try {
+      final JdbcSqlQuery visibleInstances;
+      if (criteria.getUser() == null || SUPERVISOR.equals(criteria.getRole())) {
+        visibleInstances = null;
+      } else {
+        visibleInstances = selectVisibleInstances("I.instanceId", criteria.getModelId(),
+            criteria.getUser(), criteria.getRole(), criteria.getUserRoles(),
+            criteria.getGroupIds());
+      }
+      return ProcessInstanceRowDAO.find(criteria, visibleInstances);
+    } catch (SQLException se) {
+      throw new WorkflowException("ProcessInstanceManagerImpl.getProcessInstanceRows",
+          "EX_ERR_GET_INSTANCES", se);
+    }
+  }
+
+  /**
+   * Builds the query selecting the specified columns of the process instances of the specified
+   * component that the specified user can see with the specified role: the ones in which the
+   * user, one of their roles or one of their groups is either interested or working.
+   */
+  private JdbcSqlQuery selectVisibleInstances(final String columns, final String peasId,
+      final User user, final String role, final String[] userRoles,
+      final String[] userGroupIds) {
+    final JdbcSqlQuery select = JdbcSqlQuery
+        .createSelect("*")
+        .from("(")
+
+        .addSqlPart("SELECT " + columns)
+        .from("SB_Workflow_InterestedUser intUser")
+        .join(SB_WORKFLOW_PROCESS_INSTANCE_TABLE).on("I.instanceId = intUser.instanceId")
+        .where(MODEL_ID_CRITERION, peasId)
+        .and("(intUser.userId = ?", user.getUserId());
+    if (ArrayUtil.isNotEmpty(userRoles)) {
+      select
+        .or("intUser.usersRole").in(userRoles);
+    }
+    if (ArrayUtil.isNotEmpty(userGroupIds)) {
+      select
+        .or("(intUser.groupId is not null")
+        .and("intUser.groupId").in(userGroupIds)
+        .addSqlPart(")");
+    }
+    select
+        .addSqlPart(")")
+        .and("intUser.role = ?", role)
+
+        .union()
+
+        .addSqlPart("SELECT " + columns)
+        .from("SB_Workflow_WorkingUser wkUser")
+        .join(SB_WORKFLOW_PROCESS_INSTANCE_TABLE).on("I.instanceId = wkUser.instanceId")
+        .where(MODEL_ID_CRITERION, peasId)
+        .and("(wkUser.userId = ?", user.getUserId());
+    if (ArrayUtil.isNotEmpty(userRoles)) {
+      select
+        .or("wkUser.usersRole").in(userRoles);
+    }
+    if (ArrayUtil.isNotEmpty(userGroupIds)) {
+      select
+        .or("(wkUser.groupId is not null")
+        .and("wkUser.groupId").in(userGroupIds)
+        .addSqlPart(")");
+    }
+    select
+        .addSqlPart(")")
+        .and("(wkUser.role = ?", role)
+        .or("wkUser.role like ?", "%," + role)
+        .or("wkUser.role like ?", role + ",%")
+        .or("wkUser.role like ?)", "%," + role + ",%")
+
+        .addSqlPart(") u");
+    return select;
+  }
+
   /**
    * Get the process instances for a given instance id
    * @param instanceId id of searched instance
@@ -234,7 +271,7 @@ public class ProcessInstanceManagerImpl implements UpdatableProcessInstanceManag
    */
   @Override
   @Transactional
-  public synchronized ProcessInstance createProcessInstance(String modelId)
+  public ProcessInstance createProcessInstance(String modelId)
       throws WorkflowException {
     ProcessInstanceImpl instance = new ProcessInstanceImpl();
     instance.setModelId(modelId);
@@ -252,6 +289,13 @@ public class ProcessInstanceManagerImpl implements UpdatableProcessInstanceManag
   public void removeProcessInstance(String instanceId) throws WorkflowException {
     ProcessInstance instance = repository.getById(instanceId);
 
+    try {
+      ProcessInstanceRowDAO.delete(instanceId);
+    } catch (SQLException e) {
+      throw new WorkflowException("ProcessInstanceManagerImpl.removeProcessInstance",
+          "EX_ERR_CANT_REMOVE_INSTANCE", e);
+    }
+
     // Delete forms data associated with this instance
     removeProcessInstanceData(instance);
 
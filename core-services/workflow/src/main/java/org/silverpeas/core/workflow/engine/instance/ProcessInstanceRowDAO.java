@@ -0,0 +1,409 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.workflow.engine.instance;
+
+import org.silverpeas.core.contribution.content.form.Field;
+import org.silverpeas.core.i18n.I18NHelper;
+import org.silverpeas.core.persistence.Transaction;
+import org.silverpeas.core.persistence.TransactionRuntimeException;
+import org.silverpeas.core.persistence.jdbc.sql.JdbcSqlQuery;
+import org.silverpeas.core.util.ListSlice;
+import org.silverpeas.core.util.StringUtil;
+import org.silverpeas.core.util.logging.SilverLogger;
+import org.silverpeas.core.workflow.api.WorkflowException;
+import org.silverpeas.core.workflow.api.instance.ProcessInstance;
+import org.silverpeas.core.workflow.api.instance.ProcessInstanceRow;
+import org.silverpeas.core.workflow.api.instance.ProcessInstanceRowCriteria;
+import org.silverpeas.core.workflow.api.model.Column;
+import org.silverpeas.core.workflow.api.model.Columns;
+import org.silverpeas.core.workflow.api.model.Presentation;
+import org.silverpeas.core.workflow.api.model.Role;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * DAO on the rows of the lists of process instances. A row is a projection of a process instance
+ * onto the data displayed in the list of the process instances: its title for each role and each
+ * supported language, its active states and the values of the folder items declared as columns
+ * in the presentation of the process model, whatever the role. The row of a process instance is
+ * saved again at each step of the process instance so that the lists are got, filtered, sorted
+ * and paginated by the database without loading the folder of each process instance.
+ * <p>
+ * The rows are modified only within a transaction. The modifications of the row of a same process
+ * instance are serialized by locking the process instance, so a row can be saved concurrently by
+ * the workflow engine and by the projection in background of the process instances created
+ * before the rows were maintained.
+ * </p>
+ */
+public class ProcessInstanceRowDAO {
+
+  private static final String ROW_TABLE = "SB_Workflow_InstanceRow";
+  private static final String ITEM_TABLE = "SB_Workflow_InstanceRowItem";
+  private static final String TITLE_TABLE = "SB_Workflow_InstanceRowTitle";
+  private static final String INSTANCE_ID = "instanceId";
+  private static final String INSTANCE_ID_CRITERION = "instanceId = ?";
+  private static final String STATE_SEPARATOR = ",";
+  private static final String SUPERVISOR = "supervisor";
+  private static final int MAX_VALUE_LENGTH = 2000;
+
+  private ProcessInstanceRowDAO() {
+  }
+
+  /**
+   * Saves the row of the specified process instance, replacing the previous one if any. It has
+   * to be invoked within a transaction.
+   * @param instance a process instance.
+   * @throws SQLException on technical error with database.
+   */
+  public static void save(final ProcessInstance instance) throws SQLException {
+    save(Projection.of(instance));
+  }
+
+  /**
+   * Saves the specified projection of a process instance as its row, replacing the previous one
+   * if any. It has to be invoked within a transaction.
+   * @param projection the projection of a process instance.
+   * @throws SQLException on technical error with database.
+   */
+  static void save(final Projection projection) throws SQLException {
+    lock(projection.instanceId);
+    final List<JdbcSqlQuery> queries = new ArrayList<>();
+    queries.add(JdbcSqlQuery.createDeleteFor(TITLE_TABLE)
+        .where(INSTANCE_ID_CRITERION, projection.instanceId));
+    queries.add(JdbcSqlQuery.createDeleteFor(ITEM_TABLE)
+        .where(INSTANCE_ID_CRITERION, projection.instanceId));
+    queries.add(JdbcSqlQuery.createDeleteFor(ROW_TABLE)
+        .where(INSTANCE_ID_CRITERION, projection.instanceId));
+    queries.addAll(insertionsOf(projection));
+    JdbcSqlQuery.executeBatch(queries);
+  }
+
+  /**
+   * Saves the specified projection of a process instance as its row only if the process instance
+   * has no row yet: a row saved meanwhile by the workflow engine is never replaced. It has to be
+   * invoked within a transaction.
+   * @param projection the projection of a process instance.
+   * @return true if the row was saved, false if the process instance has already a row.
+   * @throws SQLException on technical error with database.
+   */
+  static boolean saveIfMissing(final Projection projection) throws SQLException {
+    lock(projection.instanceId);
+    final long count = JdbcSqlQuery.createCountFor(ROW_TABLE)
+        .where(INSTANCE_ID_CRITERION, projection.instanceId)
+        .execute();
+    if (count > 0) {
+      return false;
+    }
+    JdbcSqlQuery.executeBatch(insertionsOf(projection));
+    return true;
+  }
+
+  /**
+   * Saves the rows of the most recent process instances that have no row yet. It is the case of
+   * the process instances created before the rows were maintained. Each row is saved in its own
+   * transaction so that the failure of the projection of a process instance doesn't prevent the
+   * others to be saved.
+   * @param max the maximum number of process instances to project.
+   * @param projector the function projecting the process instance with the given identifier.
+   * @return the number of saved rows.
+   * @throws SQLException on technical error with database.
+   */
+  static int saveMissingRows(final int max, final Function<String, Projection> projector)
+      throws SQLException {
+    int saved = 0;
+    for (String instanceId : getInstanceIdsWithoutRow(max)) {
+      try {
+        final boolean isSaved =
+            Transaction.performInNew(() -> saveIfMissing(projector.apply(instanceId)));
+        if (isSaved) {
+          saved++;
+        }
+      } catch (TransactionRuntimeException e) {
+        SilverLogger.getLogger(ProcessInstanceRowDAO.class)
+            .warn("The row of the process instance {0} cannot be saved: {1}", instanceId,
+                e.getMessage());
+      }
+    }
+    return saved;
+  }
+
+  /**
+   * Deletes the row of the specified process instance. It has to be invoked within a
+   * transaction.
+   * @param instanceId the identifier of a process instance.
+   * @throws SQLException on technical error with database.
+   */
+  public static void delete(final String instanceId) throws SQLException {
+    final int id = Integer.parseInt(instanceId);
+    JdbcSqlQuery.createDeleteFor(TITLE_TABLE).where(INSTANCE_ID_CRITERION, id).execute();
+    JdbcSqlQuery.createDeleteFor(ITEM_TABLE).where(INSTANCE_ID_CRITERION, id).execute();
+    JdbcSqlQuery.createDeleteFor(ROW_TABLE).where(INSTANCE_ID_CRITERION, id).execute();
+  }
+
+  /**
+   * Gets the identifiers of the most recent process instances that have no row yet.
+   * @param max the maximum number of identifiers to get.
+   * @return a list of process instance identifiers, from the most recent process instance.
+   * @throws SQLException on technical error with database.
+   */
+  static List<String> getInstanceIdsWithoutRow(final int max) throws SQLException {
+    return JdbcSqlQuery.createSelect("I.instanceId")
+        .from("SB_Workflow_ProcessInstance I")
+        .addSqlPart("LEFT OUTER JOIN " + ROW_TABLE + " R ON R.instanceId = I.instanceId")
+        .where("R.instanceId IS NULL")
+        .orderBy("I.instanceId DESC")
+        .limit(max)
+        .execute(r -> r.getString(1));
+  }
+
+  /**
+   * Finds the rows matching the specified criteria. The title of the rows is the one projected
+   * for the role and the language of the criteria.
+   * @param criteria the criteria on the rows.
+   * @param visibleInstances a query selecting the identifiers of the process instances the rows
+   * are restricted to, or null if the rows aren't restricted.
+   * @return a slice of the matching rows, with the values of their items.
+   * @throws SQLException on technical error with database.
+   */
+  static ListSlice<ProcessInstanceRow> find(final ProcessInstanceRowCriteria criteria,
+      final JdbcSqlQuery visibleInstances) throws SQLException {
+    final JdbcSqlQuery select = JdbcSqlQuery
+        .createSelect("R.instanceId, R.modelId, T.title, R.states, I.locked, I.errorStatus, " +
+            "I.timeoutStatus")
+        .from(ROW_TABLE + " R")
+        .join("SB_Workflow_ProcessInstance I").on("I.instanceId = R.instanceId")
+        .addSqlPart("LEFT OUTER JOIN " + TITLE_TABLE +
+            " T ON T.instanceId = R.instanceId AND T.role = ? AND T.lang = ?",
+            StringUtil.isDefined(criteria.getRole()) ? criteria.getRole() : SUPERVISOR,
+            criteria.getLanguage());
+    final String orderBy = criteria.getOrderBy();
+    final boolean byItem = StringUtil.isDefined(orderBy) &&
+        !ProcessInstanceRowCriteria.TITLE.equals(orderBy) &&
+        !ProcessInstanceRowCriteria.STATE.equals(orderBy);
+    if (byItem) {
+      select.addSqlPart("LEFT OUTER JOIN " + ITEM_TABLE +
+          " O ON O.instanceId = R.instanceId AND O.itemName = ?", orderBy);
+    }
+    select.where("R.modelId = ?", criteria.getModelId());
+    if (visibleInstances != null) {
+      select.and("R.instanceId IN (" + visibleInstances.getSqlQuery() + ")",
+          visibleInstances.getParameters().toArray());
+    }
+    if (StringUtil.isDefined(criteria.getState())) {
+      select.and("EXISTS (SELECT 1 FROM SB_Workflow_ActiveState S " +
+          "WHERE S.instanceId = R.instanceId AND S.state = ?)", criteria.getState());
+    }
+    if (StringUtil.isDefined(criteria.getTitle())) {
+      select.and("LOWER(T.title) LIKE ?", "%" + criteria.getTitle().toLowerCase() + "%");
+    }
+    for (Map.Entry<String, String> itemValue : criteria.getItemValues().entrySet()) {
+      select.and("EXISTS (SELECT 1 FROM " + ITEM_TABLE + " F WHERE F.instanceId = R.instanceId " +
+          "AND F.itemName = ? AND F.itemValue = ?)", itemValue.getKey(), itemValue.getValue());
+    }
+    final String direction = criteria.isAscending() ? " ASC" : " DESC";
+    if (ProcessInstanceRowCriteria.TITLE.equals(orderBy)) {
+      select.orderBy("LOWER(T.title)" + direction + ", R.instanceId DESC");
+    } else if (ProcessInstanceRowCriteria.STATE.equals(orderBy)) {
+      select.orderBy("R.states" + direction + ", R.instanceId DESC");
+    } else if (byItem) {
+      select.orderBy("O.itemValue" + direction + ", R.instanceId DESC");
+    } else {
+      select.orderBy("R.instanceId DESC");
+    }
+    if (criteria.getPagination() != null) {
+      select.withPagination(criteria.getPagination().asCriterion());
+    }
+
+    final Map<String, ProcessInstanceRow> rowsById = new HashMap<>();
+    final ListSlice<ProcessInstanceRow> rows = select.execute(r -> {
+      final String states = r.getString(4);
+      final ProcessInstanceRow row = new ProcessInstanceRow(r.getString(1), r.getString(2),
+          r.getString(3), StringUtil.isDefined(states) ?
+          Arrays.asList(states.split(STATE_SEPARATOR)) : new ArrayList<>(), r.getBoolean(5),
+          r.getBoolean(6), r.getBoolean(7));
+      rowsById.put(row.getInstanceId(), row);
+      return row;
+    });
+    final List<Integer> instanceIds =
+        rowsById.keySet().stream().map(Integer::valueOf).collect(Collectors.toList());
+    JdbcSqlQuery.executeBySplittingOn(instanceIds, (idBatch, result) -> JdbcSqlQuery
+        .createSelect("instanceId, itemName, itemValue")
+        .from(ITEM_TABLE)
+        .where(INSTANCE_ID).in(idBatch)
+        .execute(r -> {
+          rowsById.get(r.getString(1)).setItemValue(r.getString(2), r.getString(3));
+          return null;
+        }));
+    return rows;
+  }
+
+  /**
+   * Locks the specified process instance up to the end of the current transaction so that the
+   * modifications of its row are serialized: the process instance is updated without being
+   * changed.
+   */
+  private static void lock(final int instanceId) throws SQLException {
+    JdbcSqlQuery.create("UPDATE SB_Workflow_ProcessInstance SET locked = locked")
+        .where(INSTANCE_ID_CRITERION, instanceId)
+        .execute();
+  }
+
+  private static List<JdbcSqlQuery> insertionsOf(final Projection projection) {
+    final List<JdbcSqlQuery> queries = new ArrayList<>();
+    queries.add(JdbcSqlQuery.createInsertFor(ROW_TABLE)
+        .addInsertParam(INSTANCE_ID, projection.instanceId)
+        .addInsertParam("modelId", projection.modelId)
+        .addInsertParam("states", truncate(String.join(STATE_SEPARATOR, projection.states))));
+    for (Map.Entry<String, Map<String, String>> titlesOfRole : projection.titles.entrySet()) {
+      for (Map.Entry<String, String> title : titlesOfRole.getValue().entrySet()) {
+        queries.add(JdbcSqlQuery.createInsertFor(TITLE_TABLE)
+            .addInsertParam(INSTANCE_ID, projection.instanceId)
+            .addInsertParam("role", titlesOfRole.getKey())
+            .addInsertParam("lang", title.getKey())
+            .addInsertParam("title", truncate(title.getValue())));
+      }
+    }
+    for (Map.Entry<String, String> itemValue : projection.itemValues.entrySet()) {
+      queries.add(JdbcSqlQuery.createInsertFor(ITEM_TABLE)
+          .addInsertParam(INSTANCE_ID, projection.instanceId)
+          .addInsertParam("itemName", itemValue.getKey())
+          .addInsertParam("itemValue", truncate(itemValue.getValue())));
+    }
+    return queries;
+  }
+
+  private static Set<String> getRoleNames(final ProcessInstance instance) {
+    final Set<String> roleNames = new LinkedHashSet<>();
+    roleNames.add(SUPERVISOR);
+    try {
+      final Role[] roles = instance.getProcessModel().getRoles();
+      if (roles != null) {
+        for (Role role : roles) {
+          roleNames.add(role.getName());
+        }
+      }
+    } catch (WorkflowException e) {
+      SilverLogger.getLogger(ProcessInstanceRowDAO.class).warn(e);
+    }
+    return roleNames;
+  }
+
+  private static Set<String> getColumnItemNames(final ProcessInstance instance) {
+    final Set<String> itemNames = new LinkedHashSet<>();
+    try {
+      final Presentation presentation = instance.getProcessModel().getPresentation();
+      if (presentation != null) {
+        final Iterator<Columns> columnsByRole = presentation.iterateColumns();
+        while (columnsByRole.hasNext()) {
+          for (Column column : columnsByRole.next().getColumnList()) {
+            if (column.getItem() != null) {
+              itemNames.add(column.getItem().getName());
+            }
+          }
+        }
+      }
+    } catch (WorkflowException e) {
+      SilverLogger.getLogger(ProcessInstanceRowDAO.class).warn(e);
+    }
+    return itemNames;
+  }
+
+  private static String getItemValue(final ProcessInstance instance, final String itemName) {
+    try {
+      final Field field = instance.getField(itemName);
+      return field == null || field.isNull() ? null : field.getStringValue();
+    } catch (WorkflowException e) {
+      SilverLogger.getLogger(ProcessInstanceRowDAO.class).warn(e);
+      return null;
+    }
+  }
+
+  private static String truncate(final String value) {
+    return value != null && value.length() > MAX_VALUE_LENGTH ?
+        value.substring(0, MAX_VALUE_LENGTH) : value;
+  }
+
+  /**
+   * A projection of a process instance onto the data of its row.
+   */
+  static class Projection {
+    private final int instanceId;
+    private final String modelId;
+    private final List<String> states = new ArrayList<>();
+    private final Map<String, Map<String, String>> titles = new LinkedHashMap<>();
+    private final Map<String, String> itemValues = new LinkedHashMap<>();
+
+    Projection(final String instanceId, final String modelId) {
+      this.instanceId = Integer.parseInt(instanceId);
+      this.modelId = modelId;
+    }
+
+    /**
+     * Projects the specified process instance: its title is computed for each role of its
+     * process model and for each supported language.
+     * @param instance a process instance.
+     * @return the projection of the process instance.
+     */
+    static Projection of(final ProcessInstance instance) {
+      final Projection projection =
+          new Projection(instance.getInstanceId(), instance.getModelId())
+              .withStates(instance.getActiveStates());
+      for (String role : getRoleNames(instance)) {
+        for (String language : I18NHelper.getAllSupportedLanguages()) {
+          projection.withTitle(role, language, instance.getTitle(role, language));
+        }
+      }
+      for (String itemName : getColumnItemNames(instance)) {
+        projection.withItemValue(itemName, getItemValue(instance, itemName));
+      }
+      return projection;
+    }
+
+    Projection withStates(final String... states) {
+      this.states.addAll(Arrays.asList(states));
+      return this;
+    }
+
+    Projection withTitle(final String role, final String language, final String title) {
+      titles.computeIfAbsent(role, r -> new LinkedHashMap<>()).put(language, title);
+      return this;
+    }
+
+    Projection withItemValue(final String itemName, final String value) {
+      itemValues.put(itemName, value);
+      return this;
+    }
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.workflow.engine.instance;
+
+import org.silverpeas.core.initialization.Initialization;
+import org.silverpeas.core.scheduler.Job;
+import org.silverpeas.core.scheduler.JobExecutionContext;
+import org.silverpeas.core.scheduler.Scheduler;
+import org.silverpeas.core.scheduler.trigger.JobTrigger;
+import org.silverpeas.core.scheduler.trigger.TimeUnit;
+import org.silverpeas.core.util.ResourceLocator;
+import org.silverpeas.core.util.SettingBundle;
+import org.silverpeas.core.util.logging.SilverLogger;
+
+import javax.inject.Inject;
+import java.sql.SQLException;
+
+/**
+ * This JOB is in charge of projecting periodically, by batches, the process instances created
+ * before their rows were maintained for the lists of process instances. Once all the process
+ * instances projected, each execution of the job is limited to a query finding no process
+ * instance without row.
+ */
+class ProcessInstanceRowProjectionJobInitializer implements Initialization {
+
+  private static final String JOB_NAME = "WorkflowInstanceRowProjectionJob";
+  private static final int DEFAULT_DELAY = 60;
+  private static final int DEFAULT_BATCH_SIZE = 200;
+
+  @Inject
+  private Scheduler scheduler;
+
+  @Inject
+  private ProcessInstanceRepository repository;
+
+  @Override
+  public void init() throws Exception {
+    scheduler.unscheduleJob(JOB_NAME);
+    final SettingBundle settings =
+        ResourceLocator.getSettingBundle("org.silverpeas.workflow.engine.settings");
+    final int delay = settings.getInteger("projection.delay", DEFAULT_DELAY);
+    final int batchSize = settings.getInteger("projection.batchSize", DEFAULT_BATCH_SIZE);
+    if (delay > 0 && batchSize > 0) {
+      final ProcessInstanceRowProjectionJob job =
+          new ProcessInstanceRowProjectionJob(repository, batchSize);
+      scheduler.scheduleJob(job, JobTrigger.triggerEvery(delay, TimeUnit.SECOND));
+    }
+  }
+
+  @Override
+  public void release() throws Exception {
+    scheduler.unscheduleJob(JOB_NAME);
+  }
+
+  private static class ProcessInstanceRowProjectionJob extends Job {
+
+    private final ProcessInstanceRepository repository;
+    private final int batchSize;
+
+    /**
+     * Creates a new job.
+     */
+    private ProcessInstanceRowProjectionJob(final ProcessInstanceRepository repository,
+        final int batchSize) {
+      super(JOB_NAME);
+      this.repository = repository;
+      this.batchSize = batchSize;
+    }
+
+    @Override
+    public void execute(final JobExecutionContext context) {
+      try {
+        final int projected = ProcessInstanceRowDAO.saveMissingRows(batchSize,
+            instanceId -> ProcessInstanceRowDAO.Projection.of(repository.getById(instanceId)));
+        if (projected > 0) {
+          SilverLogger.getLogger(this)
+              .info("{0} process instances projected for the lists of process instances",
+                  projected);
+        }
+      } catch (SQLException e) {
+        SilverLogger.getLogger(this).error(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.silverpeas.core.workflow.engine;
+
+import org.junit.jupiter.api.Test;
+import org.silverpeas.core.workflow.api.event.GenericEvent;
+import org.silverpeas.core.workflow.api.instance.ProcessInstance;
+import org.silverpeas.core.workflow.api.instance.UpdatableProcessInstance;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests on the partitioning of the workflow events among the lanes of the workflow engine
+ * task: the events are partitioned by their process instance.
+ */
+class AbstractRequestTest {
+
+  @Test
+  void theEventsOfASameProcessInstanceShouldShareTheSameLane() {
+    final AbstractRequest first = aRequestFor(anEventOf(aProcessInstance("26")));
+    final AbstractRequest second = aRequestFor(anEventOf(aProcessInstance("26")));
+    assertThat(first.getLaneKey(), is("26"));
+    assertThat(second.getLaneKey(), is(first.getLaneKey()));
+  }
+
+  @Test
+  void theEventsOfDifferentProcessInstancesShouldBePartitionedByProcessInstance() {
+    final AbstractRequest first = aRequestFor(anEventOf(aProcessInstance("26")));
+    final AbstractRequest second = aRequestFor(anEventOf(aProcessInstance("38")));
+    assertThat(second.getLaneKey(), is("38"));
+    assertThat(second.getLaneKey(), not(first.getLaneKey()));
+  }
+
+  @Test
+  void anEventWithoutProcessInstanceShouldHaveNoLaneKey() {
+    final AbstractRequest request = aRequestFor(anEventOf(null));
+    assertThat(request.getLaneKey(), nullValue());
+  }
+
+  private static ProcessInstance aProcessInstance(final String id) {
+    final ProcessInstance instance = mock(ProcessInstance.class);
+    when(instance.getInstanceId()).thenReturn(id);
+    return instance;
+  }
+
+  private static GenericEvent anEventOf(final ProcessInstance instance) {
+    final GenericEvent event = mock(GenericEvent.class);
+    when(event.getProcessInstance()).thenReturn(instance);
+    return event;
+  }
+
+  private static AbstractRequest aRequestFor(final GenericEvent event) {
+    final AbstractRequest request = new AbstractRequest() {
+      @Override
+      protected boolean processEvent(final UpdatableProcessInstance instance,
+          final String stepId) {
+        return false;
+      }
+
+      @Override
+      public void process(final Object context) {
+        // nothing to process
+      }
+    };
+    request.setEvent(event);
+    return request;
+  }
+}
@@ -28,6 +28,8 @@ import org.silverpeas.core.contribution.attachment.AttachmentService;
 import org.silverpeas.core.util.file.FileRepositoryManager;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import javax.inject.Inject;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -82,7 +84,8 @@ public class ActifyToAttachment extends HttpServlet {
           String actifyWorkingPath = ActifyDocumentProcessor.getActifyResultPath();
           String srcFile = actifyWorkingPath + File.separator + logicalName;
           String destFile = ad.getAttachmentPath();
-
+          // the content can be shared with other documents: it must not be overwritten
+          Files.deleteIfExists(Paths.get(destFile));
           FileRepositoryManager.copyFile(srcFile, destFile);
         }
       } catch (Exception e) {
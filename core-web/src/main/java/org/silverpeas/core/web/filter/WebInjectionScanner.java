@@ -0,0 +1,515 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.web.filter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Scanner of the values of the request parameters in search of SQL or XSS injections.
+ * <p>
+ * The scanner gives the same verdicts as the following case-insensitive regular expressions
+ * applied onto the value in which each sequence of spaces is replaced by one space:
+ * </p>
+ * <ul>
+ * <li>SQL: <code>(grant|revoke)(( .*|.* )(select|insert|update|delete|references|alter|index|
+ * all))+( .*|.* )on</code>, <code>(create|drop|alter)( .*|.* )(table|database|schema)</code>,
+ * <code>select.*from</code>, <code>insert( .*|.* )into.*values</code>, <code>update.*set</code>
+ * and <code>delete( .*|.* )from</code>. The first match of an expression has to start and to
+ * end with a whole word and, for the four last ones, the value has to contain the name of a
+ * table as a whole word;</li>
+ * <li>XSS: <code>&lt;[\s/]*(script|iframe)</code>.</li>
+ * </ul>
+ * <p>
+ * Instead of running each expression, and their backtracking, onto the value, the keywords of
+ * all the expressions are found in one pass by an Aho-Corasick automaton and the match each
+ * expression would have found is then computed from the positions of these keywords. So, the
+ * scan of a value is linear in its length whatever the value, which matters for the large HTML
+ * contents posted by the WYSIWYG editor.
+ * </p>
+ */
+class WebInjectionScanner {
+
+  private static final String WORD_CHARACTERS = "-_éèçàëäüïöâêûîôµùÉÈÇÀËÄÜÏÖÂÊÛÎÔΜÙ";
+  private static final int ALPHABET_SIZE = 26;
+  private static final int NONE = -1;
+  private static final char SPACE = ' ';
+
+  private final int[][] transitions;
+  private final Keyword[][] outputs;
+
+  /**
+   * Constructs the scanner by compiling the keywords of the SQL and XSS expressions into an
+   * Aho-Corasick automaton.
+   */
+  WebInjectionScanner() {
+    final Keyword[] keywords = Keyword.values();
+    final int maxStates = 1 + Arrays.stream(keywords).mapToInt(Keyword::length).sum();
+    final int[][] next = new int[maxStates][ALPHABET_SIZE];
+    final List<List<Keyword>> found = new ArrayList<>(maxStates);
+    for (int[] row : next) {
+      Arrays.fill(row, NONE);
+      found.add(new ArrayList<>(1));
+    }
+    int stateCount = 1;
+    for (Keyword keyword : keywords) {
+      int state = 0;
+      for (char c : keyword.word.toCharArray()) {
+        final int letter = c - 'a';
+        if (next[state][letter] == NONE) {
+          next[state][letter] = stateCount++;
+        }
+        state = next[state][letter];
+      }
+      found.get(state).add(keyword);
+    }
+
+    // the failure links are computed breadth-first to complete the transitions
+    final int[] failure = new int[stateCount];
+    final Deque<Integer> queue = new ArrayDeque<>();
+    for (int letter = 0; letter < ALPHABET_SIZE; letter++) {
+      if (next[0][letter] == NONE) {
+        next[0][letter] = 0;
+      } else {
+        queue.add(next[0][letter]);
+      }
+    }
+    while (!queue.isEmpty()) {
+      final int state = queue.poll();
+      found.get(state).addAll(found.get(failure[state]));
+      for (int letter = 0; letter < ALPHABET_SIZE; letter++) {
+        final int child = next[state][letter];
+        if (child == NONE) {
+          next[state][letter] = next[failure[state]][letter];
+        } else {
+          failure[child] = next[failure[state]][letter];
+          queue.add(child);
+        }
+      }
+    }
+
+    this.transitions = Arrays.copyOf(next, stateCount);
+    this.outputs = new Keyword[stateCount][];
+    for (int state = 0; state < stateCount; state++) {
+      this.outputs[state] = found.get(state).toArray(new Keyword[0]);
+    }
+  }
+
+  /**
+   * Scans the specified value of a request parameter.
+   * @param value a value of a request parameter.
+   * @return the result of the scan from which the SQL and the XSS injections can be detected.
+   */
+  Scan scan(final String value) {
+    final Scan scan = new Scan(value.length());
+    final char[] text = scan.text;
+    int length = 0;
+    int state = 0;
+    int segment = 0;
+    boolean afterWhitespace = false;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (isWhitespace(c)) {
+        if (afterWhitespace) {
+          continue;
+        }
+        afterWhitespace = true;
+        c = SPACE;
+      } else {
+        afterWhitespace = false;
+        if (c >= 'A' && c <= 'Z') {
+          c = (char) (c + ('a' - 'A'));
+        }
+      }
+      text[length] = c;
+      if (c >= 'a' && c <= 'z') {
+        state = transitions[state][c - 'a'];
+        for (Keyword keyword : outputs[state]) {
+          scan.addOccurrence(length - keyword.length() + 1, keyword, segment);
+        }
+      } else {
+        state = 0;
+        if (isLineTerminator(c)) {
+          segment++;
+        }
+      }
+      length++;
+    }
+    scan.length = length;
+    return scan;
+  }
+
+  private static boolean isWhitespace(final char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
+  /**
+   * The line terminators the <code>.</code> of the regular expressions doesn't match. The
+   * carriage return and the line feed are missing as they are replaced by a space.
+   */
+  private static boolean isLineTerminator(final char c) {
+    return c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+
+  private static boolean isWordCharacter(final char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') ||
+        WORD_CHARACTERS.indexOf(c) >= 0;
+  }
+
+  /**
+   * The keywords of the SQL and XSS expressions.
+   */
+  private enum Keyword {
+    GRANT, REVOKE, SELECT, INSERT, UPDATE, DELETE, REFERENCES, ALTER, INDEX, ALL, ON, CREATE,
+    DROP, TABLE, DATABASE, SCHEMA, FROM, INTO, VALUES, SET, SCRIPT, IFRAME;
+
+    private final String word;
+
+    Keyword() {
+      this.word = name().toLowerCase(Locale.ROOT);
+    }
+
+    int length() {
+      return word.length();
+    }
+
+    boolean isPrivilege() {
+      return this == SELECT || this == INSERT || this == UPDATE || this == DELETE ||
+          this == REFERENCES || this == ALTER || this == INDEX || this == ALL;
+    }
+
+    boolean isResource() {
+      return this == TABLE || this == DATABASE || this == SCHEMA;
+    }
+  }
+
+  /**
+   * The result of the scan of a value: the normalized value and the keywords found in it, in
+   * the order of their end.
+   */
+  static class Scan {
+    private final char[] text;
+    private int length;
+    private int[] starts = new int[8];
+    private Keyword[] keywords = new Keyword[8];
+    private int[] segments = new int[8];
+    private int count = 0;
+
+    private Scan(final int capacity) {
+      this.text = new char[capacity];
+    }
+
+    private void addOccurrence(final int start, final Keyword keyword, final int segment) {
+      if (count == starts.length) {
+        starts = Arrays.copyOf(starts, count * 2);
+        keywords = Arrays.copyOf(keywords, count * 2);
+        segments = Arrays.copyOf(segments, count * 2);
+      }
+      starts[count] = start;
+      keywords[count] = keyword;
+      segments[count] = segment;
+      count++;
+    }
+
+    /**
+     * Is there a SQL injection in the scanned value?
+     * @param tableNames a supplier of the lowercased names of the tables of the database. It is
+     * only invoked when the verdict depends on them.
+     * @return true if a SQL injection is detected, false otherwise.
+     */
+    boolean isSqlInjection(final Supplier<Set<String>> tableNames) {
+      // per expression: null while not matched, then whether its first match is delimited by
+      // whole words
+      final Boolean[] verdicts = new Boolean[SqlExpression.values().length];
+      int from = 0;
+      while (from < count) {
+        int to = from + 1;
+        while (to < count && segments[to] == segments[from]) {
+          to++;
+        }
+        final SegmentMatches matches = new SegmentMatches(from, to);
+        for (SqlExpression expression : SqlExpression.values()) {
+          final int i = expression.ordinal();
+          if (verdicts[i] == null && matches.starts[i] != NONE) {
+            verdicts[i] = isDelimitedByWholeWords(matches.starts[i], matches.ends[i]);
+          }
+        }
+        from = to;
+      }
+      if (Boolean.TRUE.equals(verdicts[SqlExpression.GRANT_ON.ordinal()]) ||
+          Boolean.TRUE.equals(verdicts[SqlExpression.CREATE_TABLE.ordinal()])) {
+        return true;
+      }
+      final boolean tableAccess = Boolean.TRUE.equals(
+          verdicts[SqlExpression.SELECT_FROM.ordinal()]) ||
+          Boolean.TRUE.equals(verdicts[SqlExpression.INSERT_VALUES.ordinal()]) ||
+          Boolean.TRUE.equals(verdicts[SqlExpression.UPDATE_SET.ordinal()]) ||
+          Boolean.TRUE.equals(verdicts[SqlExpression.DELETE_FROM.ordinal()]);
+      return tableAccess && containsOneOf(tableNames.get());
+    }
+
+    /**
+     * Is there a XSS injection in the scanned value?
+     * @return true if a XSS injection is detected, false otherwise.
+     */
+    boolean isXssInjection() {
+      for (int o = 0; o < count; o++) {
+        if (keywords[o] == Keyword.SCRIPT || keywords[o] == Keyword.IFRAME) {
+          int i = starts[o] - 1;
+          while (i >= 0 && (text[i] == SPACE || text[i] == '/')) {
+            i--;
+          }
+          if (i >= 0 && text[i] == '<') {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    private boolean isDelimitedByWholeWords(final int start, final int end) {
+      final boolean startsWithWholeWord = start == 0 || !(isWordCharacter(text[start - 1]) ||
+          (isLineTerminator(text[start - 1]) && start > 1 && isWordCharacter(text[start - 2])));
+      final boolean endsWithWholeWord = end == length || !isWordCharacter(text[end]);
+      return startsWithWholeWord && endsWithWholeWord;
+    }
+
+    private boolean containsOneOf(final Set<String> tableNames) {
+      int i = 0;
+      while (i < length) {
+        if (isWordCharacter(text[i])) {
+          final int start = i;
+          while (i < length && isWordCharacter(text[i])) {
+            i++;
+          }
+          if (tableNames.contains(new String(text, start, i - start))) {
+            return true;
+          }
+        } else {
+          i++;
+        }
+      }
+      return false;
+    }
+
+    private boolean isSpaceAt(final int index) {
+      return index < length && text[index] == SPACE;
+    }
+
+    private boolean isSpaced(final int occurrence) {
+      return starts[occurrence] > 0 && text[starts[occurrence] - 1] == SPACE;
+    }
+
+    private int endOf(final int occurrence) {
+      return starts[occurrence] + keywords[occurrence].length();
+    }
+
+    /**
+     * The first match of each SQL expression within a segment of the value, that is a part of
+     * the value without any line terminator. With a keyword <code>K</code> ending at
+     * <code>e</code>, the expressions <code>K( .*|.* )X</code> match the last <code>X</code>
+     * after <code>e</code> when a space is at <code>e</code>, otherwise the last <code>X</code>
+     * preceded by a space.
+     */
+    private class SegmentMatches {
+      private final int[] starts = new int[SqlExpression.values().length];
+      private final int[] ends = new int[SqlExpression.values().length];
+
+      private int lastOn = NONE;
+      private int lastSpacedOn = NONE;
+      private int lastResource = NONE;
+      private int lastSpacedResource = NONE;
+      private int lastFrom = NONE;
+      private int lastSpacedFrom = NONE;
+      private int lastSet = NONE;
+      private int lastValues = NONE;
+      private int lastInto = NONE;
+      private int lastSpacedInto = NONE;
+      private int lastPrivilege = NONE;
+      private int lastSpacedPrivilege = NONE;
+
+      private SegmentMatches(final int from, final int to) {
+        Arrays.fill(starts, NONE);
+        locateEndKeywords(from, to);
+        locatePrivileges(from, to);
+        int firstSelect = NONE;
+        int firstUpdate = NONE;
+        for (int o = from; o < to; o++) {
+          final Keyword keyword = keywords[o];
+          final int start = Scan.this.starts[o];
+          final int end = endOf(o);
+          if ((keyword == Keyword.GRANT || keyword == Keyword.REVOKE) && isRepeatableFrom(end)) {
+            setMatch(SqlExpression.GRANT_ON, start, grantEnd(end));
+          }
+          if ((keyword == Keyword.CREATE || keyword == Keyword.DROP || keyword == Keyword.ALTER)) {
+            final int matchEnd = lastAfter(end, lastResource, lastSpacedResource);
+            if (matchEnd != NONE) {
+              setMatch(SqlExpression.CREATE_TABLE, start, matchEnd);
+            }
+          }
+          if (keyword == Keyword.SELECT && (firstSelect == NONE || start < firstSelect)) {
+            firstSelect = start;
+          } else if (keyword == Keyword.UPDATE && (firstUpdate == NONE || start < firstUpdate)) {
+            firstUpdate = start;
+          } else if (keyword == Keyword.INSERT &&
+              ((isSpaceAt(end) && isAfter(lastInto, end)) || isAfter(lastSpacedInto, end))) {
+            setMatch(SqlExpression.INSERT_VALUES, start,
+                Scan.this.starts[lastValues] + Keyword.VALUES.length());
+          } else if (keyword == Keyword.DELETE) {
+            final int matchEnd = lastAfter(end, lastFrom, lastSpacedFrom);
+            if (matchEnd != NONE) {
+              setMatch(SqlExpression.DELETE_FROM, start, matchEnd);
+            }
+          }
+        }
+        if (firstSelect != NONE && lastFrom != NONE &&
+            Scan.this.starts[lastFrom] >= firstSelect + Keyword.SELECT.length()) {
+          setMatch(SqlExpression.SELECT_FROM, firstSelect, endOf(lastFrom));
+        }
+        if (firstUpdate != NONE && lastSet != NONE &&
+            Scan.this.starts[lastSet] >= firstUpdate + Keyword.UPDATE.length()) {
+          setMatch(SqlExpression.UPDATE_SET, firstUpdate, endOf(lastSet));
+        }
+      }
+
+      /**
+       * Locates the last occurrences of the keywords ending the expressions.
+       */
+      private void locateEndKeywords(final int from, final int to) {
+        for (int o = from; o < to; o++) {
+          final Keyword keyword = keywords[o];
+          if (keyword == Keyword.ON) {
+            lastOn = last(lastOn, o);
+            lastSpacedOn = isSpaced(o) ? last(lastSpacedOn, o) : lastSpacedOn;
+          } else if (keyword.isResource()) {
+            lastResource = last(lastResource, o);
+            lastSpacedResource = isSpaced(o) ? last(lastSpacedResource, o) : lastSpacedResource;
+          } else if (keyword == Keyword.FROM) {
+            lastFrom = last(lastFrom, o);
+            lastSpacedFrom = isSpaced(o) ? last(lastSpacedFrom, o) : lastSpacedFrom;
+          } else if (keyword == Keyword.SET) {
+            lastSet = last(lastSet, o);
+          } else if (keyword == Keyword.VALUES) {
+            lastValues = last(lastValues, o);
+          }
+        }
+        if (lastValues != NONE) {
+          for (int o = from; o < to; o++) {
+            if (keywords[o] == Keyword.INTO &&
+                endOf(o) <= Scan.this.starts[lastValues]) {
+              lastInto = last(lastInto, o);
+              lastSpacedInto = isSpaced(o) ? last(lastSpacedInto, o) : lastSpacedInto;
+            }
+          }
+        }
+      }
+
+      /**
+       * Locates the last privilege from which the end of the grant expression is matched and
+       * the last one preceded by a space from which either the end of the expression or the
+       * previous privilege is matched. The repetition of the privileges in the grant expression
+       * always ends with one of them.
+       */
+      private void locatePrivileges(final int from, final int to) {
+        for (int o = from; o < to; o++) {
+          if (keywords[o].isPrivilege() && isOnMatchedFrom(endOf(o))) {
+            lastPrivilege = last(lastPrivilege, o);
+          }
+        }
+        for (int o = from; o < to; o++) {
+          if (keywords[o].isPrivilege() && isSpaced(o)) {
+            final int end = endOf(o);
+            if (isOnMatchedFrom(end) || (isSpaceAt(end) && isAfter(lastPrivilege, end))) {
+              lastSpacedPrivilege = last(lastSpacedPrivilege, o);
+            }
+          }
+        }
+      }
+
+      private boolean isOnMatchedFrom(final int end) {
+        return (isSpaceAt(end) && isAfter(lastOn, end)) || isAfter(lastSpacedOn, end);
+      }
+
+      private boolean isRepeatableFrom(final int end) {
+        return (isSpaceAt(end) && isAfter(lastPrivilege, end)) ||
+            isAfter(lastSpacedPrivilege, end);
+      }
+
+      private int grantEnd(final int grantEnd) {
+        int end = grantEnd;
+        while (true) {
+          if (isSpaceAt(end) && isAfter(lastPrivilege, end)) {
+            end = endOf(lastPrivilege);
+          } else if (isAfter(lastSpacedPrivilege, end)) {
+            end = endOf(lastSpacedPrivilege);
+          } else {
+            break;
+          }
+        }
+        return lastAfter(end, lastOn, lastSpacedOn);
+      }
+
+      /**
+       * Gets the end of the match of <code>( .*|.* )X</code> from the specified position.
+       * @param end the position from which the expression is matched.
+       * @param last the last occurrence of <code>X</code>.
+       * @param lastSpaced the last occurrence of <code>X</code> preceded by a space.
+       * @return the end of the match or {@link #NONE} if the expression isn't matched.
+       */
+      private int lastAfter(final int end, final int last, final int lastSpaced) {
+        if (isSpaceAt(end) && isAfter(last, end)) {
+          return endOf(last);
+        }
+        return isAfter(lastSpaced, end) ? endOf(lastSpaced) : NONE;
+      }
+
+      private boolean isAfter(final int occurrence, final int end) {
+        return occurrence != NONE && Scan.this.starts[occurrence] > end;
+      }
+
+      private int last(final int occurrence, final int other) {
+        return occurrence == NONE || Scan.this.starts[other] > Scan.this.starts[occurrence] ?
+            other : occurrence;
+      }
+
+      private void setMatch(final SqlExpression expression, final int start, final int end) {
+        final int i = expression.ordinal();
+        if (starts[i] == NONE || start < starts[i]) {
+          starts[i] = start;
+          ends[i] = end;
+        }
+      }
+    }
+  }
+
+  private enum SqlExpression {
+    GRANT_ON, CREATE_TABLE, SELECT_FROM, INSERT_VALUES, UPDATE_SET, DELETE_FROM
+  }
+}
@@ -23,11 +23,9 @@
  */
 package org.silverpeas.core.webapi.attachment;
 
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.output.ByteArrayOutputStream;
 import org.silverpeas.core.annotation.RequestScoped;
 import org.silverpeas.core.annotation.Service;
+import org.silverpeas.core.contribution.attachment.AttachmentException;
 import org.silverpeas.core.contribution.attachment.AttachmentServiceProvider;
 import org.silverpeas.core.contribution.attachment.model.SimpleDocument;
 import org.silverpeas.core.contribution.attachment.model.SimpleDocumentPK;
@@ -35,8 +33,8 @@ import org.silverpeas.core.sharing.model.Ticket;
 import org.silverpeas.core.sharing.security.ShareableAttachment;
 import org.silverpeas.core.sharing.services.SharingServiceProvider;
 import org.silverpeas.core.util.MimeTypes;
-import org.silverpeas.core.util.ZipUtil;
-import org.silverpeas.core.util.file.FileRepositoryManager;
+import org.silverpeas.core.util.StreamingZipArchive;
+import org.silverpeas.core.util.logging.SilverLogger;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
@@ -46,15 +44,14 @@ import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriBuilderException;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.net.URI;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.StringTokenizer;
-import java.util.UUID;
 
 /**
  * A REST Web resource providing access to attachments through sharing mode.
@@ -65,6 +62,7 @@ import java.util.UUID;
 public class SharedAttachmentResource extends AbstractAttachmentResource {
 
   static final String PATH = "sharing/attachments";
+  private static final String ZIP_FILE_NAME = "attachments.zip";
 
   @PathParam("token")
   private String token;
@@ -81,76 +79,102 @@ public class SharedAttachmentResource extends AbstractAttachmentResource {
     return super.getFileContent(attachmentId);
   }
 
+  /**
+   * Gets the description of the ZIP archive of the specified attachments. The archive isn't
+   * built here: it is streamed when downloaded from the URL in the description, and its size is
+   * estimated from the size of the attachments.
+   * @param attachmentIds the identifiers of the attachments, separated by commas.
+   * @return the description of the ZIP archive.
+   */
   @GET
   @Path("{ids}/zip")
   @Produces(MediaType.APPLICATION_JSON)
   public ZipEntity zipFiles(@PathParam("ids") String attachmentIds) {
-    StringTokenizer tokenizer = new StringTokenizer(attachmentIds, ",");
-    File folderToZip = FileUtils.getFile(
-        FileRepositoryManager.getTemporaryPath(), UUID.randomUUID().toString());
-    while (tokenizer.hasMoreTokens()) {
-      SimpleDocument attachment = AttachmentServiceProvider.getAttachmentService().
-          searchDocumentById(new SimpleDocumentPK(tokenizer.nextToken()), null)
-          .getLastPublicVersion();
-      if (!isFileReadable(attachment)) {
-        throw new WebApplicationException(Status.UNAUTHORIZED);
-      }
-      OutputStream out = null;
-      try {
-        out = FileUtils.openOutputStream(FileUtils.getFile(folderToZip, attachment.getFilename()));
-        AttachmentServiceProvider.getAttachmentService()
-            .getBinaryContent(out, attachment.getPk(), null);
-      } catch (IOException e) {
-        throw new WebApplicationException(Status.INTERNAL_SERVER_ERROR);
-      } finally {
-        IOUtils.closeQuietly(out);
-      }
-    }
+    List<SimpleDocument> attachments = getReadableAttachments(attachmentIds);
     try {
-      File zipFile = FileUtils.getFile(folderToZip.getPath() + ".zip");
       URI downloadUri = getUri().getWebResourcePathBuilder()
           .path(getToken())
+          .path(attachmentIds)
           .path("zipcontent")
-          .path(zipFile.getName())
           .build();
-      long size = ZipUtil.compressPathToZip(folderToZip, zipFile);
+      long size = attachments.stream().mapToLong(SimpleDocument::getSize).sum();
       return new ZipEntity(getUri().getRequestUri(), downloadUri.toString(), size);
-    } catch (IllegalArgumentException e) {
-      throw new WebApplicationException(Status.INTERNAL_SERVER_ERROR);
-    } catch (UriBuilderException e) {
-      throw new WebApplicationException(Status.INTERNAL_SERVER_ERROR);
-    } catch (IOException e) {
+    } catch (IllegalArgumentException | UriBuilderException e) {
       throw new WebApplicationException(Status.INTERNAL_SERVER_ERROR);
-    } finally {
-      FileUtils.deleteQuietly(folderToZip);
     }
   }
 
+  /**
+   * Gets the ZIP archive of the specified attachments. The archive is written on the fly into the
+   * response, while the contents of the attachments are read, and the archiving is cancelled as
+   * soon as the client disconnects.
+   * @param attachmentIds the identifiers of the attachments, separated by commas.
+   * @return the response streaming the ZIP archive.
+   */
   @GET
-  @Path("zipcontent/{name}")
-  @Produces(MediaType.APPLICATION_OCTET_STREAM)
-  public Response getZipContent(@PathParam("name") String zipFileName) {
-    String zipFilePath = FileRepositoryManager.getTemporaryPath() + zipFileName;
-    File realFile = new File(zipFilePath);
-    if (!realFile.exists() && !realFile.isFile()) {
-      return Response.ok().build();
-    } else {
-      ByteArrayOutputStream output = new ByteArrayOutputStream();
-      InputStream in = null;
+  @Path("{ids}/zipcontent")
+  @Produces(MimeTypes.SHORT_ARCHIVE_MIME_TYPE)
+  public Response getZipContent(@PathParam("ids") String attachmentIds) {
+    final List<SimpleDocument> attachments = getReadableAttachments(attachmentIds);
+    final StreamingOutput data = output -> {
+      final StreamingZipArchive zip = new StreamingZipArchive(output);
       try {
-        in = new FileInputStream(realFile);
-        output.write(in);
-        return Response.ok().entity(output.toByteArray()).type(MimeTypes.SHORT_ARCHIVE_MIME_TYPE).
-            build();
+        for (SimpleDocument attachment : attachments) {
+          zip.addEntry(attachment.getFilename(), out -> AttachmentServiceProvider
+              .getAttachmentService().getBinaryContent(out, attachment.getPk(), null));
+        }
       } catch (IOException e) {
-        throw new WebApplicationException(Status.INTERNAL_SERVER_ERROR);
-      } finally {
-        IOUtils.closeQuietly(in);
-        IOUtils.closeQuietly(output);
+        if (isClientGone(e)) {
+          SilverLogger.getLogger(this).debug("ZIP archive streaming interrupted: {0}",
+              e.getMessage());
+        } else {
+          SilverLogger.getLogger(this).error("ZIP archive streaming failure", e);
+        }
+        throw e;
+      } catch (AttachmentException e) {
+        SilverLogger.getLogger(this).error("ZIP archive streaming failure", e);
+        throw new IOException(e.getMessage(), e);
+      }
+      // the end of the archive is written only once all the attachments are in it: the response
+      // is aborted on any error so that the client doesn't get a valid but truncated archive
+      zip.close();
+    };
+    return Response.ok().entity(data).type(MimeTypes.SHORT_ARCHIVE_MIME_TYPE)
+        .header("Content-Disposition", "attachment; filename=\"" + ZIP_FILE_NAME + "\"")
+        .build();
+  }
+
+  /**
+   * Is the specified error caused by the client that has gone away while the response was
+   * streamed?
+   */
+  private static boolean isClientGone(final IOException e) {
+    Throwable error = e;
+    while (error != null) {
+      final String message = error.getMessage();
+      if (error instanceof ClosedChannelException || (message != null &&
+          (message.contains("Broken pipe") || message.contains("Connection reset")))) {
+        return true;
       }
+      error = error.getCause();
     }
+    return false;
   }
 
+  private List<SimpleDocument> getReadableAttachments(String attachmentIds) {
+    StringTokenizer tokenizer = new StringTokenizer(attachmentIds, ",");
+    List<SimpleDocument> attachments = new ArrayList<>();
+    while (tokenizer.hasMoreTokens()) {
+      SimpleDocument attachment = AttachmentServiceProvider.getAttachmentService().
+          searchDocumentById(new SimpleDocumentPK(tokenizer.nextToken()), null)
+          .getLastPublicVersion();
+      if (!isFileReadable(attachment)) {
+        throw new WebApplicationException(Status.UNAUTHORIZED);
+      }
+      attachments.add(attachment);
+    }
+    return attachments;
+  }
 
   @Override
   @SuppressWarnings("unchecked")
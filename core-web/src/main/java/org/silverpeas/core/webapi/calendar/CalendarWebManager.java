@@ -746,7 +746,12 @@ public class CalendarWebManager {
     for (int nbMonthsToAdd : getNextEventTimeWindows()) {
       occurrences.clear();
       LocalDate endDate = startDate.plusMonths(nbMonthsToAdd);
-      occurrences.addAll(getEventOccurrencesOf(startDate, endDate, calendars));
+      if (!calendars.isEmpty()) {
+        // only the first occurrences of the window are required
+        occurrences.addAll(Calendar.getTimeWindowBetween(startDate, endDate)
+            .filter(f -> f.onCalendar(calendars))
+            .getFirstEventOccurrences(nbOccLimit));
+      }
       if (!usersToInclude.isEmpty()) {
         getAllEventOccurrencesByUserIds(Pair.of(componentIds, currentRequester), startDate,
             endDate, usersToInclude).forEach((u, o) -> occurrences.addAll(o));
@@ -27,6 +27,8 @@ import org.silverpeas.core.admin.user.model.User;
 import org.silverpeas.core.notification.sse.AbstractServerEvent;
 import org.silverpeas.core.notification.sse.behavior.IgnoreStoring;
 
+import java.util.Optional;
+
 /**
  * @author Yohann Chastagnier
  */
@@ -58,4 +60,9 @@ class InitializationServerEvent extends AbstractServerEvent implements IgnoreSto
   public boolean isConcerned(final String receiverSessionId, final User receiver) {
     return emitterSessionId.equals(receiverSessionId);
   }
+
+  @Override
+  public Optional<String> getTargetedSessionId() {
+    return Optional.of(emitterSessionId);
+  }
 }
@@ -27,6 +27,8 @@ import org.silverpeas.core.admin.user.model.User;
 import org.silverpeas.core.notification.sse.AbstractServerEvent;
 import org.silverpeas.core.notification.sse.behavior.IgnoreStoring;
 
+import java.util.Optional;
+
 /**
  * @author Yohann Chastagnier
  */
@@ -66,4 +68,9 @@ class RetryServerEvent extends AbstractServerEvent implements IgnoreStoring {
   public boolean isConcerned(final String receiverSessionId, final User receiver) {
     return emitterSessionId.equals(receiverSessionId);
   }
+
+  @Override
+  public Optional<String> getTargetedSessionId() {
+    return Optional.of(emitterSessionId);
+  }
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.web.filter;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+import com.carrotsearch.junitbenchmarks.annotation.BenchmarkMethodChart;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.silverpeas.core.web.filter.WebInjectionScannerTest.RegularExpressions;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.silverpeas.core.web.filter.WebInjectionScannerTest.TABLE_NAMES;
+import static org.silverpeas.core.web.filter.WebInjectionScannerTest.largeHtmlContent;
+
+/**
+ * Benchmark of the detection of the SQL and XSS injections in a large HTML content by the
+ * {@link WebInjectionScanner} and, as before, by the regular expressions.
+ */
+@BenchmarkMethodChart
+@BenchmarkOptions(benchmarkRounds = 200, warmupRounds = 20)
+public class WebInjectionScannerBenchmarkTest {
+
+  private static final String HTML = largeHtmlContent();
+
+  @Rule
+  public TestRule benchmarkRun = new BenchmarkRule();
+
+  private final WebInjectionScanner scanner = new WebInjectionScanner();
+
+  @Test
+  public void benchmarkDetectionByTheScanner() {
+    final WebInjectionScanner.Scan scan = scanner.scan(HTML);
+    assertThat(scan.isSqlInjection(() -> TABLE_NAMES), is(false));
+    assertThat(scan.isXssInjection(), is(false));
+  }
+
+  @Test
+  public void benchmarkDetectionByTheRegularExpressionsAsBefore() {
+    assertThat(RegularExpressions.isSqlInjection(HTML), is(false));
+    assertThat(RegularExpressions.isXssInjection(HTML), is(false));
+  }
+}
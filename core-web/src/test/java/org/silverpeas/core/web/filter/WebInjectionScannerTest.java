@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2000 - 2020 Silverpeas
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * As a special exception to the terms and conditions of version 3.0 of
+ * the GPL, you may redistribute this Program in connection with Free/Libre
+ * Open Source Software ("FLOSS") applications as described in Silverpeas's
+ * FLOSS exception.  You should have received a copy of the text describing
+ * the FLOSS exception, and it is also available here:
+ * "https://www.silverpeas.org/legal/floss_exception.html"
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.silverpeas.core.web.filter;
+
+import org.junit.jupiter.api.Test;
+import org.silverpeas.core.test.UnitTest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * Checks the verdicts of the {@link WebInjectionScanner} are the ones of the regular expressions
+ * the injections were detected with before.
+ */
+@UnitTest
+class WebInjectionScannerTest {
+
+  static final Set<String> TABLE_NAMES = new HashSet<>(
+      Arrays.asList("st_space_space", "zz_st_space_space", "st_space_space_i18n", "catalogs",
+          "table_1"));
+
+  private static final String[] TOKENS =
+      {"grant", "revoke", "select", "insert", "update", "delete", "references", "alter", "index",
+          "all", "on", "create", "drop", "table", "database", "schema", "from", "into", "values",
+          "set", "script", "iframe", "GRANT", "SeLeCt", "ON", "catalogs", "st_space_space",
+          "zz_st_space_space", "i18n", "_", " ", "  ", "\t", "\n", "\r\n", ",", ";", "/", "/*",
+          "*/", "<", "s", "x", "é", "Ù", "Μ", "µ", "\u2028", "\u0085", "-", "1", "(", "'", "*",
+          "ſ", "valuess", "sets", "ons", "onx", "xon"};
+
+  private final WebInjectionScanner scanner = new WebInjectionScanner();
+
+  @Test
+  void sameVerdictsAsTheRegularExpressionsOnKnownInjections() {
+    assertSameVerdicts("<script>", "< \n\n\n\t\nscript", "<<<< \tscript\n", "< \\ script  >",
+        "</ script <br>  >", "<iframe src=\"x\">", "script");
+    assertSameVerdicts("GRANT SELECT ON suppliers TO smithj", "miGRANT SELECT ON suppliers",
+        "GRANT/* SELECT */ON suppliers FROM smithj", "GRANT/* */SELECT/* */ON suppliers",
+        "GRANT/* */ SELECT /* */ON suppliers", "GRANT /* */TOTO,SELECT,UPDATE/* */ ON suppliers",
+        "GRANT SELECTS ON suppliers", "GRANT SELECT,ON suppliers", "GRANT SELECT, ON suppliers",
+        "REVOKE SELECT , INSERT , UPDATE , DELETE ONs suppliers FROM smithj",
+        "REVOKE SELECsT, INSERsT, UPDAsTE, DELsETE ON suppliers FROM smithj");
+    assertSameVerdicts("cReAte TAble aResource", "sDROP schema aResource",
+        "Ù;ALTER DATaBase aResource", " \t\f\n ALTER sChemAs aResource");
+    assertSameVerdicts("SELECT ; FRoM catalog", "SELECT ; FRoM catalogs SELECT 1 FROM supliers",
+        "SELECT supliers; FRoM supliers SELECT 1 FROM supliers", "seLect * from st_space_space",
+        "seLect * from zz_st_space_space_i18n", "SELECT supl.* toto FRoM catalogsÄ supl",
+        "SELECT *, 'catalogs' FRoM (select toto from (select * from suppliers supl))");
+    assertSameVerdicts("INSERT inTo catalogs (id) values", "INSERT/* */inTo catalogs (id) values",
+        "INSERT/* */ inTo catalogs (id) values", "INSERT inTo catalos/* */ values",
+        "INsERT inTo catalogsô (id) values", "INSERT ino catalogs\t\f\n (id) values");
+    assertSameVerdicts("uPdaTe catalogs set", "uPdaTe catalogs sets", "uPdaTe\r\ncatalogs^y\r\nset",
+        "uPdaTe\r\nµcatalogs\r\nset", "DeleTe from catalogs", "DeleTe/* */from catalogs");
+    assertSameVerdicts("select *  from catalogs", "x select * from catalogs",
+        "é select * from catalogs", "select\u0085select * from catalogs");
+  }
+
+  @Test
+  void sameVerdictsAsTheRegularExpressionsOnGeneratedValues() {
+    final Random random = new Random(20201018L);
+    for (int i = 0; i < 100000; i++) {
+      final StringBuilder value = new StringBuilder();
+      final int tokenCount = 1 + random.nextInt(14);
+      for (int j = 0; j < tokenCount; j++) {
+        value.append(TOKENS[random.nextInt(TOKENS.length)]);
+        if (random.nextInt(3) == 0) {
+          value.append(' ');
+        }
+      }
+      assertSameVerdicts(value.toString());
+    }
+  }
+
+  @Test
+  void sameVerdictsAsTheRegularExpressionsOnLargeHtmlContents() {
+    final String html = largeHtmlContent();
+    assertSameVerdicts(html, html + "<script>alert('x')</script>",
+        html + "select * from catalogs", "<p>SELECT id</p>" + html + "<p>FROM catalogs</p>");
+  }
+
+  @Test
+  void scanIsLinearInTheLengthOfTheValue() {
+    final StringBuilder value = new StringBuilder();
+    for (int i = 0; i < 50000; i++) {
+      value.append("select grant insert delete ");
+    }
+    // the regular expressions backtrack quadratically onto such a value
+    assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+      final WebInjectionScanner.Scan scan = scanner.scan(value.toString());
+      assertThat(scan.isSqlInjection(() -> TABLE_NAMES), is(false));
+      assertThat(scan.isXssInjection(), is(false));
+    });
+  }
+
+  @Test
+  void largeHtmlContentsGetTheSameVerdictsThanWithTheRegularExpressions() {
+    assertSameVerdicts(largeHtmlContent());
+  }
+
+  static String largeHtmlContent() {
+    final StringBuilder html = new StringBuilder();
+    for (int i = 0; i < 2000; i++) {
+      html.append("<p class=\"text\">Please select an item from the list, update the settings ")
+          .append("and insert a <b>new</b> value into the form.</p>\n")
+          .append("<table><tr><td>All the values</td><td>on the index</td></tr></table>\n");
+    }
+    return html.toString();
+  }
+
+  private void assertSameVerdicts(final String... values) {
+    for (String value : values) {
+      final WebInjectionScanner.Scan scan = scanner.scan(value);
+      assertThat("SQL injection in " + value, scan.isSqlInjection(() -> TABLE_NAMES),
+          is(RegularExpressions.isSqlInjection(value)));
+      assertThat("XSS injection in " + value, scan.isXssInjection(),
+          is(RegularExpressions.isXssInjection(value)));
+    }
+  }
+
+  /**
+   * The detection of the injections as it was performed by the regular expressions.
+   */
+  static class RegularExpressions {
+
+    private static final Pattern ENDS_WITH_WORD_CHARACTER_OR_NUMERIC_PATTERN =
+        Pattern.compile("(?i)[\\w\\-_éèçàëäüïöâêûîôµùÉÈÇÀËÄÜÏÖÂÊÛÎÔΜÙ]$");
+    private static final Pattern SQL_SELECT_FROM_PATTERN = Pattern.compile("(?i)select.*from");
+    private static final Pattern SQL_INSERT_VALUES_PATTERN =
+        Pattern.compile("(?i)insert( .*|.* )into.*values");
+    private static final Pattern SQL_UPDATE_PATTERN = Pattern.compile("(?i)update.*set");
+    private static final Pattern SQL_DELETE_PATTERN = Pattern.compile("(?i)delete( .*|.* )from");
+    private static final List<Pattern> SQL_PATTERNS = Arrays.asList(Pattern.compile(
+        "(?i)(grant|revoke)" +
+            "(( .*|.* )(select|insert|update|delete|references|alter|index|all))+( .*|.* )on"),
+        Pattern.compile("(?i)(create|drop|alter)( .*|.* )(table|database|schema)"),
+        SQL_SELECT_FROM_PATTERN, SQL_INSERT_VALUES_PATTERN, SQL_UPDATE_PATTERN,
+        SQL_DELETE_PATTERN);
+    private static final Pattern XSS_PATTERN = Pattern.compile("(?i)<[\\s/]*(script|iframe)");
+    private static final Pattern TABLE_NAMES_PATTERN =
+        Pattern.compile("(?i)(" + String.join("|", TABLE_NAMES) + ")");
+
+    static boolean isSqlInjection(final String value) {
+      final String string = value.replaceAll("\\s+", " ");
+      for (Pattern pattern : SQL_PATTERNS) {
+        final Matcher matcher = pattern.matcher(string);
+        if (matcher.find() && isDelimitedByWholeWords(matcher, string)) {
+          return !isAccessingATable(pattern) || containsATableName(string);
+        }
+      }
+      return false;
+    }
+
+    static boolean isXssInjection(final String value) {
+      return XSS_PATTERN.matcher(value.replaceAll("\\s+", " ")).find();
+    }
+
+    private static boolean isAccessingATable(final Pattern pattern) {
+      return pattern == SQL_SELECT_FROM_PATTERN || pattern == SQL_INSERT_VALUES_PATTERN ||
+          pattern == SQL_UPDATE_PATTERN || pattern == SQL_DELETE_PATTERN;
+    }
+
+    private static boolean isDelimitedByWholeWords(final Matcher matcher, final String string) {
+      final boolean startsWithWholeWord = matcher.start() == 0 ||
+          !ENDS_WITH_WORD_CHARACTER_OR_NUMERIC_PATTERN.matcher(string.substring(0, matcher.start()))
+              .find();
+      final boolean endsWithWholeWord = matcher.end() == string.length() ||
+          !ENDS_WITH_WORD_CHARACTER_OR_NUMERIC_PATTERN.matcher(
+              String.valueOf(string.charAt(matcher.end()))).find();
+      return startsWithWholeWord && endsWithWholeWord;
+    }
+
+    private static boolean containsATableName(final String string) {
+      final Matcher matcher = TABLE_NAMES_PATTERN.matcher(string);
+      while (matcher.find()) {
+        if (TABLE_NAMES_PATTERN.matcher(wholeWord(matcher, string)).matches()) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private static String wholeWord(final Matcher matcher, final String string) {
+      int start = matcher.start();
+      while (start > 0 && isWordCharacter(string.charAt(start - 1))) {
+        start--;
+      }
+      int end = matcher.end();
+      while (end < string.length() && isWordCharacter(string.charAt(end))) {
+        end++;
+      }
+      return string.substring(start, end);
+    }
+
+    private static boolean isWordCharacter(final char c) {
+      return ENDS_WITH_WORD_CHARACTER_OR_NUMERIC_PATTERN.matcher(String.valueOf(c)).matches();
+    }
+  }
+}